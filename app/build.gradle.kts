@@ -26,6 +26,17 @@ android {
         }
     }
 
+    // BuildConfig.DEBUG dipakai untuk HUD metrik dan pelacakan kebocoran pool; AGP 8 tidak lagi
+    // membuatnya secara default
+    buildFeatures {
+        buildConfig = true
+    }
+
+    // Model TFLite harus tidak terkompresi agar bisa di-memory-map dari assets
+    androidResources {
+        noCompress.add("tflite")
+    }
+
     compileOptions {
         sourceCompatibility = JavaVersion.VERSION_1_8
         targetCompatibility = JavaVersion.VERSION_1_8
@@ -40,12 +51,19 @@ dependencies {
     // OkHttp untuk HTTP requests
     implementation("com.squareup.okhttp3:okhttp:4.12.0")
 
+    // Inferensi on-device (CPU + XNNPACK)
+    implementation("org.tensorflow:tensorflow-lite:2.14.0")
+
     // Activity Result API
     implementation("androidx.activity:activity:1.8.1")
 
     // Testing dependencies
     testImplementation("junit:junit:4.13.2")
+    testImplementation("org.json:json:20231013")
+    testImplementation("com.squareup.okhttp3:mockwebserver:4.12.0")
     androidTestImplementation("androidx.test.ext:junit:1.1.5")
+    // Server pengganti lokal untuk replay frame terekam
+    androidTestImplementation("com.squareup.okhttp3:mockwebserver:4.12.0")
     androidTestImplementation("androidx.test.espresso:espresso-core:3.5.1")
 
     val camerax_version = "1.3.1"
@@ -0,0 +1,166 @@
+package com.example.smartwaste;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.os.Bundle;
+import android.util.Log;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.example.smartwaste.api.EncodingPolicy;
+import com.example.smartwaste.api.RoboflowAPI;
+import com.example.smartwaste.detector.Detector;
+import com.example.smartwaste.detector.LocalDetector;
+import com.example.smartwaste.pipeline.PredictionAgreement;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * Ukuran payload vs kesesuaian deteksi untuk setiap langkah EncodingPolicy pada set gambar tetap.
+ * Deteksi frame asli (tanpa kompresi) menjadi referensi; tiap langkah di-encode, di-decode lagi,
+ * dideteksi ulang, lalu dibandingkan dengan F1 (kelas sama, IoU >= 0.5).
+ *
+ * Gambar diambil dari assets androidTest "encoding_benchmark/" atau dari folder di perangkat:
+ * -e encodingImagesDir /sdcard/Download/smartwaste. Detector lokal dipakai secara default,
+ * -e encodingDetector remote memakai Roboflow. Hasil ditulis ke logcat dan
+ * files/encoding_agreement.csv aplikasi. Dilewati jika gambar atau detector tidak tersedia.
+ */
+@RunWith(AndroidJUnit4.class)
+public class EncodingAgreementBenchmark {
+
+    private static final String TAG = "EncodingAgreement";
+    private static final String ASSET_DIR = "encoding_benchmark";
+    private static final String RESULT_FILE_NAME = "encoding_agreement.csv";
+    // Sama dengan sisi frame yang dikirim aplikasi
+    private static final int INPUT_SIZE = 416;
+    private static final float IOU_THRESHOLD = 0.5f;
+    private static final long DETECT_TIMEOUT_SECONDS = 60;
+
+    @Test
+    public void bytesVersusAgreement() throws Exception {
+        Context targetContext = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        Bundle arguments = InstrumentationRegistry.getArguments();
+
+        List<Bitmap> images = loadImages(arguments.getString("encodingImagesDir"));
+        assumeTrue("Tidak ada gambar benchmark", !images.isEmpty());
+
+        Detector detector = "remote".equals(arguments.getString("encodingDetector"))
+                ? new RoboflowAPI() : LocalDetector.create(targetContext, 4);
+        assumeTrue("Model lokal tidak tersedia", detector != null);
+
+        // Tanpa floor: seluruh tangga diukur agar floor aplikasi bisa dipilih dari hasilnya
+        List<EncodingPolicy.Step> steps = new EncodingPolicy(0, 0, 0, true).getSteps();
+        long[] totalBytes = new long[steps.size()];
+        double[] totalF1 = new double[steps.size()];
+
+        try {
+            for (Bitmap image : images) {
+                List<RoboflowAPI.Prediction> reference = detect(detector, image);
+                ByteArrayOutputStream out = new ByteArrayOutputStream();
+                for (int i = 0; i < steps.size(); i++) {
+                    out.reset();
+                    assertTrue(RoboflowAPI.compress(image, steps.get(i), out));
+                    Bitmap decoded = BitmapFactory.decodeByteArray(out.toByteArray(), 0, out.size());
+                    assertNotNull("Gagal decode " + steps.get(i), decoded);
+                    totalBytes[i] += out.size();
+                    totalF1[i] += PredictionAgreement.f1(reference, detect(detector, decoded), IOU_THRESHOLD);
+                    decoded.recycle();
+                }
+            }
+        } finally {
+            detector.close();
+        }
+
+        File result = new File(targetContext.getFilesDir(), RESULT_FILE_NAME);
+        try (Writer writer = new OutputStreamWriter(new FileOutputStream(result), StandardCharsets.UTF_8)) {
+            writer.write("codec,quality,mean_bytes,mean_f1\n");
+            for (int i = 0; i < steps.size(); i++) {
+                EncodingPolicy.Step step = steps.get(i);
+                double meanBytes = (double) totalBytes[i] / images.size();
+                double meanF1 = totalF1[i] / images.size();
+                writer.write(String.format(Locale.US, "%s,%d,%.0f,%.3f\n",
+                        step.codec.name().toLowerCase(Locale.US), step.quality, meanBytes, meanF1));
+                Log.i(TAG, String.format(Locale.US, "%-8s %8.1f KB  f1 %.3f  (%d gambar)",
+                        step, meanBytes / 1024.0, meanF1, images.size()));
+            }
+        }
+        Log.i(TAG, "Hasil ditulis ke " + result);
+    }
+
+    private static List<RoboflowAPI.Prediction> detect(Detector detector, Bitmap bitmap) throws InterruptedException {
+        CountDownLatch done = new CountDownLatch(1);
+        List<RoboflowAPI.Prediction> result = new ArrayList<>();
+        String[] error = new String[1];
+        detector.detect(bitmap, new RoboflowAPI.ApiCallback() {
+            @Override
+            public void onSuccess(List<RoboflowAPI.Prediction> predictions) {
+                result.addAll(predictions);
+                done.countDown();
+            }
+
+            @Override
+            public void onError(String message) {
+                error[0] = message;
+                done.countDown();
+            }
+        });
+        assertTrue("Deteksi timeout", done.await(DETECT_TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        assertNull(error[0], error[0]);
+        return result;
+    }
+
+    private static List<Bitmap> loadImages(String deviceDir) throws IOException {
+        List<Bitmap> images = new ArrayList<>();
+        if (deviceDir != null) {
+            File[] files = new File(deviceDir).listFiles();
+            if (files == null) return images;
+            Arrays.sort(files);
+            for (File file : files) {
+                addScaled(images, BitmapFactory.decodeFile(file.getPath()));
+            }
+            return images;
+        }
+        Context testContext = InstrumentationRegistry.getInstrumentation().getContext();
+        String[] names = testContext.getAssets().list(ASSET_DIR);
+        if (names == null) return images;
+        Arrays.sort(names);
+        for (String name : names) {
+            try (InputStream in = testContext.getAssets().open(ASSET_DIR + "/" + name)) {
+                addScaled(images, BitmapFactory.decodeStream(in));
+            }
+        }
+        return images;
+    }
+
+    // Bukan gambar (null) dilewati; sisi terpanjang diskalakan ke INPUT_SIZE seperti frame kamera
+    private static void addScaled(List<Bitmap> images, Bitmap bitmap) {
+        if (bitmap == null) return;
+        float scale = (float) INPUT_SIZE / Math.max(bitmap.getWidth(), bitmap.getHeight());
+        Bitmap scaled = Bitmap.createScaledBitmap(bitmap,
+                Math.max(1, Math.round(bitmap.getWidth() * scale)),
+                Math.max(1, Math.round(bitmap.getHeight() * scale)), true);
+        if (scaled != bitmap) bitmap.recycle();
+        images.add(scaled);
+    }
+}
@@ -0,0 +1,260 @@
+package com.example.smartwaste;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.os.Bundle;
+import android.os.Debug;
+import android.os.SystemClock;
+import android.util.Log;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.example.smartwaste.api.EncodingPolicy;
+import com.example.smartwaste.api.PredictionBatch;
+import com.example.smartwaste.api.RoboflowAPI;
+import com.example.smartwaste.detector.Detector;
+import com.example.smartwaste.detector.LocalDetector;
+import com.example.smartwaste.image.FramePreprocessor;
+import com.example.smartwaste.image.PlaneLayout;
+import com.example.smartwaste.image.YuvFrame;
+import com.example.smartwaste.metrics.PipelineMetrics;
+import com.example.smartwaste.pipeline.DetectionCache;
+import com.example.smartwaste.pipeline.PostProcessor;
+import com.example.smartwaste.pool.BitmapPool;
+import com.example.smartwaste.pool.MemoryBudget;
+import com.example.smartwaste.pool.ResourcePool;
+import com.example.smartwaste.replay.FrameRecording;
+import com.example.smartwaste.replay.ReplayDriver;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStreamWriter;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+
+import static org.junit.Assert.*;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * Memutar ulang rekaman frame kamera (FrameRecorder, MainActivity.FRAME_RECORDING_ENABLED) lewat
+ * jalur yang sama dengan analyzer: salin plane ke YuvFrame → FramePreprocessor → bitmap pool +
+ * hash → encode → detect → PostProcessor, tanpa kamera dan tanpa UI.
+ *
+ * Argumen instrumentasi:
+ * -e replayFile <path> (default files/frames.swcr aplikasi),
+ * -e replaySpeed recorded|max (default max),
+ * -e replayDetector server|stub|local (default server: RoboflowAPI ke MockWebServer lokal dengan
+ * respons workflow tetap; stub: encode saja lalu hasil kosong; local: model TFLite),
+ * -e replayLoops <n> (default 1).
+ * Frame/detik, histogram per tahap dan total alokasi ditulis ke logcat dan files/replay_report.txt.
+ */
+@RunWith(AndroidJUnit4.class)
+public class ReplayThroughputBenchmark {
+
+    private static final String TAG = "ReplayThroughput";
+    private static final String DEFAULT_FILE_NAME = "frames.swcr";
+    private static final String REPORT_FILE_NAME = "replay_report.txt";
+    // Sama dengan konfigurasi MainActivity
+    private static final int INPUT_SIZE = 416;
+    private static final int MAX_IN_FLIGHT = 3;
+    private static final long POOL_MAX_BYTES = 24L * 1024 * 1024;
+    private static final long IDLE_TIMEOUT_SECONDS = 120;
+    private static final String WORKFLOW_RESPONSE = "{\"outputs\":[{\"count_objects\":3,\"predictions\":{"
+            + "\"image\":{\"width\":416,\"height\":312},\"predictions\":["
+            + "{\"x\":100,\"y\":120,\"width\":60,\"height\":80,\"confidence\":0.91,\"class\":\"anorganik\"},"
+            + "{\"x\":104,\"y\":118,\"width\":58,\"height\":82,\"confidence\":0.64,\"class\":\"anorganik\"},"
+            + "{\"x\":300,\"y\":200,\"width\":40,\"height\":40,\"confidence\":0.77,\"class\":\"organik\"}]}}]}";
+
+    @Test
+    public void replayRecordedFrames() throws Exception {
+        Context targetContext = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        Bundle arguments = InstrumentationRegistry.getArguments();
+
+        String path = arguments.getString("replayFile");
+        File file = path != null ? new File(path) : new File(targetContext.getFilesDir(), DEFAULT_FILE_NAME);
+        assumeTrue("Rekaman tidak ditemukan: " + file, file.isFile());
+        boolean realtime = "recorded".equals(arguments.getString("replaySpeed"));
+        String detectorName = arguments.getString("replayDetector", "server");
+        int loops = Integer.parseInt(arguments.getString("replayLoops", "1"));
+
+        PipelineMetrics metrics = new PipelineMetrics();
+        MockWebServer server = null;
+        Detector detector;
+        switch (detectorName) {
+            case "stub":
+                detector = new EncodeOnlyDetector(metrics);
+                break;
+            case "local":
+                detector = LocalDetector.create(targetContext, 4);
+                assumeTrue("Model lokal tidak tersedia", detector != null);
+                ((LocalDetector) detector).setMetrics(metrics);
+                break;
+            default:
+                server = new MockWebServer();
+                server.setDispatcher(new Dispatcher() {
+                    @Override
+                    public MockResponse dispatch(RecordedRequest request) {
+                        return new MockResponse().setBody(WORKFLOW_RESPONSE);
+                    }
+                });
+                server.start();
+                RoboflowAPI api = new RoboflowAPI(server.url("/infer").toString());
+                api.setMetrics(metrics);
+                detector = api;
+                break;
+        }
+
+        ReplayDriver.Report report;
+        try (FrameRecording recording = FrameRecording.open(file)) {
+            assumeTrue("Rekaman kosong", recording.size() > 0);
+            PipelineSink sink = new PipelineSink(detector, metrics);
+            report = new ReplayDriver(metrics, ReplayThroughputBenchmark::allocatedBytes)
+                    .run(recording, sink, realtime, loops);
+            assertEquals(0, sink.failures.get());
+        } finally {
+            detector.close();
+            if (server != null) server.shutdown();
+        }
+
+        StringWriter text = new StringWriter();
+        text.write(String.format(Locale.US, "detector=%s speed=%s loops=%d file=%s\n",
+                detectorName, realtime ? "recorded" : "max", loops, file));
+        report.writeTo(text);
+        File result = new File(targetContext.getFilesDir(), REPORT_FILE_NAME);
+        try (Writer writer = new OutputStreamWriter(new FileOutputStream(result), StandardCharsets.UTF_8)) {
+            writer.write(text.toString());
+        }
+        Log.i(TAG, report.summary());
+        for (String line : metrics.buildHudLines()) Log.i(TAG, line);
+        Log.i(TAG, "Laporan ditulis ke " + result);
+    }
+
+    // Total byte yang dialokasikan runtime ART sejak proses mulai (API 23+)
+    private static long allocatedBytes() {
+        String value = Debug.getRuntimeStat("art.gc.bytes-allocated");
+        try {
+            return value != null ? Long.parseLong(value) : -1;
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    /** Bagian analyzer MainActivity setelah gerbang adegan, dengan slot in-flight yang sama. */
+    private static final class PipelineSink implements ReplayDriver.FrameSink {
+        private final Detector detector;
+        private final PipelineMetrics metrics;
+        private final YuvFrame yuvFrame = new YuvFrame();
+        // Di-probe sekali per ukuran frame seperti analyzer
+        private PlaneLayout planeLayout;
+        private final FramePreprocessor preprocessor = new FramePreprocessor(INPUT_SIZE, FramePreprocessor.Mode.AREA);
+        private final BitmapPool bitmapPool = new BitmapPool("replay", new MemoryBudget(POOL_MAX_BYTES, false));
+        private final PostProcessor postProcessor = new PostProcessor(0.3f, 0.5f, true, 50);
+        private final Semaphore slots = new Semaphore(MAX_IN_FLIGHT);
+        final AtomicInteger failures = new AtomicInteger();
+
+        PipelineSink(Detector detector, PipelineMetrics metrics) {
+            this.detector = detector;
+            this.metrics = metrics;
+        }
+
+        @Override
+        public void onFrame(FrameRecording.Frame frame) throws InterruptedException {
+            slots.acquire();
+            long captureTime = SystemClock.elapsedRealtime();
+
+            long start = PipelineMetrics.now();
+            if (planeLayout == null || !planeLayout.definitive || !planeLayout.matches(frame.width, frame.height,
+                    frame.yRowStride, frame.yPixelStride, frame.uvRowStride, frame.uvPixelStride)) {
+                planeLayout = PlaneLayout.probe(frame.y, frame.yRowStride, frame.yPixelStride, frame.u, frame.v,
+                        frame.uvRowStride, frame.uvPixelStride, frame.width, frame.height);
+            }
+            yuvFrame.copyFrom(planeLayout, frame.y, frame.u, frame.v);
+            metrics.record(PipelineMetrics.Stage.CONVERT, start);
+
+            start = PipelineMetrics.now();
+            int[] pixels = preprocessor.process(yuvFrame, frame.rotationDegrees);
+            int width = preprocessor.getOutputWidth();
+            int height = preprocessor.getOutputHeight();
+            ResourcePool.Lease<Bitmap> lease = bitmapPool.acquire(width, height, Bitmap.Config.ARGB_8888);
+            preprocessor.copyTo(lease.get());
+            DetectionCache.computeHash(pixels, width, height);
+            metrics.record(PipelineMetrics.Stage.PREPROCESS, start);
+
+            metrics.increment(PipelineMetrics.Counter.FRAMES_SENT);
+            detector.detect(lease.get(), captureTime, new RoboflowAPI.ApiCallback() {
+                @Override
+                public void onSuccess(List<RoboflowAPI.Prediction> predictions) {
+                    onSuccess(PredictionBatch.fromPredictions(predictions));
+                }
+
+                @Override
+                public void onSuccess(PredictionBatch predictions) {
+                    long filterStart = PipelineMetrics.now();
+                    PredictionBatch filtered = postProcessor.process(predictions);
+                    metrics.record(PipelineMetrics.Stage.FILTER, filterStart);
+                    metrics.add(PipelineMetrics.Counter.PREDICTIONS_FILTERED, predictions.size() - filtered.size());
+                    metrics.increment(PipelineMetrics.Counter.FRAMES_RENDERED);
+                    finish();
+                }
+
+                @Override
+                public void onError(String error) {
+                    Log.w(TAG, "Frame #" + frame.index + " gagal: " + error);
+                    metrics.increment(PipelineMetrics.Counter.FRAMES_FAILED);
+                    failures.incrementAndGet();
+                    finish();
+                }
+
+                private void finish() {
+                    metrics.recordDuration(PipelineMetrics.Stage.END_TO_END,
+                            TimeUnit.MILLISECONDS.toNanos(SystemClock.elapsedRealtime() - captureTime));
+                    lease.release();
+                    slots.release();
+                }
+            });
+        }
+
+        @Override
+        public void awaitIdle() throws InterruptedException {
+            assertTrue("Deteksi tidak selesai", slots.tryAcquire(MAX_IN_FLIGHT, IDLE_TIMEOUT_SECONDS, TimeUnit.SECONDS));
+            slots.release(MAX_IN_FLIGHT);
+        }
+    }
+
+    /** Encode JPEG 95 seperti RoboflowAPI tanpa mengirim; hasil selalu kosong. */
+    private static final class EncodeOnlyDetector implements Detector {
+        private final PipelineMetrics metrics;
+        private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        private final EncodingPolicy.Step step = new EncodingPolicy(0, 0, 0, false).getSteps().get(0);
+
+        EncodeOnlyDetector(PipelineMetrics metrics) {
+            this.metrics = metrics;
+        }
+
+        @Override
+        public Cancellable detect(Bitmap bitmap, RoboflowAPI.ApiCallback callback) {
+            long start = PipelineMetrics.now();
+            out.reset();
+            RoboflowAPI.compress(bitmap, step, out);
+            metrics.record(PipelineMetrics.Stage.ENCODE, start);
+            callback.onSuccess(new PredictionBatch(0));
+            return Cancellable.NONE;
+        }
+    }
+}
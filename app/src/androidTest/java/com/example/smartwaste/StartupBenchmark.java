@@ -0,0 +1,106 @@
+package com.example.smartwaste;
+
+import android.Manifest;
+import android.app.Instrumentation;
+import android.content.Context;
+import android.os.SystemClock;
+import android.util.Log;
+
+import androidx.test.core.app.ActivityScenario;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.example.smartwaste.metrics.PipelineMetrics;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStreamWriter;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Locale;
+
+import static org.junit.Assert.*;
+
+/**
+ * Time-to-first-detection: MainActivity diluncurkan berulang kali dan milestone startup
+ * (PipelineMetrics.Milestone) dibaca sampai hasil deteksi pertama digambar. Semua waktu diukur
+ * dari saat launch dipanggil. Membutuhkan kamera belakang yang mengarah ke sebuah adegan dan
+ * koneksi ke backend (atau model lokal); peluncuran pertama paling dekat dengan cold start.
+ *
+ * Argumen instrumentasi: -e startupRuns <n> (default 5).
+ * Median dan maksimum per milestone ditulis ke logcat dan files/startup_report.txt.
+ */
+@RunWith(AndroidJUnit4.class)
+public class StartupBenchmark {
+
+    private static final String TAG = "StartupBenchmark";
+    private static final String REPORT_FILE_NAME = "startup_report.txt";
+    private static final long FIRST_DETECTION_TIMEOUT_MS = 30_000;
+    private static final long POLL_INTERVAL_MS = 10;
+
+    @Test
+    public void timeToFirstDetection() throws Exception {
+        Instrumentation instrumentation = InstrumentationRegistry.getInstrumentation();
+        Context targetContext = instrumentation.getTargetContext();
+        int runs = Integer.parseInt(InstrumentationRegistry.getArguments().getString("startupRuns", "5"));
+        // Izin diberikan lebih dulu supaya dialog izin kamera tidak ikut terukur
+        instrumentation.getUiAutomation().executeShellCommand(
+                "pm grant " + targetContext.getPackageName() + " " + Manifest.permission.CAMERA).close();
+
+        PipelineMetrics.Milestone[] milestones = PipelineMetrics.Milestone.values();
+        // Milidetik sejak launch per milestone per run; -1 jika tidak tercapai
+        long[][] samples = new long[milestones.length][runs];
+        for (int run = 0; run < runs; run++) {
+            long launchNanos = PipelineMetrics.now();
+            try (ActivityScenario<MainActivity> scenario = ActivityScenario.launch(MainActivity.class)) {
+                PipelineMetrics[] metrics = new PipelineMetrics[1];
+                scenario.onActivity(activity -> metrics[0] = activity.getPipelineMetrics());
+                long deadline = SystemClock.elapsedRealtime() + FIRST_DETECTION_TIMEOUT_MS;
+                while (metrics[0].getMilestoneNanos(PipelineMetrics.Milestone.FIRST_DETECTION) < 0
+                        && SystemClock.elapsedRealtime() < deadline) {
+                    SystemClock.sleep(POLL_INTERVAL_MS);
+                }
+                assertTrue("Tidak ada deteksi dalam " + FIRST_DETECTION_TIMEOUT_MS + " ms (run " + run + ")",
+                        metrics[0].getMilestoneNanos(PipelineMetrics.Milestone.FIRST_DETECTION) >= 0);
+
+                // Run pertama memakai awal proses instrumentasi sebagai titik nol, jadi semua
+                // milestone dipindahkan ke skala waktu launch
+                long origin = metrics[0].getStartupNanos();
+                for (int i = 0; i < milestones.length; i++) {
+                    long nanos = metrics[0].getMilestoneNanos(milestones[i]);
+                    samples[i][run] = nanos < 0 ? -1 : (origin + nanos - launchNanos) / 1_000_000;
+                }
+            }
+        }
+
+        StringWriter text = new StringWriter();
+        text.write(String.format(Locale.US, "runs=%d (run 0 = cold)\n", runs));
+        for (int i = 0; i < milestones.length; i++) {
+            text.write(String.format(Locale.US, "%s median=%s max=%s runs=%s\n",
+                    milestones[i].name().toLowerCase(Locale.US), format(percentile(samples[i], 0.5)),
+                    format(percentile(samples[i], 1.0)), Arrays.toString(samples[i])));
+        }
+        File result = new File(targetContext.getFilesDir(), REPORT_FILE_NAME);
+        try (Writer writer = new OutputStreamWriter(new FileOutputStream(result), StandardCharsets.UTF_8)) {
+            writer.write(text.toString());
+        }
+        for (String line : text.toString().split("\n")) Log.i(TAG, line);
+        Log.i(TAG, "Laporan ditulis ke " + result);
+    }
+
+    // Hanya dari run yang mencapai milestone; -1 jika tidak ada
+    private static long percentile(long[] values, double fraction) {
+        long[] reached = Arrays.stream(values).filter(value -> value >= 0).sorted().toArray();
+        if (reached.length == 0) return -1;
+        return reached[(int) Math.min(reached.length - 1, Math.round(fraction * (reached.length - 1)))];
+    }
+
+    private static String format(long ms) {
+        return ms < 0 ? "-" : ms + "ms";
+    }
+}
@@ -0,0 +1,92 @@
+package com.example.smartwaste.api;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Jalur parser lengkap (android.util.JsonReader di atas LongStringTruncatingReader); JsonReader
+ * hanya tersedia di perangkat, jadi test ini instrumented.
+ */
+@RunWith(AndroidJUnit4.class)
+public class WorkflowResponseParserTest {
+
+    // Sumber yang hanya memberi tiga karakter per read()
+    private static final class ChunkedReader extends Reader {
+        private final String text;
+        private int pos;
+
+        ChunkedReader(String text) {
+            this.text = text;
+        }
+
+        @Override
+        public int read(char[] cbuf, int off, int len) {
+            if (pos == text.length()) return -1;
+            int n = Math.min(Math.min(len, 3), text.length() - pos);
+            text.getChars(pos, pos + n, cbuf, off);
+            pos += n;
+            return n;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    private static String response(int visualizationLength) {
+        StringBuilder image = new StringBuilder(visualizationLength);
+        for (int i = 0; i < visualizationLength; i++) image.append((char) ('A' + i % 26));
+        return "{\"outputs\":[{\"visualization\":{\"type\":\"base64\",\"value\":\"" + image + "\"},"
+                + "\"predictions\":{\"image\":{\"width\":640,\"height\":480},\"predictions\":["
+                + "{\"class\":\"organik\",\"confidence\":0.91,\"x\":100,\"y\":50,\"width\":40,\"height\":20},"
+                + "{\"class\":\"B3\",\"confidence\":\"0.5\",\"x\":10.5,\"y\":20,\"width\":5,\"height\":8,"
+                + "\"points\":[1,2,3]},"
+                + "{\"class\":\"anorganik\",\"confidence\":0.7,\"x\":1,\"y\":1,\"width\":0,\"height\":4}"
+                + "]}}]}";
+    }
+
+    private static void assertPredictions(PredictionBatch batch) {
+        // Kotak dengan lebar 0 dibuang
+        assertEquals(2, batch.size());
+        assertEquals(LabelTable.intern("organik"), batch.classId(0));
+        assertEquals(0.91f, batch.confidence(0), 1e-6f);
+        assertEquals(80f, batch.left(0), 1e-6f);
+        assertEquals(40f, batch.top(0), 1e-6f);
+        assertEquals(120f, batch.right(0), 1e-6f);
+        assertEquals(60f, batch.bottom(0), 1e-6f);
+        assertEquals(LabelTable.intern("B3"), batch.classId(1));
+        assertEquals(0.5f, batch.confidence(1), 1e-6f);
+        assertEquals(8f, batch.left(1), 1e-6f);
+    }
+
+    @Test
+    public void largeVisualization_isSkippedAndPredictionsAreRead() throws IOException {
+        assertPredictions(WorkflowResponseParser.parse(new StringReader(response(2_000_000))));
+    }
+
+    @Test
+    public void responseSplitAcrossReads_parsesTheSame() throws IOException {
+        assertPredictions(WorkflowResponseParser.parse(new ChunkedReader(response(1000))));
+    }
+
+    @Test
+    public void batchResponse_keepsOneBatchPerOutput() throws IOException {
+        String single = response(10);
+        String outputs = single.substring("{\"outputs\":[".length(), single.length() - 2);
+        List<PredictionBatch> batches = WorkflowResponseParser.parseBatch(
+                new StringReader("{\"outputs\":[" + outputs + ",null," + outputs + "]}"));
+        assertEquals(3, batches.size());
+        assertPredictions(batches.get(0));
+        assertTrue(batches.get(1).isEmpty());
+        assertPredictions(batches.get(2));
+    }
+}
@@ -0,0 +1,147 @@
+package com.example.smartwaste.detector;
+
+import android.graphics.Bitmap;
+import android.graphics.Color;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import com.example.smartwaste.api.PredictionBatch;
+import com.example.smartwaste.api.RoboflowAPI;
+import com.example.smartwaste.pipeline.RoiPlanner;
+import com.example.smartwaste.pool.BitmapPool;
+import com.example.smartwaste.pool.MemoryBudget;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * RoiDetector menggambar crop lewat Canvas, jadi dijalankan di perangkat. Delegate palsu
+ * mencatat setiap bitmap yang dikirim dan langsung menjawab dengan kotak yang disiapkan.
+ */
+@RunWith(AndroidJUnit4.class)
+public class RoiDetectorInstrumentedTest {
+
+    private static final int SIZE = 416;
+    private static final short PLASTIC = 1;
+
+    private final RoiPlanner planner = new RoiPlanner(0.2f, 16, 96, 3, 0.5f);
+    private final FakeDetector delegate = new FakeDetector();
+    private Bitmap frame;
+    private RoiDetector detector;
+
+    private static final class FakeDetector implements Detector {
+        final List<int[]> sizes = new ArrayList<>();
+        final List<Bitmap> bitmaps = new ArrayList<>();
+        PredictionBatch next = new PredictionBatch();
+
+        @Override
+        public Cancellable detect(Bitmap bitmap, RoboflowAPI.ApiCallback callback) {
+            sizes.add(new int[] {bitmap.getWidth(), bitmap.getHeight()});
+            bitmaps.add(bitmap);
+            callback.onSuccess(next);
+            return Cancellable.NONE;
+        }
+    }
+
+    private static final class Result implements RoboflowAPI.ApiCallback {
+        PredictionBatch predictions;
+        String error;
+
+        @Override
+        public void onSuccess(List<RoboflowAPI.Prediction> predictions) {
+            onSuccess(PredictionBatch.fromPredictions(predictions));
+        }
+
+        @Override
+        public void onSuccess(PredictionBatch predictions) {
+            this.predictions = predictions;
+        }
+
+        @Override
+        public void onError(String error) {
+            this.error = error;
+        }
+    }
+
+    private static PredictionBatch box(float left, float top, float right, float bottom) {
+        PredictionBatch batch = new PredictionBatch();
+        batch.add(PLASTIC, 0.9f, left, top, right, bottom);
+        return batch;
+    }
+
+    @Before
+    public void setUp() {
+        frame = Bitmap.createBitmap(SIZE, SIZE, Bitmap.Config.ARGB_8888);
+        frame.eraseColor(Color.GRAY);
+        // Crop 96 px diperbesar 2x ke 192 px
+        detector = new RoiDetector(delegate, planner, new BitmapPool("test", new MemoryBudget(8L << 20, false)),
+                12f, 60_000, 192, 2f);
+    }
+
+    @After
+    public void tearDown() {
+        frame.recycle();
+    }
+
+    private Result detect(long capturedAtMs) {
+        Result result = new Result();
+        detector.detect(frame, capturedAtMs, result);
+        assertNull(result.error);
+        assertNotNull(result.predictions);
+        return result;
+    }
+
+    @Test
+    public void cropResult_isMappedBackToFullFrame() {
+        delegate.next = box(100, 100, 140, 140);
+        detect(0);
+        assertSame(frame, delegate.bitmaps.get(0));
+
+        // Frame tidak berubah, jadi satu-satunya ROI adalah kotak terakhir
+        int[] crop = planner.plan(Collections.singletonList(new float[] {100, 100, 140, 140}), SIZE, SIZE).get(0);
+        assertEquals(96, crop[2] - crop[0]);
+        delegate.next = box(0, 0, 192, 192);
+        delegate.next.add(PLASTIC, 0.5f, 20, 40, 60, 100);
+        Result result = detect(100);
+
+        assertEquals(2, delegate.sizes.size());
+        assertArrayEquals(new int[] {192, 192}, delegate.sizes.get(1));
+        assertEquals(2, result.predictions.size());
+        assertEquals(crop[0], result.predictions.left(0), 1e-3f);
+        assertEquals(crop[1], result.predictions.top(0), 1e-3f);
+        assertEquals(crop[2], result.predictions.right(0), 1e-3f);
+        assertEquals(crop[3], result.predictions.bottom(0), 1e-3f);
+        assertEquals(crop[0] + 10, result.predictions.left(1), 1e-3f);
+        assertEquals(crop[1] + 20, result.predictions.top(1), 1e-3f);
+        assertEquals(crop[0] + 30, result.predictions.right(1), 1e-3f);
+        assertEquals(crop[1] + 50, result.predictions.bottom(1), 1e-3f);
+    }
+
+    @Test
+    public void nullPlan_fallsBackToFullFrame() {
+        // Kotak sebesar ini membuat crop tidak lebih hemat dari frame penuh
+        delegate.next = box(20, 20, 380, 380);
+        detect(0);
+        assertNull(planner.plan(Collections.singletonList(new float[] {20, 20, 380, 380}), SIZE, SIZE));
+
+        delegate.next = box(100, 100, 140, 140);
+        Result result = detect(100);
+        assertEquals(2, delegate.bitmaps.size());
+        assertSame(frame, delegate.bitmaps.get(1));
+        // Hasil frame penuh diteruskan apa adanya
+        assertEquals(100f, result.predictions.left(0), 0f);
+
+        // Fallback dihitung sebagai frame penuh; frame berikutnya kembali memakai crop
+        detect(200);
+        assertEquals(3, delegate.bitmaps.size());
+        assertArrayEquals(new int[] {192, 192}, delegate.sizes.get(2));
+    }
+}
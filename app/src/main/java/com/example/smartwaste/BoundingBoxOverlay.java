@@ -3,27 +3,56 @@ package com.example.smartwaste;
 import android.content.Context;
 import android.graphics.Canvas;
 import android.graphics.Color;
+import android.graphics.Matrix;
 import android.graphics.Paint;
 import android.graphics.RectF;
+import android.graphics.Typeface;
 import android.util.AttributeSet;
 import android.view.View;
 
 import androidx.annotation.Nullable;
 
-import com.example.smartwaste.api.RoboflowAPI;
+import com.example.smartwaste.api.LabelTable;
+import com.example.smartwaste.api.PredictionBatch;
 
-import java.util.ArrayList;
+import java.text.DecimalFormatSymbols;
 import java.util.List;
 
+/**
+ * Overlay bounding box. Transformasi gambar → view (rotasi, skala, offset) disimpan sebagai satu
+ * Matrix yang dihitung ulang hanya saat sumber atau ukuran view berubah; kotak dari PredictionBatch
+ * disalin sekali per update ke array float dan label di-cache, sehingga onDraw tidak mengalokasi objek.
+ */
 public class BoundingBoxOverlay extends View {
 
+    private static final float HUD_PADDING = 12f;
+
     private final Paint boxPaint = new Paint();
     private final Paint textPaint = new Paint();
-    private List<RoboflowAPI.Prediction> predictions = new ArrayList<>();
     private int sourceImageWidth = 1;
     private int sourceImageHeight = 1;
     private int rotationDegrees = 0; // Tambahkan field untuk rotation
 
+    private final Matrix imageToView = new Matrix();
+    private final float[] matrixValues = new float[9];
+    // 4 float per kotak (left, top, right, bottom): koordinat gambar dan hasil pemetaan ke view
+    private float[] imageBoxes = new float[0];
+    private float[] viewBoxes = new float[0];
+    private int boxCount = 0;
+
+    // Label per kotak; label frame sebelumnya dipakai ulang jika kelas, track dan confidence sama
+    private LabelCache labels = new LabelCache();
+    private LabelCache previousLabels = new LabelCache();
+    private final StringBuilder labelBuilder = new StringBuilder();
+    // Sama dengan String.format("%.1f") yang mengikuti locale perangkat
+    private final char decimalSeparator = DecimalFormatSymbols.getInstance().getDecimalSeparator();
+
+    // HUD metrik pipeline (debug), digambar di pojok kiri atas
+    private final Paint hudTextPaint = new Paint();
+    private final Paint hudBackgroundPaint = new Paint();
+    private final RectF hudBackground = new RectF();
+    private List<String> hudLines;
+
     public BoundingBoxOverlay(Context context, @Nullable AttributeSet attrs) {
         super(context, attrs);
         boxPaint.setColor(Color.GREEN);
@@ -34,106 +63,222 @@ public class BoundingBoxOverlay extends View {
         textPaint.setTextSize(40f);
         textPaint.setStyle(Paint.Style.FILL);
         textPaint.setShadowLayer(5.0f, 4.0f, 4.0f, Color.BLACK);
+
+        hudTextPaint.setColor(Color.WHITE);
+        hudTextPaint.setTextSize(28f);
+        hudTextPaint.setTypeface(Typeface.MONOSPACE);
+        hudTextPaint.setAntiAlias(true);
+        hudBackgroundPaint.setColor(Color.argb(160, 0, 0, 0));
     }
 
     // Update method untuk menerima rotation degrees
-    public void setPredictions(List<RoboflowAPI.Prediction> predictions, int imageWidth, int imageHeight, int rotationDegrees) {
-        this.predictions = (predictions != null) ? predictions : new ArrayList<>();
+    public void setPredictions(PredictionBatch predictions, int imageWidth, int imageHeight, int rotationDegrees) {
         this.sourceImageWidth = imageWidth;
         this.sourceImageHeight = imageHeight;
         this.rotationDegrees = rotationDegrees;
+        updateMatrix();
+        updatePredictions(predictions);
+    }
+
+    // Update posisi kotak dari tracker tanpa mengubah dimensi dan rotasi sumber
+    public void updatePredictions(PredictionBatch predictions) {
+        int count = predictions != null ? predictions.size() : 0;
+        if (imageBoxes.length < count * 4) {
+            imageBoxes = new float[count * 4];
+            viewBoxes = new float[count * 4];
+        }
+
+        LabelCache reuse = previousLabels;
+        previousLabels = labels;
+        labels = reuse;
+        labels.clear(count);
+
+        if (count > 0) predictions.copyBoxesTo(imageBoxes, 0);
+        for (int i = 0; i < count; i++) {
+            short classId = predictions.classId(i);
+            int trackId = predictions.trackId(i);
+            int tenths = (int) Math.round(predictions.confidence(i) * 100 * 10.0);
+            String label = previousLabels.find(classId, trackId, tenths);
+            if (label == null) {
+                label = buildLabel(LabelTable.name(classId), trackId, tenths);
+            }
+            labels.add(classId, trackId, tenths, label);
+        }
+        boxCount = count;
+        mapBoxes();
         invalidate();
     }
 
+    // null atau list kosong menyembunyikan HUD
+    public void setHudLines(List<String> lines) {
+        this.hudLines = lines;
+        float width = 0;
+        if (lines != null) {
+            for (String line : lines) {
+                width = Math.max(width, hudTextPaint.measureText(line));
+            }
+        }
+        float lineHeight = hudTextPaint.getFontSpacing();
+        hudBackground.set(0, 0, width + 2 * HUD_PADDING, (lines != null ? lines.size() : 0) * lineHeight + 2 * HUD_PADDING);
+        invalidate();
+    }
+
+    /**
+     * Merender overlay ke hardware layer terpisah. Berguna jika overlay sering digambar ulang
+     * sementara isinya jarang berubah (mis. hanya HUD); preview kamera sendiri sudah berada di
+     * surface terpisah milik PreviewView.
+     */
+    public void setHardwareLayerEnabled(boolean enabled) {
+        setLayerType(enabled ? LAYER_TYPE_HARDWARE : LAYER_TYPE_NONE, null);
+    }
+
     // Overload method untuk backward compatibility
-    public void setPredictions(List<RoboflowAPI.Prediction> predictions, int imageWidth, int imageHeight) {
+    public void setPredictions(PredictionBatch predictions, int imageWidth, int imageHeight) {
         setPredictions(predictions, imageWidth, imageHeight, 0);
     }
 
+    @Override
+    protected void onSizeChanged(int w, int h, int oldw, int oldh) {
+        super.onSizeChanged(w, h, oldw, oldh);
+        updateMatrix();
+        mapBoxes();
+    }
+
     @Override
     protected void onDraw(Canvas canvas) {
         super.onDraw(canvas);
-        if (predictions == null || predictions.isEmpty()) {
-            return;
+        float[] boxes = viewBoxes;
+        for (int i = 0; i < boxCount; i++) {
+            float left = boxes[i * 4];
+            float top = boxes[i * 4 + 1];
+            canvas.drawRect(left, top, boxes[i * 4 + 2], boxes[i * 4 + 3], boxPaint);
+            canvas.drawText(labels.label[i], left, top - 10, textPaint);
+        }
+        if (hudLines != null && !hudLines.isEmpty()) {
+            drawHud(canvas);
         }
+    }
+
+    /**
+     * Rotasi ke orientasi tampilan (dimensi sumber sebelum rotasi), lalu skala fit-center:
+     * 90°: (H - y, x), 180°: (W - x, H - y), 270°: (y, W - x). Rotasi lain dianggap 0°.
+     */
+    private void updateMatrix() {
+        float originalImageWidth = sourceImageWidth;
+        float originalImageHeight = sourceImageHeight;
+        boolean swap = rotationDegrees == 90 || rotationDegrees == 270;
+        float imageWidth = swap ? originalImageHeight : originalImageWidth;
+        float imageHeight = swap ? originalImageWidth : originalImageHeight;
 
         float viewWidth = getWidth();
         float viewHeight = getHeight();
-
-        // Dimensi gambar asli (sebelum rotasi)
-        float originalImageWidth = this.sourceImageWidth;
-        float originalImageHeight = this.sourceImageHeight;
-
-        // Dimensi gambar setelah rotasi
-        float imageWidth, imageHeight;
-        if (rotationDegrees == 90 || rotationDegrees == 270) {
-            // Tukar width dan height untuk rotasi 90/270 derajat
-            imageWidth = originalImageHeight;
-            imageHeight = originalImageWidth;
-        } else {
-            imageWidth = originalImageWidth;
-            imageHeight = originalImageHeight;
-        }
-
-        // Hitung skala dan offset untuk fit gambar ke view
         float scale = Math.min(viewWidth / imageWidth, viewHeight / imageHeight);
         float offsetX = (viewWidth - (imageWidth * scale)) / 2f;
         float offsetY = (viewHeight - (imageHeight * scale)) / 2f;
 
-        for (RoboflowAPI.Prediction prediction : predictions) {
-            RectF originalBox = new RectF(prediction.boundingBox);
-            RectF transformedBox = new RectF();
-
-            // Transformasi koordinat berdasarkan rotasi
-            switch (rotationDegrees) {
-                case 0:
-                    // Tidak ada rotasi
-                    transformedBox.set(originalBox);
-                    break;
-
-                case 90:
-                    // Rotasi 90 derajat searah jarum jam
-                    transformedBox.left = originalImageHeight - originalBox.bottom;
-                    transformedBox.top = originalBox.left;
-                    transformedBox.right = originalImageHeight - originalBox.top;
-                    transformedBox.bottom = originalBox.right;
-                    break;
-
-                case 180:
-                    // Rotasi 180 derajat
-                    transformedBox.left = originalImageWidth - originalBox.right;
-                    transformedBox.top = originalImageHeight - originalBox.bottom;
-                    transformedBox.right = originalImageWidth - originalBox.left;
-                    transformedBox.bottom = originalImageHeight - originalBox.top;
-                    break;
-
-                case 270:
-                    // Rotasi 270 derajat searah jarum jam (atau 90 derajat berlawanan)
-                    transformedBox.left = originalBox.top;
-                    transformedBox.top = originalImageWidth - originalBox.right;
-                    transformedBox.right = originalBox.bottom;
-                    transformedBox.bottom = originalImageWidth - originalBox.left;
-                    break;
-
-                default:
-                    // Default ke tidak ada rotasi jika rotation tidak dikenal
-                    transformedBox.set(originalBox);
-                    break;
-            }
+        // Entri eksplisit 0/±1 agar hasilnya sama persis dengan rumus per rotasi
+        float a, b, c, d, tx, ty; // x' = a*x + b*y + tx, y' = c*x + d*y + ty
+        switch (rotationDegrees) {
+            case 90:
+                a = 0; b = -1; tx = originalImageHeight;
+                c = 1; d = 0; ty = 0;
+                break;
+            case 180:
+                a = -1; b = 0; tx = originalImageWidth;
+                c = 0; d = -1; ty = originalImageHeight;
+                break;
+            case 270:
+                a = 0; b = 1; tx = 0;
+                c = -1; d = 0; ty = originalImageWidth;
+                break;
+            default:
+                a = 1; b = 0; tx = 0;
+                c = 0; d = 1; ty = 0;
+                break;
+        }
+        matrixValues[Matrix.MSCALE_X] = a * scale;
+        matrixValues[Matrix.MSKEW_X] = b * scale;
+        matrixValues[Matrix.MTRANS_X] = tx * scale + offsetX;
+        matrixValues[Matrix.MSKEW_Y] = c * scale;
+        matrixValues[Matrix.MSCALE_Y] = d * scale;
+        matrixValues[Matrix.MTRANS_Y] = ty * scale + offsetY;
+        matrixValues[Matrix.MPERSP_0] = 0;
+        matrixValues[Matrix.MPERSP_1] = 0;
+        matrixValues[Matrix.MPERSP_2] = 1;
+        imageToView.setValues(matrixValues);
+    }
+
+    private void mapBoxes() {
+        if (boxCount == 0) return;
+        // Dua sudut per kotak; setelah rotasi urutan sudut bisa tertukar sehingga dinormalisasi
+        imageToView.mapPoints(viewBoxes, 0, imageBoxes, 0, boxCount * 2);
+        for (int i = 0; i < boxCount * 4; i += 4) {
+            float x0 = viewBoxes[i], y0 = viewBoxes[i + 1], x1 = viewBoxes[i + 2], y1 = viewBoxes[i + 3];
+            viewBoxes[i] = Math.min(x0, x1);
+            viewBoxes[i + 1] = Math.min(y0, y1);
+            viewBoxes[i + 2] = Math.max(x0, x1);
+            viewBoxes[i + 3] = Math.max(y0, y1);
+        }
+    }
 
-            // Terapkan skala dan offset
-            RectF finalBox = new RectF();
-            finalBox.left = transformedBox.left * scale + offsetX;
-            finalBox.top = transformedBox.top * scale + offsetY;
-            finalBox.right = transformedBox.right * scale + offsetX;
-            finalBox.bottom = transformedBox.bottom * scale + offsetY;
+    // "Kelas #id: 87.5%" tanpa String.format
+    private String buildLabel(String className, int trackId, int tenths) {
+        StringBuilder sb = labelBuilder;
+        sb.setLength(0);
+        sb.append(className);
+        if (trackId >= 0) sb.append(" #").append(trackId);
+        sb.append(": ");
+        if (tenths < 0) {
+            sb.append('-');
+            tenths = -tenths;
+        }
+        sb.append(tenths / 10).append(decimalSeparator).append(tenths % 10).append('%');
+        return sb.toString();
+    }
+
+    private void drawHud(Canvas canvas) {
+        List<String> lines = hudLines;
+        canvas.drawRect(hudBackground, hudBackgroundPaint);
+        float lineHeight = hudTextPaint.getFontSpacing();
+        float y = HUD_PADDING - hudTextPaint.ascent();
+        for (int i = 0; i < lines.size(); i++) {
+            canvas.drawText(lines.get(i), HUD_PADDING, y, hudTextPaint);
+            y += lineHeight;
+        }
+    }
 
-            // Gambar bounding box
-            canvas.drawRect(finalBox, boxPaint);
+    private static final class LabelCache {
+        short[] classId = new short[0];
+        int[] trackId = new int[0];
+        int[] tenths = new int[0];
+        String[] label = new String[0];
+        int size;
 
-            // Gambar label
-            String label = prediction.className + ": " + String.format("%.1f", prediction.confidence * 100) + "%";
-            canvas.drawText(label, finalBox.left, finalBox.top - 10, textPaint);
+        void clear(int capacity) {
+            if (label.length < capacity) {
+                classId = new short[capacity];
+                trackId = new int[capacity];
+                tenths = new int[capacity];
+                label = new String[capacity];
+            }
+            size = 0;
+        }
+
+        void add(short cls, int id, int value, String text) {
+            classId[size] = cls;
+            trackId[size] = id;
+            tenths[size] = value;
+            label[size] = text;
+            size++;
+        }
+
+        String find(short cls, int id, int value) {
+            for (int i = 0; i < size; i++) {
+                if (trackId[i] == id && tenths[i] == value && classId[i] == cls) {
+                    return label[i];
+                }
+            }
+            return null;
         }
     }
-}
\ No newline at end of file
+}
@@ -2,14 +2,18 @@ package com.example.smartwaste;
 
 import android.Manifest;
 import android.content.pm.PackageManager;
+import android.net.ConnectivityManager;
+import android.net.Network;
 import android.graphics.Bitmap;
-import android.graphics.BitmapFactory;
 import android.graphics.ImageFormat;
 import android.graphics.Matrix;
-import android.graphics.Rect;
-import android.graphics.YuvImage;
+import android.os.Build;
 import android.os.Bundle;
-import android.util.Base64;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.PowerManager;
+import android.os.Process;
+import android.os.SystemClock;
 import android.util.Log;
 import android.util.Size;
 import android.view.View;
@@ -29,15 +33,53 @@ import androidx.camera.view.PreviewView;
 import androidx.core.app.ActivityCompat;
 import androidx.core.content.ContextCompat;
 
+import com.example.smartwaste.api.EncodingPolicy;
+import com.example.smartwaste.api.PredictionBatch;
 import com.example.smartwaste.api.RoboflowAPI;
+import com.example.smartwaste.detector.Detector;
+import com.example.smartwaste.detector.HybridDetector;
+import com.example.smartwaste.detector.LocalDetector;
+import com.example.smartwaste.detector.RoiDetector;
+import com.example.smartwaste.image.BandExecutor;
+import com.example.smartwaste.image.FramePreprocessor;
+import com.example.smartwaste.image.PlaneLayout;
+import com.example.smartwaste.image.YuvFrame;
+import com.example.smartwaste.image.YuvToRgbConverter;
+import com.example.smartwaste.metrics.PipelineMetrics;
+import com.example.smartwaste.pipeline.DetectionCache;
+import com.example.smartwaste.pipeline.DetectionScheduler;
+import com.example.smartwaste.pipeline.ObjectTracker;
+import com.example.smartwaste.pipeline.PipelineStage;
+import com.example.smartwaste.pipeline.PostProcessor;
+import com.example.smartwaste.pipeline.RoiPlanner;
+import com.example.smartwaste.pipeline.SceneChangeGate;
+import com.example.smartwaste.pipeline.StageQueue;
+import com.example.smartwaste.pool.ArrayPool;
+import com.example.smartwaste.pool.BitmapPool;
+import com.example.smartwaste.pool.MemoryBudget;
+import com.example.smartwaste.pool.ResourcePool;
+import com.example.smartwaste.queue.FrameQueue;
+import com.example.smartwaste.queue.FrameQueueDrainer;
+import com.example.smartwaste.replay.FrameRecorder;
 import com.google.common.util.concurrent.ListenableFuture;
 
+import java.io.File;
+import java.io.FileOutputStream;
 import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
 import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
 import java.util.List;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
 
 public class MainActivity extends AppCompatActivity {
 
@@ -45,6 +87,103 @@ public class MainActivity extends AppCompatActivity {
     private static final int CAMERA_PERMISSION_REQUEST_CODE = 101;
     private static final long FRAME_ANALYSIS_INTERVAL_MS = 1500;
     private static final int INPUT_SIZE = 416;
+    // Dengan model lokal, jeda antar frame cukup sebesar waktu inferensi CPU
+    private static final long LOCAL_ANALYSIS_INTERVAL_MS = 100;
+    private static final HybridDetector.Mode DETECTOR_MODE = HybridDetector.Mode.LOCAL_FIRST;
+    private static final float REMOTE_CONFIRM_THRESHOLD = 0.5f;
+    // Jumlah deteksi yang boleh berjalan bersamaan; frame dikirim setiap interval / jumlah ini
+    private static final int MAX_IN_FLIGHT_DETECTIONS = 3;
+    // Hasil remote yang lebih tua dari ini sudah tergantikan frame berikutnya; retry dan hedge harus selesai sebelumnya
+    private static final long REMOTE_FRAME_DEADLINE_MS = FRAME_ANALYSIS_INTERVAL_MS * MAX_IN_FLIGHT_DETECTIONS;
+    private static final int REMOTE_MAX_ATTEMPTS = 3;
+    private static final long REMOTE_BASE_BACKOFF_MS = 200;
+    private static final long REMOTE_MAX_BACKOFF_MS = 1_000;
+    private static final boolean REMOTE_HEDGING_ENABLED = true;
+    private static final long REMOTE_MIN_HEDGE_DELAY_MS = 300;
+    // Payload live diperkecil saat jaringan lambat agar upload body tetap di bawah budget ini
+    private static final boolean ADAPTIVE_ENCODING_ENABLED = true;
+    private static final long ENCODING_TARGET_NETWORK_MS = 1_000;
+    private static final int ENCODING_JPEG_MIN_QUALITY = 65;
+    private static final int ENCODING_WEBP_MIN_QUALITY = 60;
+    private static final boolean ENCODING_WEBP_ENABLED = true;
+    // Upload remote hanya berisi crop di sekitar kotak terakhir dan area yang berubah; frame penuh tetap berkala
+    private static final boolean ROI_ENABLED = true;
+    private static final float ROI_PAD_FRACTION = 0.2f;
+    private static final int ROI_MIN_PAD_PX = 16;
+    private static final int ROI_MIN_CROP_SIZE = 96;
+    private static final int ROI_MAX_CROPS = 3;
+    private static final float ROI_MAX_AREA_FRACTION = 0.5f;
+    private static final float ROI_CELL_CHANGE_THRESHOLD = 12f;
+    private static final long ROI_FULL_FRAME_INTERVAL_MS = 5_000;
+    // 1 = crop dikirim pada resolusi aslinya; > 1 memperbesar crop kecil demi objek kecil (payload naik)
+    private static final float ROI_MAX_UPSCALE = 1f;
+    // Frame hanya dikirim jika adegan berubah, atau paling lambat setiap MAX_STALENESS_MS
+    private static final float SCENE_CHANGE_THRESHOLD = 6f;
+    private static final long MAX_STALENESS_MS = 10_000;
+    private static final int CACHE_MAX_ENTRIES = 32;
+    private static final long CACHE_TTL_MS = 60_000;
+    private static final int CACHE_MAX_HAMMING_DISTANCE = 5;
+    // Hasil detector disaring sebelum cache, tracker, overlay dan ringkasan
+    private static final float POSTPROCESS_MIN_CONFIDENCE = 0.3f;
+    private static final float POSTPROCESS_IOU_THRESHOLD = 0.5f;
+    private static final boolean POSTPROCESS_CLASS_AWARE = true;
+    private static final int POSTPROCESS_MAX_DETECTIONS = 50;
+    private static final float TRACKER_IOU_THRESHOLD = 0.3f;
+    private static final int TRACKER_MAX_MISSES = 1;
+    private static final long TRACKER_MAX_EXTRAPOLATION_MS = 1500;
+    private static final float TRACKER_VELOCITY_SMOOTHING = 0.5f;
+    // Metrik selalu dicatat; HUD hanya di build debug, laporan ditulis ke filesDir berkala
+    private static final boolean METRICS_HUD_ENABLED = BuildConfig.DEBUG;
+    private static final long HUD_REFRESH_INTERVAL_MS = 500;
+    private static final long METRICS_DUMP_INTERVAL_MS = 30_000;
+    private static final String METRICS_FILE_NAME = "pipeline_metrics.txt";
+    // Kotak digeser setiap frame kamera, jadi layer terpisah tidak menghemat apa pun secara default
+    private static final boolean OVERLAY_HARDWARE_LAYER = false;
+    // Bitmap frame, crop ROI dan buffer encode dipinjam dari pool bersama; lease bocor dilaporkan di build debug
+    private static final long POOL_MAX_BYTES = 24L * 1024 * 1024;
+    private static final boolean POOL_LEAK_TRACKING = BuildConfig.DEBUG;
+    // Antrean frame offline: frame yang gagal terkirim karena koneksi disimpan lalu diunggah nanti
+    private static final String FRAME_QUEUE_FILE_NAME = "frame_queue.bin";
+    private static final int FRAME_QUEUE_SIZE_BYTES = 16 * 1024 * 1024;
+    private static final int FRAME_QUEUE_JPEG_QUALITY = 95;
+    // 2 request sekaligus, masing-masing berisi sampai 4 frame antrean
+    private static final int FRAME_QUEUE_BATCH_SIZE = 4;
+    private static final int FRAME_QUEUE_BATCH_MAX_BYTES = 1024 * 1024;
+    private static final long FRAME_QUEUE_BATCH_DELAY_MS = 200;
+    private static final int FRAME_QUEUE_MAX_CONCURRENT_UPLOADS = 2 * FRAME_QUEUE_BATCH_SIZE;
+    private static final int FRAME_QUEUE_MAX_ATTEMPTS = 5;
+    private static final long FRAME_QUEUE_INITIAL_BACKOFF_MS = 5_000;
+    private static final long FRAME_QUEUE_MAX_BACKOFF_MS = 60_000;
+    // Merekam plane YUV mentah setiap frame analyzer ke filesDir untuk diputar ulang (ReplayThroughputBenchmark)
+    private static final boolean FRAME_RECORDING_ENABLED = false;
+    private static final String FRAME_RECORDING_FILE_NAME = "frames.swcr";
+    private static final int FRAME_RECORDING_MAX_BYTES = 256 * 1024 * 1024;
+    // Konversi dan resize dibagi per pita baris ke beberapa core; frame lebih kecil dari batas
+    // ini tetap berurutan (titik silang dari ParallelPreprocessBenchmark)
+    private static final boolean PARALLEL_PREPROCESS_ENABLED = true;
+    private static final int PARALLEL_MIN_PIXELS = 320 * 240;
+    private static final long THERMAL_CHECK_INTERVAL_MS = 10_000;
+    private static final int THERMAL_FORECAST_SECONDS = 10;
+    // Pipeline bertahap: capture (thread kamera) → preprocess → encode/submit → render (thread UI).
+    // Kamera tidak pernah menunggu: frame yang belum sempat diproses diganti frame terbaru,
+    // sedangkan preprocess menunggu encode supaya frame N+1 disiapkan selagi frame N diunggah.
+    private static final int PREPROCESS_QUEUE_CAPACITY = 1;
+    private static final int ENCODE_QUEUE_CAPACITY = 1;
+    // Antrean render hanya untuk frame debug; hasil, error dan posisi track tidak pernah dibuang
+    private static final int RENDER_QUEUE_CAPACITY = 4;
+    // Salinan YUV yang beredar: satu di antrean, satu diproses, satu sedang diisi kamera
+    private static final int CAPTURE_FRAME_SLOTS = PREPROCESS_QUEUE_CAPACITY + 2;
+    // Frame dengan chroma seragam (mis. lensa tertutup) belum bisa membedakan buffer VU bersama
+    // dari plane terpisah; setelah sekian probe tanpa kepastian, salinan per sampel dipakai
+    private static final int MAX_PLANE_LAYOUT_PROBES = 30;
+    // Startup: frame pertama dikirim tanpa throttling begitu gambar kamera stabil (selisih antar
+    // frame dan kecerahan), paling lama STARTUP_MAX_SETTLE_MS setelah frame pertama
+    private static final float STARTUP_MAX_MOTION = 4f;
+    private static final int STARTUP_MIN_MEAN_LUMA = 16;
+    private static final long STARTUP_MAX_SETTLE_MS = 800;
+    // Antrean offline, dump metrik, HUD dan pemantauan thermal dimulai setelah deteksi pertama
+    // (selambatnya setelah batas ini) supaya tidak bersaing dengan jalur deteksi pertama
+    private static final long STARTUP_DEFER_MAX_MS = 5_000;
 
     private PreviewView previewView;
     private BoundingBoxOverlay boundingBoxOverlay;
@@ -52,10 +191,97 @@ public class MainActivity extends AppCompatActivity {
     private ProgressBar progressBar;
     private ImageView debugImageView;
     private RoboflowAPI roboflowAPI;
+    private Detector detector;
+    private DetectionScheduler detectionScheduler;
+    private long analysisIntervalMs = FRAME_ANALYSIS_INTERVAL_MS;
     private ExecutorService cameraExecutor;
+    // Diminta di awal onCreate supaya CameraX siap selagi sisa setup dan izin kamera berjalan
+    private ListenableFuture<ProcessCameraProvider> cameraProviderFuture;
+    private final AtomicBoolean startupFinished = new AtomicBoolean();
+    private final Runnable startupTimeout = this::finishStartup;
+    // Cold start diukur dari awal proses; activity berikutnya di proses yang sama dari onCreate
+    private static boolean coldStartMeasured;
+    // Hanya diakses dari thread UI
+    private boolean resumed;
+    private ScheduledExecutorService metricsExecutor;
+    // Worker pita untuk kernel preprocessing; null jika PARALLEL_PREPROCESS_ENABLED mati
+    private BandExecutor bandExecutor;
+    private PowerManager.OnThermalStatusChangedListener thermalListener;
+    private ExecutorService preprocessExecutor;
+    private ExecutorService encodeExecutor;
+    private PipelineStage<CapturedFrame> preprocessStage;
+    private PipelineStage<ProcessedImageResult> encodeStage;
+    private PipelineStage<DebugFrameUpdate> renderStage;
+    // Posisi track terbaru yang belum digambar; update berikutnya menimpa, bukan mengantre.
+    // Batch dipakai bergantian: thread kamera mengisi spareTracks, thread UI mengembalikan batch
+    // yang sudah disalin overlay lewat renderedTracks.
+    private final AtomicReference<PredictionBatch> pendingTracks = new AtomicReference<>();
+    private final AtomicReference<PredictionBatch> renderedTracks = new AtomicReference<>();
+    // Hanya diakses dari thread kamera
+    private PredictionBatch spareTracks = new PredictionBatch();
+    private final Runnable trackRender = this::renderTracks;
+    // Salinan YUV yang sudah selesai dipakai preprocess kembali ke thread kamera lewat sini
+    private final StageQueue<CapturedFrame> spareFrames =
+            new StageQueue<>(CAPTURE_FRAME_SLOTS, StageQueue.Policy.DROP_OLDEST, null);
+    // Layout plane kamera: di-probe di thread kamera, direset setiap ImageAnalysis dipasang
+    private volatile PlaneLayout planeLayout;
+    // Hanya diakses dari thread kamera
+    private int planeLayoutProbes;
+    // Semua akses disk antrean frame berjalan di sini, jadi analyzer kamera tidak pernah menunggu
+    private ScheduledExecutorService frameQueueExecutor;
+    // Hanya diakses dari frameQueueExecutor
+    private FrameQueue frameQueue;
+    private FrameQueueDrainer frameQueueDrainer;
+    private final QueueJpegBuffer queueJpeg = new QueueJpegBuffer();
+    private ConnectivityManager.NetworkCallback networkCallback;
+    private final PipelineMetrics pipelineMetrics = new PipelineMetrics();
+    private final MemoryBudget poolBudget = new MemoryBudget(POOL_MAX_BYTES, POOL_LEAK_TRACKING);
+    private final BitmapPool bitmapPool = new BitmapPool("bitmap", poolBudget);
+    private final ArrayPool<byte[]> bytePool = ArrayPool.ofBytes("bytes", poolBudget);
+    // RGB_565 cukup jika frame hanya di-encode untuk upload; model lokal memakai ARGB_8888
+    private Bitmap.Config frameBitmapConfig = Bitmap.Config.ARGB_8888;
+    // Frame yang sedang ditampilkan debugImageView; hanya diakses dari thread UI
+    private ResourcePool.Lease<Bitmap> debugFrameLease;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final Runnable hudUpdater = new Runnable() {
+        @Override
+        public void run() {
+            if (boundingBoxOverlay != null) {
+                List<String> lines = pipelineMetrics.buildHudLines();
+                String encoding = roboflowAPI.describeEncoding();
+                if (encoding != null) lines.add(encoding);
+                lines.add(poolBudget.describe());
+                for (PipelineStage<?> stage : pipelineStages()) lines.add(stage.describe());
+                boundingBoxOverlay.setHudLines(lines);
+            }
+            mainHandler.postDelayed(this, HUD_REFRESH_INTERVAL_MS);
+        }
+    };
+
+    // Hanya diakses dari thread cameraExecutor
+    private FrameRecorder frameRecorder;
+    // Hanya diakses dari thread preprocessExecutor
+    private final YuvToRgbConverter yuvConverter = new YuvToRgbConverter();
+    private final FramePreprocessor framePreprocessor = new FramePreprocessor(INPUT_SIZE, FramePreprocessor.Mode.AREA);
+    private final DetectionCache detectionCache = new DetectionCache(CACHE_MAX_ENTRIES, CACHE_TTL_MS, MAX_STALENESS_MS,
+            CACHE_MAX_HAMMING_DISTANCE);
+    private final PostProcessor postProcessor = new PostProcessor(POSTPROCESS_MIN_CONFIDENCE, POSTPROCESS_IOU_THRESHOLD,
+            POSTPROCESS_CLASS_AWARE, POSTPROCESS_MAX_DETECTIONS);
+    private final ObjectTracker objectTracker = new ObjectTracker(TRACKER_IOU_THRESHOLD, TRACKER_MAX_MISSES,
+            TRACKER_MAX_EXTRAPOLATION_MS, TRACKER_VELOCITY_SMOOTHING);
+    private final SceneChangeGate sceneChangeGate = new SceneChangeGate(SCENE_CHANGE_THRESHOLD, MAX_STALENESS_MS);
 
-    private final AtomicBoolean isDetecting = new AtomicBoolean(false);
     private long lastAnalyzedTimestamp = 0;
+    // Hanya diakses dari thread kamera
+    private long firstFrameTime;
+    private boolean firstFrameSubmitted;
+
+    // Salinan plane dari thread kamera untuk tahap preprocess; dipakai ulang lewat spareFrames
+    private static class CapturedFrame {
+        final YuvFrame frame = new YuvFrame();
+        int rotationDegrees;
+        long captureTimeMs;
+    }
 
     // Helper class to hold processing results
     private static class ProcessedImageResult {
@@ -63,6 +289,13 @@ public class MainActivity extends AppCompatActivity {
         int inferenceWidth;
         int inferenceHeight;
         int rotationDegrees;
+        // Perceptual hash frame untuk DetectionCache (hanya dari jalur preprocessing langsung)
+        long hash;
+        boolean hasHash;
+        // Waktu capture (SystemClock.elapsedRealtime) untuk ObjectTracker
+        long captureTimeMs;
+        // null untuk bitmap jalur fallback yang tidak berasal dari pool
+        ResourcePool.Lease<Bitmap> bitmapLease;
 
         ProcessedImageResult(Bitmap bitmap, int width, int height, int rotationDegrees) {
             this.bitmap = bitmap;
@@ -70,29 +303,288 @@ public class MainActivity extends AppCompatActivity {
             this.inferenceHeight = height;
             this.rotationDegrees = rotationDegrees;
         }
+
+        // Setiap pemilik bitmap (analyzer, detector, view debug, antrean offline) memegang satu referensi
+        void retain() {
+            if (bitmapLease != null) bitmapLease.retain();
+        }
+
+        void release() {
+            if (bitmapLease != null) bitmapLease.release();
+        }
     }
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
+        long startupAgoMs = coldStartMeasured ? 0 : SystemClock.elapsedRealtime() - Process.getStartElapsedRealtime();
+        coldStartMeasured = true;
+        pipelineMetrics.markStartup(PipelineMetrics.now() - TimeUnit.MILLISECONDS.toNanos(startupAgoMs));
+        cameraProviderFuture = ProcessCameraProvider.getInstance(this);
         setContentView(R.layout.activity_main);
 
         initViews();
         roboflowAPI = new RoboflowAPI();
+        roboflowAPI.setMetrics(pipelineMetrics);
+        // DNS + TLS ke backend berjalan paralel dengan inisialisasi kamera
+        roboflowAPI.prewarm();
+        roboflowAPI.setBufferPool(bytePool);
+        poolBudget.setLeakListener((description, acquiredAt) -> Log.w(TAG, "Lease pool bocor: " + description, acquiredAt));
+        roboflowAPI.setFrameDeadlineMs(REMOTE_FRAME_DEADLINE_MS);
+        roboflowAPI.setRetryPolicy(REMOTE_MAX_ATTEMPTS, REMOTE_BASE_BACKOFF_MS, REMOTE_MAX_BACKOFF_MS);
+        roboflowAPI.setHedging(REMOTE_HEDGING_ENABLED, REMOTE_MIN_HEDGE_DELAY_MS);
+        if (ADAPTIVE_ENCODING_ENABLED) {
+            roboflowAPI.setEncodingPolicy(new EncodingPolicy(ENCODING_TARGET_NETWORK_MS,
+                    ENCODING_JPEG_MIN_QUALITY, ENCODING_WEBP_MIN_QUALITY, ENCODING_WEBP_ENABLED));
+        }
+        // Hanya detectBatched (pengiriman antrean offline) yang dikumpulkan; deteksi live tetap satu frame per request
+        roboflowAPI.setBatching(FRAME_QUEUE_BATCH_SIZE, FRAME_QUEUE_BATCH_MAX_BYTES, FRAME_QUEUE_BATCH_DELAY_MS);
+        initDetector();
         cameraExecutor = Executors.newSingleThreadExecutor();
+        initFramePipeline();
+        if (FRAME_RECORDING_ENABLED) {
+            cameraExecutor.execute(this::openFrameRecorder);
+        }
+        metricsExecutor = Executors.newSingleThreadScheduledExecutor();
+        if (PARALLEL_PREPROCESS_ENABLED) {
+            initBandExecutor();
+        }
+        // Thread-nya baru dibuat saat antrean dibuka di finishStartup()
+        frameQueueExecutor = Executors.newSingleThreadScheduledExecutor();
+        mainHandler.postDelayed(startupTimeout, STARTUP_DEFER_MAX_MS);
 
         checkCameraPermission();
     }
 
+    /**
+     * Dipanggil saat deteksi pertama selesai (berhasil atau gagal) atau setelah
+     * STARTUP_DEFER_MAX_MS; memulai pekerjaan yang tidak dibutuhkan deteksi pertama.
+     * Upload backlog antrean offline tidak bersaing dengan upload frame pertama.
+     */
+    private void finishStartup() {
+        if (!startupFinished.compareAndSet(false, true)) return;
+        mainHandler.removeCallbacks(startupTimeout);
+        // Langsung dari thread pemanggil, jadi antrean sudah dibuka sebelum enqueueOfflineFrame berikutnya
+        try {
+            frameQueueExecutor.execute(this::openFrameQueue);
+        } catch (RejectedExecutionException e) {
+            // Activity sudah dihancurkan sebelum deteksi pertama selesai
+        }
+        mainHandler.post(this::runDeferredStartup);
+    }
+
+    private void runDeferredStartup() {
+        if (isDestroyed()) return;
+        metricsExecutor.scheduleWithFixedDelay(this::dumpMetrics, METRICS_DUMP_INTERVAL_MS,
+                METRICS_DUMP_INTERVAL_MS, TimeUnit.MILLISECONDS);
+        if (bandExecutor != null) {
+            startThermalMonitoring();
+        }
+        if (METRICS_HUD_ENABLED && resumed) {
+            mainHandler.post(hudUpdater);
+        }
+        Log.i(TAG, "Startup selesai, time-to-first-detection "
+                + pipelineMetrics.getMilestoneNanos(PipelineMetrics.Milestone.FIRST_DETECTION) / 1_000_000 + " ms");
+    }
+
+    // Untuk StartupBenchmark (androidTest)
+    PipelineMetrics getPipelineMetrics() {
+        return pipelineMetrics;
+    }
+
     private void initViews() {
         previewView = findViewById(R.id.previewView);
         boundingBoxOverlay = findViewById(R.id.boundingBoxOverlay);
+        if (boundingBoxOverlay != null) {
+            boundingBoxOverlay.setHardwareLayerEnabled(OVERLAY_HARDWARE_LAYER);
+        }
         tvResult = findViewById(R.id.tvResult);
         tvStatus = findViewById(R.id.tvStatus);
         progressBar = findViewById(R.id.progressBar);
         debugImageView = findViewById(R.id.debugImageView);
     }
 
+    private void initFramePipeline() {
+        preprocessExecutor = Executors.newSingleThreadExecutor();
+        encodeExecutor = Executors.newSingleThreadExecutor();
+        renderStage = new PipelineStage<>("render", RENDER_QUEUE_CAPACITY, StageQueue.Policy.DROP_OLDEST,
+                mainHandler::post, DebugFrameUpdate::run, DebugFrameUpdate::discard);
+        encodeStage = new PipelineStage<>("encode", ENCODE_QUEUE_CAPACITY, StageQueue.Policy.BLOCK,
+                encodeExecutor, this::submitFrame, ProcessedImageResult::release);
+        preprocessStage = new PipelineStage<>("preprocess", PREPROCESS_QUEUE_CAPACITY, StageQueue.Policy.DROP_OLDEST,
+                preprocessExecutor, this::preprocessCapturedFrame, spareFrames::offer);
+    }
+
+    private List<PipelineStage<?>> pipelineStages() {
+        return Arrays.asList(preprocessStage, encodeStage, renderStage);
+    }
+
+    // Frame debug lewat tahap render; frame yang tertinggal dibuang jika thread UI sibuk
+    private void postRender(DebugFrameUpdate update) {
+        if (!renderStage.submit(update)) update.discard();
+    }
+
+    // Hasil dan error deteksi tidak boleh dibuang, jadi langsung ke thread UI tanpa antrean tahap render
+    private void postResult(Runnable update) {
+        mainHandler.post(update);
+    }
+
+    // Dipanggil sebelum analyzer dipasang, jadi thread preprocessExecutor sudah melihat executor ini
+    private void initBandExecutor() {
+        int cores = Runtime.getRuntime().availableProcessors();
+        bandExecutor = new BandExecutor(BandExecutor.chooseParallelism(cores, Float.NaN), PARALLEL_MIN_PIXELS);
+        framePreprocessor.setBandExecutor(bandExecutor);
+        yuvConverter.setBandExecutor(bandExecutor);
+    }
+
+    // Ditunda sampai setelah deteksi pertama; sampai saat itu pita memakai setengah jumlah core
+    private void startThermalMonitoring() {
+        metricsExecutor.execute(this::updateBandParallelism);
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q) {
+            PowerManager powerManager = getSystemService(PowerManager.class);
+            if (powerManager != null) {
+                thermalListener = status -> metricsExecutor.execute(this::updateBandParallelism);
+                powerManager.addThermalStatusListener(thermalListener);
+            }
+        }
+        // Headroom bisa naik tanpa perubahan status, jadi tetap dicek berkala
+        metricsExecutor.scheduleWithFixedDelay(this::updateBandParallelism, THERMAL_CHECK_INTERVAL_MS,
+                THERMAL_CHECK_INTERVAL_MS, TimeUnit.MILLISECONDS);
+    }
+
+    private void updateBandParallelism() {
+        int cores = Runtime.getRuntime().availableProcessors();
+        int parallelism = BandExecutor.chooseParallelism(cores, thermalHeadroom());
+        if (parallelism != bandExecutor.getParallelism()) {
+            Log.i(TAG, "Pita preprocessing: " + bandExecutor.getParallelism() + " -> " + parallelism);
+            bandExecutor.setParallelism(parallelism);
+        }
+    }
+
+    // 0 = dingin, 1 = throttling berat; NaN jika perangkat tidak melaporkan apa pun
+    private float thermalHeadroom() {
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.Q) return Float.NaN;
+        PowerManager powerManager = getSystemService(PowerManager.class);
+        if (powerManager == null) return Float.NaN;
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.R) {
+            float headroom = powerManager.getThermalHeadroom(THERMAL_FORECAST_SECONDS);
+            if (!Float.isNaN(headroom)) return headroom;
+        }
+        // getThermalHeadroom tidak didukung atau dipanggil terlalu sering: perkiraan dari status
+        int status = powerManager.getCurrentThermalStatus();
+        if (status >= PowerManager.THERMAL_STATUS_SEVERE) return 1f;
+        if (status >= PowerManager.THERMAL_STATUS_MODERATE) return 0.8f;
+        return 0f;
+    }
+
+    private void initDetector() {
+        int threads = Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors() - 1));
+        LocalDetector localDetector = LocalDetector.create(this, threads);
+        if (localDetector != null) {
+            localDetector.setMetrics(pipelineMetrics);
+        }
+        Detector remoteDetector = roboflowAPI;
+        if (ROI_ENABLED) {
+            RoiDetector roiDetector = new RoiDetector(roboflowAPI,
+                    new RoiPlanner(ROI_PAD_FRACTION, ROI_MIN_PAD_PX, ROI_MIN_CROP_SIZE, ROI_MAX_CROPS, ROI_MAX_AREA_FRACTION),
+                    bitmapPool, ROI_CELL_CHANGE_THRESHOLD, ROI_FULL_FRAME_INTERVAL_MS, INPUT_SIZE, ROI_MAX_UPSCALE);
+            roiDetector.setMetrics(pipelineMetrics);
+            remoteDetector = roiDetector;
+        }
+        HybridDetector hybridDetector = new HybridDetector(localDetector, remoteDetector, DETECTOR_MODE,
+                REMOTE_CONFIRM_THRESHOLD, FRAME_ANALYSIS_INTERVAL_MS);
+        detector = hybridDetector;
+        detectionScheduler = new DetectionScheduler(detector, MAX_IN_FLIGHT_DETECTIONS);
+        analysisIntervalMs = hybridDetector.isLocalActive() ? LOCAL_ANALYSIS_INTERVAL_MS : FRAME_ANALYSIS_INTERVAL_MS;
+        frameBitmapConfig = hybridDetector.isLocalActive() ? Bitmap.Config.ARGB_8888 : Bitmap.Config.RGB_565;
+    }
+
+    // Di frameQueueExecutor; drainer mulai bekerja saat jaringan tersedia
+    private void openFrameQueue() {
+        try {
+            frameQueue = FrameQueue.open(new File(getFilesDir(), FRAME_QUEUE_FILE_NAME), FRAME_QUEUE_SIZE_BYTES);
+        } catch (IOException e) {
+            Log.e(TAG, "Gagal membuka antrean frame, frame offline tidak disimpan", e);
+            return;
+        }
+        Log.i(TAG, "Antrean frame dibuka: " + frameQueue.size() + " frame menunggu upload");
+        FrameQueueDrainer drainer = new FrameQueueDrainer(frameQueue,
+                (record, callback) -> roboflowAPI.detectBatched(record.jpeg, 0, record.jpeg.length, callback), new FrameQueueDrainer.Listener() {
+            @Override
+            public void onUploaded(FrameQueue.Record record, List<RoboflowAPI.Prediction> predictions) {
+                Log.i(TAG, "Frame antrean #" + record.sequence + " terkirim: " + predictions.size() + " objek");
+            }
+
+            @Override
+            public void onDropped(FrameQueue.Record record, String error) {
+                Log.w(TAG, "Frame antrean #" + record.sequence + " dibuang: " + error);
+            }
+        }, frameQueueExecutor, FRAME_QUEUE_MAX_CONCURRENT_UPLOADS, FRAME_QUEUE_MAX_ATTEMPTS,
+                FRAME_QUEUE_INITIAL_BACKOFF_MS, FRAME_QUEUE_MAX_BACKOFF_MS);
+        frameQueueDrainer = drainer;
+
+        // onAvailable langsung dipanggil jika sudah ada jaringan default
+        networkCallback = new ConnectivityManager.NetworkCallback() {
+            @Override
+            public void onAvailable(@NonNull Network network) {
+                drainer.setOnline(true);
+            }
+
+            @Override
+            public void onLost(@NonNull Network network) {
+                drainer.setOnline(false);
+            }
+        };
+        ConnectivityManager connectivityManager = getSystemService(ConnectivityManager.class);
+        connectivityManager.registerDefaultNetworkCallback(networkCallback);
+    }
+
+    // Frame yang gagal karena koneksi disimpan ke antrean; dipanggil dari thread callback jaringan
+    private void enqueueOfflineFrame(ProcessedImageResult processedImageResult) {
+        processedImageResult.retain();
+        Runnable append = () -> {
+            FrameQueue queue = frameQueue;
+            if (queue == null) {
+                processedImageResult.release();
+                return;
+            }
+            queueJpeg.reset();
+            processedImageResult.bitmap.compress(Bitmap.CompressFormat.JPEG, FRAME_QUEUE_JPEG_QUALITY, queueJpeg);
+            processedImageResult.release();
+            // Langsung dari buffer stream; append menyalin ke file, jadi buffer boleh dipakai frame berikutnya
+            long sequence = queue.append(queueJpeg.buffer(), 0, queueJpeg.size(), processedImageResult.rotationDegrees,
+                    processedImageResult.inferenceWidth, processedImageResult.inferenceHeight, System.currentTimeMillis());
+            Log.d(TAG, "Frame #" + sequence + " disimpan ke antrean offline (" + queue.size() + " menunggu)");
+            frameQueueDrainer.notifyAppended();
+        };
+        try {
+            frameQueueExecutor.execute(append);
+        } catch (RejectedExecutionException e) {
+            // Executor di-shutdown oleh onDestroy di antara frame; frame ini tidak disimpan
+            processedImageResult.release();
+        }
+    }
+
+    @Override
+    protected void onResume() {
+        super.onResume();
+        resumed = true;
+        // Sebelum deteksi pertama HUD dimulai oleh runDeferredStartup()
+        if (METRICS_HUD_ENABLED && startupFinished.get()) {
+            mainHandler.post(hudUpdater);
+        }
+    }
+
+    @Override
+    protected void onPause() {
+        super.onPause();
+        resumed = false;
+        mainHandler.removeCallbacks(hudUpdater);
+        if (metricsExecutor != null) {
+            metricsExecutor.execute(this::dumpMetrics);
+        }
+    }
+
     private void checkCameraPermission() {
         if (ContextCompat.checkSelfPermission(this, Manifest.permission.CAMERA) == PackageManager.PERMISSION_GRANTED) {
             startCamera();
@@ -114,7 +606,6 @@ public class MainActivity extends AppCompatActivity {
     }
 
     private void startCamera() {
-        ListenableFuture<ProcessCameraProvider> cameraProviderFuture = ProcessCameraProvider.getInstance(this);
         cameraProviderFuture.addListener(() -> {
             try {
                 ProcessCameraProvider cameraProvider = cameraProviderFuture.get();
@@ -126,96 +617,408 @@ public class MainActivity extends AppCompatActivity {
                         .setBackpressureStrategy(ImageAnalysis.STRATEGY_KEEP_ONLY_LATEST)
                         .build();
 
-                imageAnalysis.setAnalyzer(cameraExecutor, imageProxy -> {
-                    try {
-                        if (System.currentTimeMillis() - lastAnalyzedTimestamp < FRAME_ANALYSIS_INTERVAL_MS || !isDetecting.compareAndSet(false, true)) {
-                            return;
-                        }
-
-                        lastAnalyzedTimestamp = System.currentTimeMillis();
-
-                        Bitmap bitmap = toBitmap(imageProxy);
-                        int rotationDegrees = imageProxy.getImageInfo().getRotationDegrees();
-
-                        if (bitmap != null) {
-                            ProcessedImageResult result = processImage(bitmap, rotationDegrees);
-                            detectGarbage(result);
-                        } else {
-                            isDetecting.set(false);
-                        }
-                    } catch (Exception e) {
-                        Log.e(TAG, "Terjadi error fatal di dalam analyzer", e);
-                        isDetecting.set(false);
-                    } finally {
-                        imageProxy.close();
-                    }
-                });
+                // Binding baru bisa memberi resolusi/stride lain; frame pertama di-probe ulang
+                planeLayout = null;
+                imageAnalysis.setAnalyzer(cameraExecutor, this::captureFrame);
 
                 cameraProvider.unbindAll();
                 cameraProvider.bindToLifecycle(this, CameraSelector.DEFAULT_BACK_CAMERA, preview, imageAnalysis);
+                pipelineMetrics.markMilestone(PipelineMetrics.Milestone.CAMERA_BOUND);
             } catch (Exception e) {
                 Log.e(TAG, "Gagal memulai kamera.", e);
             }
         }, ContextCompat.getMainExecutor(this));
     }
 
-    private void detectGarbage(ProcessedImageResult processedImageResult) {
-        if (processedImageResult == null) {
-            isDetecting.set(false);
+    /**
+     * Tahap capture di thread kamera: throttling dan gerbang adegan, lalu plane disalin dan
+     * ImageProxy langsung dilepas. Konversi, resize dan encode berjalan di tahap berikutnya.
+     */
+    private void captureFrame(ImageProxy imageProxy) {
+        boolean closed = false;
+        try {
+            long captureTime = SystemClock.elapsedRealtime();
+            pipelineMetrics.increment(PipelineMetrics.Counter.FRAMES_SEEN);
+            if (frameRecorder != null) recordFrame(imageProxy);
+            if (firstFrameTime == 0) {
+                firstFrameTime = captureTime;
+                pipelineMetrics.markMilestone(PipelineMetrics.Milestone.FIRST_FRAME);
+            }
+            // Kotak digeser setiap frame kamera di antara dua hasil deteksi
+            propagateTracks(captureTime);
+
+            // Sampai frame pertama terkirim tidak ada jeda antar frame: frame stabil pertama langsung dianalisis
+            boolean settling = !firstFrameSubmitted;
+            long now = System.currentTimeMillis();
+            long submitSpacingMs = analysisIntervalMs / MAX_IN_FLIGHT_DETECTIONS;
+            if ((!settling && now - lastAnalyzedTimestamp < submitSpacingMs) || !detectionScheduler.hasCapacity()) {
+                pipelineMetrics.increment(PipelineMetrics.Counter.FRAMES_THROTTLED);
+                return;
+            }
+            if (!settling) lastAnalyzedTimestamp = now;
+
+            if (imageProxy.getFormat() != ImageFormat.YUV_420_888) {
+                Log.e(TAG, "Unsupported format: " + imageProxy.getFormat());
+                return;
+            }
+            // Cek perubahan adegan dari plane Y sebelum konversi yang mahal
+            ImageProxy.PlaneProxy yPlane = imageProxy.getPlanes()[0];
+            if (!sceneChangeGate.shouldProcess(yPlane.getBuffer(), yPlane.getRowStride(),
+                    yPlane.getPixelStride(), imageProxy.getWidth(), imageProxy.getHeight(), now)) {
+                pipelineMetrics.increment(PipelineMetrics.Counter.FRAMES_UNCHANGED);
+                return;
+            }
+            if (settling) {
+                // Frame awal sering gelap atau berubah terang selama exposure otomatis menyesuaikan
+                if (!sceneChangeGate.isSettled(STARTUP_MAX_MOTION, STARTUP_MIN_MEAN_LUMA)
+                        && captureTime - firstFrameTime < STARTUP_MAX_SETTLE_MS) {
+                    pipelineMetrics.increment(PipelineMetrics.Counter.FRAMES_UNSETTLED);
+                    return;
+                }
+                lastAnalyzedTimestamp = now;
+            }
+
+            int rotationDegrees = imageProxy.getImageInfo().getRotationDegrees();
+            CapturedFrame captured = spareFrames.poll();
+            if (captured == null) captured = new CapturedFrame();
+            long start = PipelineMetrics.now();
+            try {
+                copyPlanes(imageProxy, captured.frame);
+            } catch (Exception e) {
+                Log.e(TAG, "Direct conversion failed, trying alternative", e);
+                spareFrames.offer(captured);
+                submitFallbackFrame(imageProxy, rotationDegrees, captureTime, now);
+                return;
+            }
+            pipelineMetrics.record(PipelineMetrics.Stage.CONVERT, start);
+            captured.rotationDegrees = rotationDegrees;
+            captured.captureTimeMs = captureTime;
+
+            // Piksel sudah disalin; kamera bisa langsung mengisi buffer berikutnya
+            imageProxy.close();
+            closed = true;
+            if (preprocessStage.submit(captured)) {
+                // Frame yang nanti gagal atau ditolak scheduler memanggil invalidate()
+                markFrameSent(now);
+            } else {
+                spareFrames.offer(captured);
+            }
+        } catch (Exception e) {
+            Log.e(TAG, "Terjadi error fatal di dalam analyzer", e);
+        } finally {
+            if (!closed) imageProxy.close();
+        }
+    }
+
+    // Jalur lama per piksel langsung dari ImageProxy, jadi harus selesai sebelum proxy ditutup
+    private void submitFallbackFrame(ImageProxy imageProxy, int rotationDegrees, long captureTime, long now) {
+        long start = PipelineMetrics.now();
+        Bitmap bitmap = toBitmapAlternative(imageProxy);
+        pipelineMetrics.record(PipelineMetrics.Stage.CONVERT, start);
+        if (bitmap == null) return;
+
+        start = PipelineMetrics.now();
+        ProcessedImageResult result = processImage(bitmap, rotationDegrees);
+        pipelineMetrics.record(PipelineMetrics.Stage.PREPROCESS, start);
+        result.captureTimeMs = captureTime;
+        if (encodeStage.submit(result)) {
+            markFrameSent(now);
+        }
+    }
+
+    // Thread kamera
+    private void markFrameSent(long now) {
+        sceneChangeGate.markSent(now);
+        if (!firstFrameSubmitted) {
+            firstFrameSubmitted = true;
+            pipelineMetrics.markMilestone(PipelineMetrics.Milestone.FIRST_FRAME_SENT);
+        }
+    }
+
+    // Tahap preprocess: rotasi + resize ke bitmap pool, lalu diteruskan ke tahap encode
+    private void preprocessCapturedFrame(CapturedFrame captured) {
+        long captureTime = captured.captureTimeMs;
+        ProcessedImageResult result = null;
+        try {
+            result = preprocessFrame(captured.frame, captured.rotationDegrees);
+        } catch (Exception e) {
+            Log.e(TAG, "Preprocessing gagal", e);
+        } finally {
+            spareFrames.offer(captured);
+        }
+        if (result == null) {
+            sceneChangeGate.invalidate();
             return;
         }
+        result.captureTimeMs = captureTime;
+        // Menunggu jika encode masih sibuk dengan frame sebelumnya
+        if (!encodeStage.submit(result)) result.release();
+    }
 
-        runOnUiThread(() -> {
-            progressBar.setVisibility(View.VISIBLE);
-            tvStatus.setText(R.string.analyzing);
-            if(debugImageView != null) {
-                debugImageView.setImageBitmap(processedImageResult.bitmap);
-            }
-        });
+    // Tahap encode/submit: cache atau detector (encode JPEG/WebP terjadi di sini untuk backend remote)
+    private void submitFrame(ProcessedImageResult result) {
+        try {
+            if (!detectGarbage(result)) sceneChangeGate.invalidate();
+        } catch (Exception e) {
+            Log.e(TAG, "Gagal mengirim frame ke detector", e);
+            sceneChangeGate.invalidate();
+        } finally {
+            // Referensi milik pipeline; detector dan view debug memegang referensinya sendiri
+            result.release();
+        }
+    }
 
-        String base64Image = bitmapToBase64(processedImageResult.bitmap);
-        roboflowAPI.detectGarbage(base64Image, new RoboflowAPI.ApiCallback() {
-            @Override
-            public void onSuccess(List<RoboflowAPI.Prediction> predictions) {
-                runOnUiThread(() -> {
-                    progressBar.setVisibility(View.GONE);
-                    tvStatus.setText("Arahkan kamera ke sampah...");
-                    if(boundingBoxOverlay != null) {
-                        int originalWidth = processedImageResult.inferenceWidth;
-                        int originalHeight = processedImageResult.inferenceHeight;
+    private void openFrameRecorder() {
+        File file = new File(getFilesDir(), FRAME_RECORDING_FILE_NAME);
+        try {
+            frameRecorder = FrameRecorder.create(file, FRAME_RECORDING_MAX_BYTES);
+            Log.i(TAG, "Merekam frame kamera ke " + file);
+        } catch (IOException e) {
+            Log.e(TAG, "Gagal membuat rekaman frame", e);
+        }
+    }
 
-                        if (processedImageResult.rotationDegrees == 90 || processedImageResult.rotationDegrees == 270) {
-                            originalWidth = processedImageResult.inferenceHeight;
-                            originalHeight = processedImageResult.inferenceWidth;
-                        }
+    // Frame disimpan sebelum throttling dan gerbang adegan, jadi replay melihat semua frame analyzer
+    private void recordFrame(ImageProxy image) {
+        if (image.getFormat() != ImageFormat.YUV_420_888) return;
+        ImageProxy.PlaneProxy[] planes = image.getPlanes();
+        boolean recorded = frameRecorder.record(planes[0].getBuffer(), planes[0].getRowStride(), planes[0].getPixelStride(),
+                planes[1].getBuffer(), planes[2].getBuffer(), planes[1].getRowStride(), planes[1].getPixelStride(),
+                image.getWidth(), image.getHeight(), image.getImageInfo().getRotationDegrees(),
+                image.getImageInfo().getTimestamp());
+        if (!recorded) {
+            Log.i(TAG, "Rekaman frame penuh: " + frameRecorder.getFrameCount() + " frame");
+            closeFrameRecorder();
+        }
+    }
 
-                        boundingBoxOverlay.setPredictions(predictions, originalWidth, originalHeight, processedImageResult.rotationDegrees);
+    private void closeFrameRecorder() {
+        if (frameRecorder == null) return;
+        try {
+            frameRecorder.close();
+        } catch (IOException e) {
+            Log.w(TAG, "Gagal menutup rekaman frame", e);
+        }
+        frameRecorder = null;
+    }
+
+    private boolean detectGarbage(ProcessedImageResult processedImageResult) {
+        if (processedImageResult == null) {
+            return false;
+        }
+
+        // Adegan yang sama dengan yang baru saja dideteksi langsung ditampilkan dari cache
+        if (processedImageResult.hasHash) {
+            DetectionCache.Entry cached = detectionCache.lookup(processedImageResult.hash,
+                    processedImageResult.inferenceWidth, processedImageResult.inferenceHeight, SystemClock.elapsedRealtime());
+            if (cached != null) {
+                pipelineMetrics.increment(PipelineMetrics.Counter.CACHE_HITS);
+                detectionScheduler.deliver(cached.predictions, new RoboflowAPI.ApiCallback() {
+                    @Override
+                    public void onSuccess(List<RoboflowAPI.Prediction> predictions) {
+                        onSuccess(PredictionBatch.fromPredictions(predictions));
                     }
-                    if(tvResult != null) {
-                        tvResult.setText(buildSummaryString(predictions));
+
+                    @Override
+                    public void onSuccess(PredictionBatch predictions) {
+                        PredictionBatch tracked = objectTracker.update(predictions, processedImageResult.captureTimeMs);
+                        dispatchPredictions(processedImageResult, predictions, tracked);
+                    }
+
+                    @Override
+                    public void onError(String error) {
                     }
-                    isDetecting.set(false);
                 });
+                return true;
+            }
+        }
+
+        if (debugImageView != null) processedImageResult.retain();
+        postRender(new DebugFrameUpdate(processedImageResult));
+
+        processedImageResult.retain();
+        long sequence = detectionScheduler.submit(processedImageResult.bitmap, processedImageResult.captureTimeMs, new RoboflowAPI.ApiCallback() {
+            @Override
+            public void onSuccess(List<RoboflowAPI.Prediction> predictions) {
+                onSuccess(PredictionBatch.fromPredictions(predictions));
+            }
+
+            @Override
+            public void onSuccess(PredictionBatch detected) {
+                PredictionBatch predictions = postProcess(detected);
+                if (processedImageResult.hasHash) {
+                    detectionCache.put(processedImageResult.hash, predictions, processedImageResult.inferenceWidth,
+                            processedImageResult.inferenceHeight, SystemClock.elapsedRealtime());
+                }
+                PredictionBatch tracked = objectTracker.update(predictions, processedImageResult.captureTimeMs);
+                dispatchPredictions(processedImageResult, predictions, tracked);
             }
 
             @Override
             public void onError(String error) {
-                runOnUiThread(() -> {
-                    progressBar.setVisibility(View.GONE);
+                pipelineMetrics.increment(PipelineMetrics.Counter.FRAMES_FAILED);
+                finishStartup();
+                if (RoboflowAPI.isConnectionError(error)) {
+                    enqueueOfflineFrame(processedImageResult);
+                }
+                sceneChangeGate.invalidate();
+                objectTracker.clear();
+                postResult(() -> {
+                    discardPendingTracks();
+                    updateProgressVisibility();
                     tvStatus.setText("Terjadi kesalahan, mencoba lagi...");
                     if(boundingBoxOverlay != null) {
                         boundingBoxOverlay.setPredictions(null, 1, 1, 0);
                     }
-                    isDetecting.set(false);
                 });
             }
+        }, processedImageResult::release);
+        if (sequence > 0) {
+            pipelineMetrics.increment(PipelineMetrics.Counter.FRAMES_SENT);
+        } else {
+            processedImageResult.release();
+        }
+        return sequence > 0;
+    }
+
+    private PredictionBatch postProcess(PredictionBatch detected) {
+        if (detected == null) return null;
+        long start = PipelineMetrics.now();
+        PredictionBatch filtered = postProcessor.process(detected);
+        pipelineMetrics.record(PipelineMetrics.Stage.FILTER, start);
+        pipelineMetrics.add(PipelineMetrics.Counter.PREDICTIONS_FILTERED, detected.size() - filtered.size());
+        return filtered;
+    }
+
+    private void propagateTracks(long nowMs) {
+        if (boundingBoxOverlay == null || !objectTracker.hasTracks()) return;
+        PredictionBatch tracked = objectTracker.predict(nowMs, spareTracks);
+        // Paling banyak satu render track menunggu di thread UI
+        PredictionBatch unrendered = pendingTracks.getAndSet(tracked);
+        if (unrendered != null) {
+            // Belum sempat digambar, jadi langsung bisa diisi ulang
+            spareTracks = unrendered;
+            return;
+        }
+        mainHandler.post(trackRender);
+        // Batch baru hanya jika thread UI belum selesai menyalin batch sebelumnya
+        PredictionBatch rendered = renderedTracks.getAndSet(null);
+        spareTracks = rendered != null ? rendered : new PredictionBatch();
+    }
+
+    private void renderTracks() {
+        PredictionBatch tracked = pendingTracks.getAndSet(null);
+        if (tracked == null) return;
+        boundingBoxOverlay.updatePredictions(tracked);
+        // Overlay sudah menyalin kotaknya
+        renderedTracks.set(tracked);
+    }
+
+    // Di thread UI: posisi track yang diprediksi sebelum hasil atau error ini sudah usang
+    private void discardPendingTracks() {
+        PredictionBatch stale = pendingTracks.getAndSet(null);
+        if (stale != null) renderedTracks.set(stale);
+    }
+
+    private void dispatchPredictions(ProcessedImageResult processedImageResult, PredictionBatch predictions,
+                                     PredictionBatch tracked) {
+        long postedAt = PipelineMetrics.now();
+        postResult(() -> {
+            pipelineMetrics.record(PipelineMetrics.Stage.DISPATCH, postedAt);
+            renderPredictions(processedImageResult, predictions, tracked);
         });
     }
 
-    private String bitmapToBase64(Bitmap bitmap) {
-        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
-        bitmap.compress(Bitmap.CompressFormat.JPEG, 95, outputStream);
-        return Base64.encodeToString(outputStream.toByteArray(), Base64.NO_WRAP);
+    // predictions untuk ringkasan, tracked (dengan ID track) untuk overlay
+    private void renderPredictions(ProcessedImageResult processedImageResult, PredictionBatch predictions,
+                                   PredictionBatch tracked) {
+        pipelineMetrics.increment(PipelineMetrics.Counter.FRAMES_RENDERED);
+        pipelineMetrics.recordDuration(PipelineMetrics.Stage.END_TO_END,
+                TimeUnit.MILLISECONDS.toNanos(SystemClock.elapsedRealtime() - processedImageResult.captureTimeMs));
+        updateProgressVisibility();
+        tvStatus.setText("Arahkan kamera ke sampah...");
+        discardPendingTracks();
+        if(boundingBoxOverlay != null) {
+            int originalWidth = processedImageResult.inferenceWidth;
+            int originalHeight = processedImageResult.inferenceHeight;
+
+            if (processedImageResult.rotationDegrees == 90 || processedImageResult.rotationDegrees == 270) {
+                originalWidth = processedImageResult.inferenceHeight;
+                originalHeight = processedImageResult.inferenceWidth;
+            }
+
+            boundingBoxOverlay.setPredictions(tracked, originalWidth, originalHeight, processedImageResult.rotationDegrees);
+        }
+        if(tvResult != null) {
+            tvResult.setText(buildSummaryString(predictions));
+        }
+        pipelineMetrics.markMilestone(PipelineMetrics.Milestone.FIRST_DETECTION);
+        finishStartup();
+    }
+
+    // Buffer encode antrean offline yang dipakai ulang antar frame, tanpa salinan toByteArray()
+    private static final class QueueJpegBuffer extends ByteArrayOutputStream {
+        byte[] buffer() {
+            return buf;
+        }
+    }
+
+    // Menampilkan frame yang sedang dianalisis; lease ikut dilepas jika update dibuang tahap render
+    private final class DebugFrameUpdate implements Runnable {
+        private final ProcessedImageResult result;
+
+        DebugFrameUpdate(ProcessedImageResult result) {
+            this.result = result;
+        }
+
+        @Override
+        public void run() {
+            progressBar.setVisibility(View.VISIBLE);
+            tvStatus.setText(R.string.analyzing);
+            if(debugImageView != null) {
+                debugImageView.setImageBitmap(result.bitmap);
+                // Frame sebelumnya baru kembali ke pool setelah tidak lagi ditampilkan
+                if (debugFrameLease != null) debugFrameLease.release();
+                debugFrameLease = result.bitmapLease;
+            }
+        }
+
+        void discard() {
+            if (debugImageView != null) result.release();
+        }
+    }
+
+    private void updateProgressVisibility() {
+        progressBar.setVisibility(detectionScheduler.getInFlightCount() > 0 ? View.VISIBLE : View.GONE);
+    }
+
+    // Rotasi + resize langsung dari plane YUV; jalur Bitmap lama hanya sebagai fallback
+    private ProcessedImageResult preprocessFrame(YuvFrame frame, int rotationDegrees) {
+        try {
+            long start = PipelineMetrics.now();
+            int[] pixels = framePreprocessor.process(frame, rotationDegrees);
+            int width = framePreprocessor.getOutputWidth();
+            int height = framePreprocessor.getOutputHeight();
+            ResourcePool.Lease<Bitmap> lease = bitmapPool.acquire(width, height, frameBitmapConfig);
+            framePreprocessor.copyTo(lease.get());
+            ProcessedImageResult result = new ProcessedImageResult(lease.get(), width, height, rotationDegrees);
+            result.bitmapLease = lease;
+            result.hash = DetectionCache.computeHash(pixels, width, height);
+            result.hasHash = true;
+            pipelineMetrics.record(PipelineMetrics.Stage.PREPROCESS, start);
+            return result;
+        } catch (Exception e) {
+            Log.e(TAG, "Direct preprocessing failed, falling back to bitmap path", e);
+        }
+
+        long start = PipelineMetrics.now();
+        Bitmap bitmap = yuvConverter.toBitmap(frame);
+        pipelineMetrics.record(PipelineMetrics.Stage.CONVERT, start);
+
+        start = PipelineMetrics.now();
+        ProcessedImageResult result = processImage(bitmap, rotationDegrees);
+        pipelineMetrics.record(PipelineMetrics.Stage.PREPROCESS, start);
+        return result;
     }
 
     private ProcessedImageResult processImage(Bitmap bitmap, int rotationDegrees) {
@@ -240,91 +1043,42 @@ public class MainActivity extends AppCompatActivity {
         return new ProcessedImageResult(resizedBitmap, finalWidth, finalHeight, rotationDegrees);
     }
 
-    // *** SOLUSI OPTIMAL: MENANGANI PIXEL STRIDE DAN ROW STRIDE DENGAN BENAR ***
-    private Bitmap toBitmap(ImageProxy image) {
-        try {
-            if (image.getFormat() != ImageFormat.YUV_420_888) {
-                Log.e(TAG, "Unsupported format: " + image.getFormat());
-                return null;
-            }
-
-            ImageProxy.PlaneProxy[] planes = image.getPlanes();
-            ImageProxy.PlaneProxy yPlane = planes[0];
-            ImageProxy.PlaneProxy uPlane = planes[1];
-            ImageProxy.PlaneProxy vPlane = planes[2];
-
-            int width = image.getWidth();
-            int height = image.getHeight();
-
-            // Ambil informasi stride
-            int yRowStride = yPlane.getRowStride();
-            int yPixelStride = yPlane.getPixelStride();
-            int uvRowStride = uPlane.getRowStride();
-            int uvPixelStride = uPlane.getPixelStride();
-
-            Log.d(TAG, String.format("Image: %dx%d, Y stride: row=%d pixel=%d, UV stride: row=%d pixel=%d",
-                    width, height, yRowStride, yPixelStride, uvRowStride, uvPixelStride));
-
-            // Buffer untuk setiap plane
-            ByteBuffer yBuffer = yPlane.getBuffer();
-            ByteBuffer uBuffer = uPlane.getBuffer();
-            ByteBuffer vBuffer = vPlane.getBuffer();
-
-            // *** METODE 1: KONVERSI DENGAN STRIDE HANDLING ***
-            byte[] nv21 = new byte[width * height + 2 * ((width + 1) / 2) * ((height + 1) / 2)];
-
-            // Copy Y plane dengan mempertimbangkan row stride
-            int yIndex = 0;
-            for (int row = 0; row < height; row++) {
-                for (int col = 0; col < width; col++) {
-                    int bufferIndex = row * yRowStride + col * yPixelStride;
-                    if (bufferIndex < yBuffer.remaining()) {
-                        nv21[yIndex++] = yBuffer.get(bufferIndex);
-                    }
-                }
-            }
-
-            // Copy UV planes untuk NV21 format (VUVU...)
-            int uvIndex = width * height;
-            for (int row = 0; row < height / 2; row++) {
-                for (int col = 0; col < width / 2; col++) {
-                    int bufferIndex = row * uvRowStride + col * uvPixelStride;
-
-                    // V kemudian U untuk NV21
-                    if (bufferIndex < vBuffer.remaining()) {
-                        nv21[uvIndex++] = vBuffer.get(bufferIndex);
-                    }
-                    if (bufferIndex < uBuffer.remaining()) {
-                        nv21[uvIndex++] = uBuffer.get(bufferIndex);
-                    }
-                }
-            }
-
-            // Konversi ke JPEG
-            YuvImage yuvImage = new YuvImage(nv21, ImageFormat.NV21, width, height, null);
-            ByteArrayOutputStream out = new ByteArrayOutputStream();
-            boolean success = yuvImage.compressToJpeg(new Rect(0, 0, width, height), 85, out);
-
-            if (!success) {
-                Log.w(TAG, "NV21 method failed, trying alternative method");
-                return toBitmapAlternative(image);
-            }
-
-            byte[] jpegData = out.toByteArray();
-            out.close();
-
-            Bitmap bitmap = BitmapFactory.decodeByteArray(jpegData, 0, jpegData.length);
-            if (bitmap != null) {
-                Log.d(TAG, "Successfully converted using NV21 method: " + bitmap.getWidth() + "x" + bitmap.getHeight());
-                return bitmap;
-            } else {
-                Log.w(TAG, "JPEG decode failed, trying alternative method");
-                return toBitmapAlternative(image);
-            }
+    // Layout di-probe sekali per binding; frame berikutnya hanya mencocokkan stride lalu disalin bulk
+    private void copyPlanes(ImageProxy image, YuvFrame frame) {
+        ImageProxy.PlaneProxy[] planes = image.getPlanes();
+        ImageProxy.PlaneProxy yPlane = planes[0];
+        ImageProxy.PlaneProxy uPlane = planes[1];
+        ImageProxy.PlaneProxy vPlane = planes[2];
+        int width = image.getWidth();
+        int height = image.getHeight();
+        int yRowStride = yPlane.getRowStride();
+        int yPixelStride = yPlane.getPixelStride();
+        int uvRowStride = uPlane.getRowStride();
+        int uvPixelStride = uPlane.getPixelStride();
+
+        PlaneLayout layout = planeLayout;
+        if (layout != null && !layout.matches(width, height, yRowStride, yPixelStride, uvRowStride, uvPixelStride)) {
+            layout = null;
+        }
+        if (layout == null) planeLayoutProbes = 0;
+        if (layout == null || (!layout.definitive && planeLayoutProbes < MAX_PLANE_LAYOUT_PROBES)) {
+            layout = PlaneLayout.probe(yPlane.getBuffer(), yRowStride, yPixelStride,
+                    uPlane.getBuffer(), vPlane.getBuffer(), uvRowStride, uvPixelStride, width, height);
+            planeLayoutProbes++;
+            if (!layout.definitive && planeLayoutProbes >= MAX_PLANE_LAYOUT_PROBES) layout = layout.asGeneric();
+            if (layout.definitive) Log.i(TAG, "Layout plane kamera: " + layout.describe());
+            planeLayout = layout;
+        }
 
-        } catch (Exception e) {
-            Log.e(TAG, "Main conversion failed, trying alternative", e);
-            return toBitmapAlternative(image);
+        try {
+            frame.copyFrom(layout, yPlane.getBuffer(), uPlane.getBuffer(), vPlane.getBuffer());
+        } catch (RuntimeException e) {
+            if (layout.chroma == PlaneLayout.Chroma.GENERIC) throw e;
+            // Jalur bulk tidak cocok dengan buffer perangkat ini: sisa binding memakai salinan per sampel
+            Log.w(TAG, "Salinan bulk gagal untuk layout " + layout.describe(), e);
+            layout = layout.asGeneric();
+            planeLayout = layout;
+            frame.copyFrom(layout, yPlane.getBuffer(), uPlane.getBuffer(), vPlane.getBuffer());
         }
     }
 
@@ -426,25 +1180,108 @@ public class MainActivity extends AppCompatActivity {
         }
     }
 
-    private String buildSummaryString(List<RoboflowAPI.Prediction> predictions) {
+    private String buildSummaryString(PredictionBatch predictions) {
         if (predictions == null || predictions.isEmpty()) {
             return "Tidak ada sampah terdeteksi.";
         }
         StringBuilder sb = new StringBuilder();
         sb.append("=== HASIL DETEKSI ===\n");
         sb.append("Jumlah objek: ").append(predictions.size()).append("\n\n");
-        for (RoboflowAPI.Prediction p : predictions) {
-            sb.append("• ").append(p.className)
-                    .append(" (").append(String.format("%.1f", p.confidence * 100)).append("%)\n");
+        for (int i = 0; i < predictions.size(); i++) {
+            sb.append("• ").append(predictions.className(i))
+                    .append(" (").append(String.format("%.1f", predictions.confidence(i) * 100)).append("%)\n");
         }
         return sb.toString();
     }
 
+    // Ditulis ke file sementara lalu di-rename agar pembaca tidak melihat laporan setengah jadi
+    private void dumpMetrics() {
+        File target = new File(getFilesDir(), METRICS_FILE_NAME);
+        File temp = new File(getFilesDir(), METRICS_FILE_NAME + ".tmp");
+        try (Writer writer = new OutputStreamWriter(new FileOutputStream(temp), StandardCharsets.UTF_8)) {
+            pipelineMetrics.writeReport(writer);
+            String encoding = roboflowAPI.describeEncoding();
+            if (encoding != null) writer.write(encoding + "\n");
+            writer.write(poolBudget.describe() + "\n");
+            for (PipelineStage<?> stage : pipelineStages()) writer.write(stage.describe() + "\n");
+        } catch (IOException e) {
+            Log.w(TAG, "Gagal menulis metrik pipeline", e);
+            return;
+        }
+        if (!temp.renameTo(target)) {
+            Log.w(TAG, "Gagal mengganti " + target);
+        }
+    }
+
+    private void closeFrameQueue() {
+        if (networkCallback != null) {
+            getSystemService(ConnectivityManager.class).unregisterNetworkCallback(networkCallback);
+        }
+        if (frameQueueDrainer != null) {
+            frameQueueDrainer.close();
+        }
+        if (frameQueue != null) {
+            try {
+                frameQueue.close();
+            } catch (IOException e) {
+                Log.w(TAG, "Gagal menutup antrean frame", e);
+            }
+        }
+    }
+
+    @Override
+    public void onTrimMemory(int level) {
+        super.onTrimMemory(level);
+        // Bitmap dan buffer menganggur dibuat ulang saat dibutuhkan lagi
+        poolBudget.trimIdle();
+    }
+
     @Override
     protected void onDestroy() {
         super.onDestroy();
+        // Pekerjaan startup yang ditunda tidak dimulai lagi setelah executor dimatikan
+        startupFinished.set(true);
+        mainHandler.removeCallbacks(startupTimeout);
+        mainHandler.removeCallbacks(trackRender);
+        if (debugImageView != null) {
+            debugImageView.setImageBitmap(null);
+        }
+        if (debugFrameLease != null) {
+            debugFrameLease.release();
+            debugFrameLease = null;
+        }
         if (cameraExecutor != null) {
+            cameraExecutor.execute(this::closeFrameRecorder);
             cameraExecutor.shutdown();
         }
+        // Item yang masih antre dilepas di executor masing-masing sebelum executor berhenti
+        if (preprocessStage != null) {
+            preprocessStage.close();
+            encodeStage.close();
+            renderStage.close();
+            preprocessExecutor.shutdown();
+            encodeExecutor.shutdown();
+        }
+        if (thermalListener != null && Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q) {
+            PowerManager powerManager = getSystemService(PowerManager.class);
+            if (powerManager != null) powerManager.removeThermalStatusListener(thermalListener);
+        }
+        if (metricsExecutor != null) {
+            metricsExecutor.shutdown();
+        }
+        // Frame yang masih diproses setelah ini dikerjakan berurutan di thread kamera
+        if (bandExecutor != null) {
+            bandExecutor.close();
+        }
+        if (frameQueueExecutor != null) {
+            frameQueueExecutor.execute(this::closeFrameQueue);
+            frameQueueExecutor.shutdown();
+        }
+        if (detectionScheduler != null) {
+            detectionScheduler.cancelAll();
+        }
+        if (detector != null) {
+            detector.close();
+        }
     }
 }
\ No newline at end of file
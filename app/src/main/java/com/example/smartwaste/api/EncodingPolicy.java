@@ -0,0 +1,149 @@
+package com.example.smartwaste.api;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Memilih codec dan kualitas payload dari throughput upload yang terukur dan budget latensi
+ * jaringan. Ukuran payload tiap langkah diperkirakan dari ukuran acuan (setara JPEG 95) yang
+ * dipelajari dari hasil encode, dikali rasio tetap per langkah; langkah terbesar yang
+ * diperkirakan muat dalam budget yang dipakai, tidak pernah di bawah floor kualitas.
+ *
+ * Throughput dihitung dari byte body dibagi waktu menulis body ke socket saja; RTT, waktu
+ * inferensi server dan backoff retry tidak ikut, karena bagian tetap itu tidak mengecil bersama
+ * payload dan akan menahan estimasi di floor. Yang dihaluskan adalah waktu per byte, sehingga
+ * penulisan yang hampir seketika (body muat di buffer socket) tidak melonjakkan estimasi.
+ */
+public final class EncodingPolicy {
+
+    public enum Codec {
+        JPEG,
+        WEBP
+    }
+
+    public static final class Step {
+        public final Codec codec;
+        public final int quality;
+        // Ukuran relatif terhadap JPEG 95 untuk frame yang sama
+        final float sizeRatio;
+
+        Step(Codec codec, int quality, float sizeRatio) {
+            this.codec = codec;
+            this.quality = quality;
+            this.sizeRatio = sizeRatio;
+        }
+
+        @Override
+        public String toString() {
+            return codec.name().toLowerCase(Locale.US) + " q" + quality;
+        }
+    }
+
+    // Rasio kasar dari frame 416px kamera; hanya dipakai untuk urutan dan prediksi awal
+    private static final Step[] LADDER = {
+            new Step(Codec.JPEG, 95, 1.00f),
+            new Step(Codec.JPEG, 85, 0.50f),
+            new Step(Codec.JPEG, 75, 0.38f),
+            new Step(Codec.WEBP, 80, 0.30f),
+            new Step(Codec.JPEG, 65, 0.32f),
+            new Step(Codec.JPEG, 55, 0.28f),
+            new Step(Codec.WEBP, 70, 0.24f),
+            new Step(Codec.WEBP, 60, 0.20f),
+            new Step(Codec.WEBP, 50, 0.17f),
+    };
+
+    private static final double SMOOTHING = 0.3;
+    // Naik ke langkah yang lebih besar hanya jika muat dengan margin ini, supaya tidak bolak-balik
+    private static final double UPGRADE_MARGIN = 0.8;
+
+    private final long targetNetworkMs;
+    // Diurutkan dari payload terbesar (kualitas tertinggi) ke terkecil
+    private final List<Step> steps;
+
+    // Dijaga oleh this
+    private double nanosPerByte;          // 0 = belum ada sampel
+    private double referenceBytes;        // perkiraan ukuran JPEG 95, 0 = belum ada sampel
+    private Step current;
+    private int lastEncodedBytes;
+
+    /**
+     * @param targetNetworkMs budget waktu upload payload
+     * @param jpegMinQuality  floor kualitas JPEG
+     * @param webpMinQuality  floor kualitas WebP
+     * @param webpEnabled     false jika hanya JPEG yang boleh dipakai
+     */
+    public EncodingPolicy(long targetNetworkMs, int jpegMinQuality, int webpMinQuality, boolean webpEnabled) {
+        this.targetNetworkMs = targetNetworkMs;
+        List<Step> allowed = new ArrayList<>();
+        for (Step step : LADDER) {
+            if (step.codec == Codec.JPEG && step.quality < jpegMinQuality) continue;
+            if (step.codec == Codec.WEBP && (!webpEnabled || step.quality < webpMinQuality)) continue;
+            allowed.add(step);
+        }
+        if (allowed.isEmpty()) {
+            allowed.add(LADDER[0]);
+        }
+        Collections.sort(allowed, (a, b) -> Float.compare(b.sizeRatio, a.sizeRatio));
+        this.steps = Collections.unmodifiableList(allowed);
+        this.current = steps.get(0);
+    }
+
+    public List<Step> getSteps() {
+        return steps;
+    }
+
+    /** Langkah untuk frame berikutnya. Tanpa sampel throughput selalu langkah teratas. */
+    public synchronized Step choose() {
+        if (nanosPerByte <= 0 || referenceBytes <= 0) {
+            current = steps.get(0);
+            return current;
+        }
+        double budgetBytes = targetNetworkMs * 1e6 / nanosPerByte;
+        int currentIndex = steps.indexOf(current);
+        Step chosen = steps.get(steps.size() - 1);
+        for (int i = 0; i < steps.size(); i++) {
+            Step step = steps.get(i);
+            double allowedBytes = i < currentIndex ? budgetBytes * UPGRADE_MARGIN : budgetBytes;
+            if (referenceBytes * step.sizeRatio <= allowedBytes) {
+                chosen = step;
+                break;
+            }
+        }
+        current = chosen;
+        return chosen;
+    }
+
+    /** Dipanggil setelah encode untuk memperbarui perkiraan ukuran. */
+    public synchronized void recordEncoded(Step step, int bytes) {
+        lastEncodedBytes = bytes;
+        referenceBytes = smooth(referenceBytes, bytes / step.sizeRatio);
+    }
+
+    /** Dipanggil setelah respons sukses: byte body request dan durasi menulis body tersebut. */
+    public synchronized void recordUpload(long bytes, long durationNanos) {
+        if (bytes <= 0 || durationNanos <= 0) return;
+        nanosPerByte = smooth(nanosPerByte, (double) durationNanos / bytes);
+    }
+
+    private static double smooth(double previous, double sample) {
+        return previous <= 0 ? sample : previous + SMOOTHING * (sample - previous);
+    }
+
+    public synchronized double getThroughputBytesPerSec() {
+        return nanosPerByte > 0 ? 1e9 / nanosPerByte : 0;
+    }
+
+    public synchronized long getPredictedNetworkMs(Step step) {
+        if (nanosPerByte <= 0 || referenceBytes <= 0) return -1;
+        return Math.round(referenceBytes * step.sizeRatio * nanosPerByte / 1e6);
+    }
+
+    /** Ringkasan untuk HUD dan laporan metrik. */
+    public synchronized String describe() {
+        return String.format(Locale.US, "enc %s %.1f KB  up %.0f KB/s  est %d ms",
+                current, lastEncodedBytes / 1024.0, getThroughputBytesPerSec() / 1024.0,
+                getPredictedNetworkMs(current));
+    }
+}
@@ -0,0 +1,205 @@
+package com.example.smartwaste.api;
+
+import androidx.annotation.NonNull;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import okhttp3.MediaType;
+import okhttp3.RequestBody;
+import okio.BufferedSink;
+
+/**
+ * Request body workflow Roboflow yang menulis envelope JSON dan meng-encode byte JPEG ke Base64
+ * langsung ke sink OkHttp, tanpa membuat String Base64 maupun JSONObject.
+ * Output byte-per-byte sama dengan JSONObject.toString() versi Android (termasuk escape "\/").
+ * Untuk batch, "image" berupa array berisi satu objek per frame dan workflow menjawab dengan
+ * satu elemen outputs per gambar, dalam urutan yang sama.
+ *
+ * Durasi penulisan body ke socket dicatat untuk estimasi throughput upload (EncodingPolicy).
+ * Body yang ditulis lebih dari sekali (retry, hedge) tidak memberi sampel karena penulisannya
+ * bisa saling tumpang tindih.
+ */
+public class ImageRequestBody extends RequestBody {
+
+    static final MediaType JSON = MediaType.get("application/json; charset=utf-8");
+
+    private static final byte[] BASE64_ALPHABET =
+            "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789+/".getBytes(StandardCharsets.UTF_8);
+    private static final int CHUNK_SIZE = 8192;
+
+    private static final String IMAGE_OPEN = "{\"type\":\"base64\",\"value\":\"";
+    private static final byte[] IMAGE_SEPARATOR = ("\"}," + IMAGE_OPEN).getBytes(StandardCharsets.UTF_8);
+
+    private final byte[] prefix;
+    private final byte[] suffix;
+    private final byte[][] data;
+    private final int[] offsets;
+    private final int[] lengths;
+    private long contentLength = -1;
+    private final AtomicInteger writes = new AtomicInteger();
+    private volatile long writeNanos = -1;
+
+    public ImageRequestBody(String apiKey, byte[] jpegData) {
+        this(apiKey, jpegData, 0, jpegData.length);
+    }
+
+    public ImageRequestBody(String apiKey, byte[] jpegData, int offset, int length) {
+        this.prefix = ("{\"api_key\":" + quote(apiKey)
+                + ",\"inputs\":{\"image\":" + IMAGE_OPEN).getBytes(StandardCharsets.UTF_8);
+        this.suffix = "\"}}}".getBytes(StandardCharsets.UTF_8);
+        this.data = new byte[][]{jpegData};
+        this.offsets = new int[]{offset};
+        this.lengths = new int[]{length};
+    }
+
+    /**
+     * Body batch: jpegData[i] dari offsets[i] sepanjang lengths[i] menjadi image ke-i.
+     * Array tidak disalin; isinya tidak boleh berubah sampai request selesai.
+     */
+    public ImageRequestBody(String apiKey, byte[][] jpegData, int[] offsets, int[] lengths) {
+        if (jpegData.length == 0 || offsets.length != jpegData.length || lengths.length != jpegData.length) {
+            throw new IllegalArgumentException("Batch harus berisi minimal satu gambar dengan offset dan panjang");
+        }
+        this.prefix = ("{\"api_key\":" + quote(apiKey)
+                + ",\"inputs\":{\"image\":[" + IMAGE_OPEN).getBytes(StandardCharsets.UTF_8);
+        this.suffix = "\"}]}}".getBytes(StandardCharsets.UTF_8);
+        this.data = jpegData;
+        this.offsets = offsets;
+        this.lengths = lengths;
+    }
+
+    @Override
+    public MediaType contentType() {
+        return JSON;
+    }
+
+    @Override
+    public long contentLength() {
+        if (contentLength < 0) {
+            long total = prefix.length + suffix.length + (long) IMAGE_SEPARATOR.length * (data.length - 1);
+            for (int i = 0; i < data.length; i++) {
+                total += encodedLength(data[i], offsets[i], lengths[i]);
+            }
+            contentLength = total;
+        }
+        return contentLength;
+    }
+
+    @Override
+    public void writeTo(@NonNull BufferedSink sink) throws IOException {
+        writes.incrementAndGet();
+        long start = System.nanoTime();
+        // Satu grup 3 byte menghasilkan paling banyak 8 byte (4 karakter, semuanya bisa "\/")
+        byte[] chunk = new byte[CHUNK_SIZE + 8];
+        sink.write(prefix);
+        for (int i = 0; i < data.length; i++) {
+            if (i > 0) sink.write(IMAGE_SEPARATOR);
+            writeBase64(sink, chunk, data[i], offsets[i], lengths[i]);
+        }
+        sink.write(suffix);
+        // flush supaya sisa buffer okio ikut terhitung, bukan hanya salinan ke memori
+        sink.flush();
+        writeNanos = System.nanoTime() - start;
+    }
+
+    /**
+     * Durasi writeTo jika body ditulis tepat sekali dan penulisannya selesai; -1 jika belum
+     * selesai atau body ditulis ulang oleh retry/hedge.
+     */
+    public long getSingleWriteNanos() {
+        return writes.get() == 1 ? writeNanos : -1;
+    }
+
+    // Panjang Base64 setelah escape: setiap '/' menjadi dua byte "\/"
+    static long encodedLength(byte[] src, int offset, int length) {
+        long slashes = 0;
+        int end = offset + length;
+        int i = offset;
+        for (; i + 2 < end; i += 3) {
+            int bits = (src[i] & 0xFF) << 16 | (src[i + 1] & 0xFF) << 8 | (src[i + 2] & 0xFF);
+            if ((bits >>> 18 & 0x3F) == 63) slashes++;
+            if ((bits >>> 12 & 0x3F) == 63) slashes++;
+            if ((bits >>> 6 & 0x3F) == 63) slashes++;
+            if ((bits & 0x3F) == 63) slashes++;
+        }
+        int remaining = end - i;
+        if (remaining > 0) {
+            int bits = (src[i] & 0xFF) << 16 | (remaining == 2 ? (src[i + 1] & 0xFF) << 8 : 0);
+            if ((bits >>> 18 & 0x3F) == 63) slashes++;
+            if ((bits >>> 12 & 0x3F) == 63) slashes++;
+            if (remaining == 2 && (bits >>> 6 & 0x3F) == 63) slashes++;
+        }
+        return 4L * ((length + 2) / 3) + slashes;
+    }
+
+    static void writeBase64(BufferedSink sink, byte[] chunk, byte[] src, int offset, int length) throws IOException {
+        int pos = 0;
+        int end = offset + length;
+        int i = offset;
+        for (; i + 2 < end; i += 3) {
+            int bits = (src[i] & 0xFF) << 16 | (src[i + 1] & 0xFF) << 8 | (src[i + 2] & 0xFF);
+            pos = put(chunk, pos, bits >>> 18 & 0x3F);
+            pos = put(chunk, pos, bits >>> 12 & 0x3F);
+            pos = put(chunk, pos, bits >>> 6 & 0x3F);
+            pos = put(chunk, pos, bits & 0x3F);
+            if (pos >= CHUNK_SIZE) {
+                sink.write(chunk, 0, pos);
+                pos = 0;
+            }
+        }
+        int remaining = end - i;
+        if (remaining > 0) {
+            int bits = (src[i] & 0xFF) << 16 | (remaining == 2 ? (src[i + 1] & 0xFF) << 8 : 0);
+            pos = put(chunk, pos, bits >>> 18 & 0x3F);
+            pos = put(chunk, pos, bits >>> 12 & 0x3F);
+            if (remaining == 2) {
+                pos = put(chunk, pos, bits >>> 6 & 0x3F);
+            } else {
+                chunk[pos++] = '=';
+            }
+            chunk[pos++] = '=';
+        }
+        if (pos > 0) {
+            sink.write(chunk, 0, pos);
+        }
+    }
+
+    private static int put(byte[] chunk, int pos, int sextet) {
+        byte c = BASE64_ALPHABET[sextet];
+        if (c == '/') {
+            chunk[pos++] = '\\';
+        }
+        chunk[pos++] = c;
+        return pos;
+    }
+
+    // Escape string sama seperti JSONStringer Android
+    static String quote(String value) {
+        StringBuilder sb = new StringBuilder(value.length() + 2).append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"':
+                case '\\':
+                case '/':
+                    sb.append('\\').append(c);
+                    break;
+                case '\t': sb.append("\\t"); break;
+                case '\b': sb.append("\\b"); break;
+                case '\n': sb.append("\\n"); break;
+                case '\r': sb.append("\\r"); break;
+                case '\f': sb.append("\\f"); break;
+                default:
+                    if (c <= 0x1F) {
+                        sb.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        sb.append(c);
+                    }
+                    break;
+            }
+        }
+        return sb.append('"').toString();
+    }
+}
@@ -0,0 +1,61 @@
+package com.example.smartwaste.api;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Tabel label kelas global. Nama kelas mentah (dari respons Roboflow atau file label model lokal)
+ * dipetakan sekali ke ID short; nama yang terbaca sama (mis. "B3" dan "b3" → "Sampah B3")
+ * mendapat ID yang sama, sehingga perbandingan kelas cukup membandingkan ID.
+ */
+public final class LabelTable {
+
+    // ID 0 dipakai untuk prediksi tanpa nama kelas dan saat tabel penuh
+    public static final short UNKNOWN = 0;
+
+    private static final ConcurrentHashMap<String, Short> rawIds = new ConcurrentHashMap<>();
+    // Dijaga oleh LabelTable.class
+    private static final Map<String, Short> readableIds = new HashMap<>();
+    private static volatile String[] names = new String[0];
+
+    static {
+        intern("Unknown");
+    }
+
+    private LabelTable() {
+    }
+
+    public static short intern(String rawClassName) {
+        Short id = rawIds.get(rawClassName);
+        if (id != null) return id;
+        synchronized (LabelTable.class) {
+            id = rawIds.get(rawClassName);
+            if (id != null) return id;
+            String readable = WorkflowResponseParser.getReadableClassName(rawClassName);
+            id = readableIds.get(readable);
+            if (id == null) {
+                String[] current = names;
+                if (current.length > Short.MAX_VALUE) return UNKNOWN;
+                id = (short) current.length;
+                String[] grown = Arrays.copyOf(current, current.length + 1);
+                grown[id] = readable;
+                names = grown;
+                readableIds.put(readable, id);
+            }
+            rawIds.put(rawClassName, id);
+            return id;
+        }
+    }
+
+    // Nama yang ditampilkan (sudah melalui getReadableClassName)
+    public static String name(short id) {
+        String[] current = names;
+        return id >= 0 && id < current.length ? current[id] : current[UNKNOWN];
+    }
+
+    public static int size() {
+        return names.length;
+    }
+}
@@ -0,0 +1,93 @@
+package com.example.smartwaste.api;
+
+import java.io.FilterReader;
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * Reader yang memotong isi string literal JSON (termasuk nama field) yang lebih panjang dari
+ * maxStringLength.
+ * JsonReader Android tetap menampung string panjang ke StringBuilder walaupun di-skipValue(),
+ * sehingga gambar visualisasi Base64 dari workflow dipotong di sini sebelum sampai ke parser.
+ * Struktur JSON tidak berubah: escape tidak pernah terpotong di tengah dan tanda kutip penutup
+ * selalu diteruskan.
+ */
+class LongStringTruncatingReader extends FilterReader {
+
+    private final int maxStringLength;
+    private char[] scratch = new char[0];
+    private final char[] single = new char[1];
+
+    private boolean inString;
+    private int stringLength;
+    // Sisa digit hex dari escape \\uXXXX yang harus diteruskan utuh
+    private int escapeRemaining;
+    private boolean afterBackslash;
+
+    LongStringTruncatingReader(Reader in, int maxStringLength) {
+        super(in);
+        this.maxStringLength = maxStringLength;
+    }
+
+    @Override
+    public int read() throws IOException {
+        int n = read(single, 0, 1);
+        return n == -1 ? -1 : single[0];
+    }
+
+    @Override
+    public int read(char[] cbuf, int off, int len) throws IOException {
+        if (len == 0) return 0;
+        if (scratch.length < len) scratch = new char[len];
+        while (true) {
+            int n = in.read(scratch, 0, len);
+            if (n == -1) return -1;
+            int out = off;
+            for (int i = 0; i < n; i++) {
+                char c = scratch[i];
+                if (!inString) {
+                    if (c == '"') {
+                        inString = true;
+                        stringLength = 0;
+                    }
+                    cbuf[out++] = c;
+                    continue;
+                }
+
+                if (afterBackslash) {
+                    afterBackslash = false;
+                    escapeRemaining = c == 'u' ? 4 : 0;
+                    if (stringLength <= maxStringLength) cbuf[out++] = c;
+                    continue;
+                }
+                if (escapeRemaining > 0) {
+                    escapeRemaining--;
+                    if (stringLength <= maxStringLength) cbuf[out++] = c;
+                    continue;
+                }
+                if (c == '"') {
+                    inString = false;
+                    cbuf[out++] = c;
+                    continue;
+                }
+
+                // Karakter baru dalam string: escape dihitung satu dan tidak dipotong di tengah
+                stringLength++;
+                if (c == '\\') afterBackslash = true;
+                if (stringLength <= maxStringLength) cbuf[out++] = c;
+            }
+            // Seluruh chunk berada di bagian string yang dibuang; baca lagi daripada mengembalikan 0
+            if (out > off) return out - off;
+        }
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        throw new IOException("skip not supported");
+    }
+
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+}
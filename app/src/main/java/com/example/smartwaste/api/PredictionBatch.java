@@ -0,0 +1,160 @@
+package com.example.smartwaste.api;
+
+import android.graphics.RectF;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Hasil deteksi satu frame dalam bentuk struct-of-arrays: kotak (left, top, right, bottom)
+ * berurutan di satu float[], confidence di float[], ID kelas dari LabelTable di short[] dan
+ * ID track di int[] (-1 jika belum di-track). Satu frame berapa pun jumlah objeknya hanya
+ * mengalokasikan objek ini dan array-nya, bukan Prediction + RectF + String per objek.
+ *
+ * Batch diisi oleh satu thread lalu diteruskan ke callback; setelah itu batch tidak boleh
+ * diubah lagi karena bisa dipegang bersamaan oleh cache, tracker dan UI.
+ */
+public final class PredictionBatch {
+
+    private float[] boxes;
+    private float[] confidences;
+    private short[] classIds;
+    private int[] trackIds;
+    private int size;
+
+    public PredictionBatch() {
+        this(8);
+    }
+
+    public PredictionBatch(int capacity) {
+        capacity = Math.max(1, capacity);
+        boxes = new float[capacity * 4];
+        confidences = new float[capacity];
+        classIds = new short[capacity];
+        trackIds = new int[capacity];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void add(short classId, float confidence, float left, float top, float right, float bottom) {
+        add(classId, confidence, left, top, right, bottom, -1);
+    }
+
+    public void add(short classId, float confidence, float left, float top, float right, float bottom, int trackId) {
+        if (size == confidences.length) grow();
+        set(size++, classId, confidence, left, top, right, bottom, trackId);
+    }
+
+    // Menimpa entri yang sudah ada, mis. saat duplikat dengan confidence lebih tinggi ditemukan
+    public void set(int index, short classId, float confidence, float left, float top, float right, float bottom,
+                    int trackId) {
+        int base = index * 4;
+        boxes[base] = left;
+        boxes[base + 1] = top;
+        boxes[base + 2] = right;
+        boxes[base + 3] = bottom;
+        confidences[index] = confidence;
+        classIds[index] = classId;
+        trackIds[index] = trackId;
+    }
+
+    public float left(int index) {
+        return boxes[index * 4];
+    }
+
+    public float top(int index) {
+        return boxes[index * 4 + 1];
+    }
+
+    public float right(int index) {
+        return boxes[index * 4 + 2];
+    }
+
+    public float bottom(int index) {
+        return boxes[index * 4 + 3];
+    }
+
+    public float centerX(int index) {
+        return (boxes[index * 4] + boxes[index * 4 + 2]) / 2;
+    }
+
+    public float centerY(int index) {
+        return (boxes[index * 4 + 1] + boxes[index * 4 + 3]) / 2;
+    }
+
+    public float width(int index) {
+        return boxes[index * 4 + 2] - boxes[index * 4];
+    }
+
+    public float height(int index) {
+        return boxes[index * 4 + 3] - boxes[index * 4 + 1];
+    }
+
+    public float confidence(int index) {
+        return confidences[index];
+    }
+
+    public short classId(int index) {
+        return classIds[index];
+    }
+
+    public String className(int index) {
+        return LabelTable.name(classIds[index]);
+    }
+
+    public int trackId(int index) {
+        return trackIds[index];
+    }
+
+    /** Menyalin kotak [left, top, right, bottom] * size() ke dest mulai dari destOffset. */
+    public void copyBoxesTo(float[] dest, int destOffset) {
+        System.arraycopy(boxes, 0, dest, destOffset, size * 4);
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    private void grow() {
+        int capacity = confidences.length * 2;
+        boxes = Arrays.copyOf(boxes, capacity * 4);
+        confidences = Arrays.copyOf(confidences, capacity);
+        classIds = Arrays.copyOf(classIds, capacity);
+        trackIds = Arrays.copyOf(trackIds, capacity);
+    }
+
+    // Adapter untuk pemanggil lama yang masih memakai List<Prediction>
+
+    public List<RoboflowAPI.Prediction> toPredictions() {
+        List<RoboflowAPI.Prediction> list = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            RectF box = new RectF(left(i), top(i), right(i), bottom(i));
+            list.add(new RoboflowAPI.Prediction(className(i), confidences[i], box, trackIds[i]));
+        }
+        return list;
+    }
+
+    // Prediksi tanpa kotak disimpan dengan kotak kosong (0, 0, 0, 0)
+    public static PredictionBatch fromPredictions(List<RoboflowAPI.Prediction> predictions) {
+        int count = predictions != null ? predictions.size() : 0;
+        PredictionBatch batch = new PredictionBatch(count);
+        for (int i = 0; i < count; i++) {
+            RoboflowAPI.Prediction p = predictions.get(i);
+            RectF box = p.boundingBox;
+            short classId = LabelTable.intern(p.className != null ? p.className : "Unknown");
+            if (box != null) {
+                batch.add(classId, p.confidence, box.left, box.top, box.right, box.bottom, p.trackId);
+            } else {
+                batch.add(classId, p.confidence, 0f, 0f, 0f, 0f, p.trackId);
+            }
+        }
+        return batch;
+    }
+}
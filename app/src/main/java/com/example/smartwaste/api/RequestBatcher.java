@@ -0,0 +1,228 @@
+package com.example.smartwaste.api;
+
+import com.example.smartwaste.detector.Detector;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mengumpulkan frame JPEG dalam jendela waktu/ukuran kecil lalu mengirimnya sebagai satu
+ * request workflow berisi beberapa gambar. Batch dikirim saat jumlah frame mencapai maxFrames,
+ * total byte akan melewati maxBytes, atau maxDelayMs berlalu sejak frame pertama masuk.
+ * Hasil dipecah kembali per frame dan dikirim ke callback masing-masing.
+ *
+ * Frame yang dibatalkan sebelum terkirim langsung dikeluarkan dari batch; setelah terkirim,
+ * request baru dibatalkan jika semua frame di dalamnya dibatalkan. Frame yang dibatalkan
+ * selalu menerima onError("Dibatalkan") tepat sekali, sama seperti request tunggal.
+ */
+final class RequestBatcher {
+
+    static final String CANCELLED_ERROR = Detector.CANCELLED_ERROR;
+
+    interface Transport {
+        Detector.Cancellable send(byte[][] jpegData, int[] offsets, int[] lengths, BatchCallback callback);
+    }
+
+    interface BatchCallback {
+        // Satu batch per gambar, urutan sama dengan urutan di request
+        void onSuccess(List<PredictionBatch> perImage);
+
+        void onError(String error);
+    }
+
+    private final Transport transport;
+    private final ScheduledExecutorService scheduler;
+    private final int maxFrames;
+    private final int maxBytes;
+    private final long maxDelayMs;
+
+    // Dijaga oleh this
+    private List<Entry> pending = new ArrayList<>();
+    private long pendingBytes;
+    private ScheduledFuture<?> flushFuture;
+    private long batchCount;
+    private long frameCount;
+
+    RequestBatcher(Transport transport, ScheduledExecutorService scheduler, int maxFrames, int maxBytes, long maxDelayMs) {
+        this.transport = transport;
+        this.scheduler = scheduler;
+        this.maxFrames = Math.max(1, maxFrames);
+        this.maxBytes = maxBytes;
+        this.maxDelayMs = maxDelayMs;
+    }
+
+    Detector.Cancellable submit(byte[] jpegData, int offset, int length, RoboflowAPI.ApiCallback callback) {
+        Entry entry = new Entry(jpegData, offset, length, callback);
+        List<Entry> full = null;
+        List<Entry> overflow = null;
+        synchronized (this) {
+            // Batch yang sudah ada dikirim dulu jika frame ini membuatnya terlalu besar
+            if (!pending.isEmpty() && pendingBytes + length > maxBytes) {
+                overflow = takePending();
+            }
+            pending.add(entry);
+            pendingBytes += length;
+            if (pending.size() >= maxFrames || pendingBytes >= maxBytes) {
+                full = takePending();
+            } else if (flushFuture == null) {
+                flushFuture = scheduler.schedule(this::flush, maxDelayMs, TimeUnit.MILLISECONDS);
+            }
+        }
+        if (overflow != null) send(overflow);
+        if (full != null) send(full);
+        return entry;
+    }
+
+    /** Mengirim frame yang sedang menunggu tanpa menunggu jendela waktu habis. */
+    void flush() {
+        List<Entry> batch;
+        synchronized (this) {
+            if (pending.isEmpty()) return;
+            batch = takePending();
+        }
+        send(batch);
+    }
+
+    synchronized long getBatchCount() {
+        return batchCount;
+    }
+
+    synchronized long getFrameCount() {
+        return frameCount;
+    }
+
+    private List<Entry> takePending() {
+        List<Entry> batch = pending;
+        pending = new ArrayList<>();
+        pendingBytes = 0;
+        if (flushFuture != null) {
+            flushFuture.cancel(false);
+            flushFuture = null;
+        }
+        return batch;
+    }
+
+    private void send(List<Entry> entries) {
+        Batch batch = new Batch(entries);
+        byte[][] data = new byte[entries.size()][];
+        int[] offsets = new int[entries.size()];
+        int[] lengths = new int[entries.size()];
+        synchronized (this) {
+            for (int i = 0; i < entries.size(); i++) {
+                Entry entry = entries.get(i);
+                entry.batch = batch;
+                data[i] = entry.data;
+                offsets[i] = entry.offset;
+                lengths[i] = entry.length;
+            }
+            batchCount++;
+            frameCount += entries.size();
+        }
+
+        Detector.Cancellable handle = transport.send(data, offsets, lengths, new BatchCallback() {
+            @Override
+            public void onSuccess(List<PredictionBatch> perImage) {
+                markCompleted(batch);
+                if (perImage.size() != entries.size()) {
+                    onError("Jumlah output batch tidak sesuai: " + perImage.size() + " untuk " + entries.size() + " gambar");
+                    return;
+                }
+                for (int i = 0; i < entries.size(); i++) {
+                    Entry entry = entries.get(i);
+                    if (entry.isCancelled()) {
+                        entry.callback.onError(CANCELLED_ERROR);
+                    } else {
+                        entry.callback.onSuccess(perImage.get(i));
+                    }
+                }
+            }
+
+            @Override
+            public void onError(String error) {
+                markCompleted(batch);
+                for (Entry entry : entries) {
+                    entry.callback.onError(entry.isCancelled() ? CANCELLED_ERROR : error);
+                }
+            }
+        });
+
+        boolean cancelNow;
+        synchronized (this) {
+            batch.handle = handle;
+            cancelNow = !batch.completed && batch.allCancelled();
+        }
+        if (cancelNow) handle.cancel();
+    }
+
+    private synchronized void markCompleted(Batch batch) {
+        batch.completed = true;
+    }
+
+    private static final class Batch {
+        final List<Entry> entries;
+        Detector.Cancellable handle;
+        // Hasil sudah diterima; pembatalan setelah ini tidak membatalkan request
+        boolean completed;
+
+        Batch(List<Entry> entries) {
+            this.entries = entries;
+        }
+
+        boolean allCancelled() {
+            for (Entry entry : entries) {
+                if (!entry.cancelled) return false;
+            }
+            return true;
+        }
+    }
+
+    private final class Entry implements Detector.Cancellable {
+        final byte[] data;
+        final int offset;
+        final int length;
+        final RoboflowAPI.ApiCallback callback;
+        // Dijaga oleh RequestBatcher.this
+        Batch batch;
+        boolean cancelled;
+
+        Entry(byte[] data, int offset, int length, RoboflowAPI.ApiCallback callback) {
+            this.data = data;
+            this.offset = offset;
+            this.length = length;
+            this.callback = callback;
+        }
+
+        boolean isCancelled() {
+            synchronized (RequestBatcher.this) {
+                return cancelled;
+            }
+        }
+
+        @Override
+        public void cancel() {
+            Detector.Cancellable cancelBatch = null;
+            boolean removed = false;
+            synchronized (RequestBatcher.this) {
+                if (cancelled) return;
+                cancelled = true;
+                if (batch == null) {
+                    removed = pending.remove(this);
+                    if (removed) {
+                        pendingBytes -= length;
+                        if (pending.isEmpty() && flushFuture != null) {
+                            flushFuture.cancel(false);
+                            flushFuture = null;
+                        }
+                    }
+                } else if (!batch.completed && batch.handle != null && batch.allCancelled()) {
+                    cancelBatch = batch.handle;
+                }
+            }
+            if (removed) callback.onError(CANCELLED_ERROR);
+            if (cancelBatch != null) cancelBatch.cancel();
+        }
+    }
+}
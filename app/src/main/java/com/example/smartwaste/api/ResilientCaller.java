@@ -0,0 +1,370 @@
+package com.example.smartwaste.api;
+
+import androidx.annotation.NonNull;
+
+import com.example.smartwaste.detector.Detector;
+import com.example.smartwaste.metrics.LatencyHistogram;
+import com.example.smartwaste.metrics.PipelineMetrics;
+import com.example.smartwaste.pool.ResourcePool;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.Call;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+
+/**
+ * Menjalankan request OkHttp dengan deadline per panggilan, retry ber-jitter untuk error yang
+ * aman diulang, dan hedging: jika attempt belum dijawab setelah p95 latensi, request identik
+ * kedua dikirim; respons pertama yang menang dan yang lain dibatalkan.
+ *
+ * Setiap attempt memakai call timeout sebesar sisa deadline, jadi satu request lambat tidak bisa
+ * menahan slot deteksi lebih lama dari budget frame. Retry dan hedge hanya dimulai jika masih
+ * ada waktu tersisa. Hedging hanya untuk panggilan dengan deadline (frame live).
+ *
+ * Jika request membawa tag ResourcePool.Lease (buffer pool yang dibaca body), setiap Call
+ * menahan satu referensi sampai callback OkHttp-nya sendiri selesai. Call yang kalah dan
+ * dibatalkan bisa masih menulis body setelah hasil final dikirim ke pemanggil.
+ */
+final class ResilientCaller {
+
+    interface Callback {
+        // Respons final: sukses atau error HTTP yang tidak di-retry; pemanggil menutup body
+        void onResponse(@NonNull Response response);
+
+        // Tidak ada respons; canceled jika dibatalkan lewat handle
+        void onFailure(@NonNull IOException e, boolean canceled);
+    }
+
+    /** Budget frame habis; bukan tanda koneksi putus, jadi frame tidak perlu diantrekan offline. */
+    static final class DeadlineExceededException extends InterruptedIOException {
+        DeadlineExceededException(String message) {
+            super(message);
+        }
+    }
+
+    // Hedging baru aktif setelah histogram cukup terisi
+    private static final int MIN_HEDGE_SAMPLES = 20;
+    private static final double HEDGE_QUANTILE = 0.95;
+
+    private final OkHttpClient client;
+    private final ScheduledExecutorService scheduler;
+    private final Random random;
+    private final LatencyHistogram latency = new LatencyHistogram();
+
+    private volatile int maxAttempts = 3;
+    private volatile long baseBackoffMs = 200;
+    private volatile long maxBackoffMs = 2_000;
+    private volatile boolean hedgingEnabled = false;
+    private volatile long minHedgeDelayMs = 300;
+    private volatile PipelineMetrics metrics;
+
+    ResilientCaller(OkHttpClient client, ScheduledExecutorService scheduler, Random random) {
+        this.client = client;
+        this.scheduler = scheduler;
+        this.random = random;
+    }
+
+    /** maxAttempts termasuk attempt pertama; backoff = acak(0, min(max, base·2^n)). */
+    void setRetryPolicy(int maxAttempts, long baseBackoffMs, long maxBackoffMs) {
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.baseBackoffMs = baseBackoffMs;
+        this.maxBackoffMs = maxBackoffMs;
+    }
+
+    void setMetrics(PipelineMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    private void count(PipelineMetrics.Counter counter) {
+        PipelineMetrics metrics = this.metrics;
+        if (metrics != null) metrics.increment(counter);
+    }
+
+    void setHedging(boolean enabled, long minDelayMs) {
+        this.hedgingEnabled = enabled;
+        this.minHedgeDelayMs = minDelayMs;
+    }
+
+    /** Latensi attempt (kirim sampai header respons), dasar delay hedging. */
+    LatencyHistogram getLatency() {
+        return latency;
+    }
+
+    /**
+     * @param timeoutMs budget seluruh panggilan termasuk retry; <= 0 berarti tanpa deadline
+     *                  (hanya timeout bawaan client)
+     */
+    Detector.Cancellable execute(Request request, long timeoutMs, Callback callback) {
+        Execution execution = new Execution(request, timeoutMs > 0 ? System.nanoTime() + timeoutMs * 1_000_000L : 0, callback);
+        execution.launch(false);
+        return execution;
+    }
+
+    /**
+     * Menjalankan penyelesaian di luar thread pemanggil: lewat scheduler, atau executor dispatcher
+     * OkHttp jika scheduler sudah dimatikan. Jika keduanya menolak, dijalankan langsung supaya
+     * callback tetap dipanggil tepat sekali.
+     */
+    void completeAsync(Runnable completion) {
+        try {
+            scheduler.execute(completion);
+            return;
+        } catch (RejectedExecutionException e) {
+            // Scheduler sudah ditutup; coba executor OkHttp
+        }
+        try {
+            client.dispatcher().executorService().execute(completion);
+        } catch (RejectedExecutionException e) {
+            completion.run();
+        }
+    }
+
+    // 408/429 dan error gateway biasanya sementara; request inferensi aman dikirim ulang
+    static boolean isRetryableStatus(int code) {
+        return code == 408 || code == 429 || code == 500 || code == 502 || code == 503 || code == 504;
+    }
+
+    private final class Execution implements Detector.Cancellable {
+        private final Request request;
+        private final long deadlineNanos; // 0 = tanpa deadline
+        private final Callback callback;
+
+        // Dijaga oleh this
+        private final List<Call> active = new ArrayList<>();
+        private int attempts;
+        private boolean hedged;
+        private boolean done;
+        private boolean canceled;
+        private ScheduledFuture<?> timer;
+
+        Execution(Request request, long deadlineNanos, Callback callback) {
+            this.request = request;
+            this.deadlineNanos = deadlineNanos;
+            this.callback = callback;
+        }
+
+        private long remainingMs() {
+            return deadlineNanos == 0 ? Long.MAX_VALUE : (deadlineNanos - System.nanoTime()) / 1_000_000L;
+        }
+
+        void launch(boolean hedge) {
+            Call call;
+            ResourcePool.Lease<?> bodyLease = request.tag(ResourcePool.Lease.class);
+            long startNanos = System.nanoTime();
+            long remaining;
+            synchronized (this) {
+                if (done) return;
+                timer = null;
+                remaining = remainingMs();
+                // Hedge yang terlambat tidak perlu; attempt utama akan berakhir sendiri oleh call timeout
+                if (hedge && remaining <= 0) return;
+                if (remaining <= 0) {
+                    done = true;
+                } else {
+                    if (hedge) {
+                        hedged = true;
+                        count(PipelineMetrics.Counter.REMOTE_HEDGES);
+                    } else if (attempts++ > 0) {
+                        count(PipelineMetrics.Counter.REMOTE_RETRIES);
+                    }
+                }
+                call = done ? null : client.newCall(request);
+                if (call != null) {
+                    if (deadlineNanos != 0) call.timeout().timeout(remaining, TimeUnit.MILLISECONDS);
+                    active.add(call);
+                    // Di bawah lock: selama belum done, pemanggil belum melepas referensinya
+                    if (bodyLease != null) bodyLease.retain();
+                }
+            }
+            if (call == null) {
+                count(PipelineMetrics.Counter.REMOTE_DEADLINE_EXCEEDED);
+                callback.onFailure(deadlineExceeded(), false);
+                return;
+            }
+
+            call.enqueue(new okhttp3.Callback() {
+                @Override
+                public void onResponse(@NonNull Call call, @NonNull Response response) {
+                    latency.record(System.nanoTime() - startNanos);
+                    try {
+                        handleResponse(call, response);
+                    } finally {
+                        // Body sudah selesai ditulis sebelum header respons dibaca
+                        if (bodyLease != null) bodyLease.release();
+                    }
+                }
+
+                @Override
+                public void onFailure(@NonNull Call call, @NonNull IOException e) {
+                    try {
+                        handleFailure(call, e);
+                    } finally {
+                        if (bodyLease != null) bodyLease.release();
+                    }
+                }
+            });
+
+            if (!hedge) scheduleHedge(call, remaining);
+        }
+
+        private void scheduleHedge(Call primary, long remaining) {
+            if (!hedgingEnabled || deadlineNanos == 0 || latency.getCount() < MIN_HEDGE_SAMPLES) return;
+            long delayMs = Math.max(minHedgeDelayMs, (long) Math.ceil(latency.getPercentileMs(HEDGE_QUANTILE)));
+            if (delayMs >= remaining) return;
+            synchronized (this) {
+                if (done || hedged || timer != null) return;
+                try {
+                    timer = scheduler.schedule(() -> {
+                        synchronized (this) {
+                            // Attempt utama sudah selesai (atau diganti retry): tidak perlu hedge
+                            if (done || !active.contains(primary) || active.size() > 1) return;
+                        }
+                        launch(true);
+                    }, delayMs, TimeUnit.MILLISECONDS);
+                } catch (RejectedExecutionException e) {
+                    // Scheduler sudah ditutup: attempt utama tetap berjalan tanpa hedge
+                }
+            }
+        }
+
+        private void handleResponse(Call call, Response response) {
+            List<Call> losers;
+            synchronized (this) {
+                active.remove(call);
+                if (done) {
+                    response.close();
+                    return;
+                }
+                if (isRetryableStatus(response.code())) {
+                    if (!active.isEmpty()) {
+                        // Hedge lain masih berjalan, tunggu hasilnya
+                        response.close();
+                        return;
+                    }
+                    long backoff = backoffMs(response);
+                    if (canRetry(backoff) && scheduleRetry(backoff)) {
+                        response.close();
+                        return;
+                    }
+                }
+                done = true;
+                losers = finish();
+            }
+            cancelAll(losers);
+            callback.onResponse(response);
+        }
+
+        private void handleFailure(Call call, IOException e) {
+            List<Call> losers;
+            boolean wasCanceled;
+            IOException error = e;
+            synchronized (this) {
+                active.remove(call);
+                if (done) return;
+                wasCanceled = canceled;
+                if (!wasCanceled) {
+                    if (!active.isEmpty()) return;
+                    if (remainingMs() <= 0) {
+                        count(PipelineMetrics.Counter.REMOTE_DEADLINE_EXCEEDED);
+                        error = deadlineExceeded();
+                    } else {
+                        long backoff = backoffMs(null);
+                        if (canRetry(backoff) && scheduleRetry(backoff)) return;
+                    }
+                }
+                done = true;
+                losers = finish();
+            }
+            cancelAll(losers);
+            callback.onFailure(error, wasCanceled);
+        }
+
+        private boolean canRetry(long backoffMs) {
+            return attempts < maxAttempts && remainingMs() > backoffMs;
+        }
+
+        // false jika scheduler sudah ditutup; hasil attempt ini lalu menjadi hasil final
+        private boolean scheduleRetry(long backoffMs) {
+            try {
+                timer = scheduler.schedule(() -> launch(false), backoffMs, TimeUnit.MILLISECONDS);
+                return true;
+            } catch (RejectedExecutionException e) {
+                return false;
+            }
+        }
+
+        // Full jitter; Retry-After dari server dipakai jika lebih lama
+        private long backoffMs(Response response) {
+            long ceiling = Math.min(maxBackoffMs, baseBackoffMs << Math.min(attempts - 1, 20));
+            long backoff = ceiling > 0 ? (long) (random.nextDouble() * ceiling) : 0;
+            String retryAfter = response != null ? response.header("Retry-After") : null;
+            if (retryAfter != null) {
+                try {
+                    backoff = Math.max(backoff, Long.parseLong(retryAfter.trim()) * 1000L);
+                } catch (NumberFormatException ignored) {
+                    // Format tanggal HTTP tidak didukung; pakai backoff biasa
+                }
+            }
+            return backoff;
+        }
+
+        private List<Call> finish() {
+            if (timer != null) {
+                timer.cancel(false);
+                timer = null;
+            }
+            List<Call> remaining = new ArrayList<>(active);
+            active.clear();
+            return remaining;
+        }
+
+        private void cancelAll(List<Call> calls) {
+            for (Call call : calls) {
+                call.cancel();
+            }
+        }
+
+        private IOException deadlineExceeded() {
+            return new DeadlineExceededException("deadline terlampaui setelah " + attempts + " attempt");
+        }
+
+        @Override
+        public void cancel() {
+            List<Call> calls;
+            synchronized (this) {
+                if (done || canceled) return;
+                canceled = true;
+                if (active.isEmpty()) {
+                    // Sedang menunggu retry: selesaikan sekarang
+                    done = true;
+                    finish();
+                    calls = null;
+                } else {
+                    if (timer != null) {
+                        timer.cancel(false);
+                        timer = null;
+                    }
+                    calls = new ArrayList<>(active);
+                }
+            }
+            if (calls == null) {
+                // Tidak pernah sinkron: pemanggil cancel() bisa sedang memegang lock atau iterasi
+                // atas handle-nya sendiri (DetectionScheduler)
+                IOException canceledError = new IOException("Canceled");
+                completeAsync(() -> callback.onFailure(canceledError, true));
+            } else {
+                cancelAll(calls);
+            }
+        }
+    }
+}
@@ -1,21 +1,36 @@
 package com.example.smartwaste.api;
 
+import android.graphics.Bitmap;
 import android.graphics.RectF;
+import android.os.Build;
+import android.os.SystemClock;
 import android.util.Log;
 
 import androidx.annotation.NonNull;
 
-import org.json.JSONArray;
+import com.example.smartwaste.detector.Detector;
+import com.example.smartwaste.metrics.LatencyHistogram;
+import com.example.smartwaste.metrics.PipelineMetrics;
+import com.example.smartwaste.pool.ArrayPool;
+import com.example.smartwaste.pool.ResourcePool;
+
 import org.json.JSONException;
 import org.json.JSONObject;
 
 import java.io.IOException;
-import java.util.ArrayList;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 
 import okhttp3.Call;
 import okhttp3.Callback;
+import okhttp3.HttpUrl;
 import okhttp3.MediaType;
 import okhttp3.OkHttpClient;
 import okhttp3.Request;
@@ -23,37 +38,185 @@ import okhttp3.RequestBody;
 import okhttp3.Response;
 import okhttp3.ResponseBody;
 
-public class RoboflowAPI {
+public class RoboflowAPI implements Detector {
 
     private static final String TAG = "RoboflowAPI";
     private static final String API_URL = "https://serverless.roboflow.com/infer/workflows/cohya/detect-count-and-visualize-2";
     private static final String API_KEY = "VQCfMYZF4XPYpufU46nk";
+    private static final int JPEG_QUALITY = 95;
+    private static final String CONNECTION_ERROR_PREFIX = "Koneksi gagal: ";
+    private static final String DEADLINE_ERROR_PREFIX = "Deadline frame terlampaui: ";
 
+    private final String apiUrl;
     private final OkHttpClient client;
+    // Timer retry, hedge dan jendela batch
+    private final ScheduledExecutorService scheduler;
+    private final ResilientCaller caller;
+    private volatile boolean logFullResponse = false;
+    private volatile PipelineMetrics metrics;
+    // null jika mode batch tidak aktif
+    private volatile RequestBatcher batcher;
+    // Budget dari capture frame sampai respons; 0 = tanpa deadline
+    private volatile long frameDeadlineMs = 0;
+    // null = selalu JPEG_QUALITY
+    private volatile EncodingPolicy encodingPolicy;
+    private volatile EncodingPolicy.Step lastEncodingStep;
+    // null = buffer encode dialokasikan per request
+    private volatile ArrayPool<byte[]> bufferPool;
 
     public static class Prediction {
         public final String className;
         public final float confidence;
         public final RectF boundingBox;
+        // ID dari ObjectTracker, -1 jika prediksi belum di-track
+        public final int trackId;
 
         public Prediction(String className, float confidence, RectF boundingBox) {
+            this(className, confidence, boundingBox, -1);
+        }
+
+        public Prediction(String className, float confidence, RectF boundingBox, int trackId) {
             this.className = className;
             this.confidence = confidence;
             this.boundingBox = boundingBox;
+            this.trackId = trackId;
         }
     }
 
+    /**
+     * Detector dan parser mengirim hasil lewat onSuccess(PredictionBatch). Default-nya diubah
+     * menjadi List<Prediction> untuk callback lama; callback di jalur frame meng-override
+     * onSuccess(PredictionBatch) agar tidak ada alokasi per objek.
+     */
     public interface ApiCallback {
         void onSuccess(List<Prediction> predictions);
         void onError(String error);
+
+        default void onSuccess(PredictionBatch batch) {
+            onSuccess(batch.toPredictions());
+        }
     }
 
     public RoboflowAPI() {
+        this(API_URL);
+    }
+
+    // Endpoint lain dengan format workflow yang sama, mis. server pengganti lokal untuk replay
+    public RoboflowAPI(String apiUrl) {
+        this.apiUrl = apiUrl;
         client = new OkHttpClient.Builder()
                 .connectTimeout(30, TimeUnit.SECONDS)
                 .readTimeout(60, TimeUnit.SECONDS)
                 .writeTimeout(60, TimeUnit.SECONDS)
                 .build();
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "RoboflowAPI-timer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        caller = new ResilientCaller(client, scheduler, new Random());
+    }
+
+    /**
+     * Membuka koneksi ke host API sebelum frame pertama (DNS, TCP dan TLS) dengan request HEAD
+     * ke root host; koneksinya tetap di connection pool OkHttp dan dipakai upload pertama.
+     * Tidak lewat ResilientCaller, jadi tidak ikut latensi request, retry maupun hedge.
+     */
+    public void prewarm() {
+        HttpUrl url = HttpUrl.parse(apiUrl);
+        HttpUrl root = url != null ? url.resolve("/") : null;
+        if (root == null) return;
+        long start = PipelineMetrics.now();
+        client.newCall(new Request.Builder().url(root).head().build()).enqueue(new Callback() {
+            @Override
+            public void onResponse(@NonNull Call call, @NonNull Response response) {
+                response.close();
+                PipelineMetrics metrics = RoboflowAPI.this.metrics;
+                if (metrics != null) metrics.markMilestone(PipelineMetrics.Milestone.CONNECTION_WARM);
+                Log.d(TAG, "Koneksi API siap dalam " + (PipelineMetrics.now() - start) / 1_000_000 + " ms");
+            }
+
+            @Override
+            public void onFailure(@NonNull Call call, @NonNull IOException e) {
+                // Upload pertama akan membuka koneksinya sendiri
+                Log.d(TAG, "Pre-warm koneksi gagal: " + e.getMessage());
+            }
+        });
+    }
+
+    // Logging seluruh body respons (termasuk gambar visualisasi) hanya untuk debugging
+    public void setLogFullResponse(boolean enabled) {
+        this.logFullResponse = enabled;
+    }
+
+    public void setMetrics(PipelineMetrics metrics) {
+        this.metrics = metrics;
+        caller.setMetrics(metrics);
+    }
+
+    /**
+     * Deadline untuk detect(bitmap, capturedAtMs, ...): request (termasuk retry dan hedge)
+     * dibatalkan jika belum selesai capturedAtMs + deadlineMs. 0 menonaktifkan deadline.
+     */
+    public void setFrameDeadlineMs(long deadlineMs) {
+        this.frameDeadlineMs = deadlineMs;
+    }
+
+    /** Retry untuk error koneksi dan HTTP 408/429/5xx gateway; maxAttempts termasuk attempt pertama. */
+    public void setRetryPolicy(int maxAttempts, long baseBackoffMs, long maxBackoffMs) {
+        caller.setRetryPolicy(maxAttempts, baseBackoffMs, maxBackoffMs);
+    }
+
+    /** Request kedua dikirim jika belum ada respons setelah max(minDelayMs, p95 latensi). */
+    public void setHedging(boolean enabled, long minDelayMs) {
+        caller.setHedging(enabled, minDelayMs);
+    }
+
+    /**
+     * Mengaktifkan pemilihan codec/kualitas adaptif untuk detect(Bitmap). Throughput diukur dari
+     * setiap respons sukses, termasuk upload antrean offline. null kembali ke JPEG 95 tetap.
+     */
+    public void setEncodingPolicy(EncodingPolicy policy) {
+        this.encodingPolicy = policy;
+    }
+
+    /** Pool untuk buffer hasil encode detect(Bitmap); buffer dipinjam sampai request selesai. */
+    public void setBufferPool(ArrayPool<byte[]> pool) {
+        this.bufferPool = pool;
+    }
+
+    /** Ringkasan codec, ukuran payload dan throughput terakhir; null jika encoding tidak adaptif. */
+    public String describeEncoding() {
+        EncodingPolicy policy = encodingPolicy;
+        return policy != null ? policy.describe() : null;
+    }
+
+    // Latensi per attempt HTTP (kirim sampai header respons)
+    public LatencyHistogram getRequestLatency() {
+        return caller.getLatency();
+    }
+
+    /**
+     * Mengaktifkan mode batch untuk detectBatched: frame dikumpulkan sampai maxFrames frame,
+     * maxBytes byte JPEG, atau maxDelayMs, lalu dikirim dalam satu request workflow.
+     * maxFrames <= 1 menonaktifkan batch; frame yang sedang menunggu tetap dikirim.
+     */
+    public synchronized void setBatching(int maxFrames, int maxBytes, long maxDelayMs) {
+        RequestBatcher previous = batcher;
+        batcher = maxFrames <= 1 ? null : new RequestBatcher(this::sendBatch, scheduler, maxFrames, maxBytes, maxDelayMs);
+        if (previous != null) previous.flush();
+    }
+
+    /**
+     * Seperti detectGarbage(byte[]), tetapi ikut dikumpulkan ke batch jika mode batch aktif.
+     * Byte JPEG tidak disalin dan tidak boleh diubah sampai callback dipanggil.
+     */
+    public Cancellable detectBatched(byte[] jpegData, int offset, int length, ApiCallback callback) {
+        RequestBatcher current = batcher;
+        if (current == null) {
+            return detectGarbage(jpegData, offset, length, callback);
+        }
+        return current.submit(jpegData, offset, length, callback);
     }
 
     public void detectGarbage(String base64ImageData, ApiCallback callback) {
@@ -68,101 +231,274 @@ public class RoboflowAPI {
             payload.put("inputs", inputs);
 
             MediaType JSON = MediaType.get("application/json; charset=utf-8");
-            RequestBody body = RequestBody.create(payload.toString(), JSON);
+            enqueue(RequestBody.create(payload.toString(), JSON), null, 0, callback);
+        } catch (JSONException e) {
+            callback.onError("Gagal membuat request: " + e.getMessage());
+        }
+    }
 
-            Request request = new Request.Builder()
-                    .url(API_URL).addHeader("Content-Type", "application/json").post(body).build();
+    // Byte JPEG langsung di-encode Base64 ke socket, tanpa String perantara
+    public Cancellable detectGarbage(byte[] jpegData, ApiCallback callback) {
+        return detectGarbage(jpegData, 0, jpegData.length, callback);
+    }
 
-            client.newCall(request).enqueue(new Callback() {
-                @Override
-                public void onFailure(@NonNull Call call, @NonNull IOException e) {
-                    callback.onError("Koneksi gagal: " + e.getMessage());
-                }
+    public Cancellable detectGarbage(byte[] jpegData, int offset, int length, ApiCallback callback) {
+        return enqueue(new ImageRequestBody(API_KEY, jpegData, offset, length), null, 0, callback);
+    }
 
-                @Override
-                public void onResponse(@NonNull Call call, @NonNull Response response) {
-                    // PERBAIKAN: Logika penanganan respons yang lebih aman
-                    try (ResponseBody responseBody = response.body()) {
-                        if (!response.isSuccessful()) {
-                            String errorBody = responseBody != null ? responseBody.string() : "No response body";
-                            callback.onError("HTTP Error: " + response.code() + " | " + errorBody);
-                            return;
-                        }
-
-                        if (responseBody == null) {
-                            callback.onError("Gagal: Response body kosong.");
-                            return;
-                        }
+    public Cancellable detectGarbage(Bitmap bitmap, ApiCallback callback) {
+        return detectGarbage(bitmap, 0, callback);
+    }
 
-                        String bodyString = responseBody.string();
-                        Log.d(TAG, "Full Response: " + bodyString);
-                        List<Prediction> predictions = parseResponse(bodyString);
-                        callback.onSuccess(predictions);
+    private Cancellable detectGarbage(Bitmap bitmap, long timeoutMs, ApiCallback callback) {
+        long start = PipelineMetrics.now();
+        JpegOutputStream outputStream = new JpegOutputStream(bufferPool, bitmap.getByteCount() / 8);
+        EncodingPolicy policy = encodingPolicy;
+        if (policy == null) {
+            bitmap.compress(Bitmap.CompressFormat.JPEG, JPEG_QUALITY, outputStream);
+        } else {
+            EncodingPolicy.Step step = policy.choose();
+            compress(bitmap, step, outputStream);
+            policy.recordEncoded(step, outputStream.size());
+            if (step != lastEncodingStep) {
+                lastEncodingStep = step;
+                Log.d(TAG, "Encoding payload: " + policy.describe());
+            }
+        }
+        PipelineMetrics metrics = this.metrics;
+        if (metrics != null) metrics.record(PipelineMetrics.Stage.ENCODE, start);
+        // Referensi ini dilepas saat hasil final; setiap Call (retry, hedge) memegang referensinya
+        // sendiri sampai selesai, jadi attempt yang kalah tidak pernah membaca buffer yang sudah dipakai ulang
+        return enqueue(new ImageRequestBody(API_KEY, outputStream.buffer(), 0, outputStream.size()),
+                outputStream.lease(), timeoutMs, new ApiCallback() {
+                    @Override
+                    public void onSuccess(List<Prediction> predictions) {
+                        onSuccess(PredictionBatch.fromPredictions(predictions));
+                    }
 
-                    } catch (IOException | JSONException e) {
-                        Log.e(TAG, "Error processing response", e);
-                        callback.onError("Gagal memproses respons: " + e.getMessage());
+                    @Override
+                    public void onSuccess(PredictionBatch batch) {
+                        outputStream.release();
+                        callback.onSuccess(batch);
                     }
-                }
-            });
-        } catch (JSONException e) {
-            callback.onError("Gagal membuat request: " + e.getMessage());
+
+                    @Override
+                    public void onError(String error) {
+                        outputStream.release();
+                        callback.onError(error);
+                    }
+                });
+    }
+
+    /** Encode bitmap dengan codec dan kualitas langkah; WebP lossy eksplisit sejak API 30. */
+    @SuppressWarnings("deprecation")
+    public static boolean compress(Bitmap bitmap, EncodingPolicy.Step step, OutputStream out) {
+        Bitmap.CompressFormat format;
+        if (step.codec == EncodingPolicy.Codec.JPEG) {
+            format = Bitmap.CompressFormat.JPEG;
+        } else {
+            format = Build.VERSION.SDK_INT >= Build.VERSION_CODES.R
+                    ? Bitmap.CompressFormat.WEBP_LOSSY : Bitmap.CompressFormat.WEBP;
         }
+        return bitmap.compress(format, step.quality, out);
     }
 
-    private List<Prediction> parseResponse(String responseBody) throws JSONException {
-        List<Prediction> predictionList = new ArrayList<>();
-        JSONObject jsonResponse = new JSONObject(responseBody);
+    // true jika request gagal di transport (offline, timeout socket, DNS), bukan error HTTP/parsing
+    // atau frame yang melewati deadline-nya
+    public static boolean isConnectionError(String error) {
+        return error != null && error.startsWith(CONNECTION_ERROR_PREFIX);
+    }
 
-        JSONArray outputs = jsonResponse.optJSONArray("outputs");
-        if (outputs == null) return predictionList;
+    @Override
+    public Cancellable detect(Bitmap bitmap, ApiCallback callback) {
+        return detectGarbage(bitmap, callback);
+    }
 
-        for (int i = 0; i < outputs.length(); i++) {
-            JSONObject output = outputs.getJSONObject(i);
-            Object predictionsObj = output.opt("predictions");
+    // Sisa budget dihitung dari umur frame, bukan dari saat request dibuat
+    @Override
+    public Cancellable detect(Bitmap bitmap, long capturedAtMs, ApiCallback callback) {
+        long deadlineMs = frameDeadlineMs;
+        if (deadlineMs <= 0) {
+            return detectGarbage(bitmap, callback);
+        }
+        long remaining = capturedAtMs + deadlineMs - SystemClock.elapsedRealtime();
+        if (remaining <= 0) {
+            // Tetap asinkron seperti hasil lain: pemanggil bisa sedang memegang lock-nya sendiri
+            caller.completeAsync(() -> callback.onError("Frame kedaluwarsa sebelum dikirim"));
+            return Cancellable.NONE;
+        }
+        return detectGarbage(bitmap, remaining, callback);
+    }
+
+    private Cancellable sendBatch(byte[][] jpegData, int[] offsets, int[] lengths, RequestBatcher.BatchCallback callback) {
+        return enqueue(new ImageRequestBody(API_KEY, jpegData, offsets, lengths), null, 0,
+                WorkflowResponseParser::parseBatch, new ResultCallback<List<PredictionBatch>>() {
+                    @Override
+                    public void onSuccess(List<PredictionBatch> result) {
+                        callback.onSuccess(result);
+                    }
+
+                    @Override
+                    public void onError(String error) {
+                        callback.onError(error);
+                    }
+                });
+    }
 
-            JSONArray predictions = null;
-            if (predictionsObj instanceof JSONObject && ((JSONObject) predictionsObj).has("predictions")) {
-                predictions = ((JSONObject) predictionsObj).getJSONArray("predictions");
-            } else if (predictionsObj instanceof JSONArray) {
-                predictions = (JSONArray) predictionsObj;
+    private Cancellable enqueue(RequestBody body, ResourcePool.Lease<?> bodyLease, long timeoutMs, ApiCallback callback) {
+        return enqueue(body, bodyLease, timeoutMs, WorkflowResponseParser::parse, new ResultCallback<PredictionBatch>() {
+            @Override
+            public void onSuccess(PredictionBatch result) {
+                callback.onSuccess(result);
             }
 
-            if (predictions == null) continue;
+            @Override
+            public void onError(String error) {
+                callback.onError(error);
+            }
+        });
+    }
 
-            for (int j = 0; j < predictions.length(); j++) {
-                JSONObject p = predictions.getJSONObject(j);
+    private interface ResponseParser<T> {
+        T parse(Reader in) throws IOException;
+    }
 
-                // PERBAIKAN: Menggunakan opt... untuk menghindari crash jika key tidak ada
-                String className = getReadableClassName(p.optString("class", "Unknown"));
-                float confidence = (float) p.optDouble("confidence", 0.0);
+    private interface ResultCallback<T> {
+        void onSuccess(T result);
 
-                float x = (float) p.optDouble("x", 0.0);
-                float y = (float) p.optDouble("y", 0.0);
-                float width = (float) p.optDouble("width", 0.0);
-                float height = (float) p.optDouble("height", 0.0);
+        void onError(String error);
+    }
 
-                // Hanya tambahkan jika datanya valid
-                if (width > 0 && height > 0) {
-                    float left = x - (width / 2);
-                    float top = y - (height / 2);
-                    float right = x + (width / 2);
-                    float bottom = y + (height / 2);
+    // Body request bisa ditulis ulang, jadi aman dipakai untuk retry dan hedge. bodyLease (boleh null)
+    // adalah buffer pool yang dibaca body; ResilientCaller menahannya per Call
+    private <T> Cancellable enqueue(RequestBody body, ResourcePool.Lease<?> bodyLease, long timeoutMs,
+                                    ResponseParser<T> parser, ResultCallback<T> callback) {
+        Request request = new Request.Builder()
+                .url(apiUrl).addHeader("Content-Type", "application/json").post(body)
+                .tag(ResourcePool.Lease.class, bodyLease).build();
 
-                    RectF box = new RectF(left, top, right, bottom);
-                    predictionList.add(new Prediction(className, confidence, box));
+        PipelineMetrics metrics = this.metrics;
+        long sentAt = PipelineMetrics.now();
+        return caller.execute(request, timeoutMs, new ResilientCaller.Callback() {
+            @Override
+            public void onFailure(@NonNull IOException e, boolean canceled) {
+                // Request yang sengaja dibatalkan atau kehabisan budget frame bukan masalah koneksi
+                if (canceled) {
+                    callback.onError(RequestBatcher.CANCELLED_ERROR);
+                } else if (e instanceof ResilientCaller.DeadlineExceededException) {
+                    callback.onError(DEADLINE_ERROR_PREFIX + e.getMessage());
+                } else {
+                    callback.onError(CONNECTION_ERROR_PREFIX + e.getMessage());
                 }
             }
+
+            @Override
+            public void onResponse(@NonNull Response response) {
+                if (metrics != null) metrics.record(PipelineMetrics.Stage.NETWORK, sentAt);
+                EncodingPolicy policy = encodingPolicy;
+                // Hanya waktu menulis body yang dihitung; RTT, inferensi server, retry dan
+                // hedge tidak boleh ikut menurunkan estimasi throughput upload
+                if (policy != null && response.isSuccessful() && body instanceof ImageRequestBody) {
+                    long writeNanos = ((ImageRequestBody) body).getSingleWriteNanos();
+                    if (writeNanos > 0) policy.recordUpload(contentLength(body), writeNanos);
+                }
+                // PERBAIKAN: Logika penanganan respons yang lebih aman
+                try (ResponseBody responseBody = response.body()) {
+                    if (!response.isSuccessful()) {
+                        String errorBody = responseBody != null ? responseBody.string() : "No response body";
+                        callback.onError("HTTP Error: " + response.code() + " | " + errorBody);
+                        return;
+                    }
+
+                    if (responseBody == null) {
+                        callback.onError("Gagal: Response body kosong.");
+                        return;
+                    }
+
+                    long parseStart = PipelineMetrics.now();
+                    T result;
+                    if (logFullResponse) {
+                        String bodyString = responseBody.string();
+                        Log.d(TAG, "Full Response: " + bodyString);
+                        result = parser.parse(new StringReader(bodyString));
+                    } else {
+                        result = parser.parse(responseBody.charStream());
+                    }
+                    if (metrics != null) metrics.record(PipelineMetrics.Stage.PARSE, parseStart);
+                    callback.onSuccess(result);
+
+                } catch (IOException | IllegalStateException e) {
+                    Log.e(TAG, "Error processing response", e);
+                    callback.onError("Gagal memproses respons: " + e.getMessage());
+                }
+            }
+        });
+    }
+
+    private static long contentLength(RequestBody body) {
+        try {
+            return body.contentLength();
+        } catch (IOException e) {
+            return -1;
         }
-        return predictionList;
     }
 
-    private String getReadableClassName(String className) {
-        switch (className.toLowerCase()) {
-            case "b3": return "Sampah B3";
-            case "anorganik": return "Sampah Anorganik";
-            case "organik": return "Sampah Organik";
-            default: return className;
+    // Seperti ByteArrayOutputStream tetapi buffer-nya terbuka (tanpa toByteArray) dan bisa dari pool
+    private static final class JpegOutputStream extends OutputStream {
+        private final ArrayPool<byte[]> pool;
+        private ResourcePool.Lease<byte[]> lease;
+        private byte[] buf;
+        private int count;
+
+        JpegOutputStream(ArrayPool<byte[]> pool, int initialSize) {
+            this.pool = pool;
+            allocate(Math.max(initialSize, 1024));
+        }
+
+        private void allocate(int capacity) {
+            if (pool == null) {
+                buf = buf == null ? new byte[capacity] : Arrays.copyOf(buf, capacity);
+                return;
+            }
+            ResourcePool.Lease<byte[]> next = pool.acquireAtLeast(capacity);
+            byte[] nextBuf = next.get();
+            if (buf != null) System.arraycopy(buf, 0, nextBuf, 0, count);
+            if (lease != null) lease.release();
+            lease = next;
+            buf = nextBuf;
+        }
+
+        @Override
+        public void write(int b) {
+            if (count == buf.length) allocate(buf.length * 2);
+            buf[count++] = (byte) b;
+        }
+
+        @Override
+        public void write(@NonNull byte[] b, int off, int len) {
+            if (count + len > buf.length) allocate(Math.max(buf.length * 2, count + len));
+            System.arraycopy(b, off, buf, count, len);
+            count += len;
+        }
+
+        byte[] buffer() {
+            return buf;
+        }
+
+        // null tanpa pool
+        ResourcePool.Lease<byte[]> lease() {
+            return lease;
+        }
+
+        int size() {
+            return count;
+        }
+
+        void release() {
+            if (lease != null) {
+                lease.release();
+                lease = null;
+            }
         }
     }
 }
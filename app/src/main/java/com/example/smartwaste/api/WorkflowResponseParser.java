@@ -0,0 +1,186 @@
+package com.example.smartwaste.api;
+
+import android.util.JsonReader;
+import android.util.JsonToken;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Parser streaming untuk respons workflow yang hanya mengambil outputs[*].predictions.
+ * Field lain dilewati dengan skipValue(), dan string panjang (gambar visualisasi Base64) sudah
+ * dipotong oleh LongStringTruncatingReader, sehingga memori yang dipakai sebanding dengan
+ * jumlah deteksi, bukan ukuran respons. Prediksi ditulis langsung ke PredictionBatch.
+ */
+public final class WorkflowResponseParser {
+
+    // Nama kelas dan field lain yang dibaca jauh lebih pendek dari ini
+    private static final int MAX_STRING_LENGTH = 256;
+
+    private WorkflowResponseParser() {
+    }
+
+    public static PredictionBatch parse(Reader in) throws IOException {
+        PredictionBatch batch = new PredictionBatch();
+        parse(in, batch, null);
+        return batch;
+    }
+
+    /**
+     * Untuk request batch: satu PredictionBatch per elemen outputs, urutannya sama dengan
+     * urutan gambar di request. Elemen yang bukan objek menghasilkan batch kosong.
+     */
+    public static List<PredictionBatch> parseBatch(Reader in) throws IOException {
+        List<PredictionBatch> perOutput = new ArrayList<>();
+        parse(in, null, perOutput);
+        return perOutput;
+    }
+
+    // Tepat satu dari flat (semua output digabung) dan perOutput yang tidak null
+    private static void parse(Reader in, PredictionBatch flat, List<PredictionBatch> perOutput) throws IOException {
+        JsonReader reader = new JsonReader(new LongStringTruncatingReader(in, MAX_STRING_LENGTH));
+        try {
+            if (reader.peek() != JsonToken.BEGIN_OBJECT) {
+                reader.skipValue();
+                return;
+            }
+            reader.beginObject();
+            while (reader.hasNext()) {
+                if ("outputs".equals(reader.nextName()) && reader.peek() == JsonToken.BEGIN_ARRAY) {
+                    readOutputs(reader, flat, perOutput);
+                } else {
+                    reader.skipValue();
+                }
+            }
+            reader.endObject();
+        } finally {
+            reader.close();
+        }
+    }
+
+    private static void readOutputs(JsonReader reader, PredictionBatch flat,
+                                    List<PredictionBatch> perOutput) throws IOException {
+        reader.beginArray();
+        while (reader.hasNext()) {
+            PredictionBatch out = flat;
+            if (perOutput != null) {
+                out = new PredictionBatch();
+                perOutput.add(out);
+            }
+            if (reader.peek() != JsonToken.BEGIN_OBJECT) {
+                reader.skipValue();
+                continue;
+            }
+            reader.beginObject();
+            while (reader.hasNext()) {
+                if ("predictions".equals(reader.nextName())) {
+                    readPredictionsValue(reader, out);
+                } else {
+                    reader.skipValue();
+                }
+            }
+            reader.endObject();
+        }
+        reader.endArray();
+    }
+
+    // "predictions" bisa berupa array langsung atau objek { "predictions": [...] }
+    private static void readPredictionsValue(JsonReader reader, PredictionBatch out) throws IOException {
+        JsonToken token = reader.peek();
+        if (token == JsonToken.BEGIN_ARRAY) {
+            readPredictionArray(reader, out);
+        } else if (token == JsonToken.BEGIN_OBJECT) {
+            reader.beginObject();
+            while (reader.hasNext()) {
+                if ("predictions".equals(reader.nextName()) && reader.peek() == JsonToken.BEGIN_ARRAY) {
+                    readPredictionArray(reader, out);
+                } else {
+                    reader.skipValue();
+                }
+            }
+            reader.endObject();
+        } else {
+            reader.skipValue();
+        }
+    }
+
+    private static void readPredictionArray(JsonReader reader, PredictionBatch out) throws IOException {
+        reader.beginArray();
+        while (reader.hasNext()) {
+            if (reader.peek() != JsonToken.BEGIN_OBJECT) {
+                reader.skipValue();
+                continue;
+            }
+            short classId = LabelTable.UNKNOWN;
+            float confidence = 0f;
+            float x = 0f, y = 0f, width = 0f, height = 0f;
+
+            reader.beginObject();
+            while (reader.hasNext()) {
+                String name = reader.nextName();
+                switch (name) {
+                    case "class":
+                        if (reader.peek() == JsonToken.STRING) {
+                            classId = LabelTable.intern(reader.nextString());
+                        } else {
+                            reader.skipValue();
+                        }
+                        break;
+                    case "confidence":
+                        confidence = readFloat(reader);
+                        break;
+                    case "x":
+                        x = readFloat(reader);
+                        break;
+                    case "y":
+                        y = readFloat(reader);
+                        break;
+                    case "width":
+                        width = readFloat(reader);
+                        break;
+                    case "height":
+                        height = readFloat(reader);
+                        break;
+                    default:
+                        reader.skipValue();
+                        break;
+                }
+            }
+            reader.endObject();
+
+            // Hanya tambahkan jika datanya valid
+            if (width > 0 && height > 0) {
+                out.add(classId, confidence, x - (width / 2), y - (height / 2), x + (width / 2), y + (height / 2));
+            }
+        }
+        reader.endArray();
+    }
+
+    private static float readFloat(JsonReader reader) throws IOException {
+        JsonToken token = reader.peek();
+        if (token == JsonToken.NUMBER) {
+            return (float) reader.nextDouble();
+        }
+        if (token == JsonToken.STRING) {
+            // Sama seperti optDouble: string angka tetap diterima
+            try {
+                return Float.parseFloat(reader.nextString());
+            } catch (NumberFormatException e) {
+                return 0f;
+            }
+        }
+        reader.skipValue();
+        return 0f;
+    }
+
+    public static String getReadableClassName(String className) {
+        switch (className.toLowerCase()) {
+            case "b3": return "Sampah B3";
+            case "anorganik": return "Sampah Anorganik";
+            case "organik": return "Sampah Organik";
+            default: return className;
+        }
+    }
+}
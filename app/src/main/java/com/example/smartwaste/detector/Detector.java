@@ -0,0 +1,45 @@
+package com.example.smartwaste.detector;
+
+import android.graphics.Bitmap;
+
+import com.example.smartwaste.api.RoboflowAPI;
+
+/**
+ * Backend deteksi sampah. Koordinat prediksi selalu dalam ruang piksel bitmap input,
+ * dan callback boleh dipanggil dari thread mana pun.
+ *
+ * Callback dipanggil tepat sekali untuk setiap detect(), juga setelah cancel(), dan bitmap
+ * input tidak lagi dibaca setelah callback itu. Pemanggil boleh mengembalikan bitmap ke pool
+ * saat callback selesai.
+ */
+public interface Detector {
+
+    // Pesan onError untuk deteksi yang dibatalkan lewat Cancellable
+    String CANCELLED_ERROR = "Dibatalkan";
+
+    // Pesan onError untuk detect() yang datang setelah close()
+    String CLOSED_ERROR = "Detector sudah ditutup";
+
+    /**
+     * Handle untuk membatalkan deteksi yang sedang berjalan. Setelah cancel(), callback
+     * dipanggil dengan onError(CANCELLED_ERROR) jika hasilnya belum terkirim.
+     */
+    interface Cancellable {
+        Cancellable NONE = () -> { };
+
+        void cancel();
+    }
+
+    Cancellable detect(Bitmap bitmap, RoboflowAPI.ApiCallback callback);
+
+    /**
+     * Sama seperti detect(bitmap, callback), dengan waktu capture frame
+     * (SystemClock.elapsedRealtime) untuk backend yang memakai deadline per frame.
+     */
+    default Cancellable detect(Bitmap bitmap, long capturedAtMs, RoboflowAPI.ApiCallback callback) {
+        return detect(bitmap, callback);
+    }
+
+    default void close() {
+    }
+}
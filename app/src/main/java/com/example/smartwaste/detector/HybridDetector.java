@@ -0,0 +1,168 @@
+package com.example.smartwaste.detector;
+
+import android.graphics.Bitmap;
+import android.os.SystemClock;
+
+import com.example.smartwaste.api.PredictionBatch;
+import com.example.smartwaste.api.RoboflowAPI;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Memilih backend deteksi: remote (Roboflow), lokal (TFLite), atau lokal dulu dengan
+ * konfirmasi remote untuk hasil yang kurang yakin. Jika model lokal tidak tersedia,
+ * semua mode jatuh ke remote.
+ */
+public class HybridDetector implements Detector {
+
+    public enum Mode {
+        REMOTE,
+        LOCAL,
+        LOCAL_FIRST
+    }
+
+    private final Detector local;
+    private final Detector remote;
+    private final Mode mode;
+    private final float confirmThreshold;
+    private final long confirmIntervalMs;
+
+    private final AtomicLong lastConfirmationTime = new AtomicLong();
+    private final AtomicBoolean closed = new AtomicBoolean();
+
+    /**
+     * @param local             backend lokal, boleh null jika model tidak tersedia
+     * @param confirmThreshold  prediksi lokal di bawah nilai ini dikonfirmasi ke remote (LOCAL_FIRST)
+     * @param confirmIntervalMs jarak minimum antar konfirmasi remote agar kuota API terjaga
+     */
+    public HybridDetector(Detector local, Detector remote, Mode mode, float confirmThreshold, long confirmIntervalMs) {
+        this.local = local;
+        this.remote = remote;
+        this.mode = mode;
+        this.confirmThreshold = confirmThreshold;
+        this.confirmIntervalMs = confirmIntervalMs;
+    }
+
+    public boolean isLocalActive() {
+        return local != null && mode != Mode.REMOTE;
+    }
+
+    @Override
+    public Cancellable detect(Bitmap bitmap, RoboflowAPI.ApiCallback callback) {
+        return detect(bitmap, SystemClock.elapsedRealtime(), callback);
+    }
+
+    // Waktu capture diteruskan ke remote supaya deadline-nya dihitung dari umur frame
+    @Override
+    public Cancellable detect(Bitmap bitmap, long capturedAtMs, RoboflowAPI.ApiCallback callback) {
+        // Frame yang masih lewat saat activity ditutup; backend yang sudah ditutup menolak pekerjaan baru
+        if (closed.get()) {
+            callback.onError(CLOSED_ERROR);
+            return Cancellable.NONE;
+        }
+        if (!isLocalActive()) {
+            return remote.detect(bitmap, capturedAtMs, callback);
+        }
+        if (mode == Mode.LOCAL) {
+            return local.detect(bitmap, callback);
+        }
+
+        // Handle yang selalu menunjuk ke tahap yang sedang berjalan (lokal atau konfirmasi remote)
+        StagedCancellable handle = new StagedCancellable();
+        Cancellable localHandle = local.detect(bitmap, new RoboflowAPI.ApiCallback() {
+            @Override
+            public void onSuccess(List<RoboflowAPI.Prediction> predictions) {
+                onSuccess(PredictionBatch.fromPredictions(predictions));
+            }
+
+            @Override
+            public void onSuccess(PredictionBatch predictions) {
+                if (handle.isCancelled() || closed.get() || !claimConfirmation(predictions)) {
+                    callback.onSuccess(predictions);
+                    return;
+                }
+                handle.set(remote.detect(bitmap, capturedAtMs, new RoboflowAPI.ApiCallback() {
+                    @Override
+                    public void onSuccess(List<RoboflowAPI.Prediction> confirmed) {
+                        callback.onSuccess(confirmed);
+                    }
+
+                    @Override
+                    public void onSuccess(PredictionBatch confirmed) {
+                        callback.onSuccess(confirmed);
+                    }
+
+                    @Override
+                    public void onError(String error) {
+                        // Konfirmasi gagal (mis. offline): hasil lokal tetap dipakai
+                        callback.onSuccess(predictions);
+                    }
+                }));
+            }
+
+            @Override
+            public void onError(String error) {
+                if (handle.isCancelled()) {
+                    callback.onError(error);
+                    return;
+                }
+                handle.set(remote.detect(bitmap, capturedAtMs, callback));
+            }
+        });
+        // Callback lokal bisa saja sudah memasang tahap remote lebih dulu
+        handle.setIfNone(localHandle);
+        return handle;
+    }
+
+    private static final class StagedCancellable implements Cancellable {
+        private Cancellable current = Cancellable.NONE;
+        private boolean cancelled;
+
+        synchronized void set(Cancellable next) {
+            current = next;
+            if (cancelled) next.cancel();
+        }
+
+        synchronized void setIfNone(Cancellable first) {
+            if (current == Cancellable.NONE) set(first);
+        }
+
+        synchronized boolean isCancelled() {
+            return cancelled;
+        }
+
+        @Override
+        public synchronized void cancel() {
+            cancelled = true;
+            current.cancel();
+        }
+    }
+
+    // Hasil lokal yang selesai bersamaan berebut satu slot konfirmasi per interval lewat CAS
+    private boolean claimConfirmation(PredictionBatch predictions) {
+        long last = lastConfirmationTime.get();
+        long now = SystemClock.elapsedRealtime();
+        if (now - last < confirmIntervalMs || !isUncertain(predictions)) {
+            return false;
+        }
+        return lastConfirmationTime.compareAndSet(last, now);
+    }
+
+    private boolean isUncertain(PredictionBatch predictions) {
+        // Hasil kosong juga dikonfirmasi: model lokal bisa melewatkan objek sama sekali
+        if (predictions.isEmpty()) return true;
+        for (int i = 0; i < predictions.size(); i++) {
+            if (predictions.confidence(i) < confirmThreshold) return true;
+        }
+        return false;
+    }
+
+    @Override
+    public void close() {
+        if (!closed.compareAndSet(false, true)) return;
+        if (local != null) local.close();
+        remote.close();
+    }
+}
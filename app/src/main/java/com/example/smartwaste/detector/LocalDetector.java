@@ -0,0 +1,350 @@
+package com.example.smartwaste.detector;
+
+import android.content.Context;
+import android.content.res.AssetFileDescriptor;
+import android.graphics.Bitmap;
+import android.util.Log;
+
+import com.example.smartwaste.api.LabelTable;
+import com.example.smartwaste.api.PredictionBatch;
+import com.example.smartwaste.api.RoboflowAPI;
+import com.example.smartwaste.metrics.PipelineMetrics;
+
+import org.tensorflow.lite.DataType;
+import org.tensorflow.lite.Interpreter;
+import org.tensorflow.lite.Tensor;
+
+import java.io.BufferedReader;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Deteksi on-device dengan model TFLite hasil ekspor (B3 / anorganik / organik) di CPU.
+ * Format output yang didukung adalah head YOLO tanpa NMS: [1, 4 + kelas, N] atau [1, N, 4 + kelas]
+ * dengan kotak cx, cy, w, h (piksel input atau ternormalisasi 0..1).
+ * Bitmap di-letterbox ke pojok kiri atas input model, jadi koordinat hasil langsung dalam
+ * ruang piksel bitmap seperti respons Roboflow.
+ */
+public class LocalDetector implements Detector {
+
+    private static final String TAG = "LocalDetector";
+    public static final String MODEL_ASSET = "smartwaste.tflite";
+    public static final String LABELS_ASSET = "smartwaste_labels.txt";
+    private static final String[] DEFAULT_LABELS = {"B3", "anorganik", "organik"};
+
+    private static final float CONFIDENCE_THRESHOLD = 0.25f;
+    private static final float IOU_THRESHOLD = 0.45f;
+    private static final int MAX_DETECTIONS = 100;
+    private static final int PAD_VALUE = 114;
+
+    private final Interpreter interpreter;
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+    // ID LabelTable per indeks kelas model
+    private final short[] labelIds;
+
+    private final int inputWidth;
+    private final int inputHeight;
+    private final DataType inputType;
+    private final float inputScale;
+    private final int inputZeroPoint;
+    private final ByteBuffer inputBuffer;
+
+    private final DataType outputType;
+    private final float outputScale;
+    private final int outputZeroPoint;
+    private final ByteBuffer outputBuffer;
+    private final boolean channelsFirst;
+    private final int numChannels;
+    private final int numAnchors;
+    private volatile PipelineMetrics metrics;
+
+    // Buffer kerja, hanya dipakai di thread executor
+    private int[] pixels = new int[0];
+    private float[] candidates = new float[0];
+    // Skor dan indeks kandidat dalam satu long, diurutkan sekali dengan Arrays.sort
+    private long[] order = new long[0];
+    private boolean[] suppressed = new boolean[0];
+
+    private LocalDetector(Interpreter interpreter, String[] labels) {
+        this.interpreter = interpreter;
+        labelIds = new short[labels.length];
+        for (int i = 0; i < labels.length; i++) {
+            labelIds[i] = LabelTable.intern(labels[i]);
+        }
+
+        Tensor input = interpreter.getInputTensor(0);
+        int[] inShape = input.shape(); // [1, H, W, 3]
+        inputHeight = inShape[1];
+        inputWidth = inShape[2];
+        inputType = input.dataType();
+        inputScale = input.quantizationParams().getScale();
+        inputZeroPoint = input.quantizationParams().getZeroPoint();
+        inputBuffer = ByteBuffer.allocateDirect(input.numBytes()).order(ByteOrder.nativeOrder());
+
+        Tensor output = interpreter.getOutputTensor(0);
+        int[] outShape = output.shape();
+        outputType = output.dataType();
+        outputScale = output.quantizationParams().getScale();
+        outputZeroPoint = output.quantizationParams().getZeroPoint();
+        outputBuffer = ByteBuffer.allocateDirect(output.numBytes()).order(ByteOrder.nativeOrder());
+        // Jumlah anchor selalu jauh lebih besar dari jumlah channel
+        channelsFirst = outShape[1] < outShape[2];
+        numChannels = channelsFirst ? outShape[1] : outShape[2];
+        numAnchors = channelsFirst ? outShape[2] : outShape[1];
+    }
+
+    /**
+     * Memuat model dari assets. Mengembalikan null jika model tidak ada atau gagal dimuat,
+     * sehingga pemanggil bisa tetap memakai deteksi remote.
+     */
+    public static LocalDetector create(Context context, int numThreads) {
+        try {
+            MappedByteBuffer model = loadModel(context);
+            Interpreter.Options options = new Interpreter.Options()
+                    .setNumThreads(numThreads)
+                    .setUseXNNPACK(true);
+            Interpreter interpreter = new Interpreter(model, options);
+            LocalDetector detector = new LocalDetector(interpreter, loadLabels(context));
+            Log.d(TAG, "Model lokal dimuat: input " + detector.inputWidth + "x" + detector.inputHeight
+                    + ", threads=" + numThreads);
+            return detector;
+        } catch (IOException | RuntimeException e) {
+            Log.w(TAG, "Model lokal tidak tersedia, memakai deteksi remote: " + e.getMessage());
+            return null;
+        }
+    }
+
+    private static MappedByteBuffer loadModel(Context context) throws IOException {
+        try (AssetFileDescriptor fd = context.getAssets().openFd(MODEL_ASSET);
+             FileInputStream stream = new FileInputStream(fd.getFileDescriptor())) {
+            return stream.getChannel().map(FileChannel.MapMode.READ_ONLY, fd.getStartOffset(), fd.getDeclaredLength());
+        }
+    }
+
+    private static String[] loadLabels(Context context) {
+        List<String> labels = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(context.getAssets().open(LABELS_ASSET)))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (!line.trim().isEmpty()) labels.add(line.trim());
+            }
+        } catch (IOException e) {
+            return DEFAULT_LABELS;
+        }
+        return labels.isEmpty() ? DEFAULT_LABELS : labels.toArray(new String[0]);
+    }
+
+    public void setMetrics(PipelineMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    @Override
+    public Cancellable detect(Bitmap bitmap, RoboflowAPI.ApiCallback callback) {
+        AtomicBoolean cancelled = new AtomicBoolean(false);
+        Runnable inference = () -> {
+            // Frame yang sudah usang sebelum sempat diproses tidak perlu diinferensi
+            if (cancelled.get()) {
+                callback.onError(CANCELLED_ERROR);
+                return;
+            }
+            PredictionBatch predictions;
+            long start = PipelineMetrics.now();
+            try {
+                predictions = runInference(bitmap);
+            } catch (Exception e) {
+                Log.e(TAG, "Inferensi lokal gagal", e);
+                callback.onError("Inferensi lokal gagal: " + e.getMessage());
+                return;
+            }
+            PipelineMetrics metrics = this.metrics;
+            if (metrics != null) metrics.record(PipelineMetrics.Stage.INFERENCE, start);
+            callback.onSuccess(predictions);
+        };
+        try {
+            executor.execute(inference);
+        } catch (RejectedExecutionException e) {
+            // close() sudah dipanggil dari thread lain
+            callback.onError(CLOSED_ERROR);
+            return Cancellable.NONE;
+        }
+        return () -> cancelled.set(true);
+    }
+
+    @Override
+    public void close() {
+        executor.execute(interpreter::close);
+        executor.shutdown();
+    }
+
+    private PredictionBatch runInference(Bitmap bitmap) {
+        Bitmap source = bitmap;
+        if (bitmap.getWidth() > inputWidth || bitmap.getHeight() > inputHeight) {
+            float scale = Math.min((float) inputWidth / bitmap.getWidth(), (float) inputHeight / bitmap.getHeight());
+            source = Bitmap.createScaledBitmap(bitmap, Math.max(1, (int) (bitmap.getWidth() * scale)),
+                    Math.max(1, (int) (bitmap.getHeight() * scale)), true);
+        }
+        fillInput(source);
+
+        outputBuffer.rewind();
+        interpreter.run(inputBuffer, outputBuffer);
+
+        float scaleBack = (float) bitmap.getWidth() / source.getWidth();
+        return decode(source.getWidth(), source.getHeight(), scaleBack);
+    }
+
+    private void fillInput(Bitmap bitmap) {
+        int width = bitmap.getWidth();
+        int height = bitmap.getHeight();
+        if (pixels.length < width * height) pixels = new int[width * height];
+        bitmap.getPixels(pixels, 0, width, 0, 0, width, height);
+
+        inputBuffer.rewind();
+        for (int y = 0; y < inputHeight; y++) {
+            for (int x = 0; x < inputWidth; x++) {
+                int color = (x < width && y < height)
+                        ? pixels[y * width + x]
+                        : (PAD_VALUE << 16) | (PAD_VALUE << 8) | PAD_VALUE;
+                putChannel((color >> 16) & 0xFF);
+                putChannel((color >> 8) & 0xFF);
+                putChannel(color & 0xFF);
+            }
+        }
+        inputBuffer.rewind();
+    }
+
+    private void putChannel(int value) {
+        if (inputType == DataType.FLOAT32) {
+            inputBuffer.putFloat(value / 255f);
+        } else {
+            // Model terkuantisasi: nilai 0..1 dipetakan dengan parameter kuantisasi input
+            float scale = inputScale != 0f ? inputScale : 1f / 255f;
+            int q = Math.round(value / 255f / scale) + inputZeroPoint;
+            if (inputType == DataType.INT8) {
+                inputBuffer.put((byte) Math.max(-128, Math.min(127, q)));
+            } else {
+                inputBuffer.put((byte) Math.max(0, Math.min(255, q)));
+            }
+        }
+    }
+
+    private float outputAt(int anchor, int channel) {
+        int index = channelsFirst ? channel * numAnchors + anchor : anchor * numChannels + channel;
+        switch (outputType) {
+            case FLOAT32:
+                return outputBuffer.getFloat(index * 4);
+            case INT8:
+                return (outputBuffer.get(index) - outputZeroPoint) * outputScale;
+            default:
+                return ((outputBuffer.get(index) & 0xFF) - outputZeroPoint) * outputScale;
+        }
+    }
+
+    private PredictionBatch decode(int imageWidth, int imageHeight, float scaleBack) {
+        int numClasses = numChannels - 4;
+        if (candidates.length < numAnchors * 6) {
+            candidates = new float[numAnchors * 6];
+            order = new long[numAnchors];
+            suppressed = new boolean[numAnchors];
+        }
+
+        // Koordinat ternormalisasi jika seluruh kotak berada di rentang 0..1
+        boolean normalized = true;
+        int count = 0;
+        for (int a = 0; a < numAnchors; a++) {
+            int bestClass = -1;
+            float bestScore = CONFIDENCE_THRESHOLD;
+            for (int c = 0; c < numClasses; c++) {
+                float score = outputAt(a, 4 + c);
+                if (score > bestScore) {
+                    bestScore = score;
+                    bestClass = c;
+                }
+            }
+            if (bestClass < 0) continue;
+
+            float cx = outputAt(a, 0);
+            float cy = outputAt(a, 1);
+            float w = outputAt(a, 2);
+            float h = outputAt(a, 3);
+            if (cx > 1.5f || cy > 1.5f || w > 1.5f || h > 1.5f) normalized = false;
+
+            int base = count * 6;
+            candidates[base] = cx - w / 2;
+            candidates[base + 1] = cy - h / 2;
+            candidates[base + 2] = cx + w / 2;
+            candidates[base + 3] = cy + h / 2;
+            candidates[base + 4] = bestScore;
+            candidates[base + 5] = bestClass;
+            order[count] = sortKey(bestScore, count);
+            count++;
+        }
+
+        Arrays.sort(order, 0, count);
+        Arrays.fill(suppressed, 0, count, false);
+
+        PredictionBatch result = new PredictionBatch(Math.min(count, MAX_DETECTIONS));
+        float scaleX = normalized ? inputWidth : 1f;
+        float scaleY = normalized ? inputHeight : 1f;
+        for (int i = 0; i < count && result.size() < MAX_DETECTIONS; i++) {
+            if (suppressed[i]) continue;
+            int bi = candidateIndex(order[i]) * 6;
+            for (int j = i + 1; j < count; j++) {
+                int bj = candidateIndex(order[j]) * 6;
+                if (!suppressed[j] && candidates[bi + 5] == candidates[bj + 5]
+                        && iou(candidates, bi, bj) > IOU_THRESHOLD) {
+                    suppressed[j] = true;
+                }
+            }
+
+            float left = clamp(candidates[bi] * scaleX, imageWidth);
+            float top = clamp(candidates[bi + 1] * scaleY, imageHeight);
+            float right = clamp(candidates[bi + 2] * scaleX, imageWidth);
+            float bottom = clamp(candidates[bi + 3] * scaleY, imageHeight);
+            if (right <= left || bottom <= top) continue;
+
+            int classIndex = (int) candidates[bi + 5];
+            short classId = classIndex < labelIds.length ? labelIds[classIndex] : LabelTable.intern(String.valueOf(classIndex));
+            result.add(classId, candidates[bi + 4],
+                    left * scaleBack, top * scaleBack, right * scaleBack, bottom * scaleBack);
+        }
+        return result;
+    }
+
+    // Urutan naik key = skor menurun, lalu indeks naik untuk skor yang sama. Bit float skor positif
+    // naik monoton terhadap nilainya, jadi bisa dibalik sebagai bilangan bulat.
+    static long sortKey(float score, int index) {
+        return ((long) (Integer.MAX_VALUE - Float.floatToIntBits(score)) << 32) | index;
+    }
+
+    static int candidateIndex(long sortKey) {
+        return (int) sortKey;
+    }
+
+    private static float iou(float[] boxes, int a, int b) {
+        float left = Math.max(boxes[a], boxes[b]);
+        float top = Math.max(boxes[a + 1], boxes[b + 1]);
+        float right = Math.min(boxes[a + 2], boxes[b + 2]);
+        float bottom = Math.min(boxes[a + 3], boxes[b + 3]);
+        float intersection = Math.max(0f, right - left) * Math.max(0f, bottom - top);
+        float areaA = (boxes[a + 2] - boxes[a]) * (boxes[a + 3] - boxes[a + 1]);
+        float areaB = (boxes[b + 2] - boxes[b]) * (boxes[b + 3] - boxes[b + 1]);
+        float union = areaA + areaB - intersection;
+        return union > 0f ? intersection / union : 0f;
+    }
+
+    private static float clamp(float value, int max) {
+        return Math.max(0f, Math.min(max, value));
+    }
+}
@@ -0,0 +1,343 @@
+package com.example.smartwaste.detector;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.Rect;
+import android.os.SystemClock;
+
+import com.example.smartwaste.api.PredictionBatch;
+import com.example.smartwaste.api.RoboflowAPI;
+import com.example.smartwaste.metrics.PipelineMetrics;
+import com.example.smartwaste.pipeline.RoiPlanner;
+import com.example.smartwaste.pool.BitmapPool;
+import com.example.smartwaste.pool.ResourcePool;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Membungkus detector (biasanya remote) supaya hanya area menarik yang dikirim: kotak hasil
+ * terakhir dan sel grid yang berubah sejak frame penuh terakhir dipotong dengan padding,
+ * dideteksi per crop, lalu kotaknya dikembalikan ke koordinat frame penuh dan diduplikasi
+ * ulang antar crop. Frame penuh tetap dikirim di awal, setiap fullFrameIntervalMs, dan setiap
+ * kali crop tidak lebih hemat (lihat RoiPlanner), sehingga objek baru di luar ROI tetap terlihat.
+ *
+ * Jika satu crop gagal, seluruh frame gagal dengan error crop tersebut, jadi error koneksi
+ * tetap dikenali RoboflowAPI.isConnectionError dan frame penuh bisa diantrekan.
+ */
+public class RoiDetector implements Detector {
+
+    private static final int GRID = 16;
+    // Frame diperkecil ke sini sebelum grid luma dihitung (4x4 sampel per sel)
+    private static final int GRID_SAMPLE_SIZE = GRID * 4;
+    private static final float DEDUP_IOU = 0.5f;
+    private static final float DEDUP_CONTAINMENT = 0.8f;
+
+    private final Detector delegate;
+    private final RoiPlanner planner;
+    private final BitmapPool bitmapPool;
+    private final float changeThreshold;
+    private final long fullFrameIntervalMs;
+    private final int upscaleTargetSize;
+    private final float maxUpscale;
+    private volatile PipelineMetrics metrics;
+
+    // Dijaga oleh this
+    private final int[] sampledPixels = new int[GRID_SAMPLE_SIZE * GRID_SAMPLE_SIZE];
+    private final int[] grid = new int[GRID * GRID];
+    private final Canvas canvas = new Canvas();
+    private final Paint scalePaint = new Paint(Paint.FILTER_BITMAP_FLAG);
+    private final Rect sourceRect = new Rect();
+    private final Rect targetRect = new Rect();
+    private int[] referenceGrid;
+    private int referenceWidth;
+    private int referenceHeight;
+    private long lastFullFrameMs;
+    private List<float[]> lastBoxes = new ArrayList<>();
+    private long nextSequence = 1;
+    private long lastAppliedSequence;
+
+    /**
+     * @param bitmapPool          sumber bitmap sampel grid dan crop
+     * @param changeThreshold     selisih luma per sel (0..255) yang dianggap berubah
+     * @param fullFrameIntervalMs jarak maksimum antar frame penuh
+     * @param upscaleTargetSize   crop diperbesar sampai sisi terpanjang sebesar ini ...
+     * @param maxUpscale          ... tetapi tidak lebih dari faktor ini; 1 menonaktifkan upscale
+     */
+    public RoiDetector(Detector delegate, RoiPlanner planner, BitmapPool bitmapPool, float changeThreshold,
+                       long fullFrameIntervalMs, int upscaleTargetSize, float maxUpscale) {
+        this.delegate = delegate;
+        this.planner = planner;
+        this.bitmapPool = bitmapPool;
+        this.changeThreshold = changeThreshold;
+        this.fullFrameIntervalMs = fullFrameIntervalMs;
+        this.upscaleTargetSize = upscaleTargetSize;
+        this.maxUpscale = Math.max(1f, maxUpscale);
+    }
+
+    public void setMetrics(PipelineMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    @Override
+    public Cancellable detect(Bitmap bitmap, RoboflowAPI.ApiCallback callback) {
+        return detect(bitmap, SystemClock.elapsedRealtime(), callback);
+    }
+
+    @Override
+    public Cancellable detect(Bitmap bitmap, long capturedAtMs, RoboflowAPI.ApiCallback callback) {
+        int width = bitmap.getWidth();
+        int height = bitmap.getHeight();
+
+        List<int[]> crops;
+        long sequence;
+        List<ResourcePool.Lease<Bitmap>> cropLeases;
+        synchronized (this) {
+            ResourcePool.Lease<Bitmap> sample = draw(bitmap, 0, 0, width, height, GRID_SAMPLE_SIZE, GRID_SAMPLE_SIZE);
+            sample.get().getPixels(sampledPixels, 0, GRID_SAMPLE_SIZE, 0, 0, GRID_SAMPLE_SIZE, GRID_SAMPLE_SIZE);
+            sample.release();
+            RoiPlanner.computeLumaGrid(sampledPixels, GRID_SAMPLE_SIZE, GRID_SAMPLE_SIZE, GRID, grid);
+            sequence = nextSequence++;
+
+            boolean fullFrameDue = referenceGrid == null || referenceWidth != width || referenceHeight != height
+                    || capturedAtMs - lastFullFrameMs >= fullFrameIntervalMs;
+            if (fullFrameDue) {
+                crops = null;
+            } else {
+                List<float[]> seeds = new ArrayList<>(lastBoxes);
+                seeds.addAll(RoiPlanner.changedCells(referenceGrid, grid, GRID, width, height, changeThreshold));
+                crops = planner.plan(seeds, width, height);
+            }
+
+            if (crops == null) {
+                if (referenceGrid == null) referenceGrid = new int[GRID * GRID];
+                System.arraycopy(grid, 0, referenceGrid, 0, grid.length);
+                referenceWidth = width;
+                referenceHeight = height;
+                lastFullFrameMs = capturedAtMs;
+                cropLeases = null;
+            } else {
+                // Sel di dalam crop sudah dideteksi ulang, jadi menjadi referensi baru
+                refreshCoveredCells(crops, width, height);
+                cropLeases = new ArrayList<>(crops.size());
+                for (int[] crop : crops) {
+                    int cropWidth = crop[2] - crop[0];
+                    int cropHeight = crop[3] - crop[1];
+                    float scale = Math.max(1f, Math.min(maxUpscale, (float) upscaleTargetSize / Math.max(cropWidth, cropHeight)));
+                    cropLeases.add(draw(bitmap, crop[0], crop[1], crop[2], crop[3],
+                            Math.round(cropWidth * scale), Math.round(cropHeight * scale)));
+                }
+            }
+        }
+
+        if (crops == null) {
+            return delegate.detect(bitmap, capturedAtMs, new RoboflowAPI.ApiCallback() {
+                @Override
+                public void onSuccess(List<RoboflowAPI.Prediction> predictions) {
+                    onSuccess(PredictionBatch.fromPredictions(predictions));
+                }
+
+                @Override
+                public void onSuccess(PredictionBatch predictions) {
+                    remember(sequence, predictions);
+                    callback.onSuccess(predictions);
+                }
+
+                @Override
+                public void onError(String error) {
+                    callback.onError(error);
+                }
+            });
+        }
+
+        PipelineMetrics metrics = this.metrics;
+        if (metrics != null) {
+            metrics.increment(PipelineMetrics.Counter.ROI_FRAMES);
+            metrics.add(PipelineMetrics.Counter.ROI_CROPS, crops.size());
+        }
+        CropFanout fanout = new CropFanout(sequence, crops.size(), callback);
+        for (int i = 0; i < crops.size(); i++) {
+            fanout.start(i, delegate, cropLeases.get(i), capturedAtMs, crops.get(i));
+        }
+        return fanout;
+    }
+
+    // Area [left, right) x [top, bottom) dari source digambar ke bitmap pool berukuran width x height
+    private ResourcePool.Lease<Bitmap> draw(Bitmap source, int left, int top, int right, int bottom, int width, int height) {
+        ResourcePool.Lease<Bitmap> lease = bitmapPool.acquire(width, height, Bitmap.Config.ARGB_8888);
+        sourceRect.set(left, top, right, bottom);
+        targetRect.set(0, 0, width, height);
+        canvas.setBitmap(lease.get());
+        canvas.drawBitmap(source, sourceRect, targetRect, scalePaint);
+        canvas.setBitmap(null);
+        return lease;
+    }
+
+    private void refreshCoveredCells(List<int[]> crops, int width, int height) {
+        for (int gy = 0; gy < GRID; gy++) {
+            int top = gy * height / GRID;
+            int bottom = (gy + 1) * height / GRID;
+            for (int gx = 0; gx < GRID; gx++) {
+                int left = gx * width / GRID;
+                int right = (gx + 1) * width / GRID;
+                for (int[] crop : crops) {
+                    if (left >= crop[0] && top >= crop[1] && right <= crop[2] && bottom <= crop[3]) {
+                        referenceGrid[gy * GRID + gx] = grid[gy * GRID + gx];
+                        break;
+                    }
+                }
+            }
+        }
+    }
+
+    // Hasil yang datang tidak berurutan tidak boleh menimpa kotak dari frame yang lebih baru
+    private synchronized void remember(long sequence, PredictionBatch predictions) {
+        if (sequence <= lastAppliedSequence) return;
+        lastAppliedSequence = sequence;
+        List<float[]> boxes = new ArrayList<>(predictions.size());
+        for (int i = 0; i < predictions.size(); i++) {
+            if (predictions.width(i) <= 0 || predictions.height(i) <= 0) continue;
+            boxes.add(new float[]{predictions.left(i), predictions.top(i), predictions.right(i), predictions.bottom(i)});
+        }
+        lastBoxes = boxes;
+    }
+
+    /**
+     * Kotak ke-index dari hasil crop ke koordinat frame penuh (left, top, right, bottom) di out.
+     * origin adalah area crop di frame, scaleX/scaleY ukuran bitmap crop dibagi ukuran area itu.
+     */
+    static void toFrame(PredictionBatch crop, int index, int[] origin, float scaleX, float scaleY, float[] out) {
+        out[0] = origin[0] + crop.left(index) / scaleX;
+        out[1] = origin[1] + crop.top(index) / scaleY;
+        out[2] = origin[0] + crop.right(index) / scaleX;
+        out[3] = origin[1] + crop.bottom(index) / scaleY;
+    }
+
+    @Override
+    public void close() {
+        delegate.close();
+    }
+
+    /** Menggabungkan hasil semua crop satu frame; gagal jika salah satu crop gagal. */
+    private final class CropFanout implements Cancellable {
+        private final long sequence;
+        private final RoboflowAPI.ApiCallback callback;
+        private final Cancellable[] handles;
+        private final PredictionBatch merged = new PredictionBatch();
+        // Kotak kerja untuk RoiPlanner.isDuplicate, dijaga oleh this
+        private final float[] existingBox = new float[4];
+        private final float[] candidateBox = new float[4];
+        // Dijaga oleh this
+        private int remaining;
+        private boolean finished;
+        private boolean cancelled;
+
+        CropFanout(long sequence, int crops, RoboflowAPI.ApiCallback callback) {
+            this.sequence = sequence;
+            this.callback = callback;
+            this.handles = new Cancellable[crops];
+            this.remaining = crops;
+        }
+
+        // Crop dilepas ke pool setelah callback delegate (dipanggil tepat sekali)
+        void start(int index, Detector detector, ResourcePool.Lease<Bitmap> crop, long capturedAtMs, int[] origin) {
+            Bitmap bitmap = crop.get();
+            // Ukuran crop dibulatkan, jadi skala sebenarnya per sumbu bisa sedikit berbeda
+            float scaleX = (float) bitmap.getWidth() / (origin[2] - origin[0]);
+            float scaleY = (float) bitmap.getHeight() / (origin[3] - origin[1]);
+            Cancellable handle = detector.detect(bitmap, capturedAtMs, new RoboflowAPI.ApiCallback() {
+                @Override
+                public void onSuccess(List<RoboflowAPI.Prediction> predictions) {
+                    onSuccess(PredictionBatch.fromPredictions(predictions));
+                }
+
+                @Override
+                public void onSuccess(PredictionBatch predictions) {
+                    crop.release();
+                    onCropSuccess(predictions, origin, scaleX, scaleY);
+                }
+
+                @Override
+                public void onError(String error) {
+                    crop.release();
+                    onCropError(error);
+                }
+            });
+            boolean cancelNow;
+            synchronized (this) {
+                handles[index] = handle;
+                cancelNow = cancelled || finished;
+            }
+            if (cancelNow) handle.cancel();
+        }
+
+        private void onCropSuccess(PredictionBatch predictions, int[] origin, float scaleX, float scaleY) {
+            PredictionBatch result;
+            synchronized (this) {
+                if (finished) return;
+                for (int i = 0; i < predictions.size(); i++) {
+                    addDeduplicated(predictions, i, origin, scaleX, scaleY);
+                }
+                if (--remaining > 0) return;
+                finished = true;
+                result = merged;
+            }
+            remember(sequence, result);
+            callback.onSuccess(result);
+        }
+
+        private void onCropError(String error) {
+            Cancellable[] others;
+            synchronized (this) {
+                if (finished) return;
+                finished = true;
+                others = handles.clone();
+            }
+            cancelAll(others);
+            callback.onError(error);
+        }
+
+        /**
+         * Kotak ke-index dari crop dikembalikan ke koordinat frame penuh lalu digabung. Dari crop
+         * yang sama tidak ada duplikat; antar crop yang lebih yakin dipertahankan. Kotak kosong
+         * (luas 0) tidak pernah dianggap duplikat.
+         */
+        private void addDeduplicated(PredictionBatch crop, int index, int[] origin, float scaleX, float scaleY) {
+            short classId = crop.classId(index);
+            float confidence = crop.confidence(index);
+            float[] box = candidateBox;
+            toFrame(crop, index, origin, scaleX, scaleY, box);
+            for (int i = 0; i < merged.size(); i++) {
+                if (merged.classId(i) != classId) continue;
+                existingBox[0] = merged.left(i);
+                existingBox[1] = merged.top(i);
+                existingBox[2] = merged.right(i);
+                existingBox[3] = merged.bottom(i);
+                if (!RoiPlanner.isDuplicate(existingBox, box, DEDUP_IOU, DEDUP_CONTAINMENT)) continue;
+                if (confidence > merged.confidence(i)) {
+                    merged.set(i, classId, confidence, box[0], box[1], box[2], box[3], crop.trackId(index));
+                }
+                return;
+            }
+            merged.add(classId, confidence, box[0], box[1], box[2], box[3], crop.trackId(index));
+        }
+
+        @Override
+        public void cancel() {
+            Cancellable[] toCancel;
+            synchronized (this) {
+                if (cancelled) return;
+                cancelled = true;
+                toCancel = handles.clone();
+            }
+            cancelAll(toCancel);
+        }
+
+        private void cancelAll(Cancellable[] toCancel) {
+            for (Cancellable handle : toCancel) {
+                if (handle != null) handle.cancel();
+            }
+        }
+    }
+}
@@ -0,0 +1,215 @@
+package com.example.smartwaste.image;
+
+import java.io.Closeable;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Menjalankan kernel per-baris (konversi YUV, resize) sebagai beberapa pita baris paralel.
+ * Worker dibuat sekali dan menunggu di antara frame; thread pemanggil ikut mengerjakan pita,
+ * jadi parallelism N hanya butuh N-1 worker. Pita diambil dari counter atomik milik pekerjaan
+ * itu sendiri (worker yang cepat mengambil pita berikutnya); satu-satunya alokasi per frame adalah
+ * objek Job kecil, tidak ada alokasi per pita.
+ *
+ * Satu pemanggil pada satu waktu (forEachBand synchronized). Parallelism bisa diturunkan saat
+ * runtime, mis. ketika perangkat mulai panas; 1 berarti kernel berjalan berurutan di pemanggil.
+ */
+public class BandExecutor implements Closeable {
+
+    /** Mengerjakan baris [start, end) dan menulis ke buffer bersama yang tidak tumpang tindih antar pita. */
+    public interface BandTask {
+        void run(int start, int end);
+    }
+
+    // Worker tambahan di atas ini jarang menambah kecepatan: memori sudah jenuh dan core sisa dipakai TFLite/UI
+    public static final int MAX_PARALLELISM = 4;
+
+    private final int maxParallelism;
+    private final int minParallelPixels;
+    private final Thread[] workers;
+    private volatile int parallelism;
+
+    private final Object lock = new Object();
+    // Dijaga oleh lock
+    private long generation;
+    private Job job;
+    private boolean closed;
+
+    private final int[] evenStarts;
+
+    /**
+     * Satu panggilan runBands. Tidak berubah setelah dibuat dan punya counter sendiri, jadi worker
+     * yang masih memegang Job lama hanya mendapati semua pitanya sudah diambil dan tidak pernah
+     * mengambil pita dari pekerjaan berikutnya.
+     */
+    private static final class Job {
+        final BandTask task;
+        final int[] starts;
+        final int bandCount;
+        final Thread waiter;
+        final AtomicInteger nextBand = new AtomicInteger();
+        final AtomicInteger pendingBands;
+        volatile Throwable failure;
+
+        Job(BandTask task, int[] starts, int bandCount, Thread waiter) {
+            this.task = task;
+            this.starts = starts;
+            this.bandCount = bandCount;
+            this.waiter = waiter;
+            this.pendingBands = new AtomicInteger(bandCount);
+        }
+    }
+
+    /**
+     * @param maxParallelism    jumlah pita maksimum termasuk thread pemanggil
+     * @param minParallelPixels frame sumber dengan piksel lebih sedikit dikerjakan berurutan
+     */
+    public BandExecutor(int maxParallelism, int minParallelPixels) {
+        this.maxParallelism = Math.max(1, maxParallelism);
+        this.minParallelPixels = minParallelPixels;
+        this.parallelism = this.maxParallelism;
+        this.evenStarts = new int[this.maxParallelism + 1];
+        this.workers = new Thread[this.maxParallelism - 1];
+        for (int i = 0; i < workers.length; i++) {
+            Thread worker = new Thread(this::workerLoop, "band-" + (i + 1));
+            worker.setDaemon(true);
+            workers[i] = worker;
+            worker.start();
+        }
+    }
+
+    /**
+     * Jumlah pita dari jumlah core dan thermal headroom (PowerManager.getThermalHeadroom:
+     * 0 = dingin, 1 = mulai throttling berat; NaN = tidak tersedia). Separuh core saja, karena
+     * pada big.LITTLE core kecil memperlambat pita terakhir dan sisanya dipakai model lokal.
+     */
+    public static int chooseParallelism(int cores, float thermalHeadroom) {
+        int base = Math.max(1, Math.min(MAX_PARALLELISM, cores / 2));
+        if (Float.isNaN(thermalHeadroom)) return base;
+        if (thermalHeadroom >= 0.95f) return 1;
+        if (thermalHeadroom >= 0.75f) return Math.max(1, base / 2);
+        return base;
+    }
+
+    public int getMaxParallelism() {
+        return maxParallelism;
+    }
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    /** Dibatasi ke [1, getMaxParallelism()]; berlaku mulai frame berikutnya. */
+    public void setParallelism(int parallelism) {
+        this.parallelism = Math.max(1, Math.min(maxParallelism, parallelism));
+    }
+
+    /** Jumlah pita untuk frame sumber berukuran pixels; 1 jika terlalu kecil untuk dibagi. */
+    public int bandsFor(long pixels) {
+        return pixels < minParallelPixels ? 1 : parallelism;
+    }
+
+    /**
+     * Membagi rows menjadi pita sama besar dengan batas kelipatan alignment (2 untuk baris
+     * yang berbagi satu baris chroma 4:2:0), lalu menjalankan task untuk setiap pita.
+     */
+    public synchronized void forEachBand(int rows, int alignment, long pixels, BandTask task) {
+        int bands = bandsFor(pixels);
+        if (bands <= 1 || rows <= alignment) {
+            task.run(0, rows);
+            return;
+        }
+        splitRows(rows, alignment, bands, evenStarts);
+        runBands(evenStarts, bands, task);
+    }
+
+    /**
+     * Menjalankan task untuk pita [starts[i], starts[i + 1]) dengan batas yang sudah dihitung
+     * pemanggil (pita kosong boleh). Kembali setelah semua pita selesai; exception dari pita
+     * mana pun dilempar ulang di sini.
+     */
+    public synchronized void forEachBand(int[] starts, int bands, BandTask task) {
+        if (bands <= 1) {
+            task.run(starts[0], starts[bands]);
+            return;
+        }
+        runBands(starts, bands, task);
+    }
+
+    static void splitRows(int rows, int alignment, int bands, int[] starts) {
+        starts[0] = 0;
+        for (int b = 1; b < bands; b++) {
+            int start = (int) ((long) rows * b / bands) / alignment * alignment;
+            starts[b] = Math.max(starts[b - 1], Math.min(rows, start));
+        }
+        starts[bands] = rows;
+    }
+
+    private void runBands(int[] starts, int bands, BandTask task) {
+        if (workers.length == 0 || parallelism <= 1) {
+            for (int b = 0; b < bands; b++) task.run(starts[b], starts[b + 1]);
+            return;
+        }
+        Job current = new Job(task, starts, bands, Thread.currentThread());
+        synchronized (lock) {
+            job = current;
+            generation++;
+            lock.notifyAll();
+        }
+
+        drain(current);
+        while (current.pendingBands.get() > 0) {
+            LockSupport.park(this);
+        }
+
+        Throwable error = current.failure;
+        if (error != null) {
+            if (error instanceof RuntimeException) throw (RuntimeException) error;
+            if (error instanceof Error) throw (Error) error;
+            throw new IllegalStateException(error);
+        }
+    }
+
+    private static void drain(Job job) {
+        int band;
+        while ((band = job.nextBand.getAndIncrement()) < job.bandCount) {
+            try {
+                job.task.run(job.starts[band], job.starts[band + 1]);
+            } catch (Throwable t) {
+                if (job.failure == null) job.failure = t;
+            } finally {
+                if (job.pendingBands.decrementAndGet() == 0) LockSupport.unpark(job.waiter);
+            }
+        }
+    }
+
+    private void workerLoop() {
+        long seen = 0;
+        while (true) {
+            Job current;
+            synchronized (lock) {
+                while (generation == seen && !closed) {
+                    try {
+                        lock.wait();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+                if (closed) return;
+                seen = generation;
+                current = job;
+            }
+            drain(current);
+        }
+    }
+
+    /** Menghentikan worker; setelahnya semua pita dikerjakan di thread pemanggil. */
+    @Override
+    public void close() {
+        parallelism = 1;
+        synchronized (lock) {
+            closed = true;
+            lock.notifyAll();
+        }
+    }
+}
@@ -0,0 +1,357 @@
+package com.example.smartwaste.image;
+
+import android.graphics.Bitmap;
+
+/**
+ * Rotasi + resize (dengan rasio aspek tetap) langsung dari plane YUV ke ukuran input inferensi.
+ * Menggantikan createBitmap(matrix) + createScaledBitmap: setiap piksel sumber hanya dibaca
+ * sekali dan tidak ada Bitmap resolusi penuh yang dibuat per frame.
+ *
+ * Dengan BandExecutor, kernel dibagi menjadi pita baris yang dikerjakan paralel; setiap pita
+ * menulis bagian buffer bersama yang tidak tumpang tindih, jadi hasilnya identik dengan
+ * jalur berurutan.
+ */
+public class FramePreprocessor {
+
+    public enum Mode {
+        // Rata-rata semua piksel sumber yang jatuh ke satu piksel output (untuk downscale)
+        AREA,
+        // Interpolasi 4 tetangga pada luma, chroma nearest
+        BILINEAR
+    }
+
+    private static final int FRAC_BITS = 8;
+    private static final int FRAC_ONE = 1 << FRAC_BITS;
+
+    private final int targetSize;
+    private Mode mode;
+
+    private int outputWidth;
+    private int outputHeight;
+    private int[] argb = new int[0];
+
+    // Tabel untuk mode AREA: indeks output = colIndex[sx] + rowIndex[sy]
+    private int[] colIndex = new int[0];
+    private int[] rowIndex = new int[0];
+    private int[] sumY = new int[0];
+    private int[] sumU = new int[0];
+    private int[] sumV = new int[0];
+    private int[] count = new int[0];
+
+    // Jumlah elemen awal sum*/count yang mungkin belum nol (kernel AREA berhenti di tengah)
+    private int dirtySize;
+
+    // Tabel untuk mode BILINEAR, per sumbu output (posisi sumber 24.8 fixed-point)
+    private int[] xPos = new int[0];
+    private int[] yPos = new int[0];
+
+    // null = berurutan di thread pemanggil
+    private BandExecutor bandExecutor;
+    private int[] bandStarts = new int[0];
+    // Frame yang sedang diproses, dibaca oleh task pita
+    private YuvFrame current;
+    private boolean currentSwap;
+    // Dibuat sekali supaya forEachBand tidak mengalokasikan lambda per frame
+    private final BandExecutor.BandTask accumulateTask = this::accumulateRows;
+    private final BandExecutor.BandTask normalizeTask = this::normalizeRows;
+    private final BandExecutor.BandTask bilinearTask = this::bilinearRows;
+
+    public FramePreprocessor(int targetSize, Mode mode) {
+        this.targetSize = targetSize;
+        this.mode = mode;
+    }
+
+    /** Mengaktifkan pemrosesan per pita paralel; null kembali ke jalur berurutan. */
+    public void setBandExecutor(BandExecutor bandExecutor) {
+        this.bandExecutor = bandExecutor;
+    }
+
+    public void setMode(Mode mode) {
+        this.mode = mode;
+    }
+
+    public Mode getMode() {
+        return mode;
+    }
+
+    public int getOutputWidth() {
+        return outputWidth;
+    }
+
+    public int getOutputHeight() {
+        return outputHeight;
+    }
+
+    /**
+     * Memproses frame dan mengembalikan buffer ARGB internal berukuran
+     * getOutputWidth() x getOutputHeight(). Buffer hanya valid sampai panggilan berikutnya.
+     */
+    public int[] process(YuvFrame frame, int rotationDegrees) {
+        int quarterTurns = ((rotationDegrees % 360) + 360) % 360 / 90;
+        boolean swap = (quarterTurns & 1) == 1;
+        int rotatedWidth = swap ? frame.height : frame.width;
+        int rotatedHeight = swap ? frame.width : frame.height;
+
+        // Sama dengan perhitungan di MainActivity.processImage
+        float aspectRatio = (float) rotatedWidth / (float) rotatedHeight;
+        int finalWidth = targetSize;
+        int finalHeight = targetSize;
+        if (rotatedWidth > rotatedHeight) {
+            finalHeight = (int) (targetSize / aspectRatio);
+        } else {
+            finalWidth = (int) (targetSize * aspectRatio);
+        }
+        outputWidth = Math.max(1, finalWidth);
+        outputHeight = Math.max(1, finalHeight);
+
+        int size = outputWidth * outputHeight;
+        if (argb.length < size) argb = new int[size];
+
+        // Area averaging tidak bisa upscale; jatuh ke bilinear bila output lebih besar
+        boolean downscale = outputWidth <= rotatedWidth && outputHeight <= rotatedHeight;
+        current = frame;
+        try {
+            if (mode == Mode.AREA && downscale) {
+                processArea(frame, quarterTurns);
+            } else {
+                processBilinear(frame, quarterTurns, rotatedWidth, rotatedHeight);
+            }
+        } finally {
+            current = null;
+        }
+        return argb;
+    }
+
+    /**
+     * Membuat Bitmap baru dari hasil process() terakhir.
+     */
+    public Bitmap toBitmap() {
+        return Bitmap.createBitmap(argb, 0, outputWidth, outputWidth, outputHeight, Bitmap.Config.ARGB_8888);
+    }
+
+    /**
+     * Menyalin hasil process() terakhir ke bitmap mutable berukuran
+     * getOutputWidth() x getOutputHeight() (mis. dari BitmapPool), ARGB_8888 atau RGB_565.
+     */
+    public void copyTo(Bitmap target) {
+        target.setPixels(argb, 0, outputWidth, 0, 0, outputWidth, outputHeight);
+    }
+
+    private void processArea(YuvFrame frame, int quarterTurns) {
+        final int width = frame.width;
+        final int height = frame.height;
+        final int outW = outputWidth;
+        final int outH = outputHeight;
+        final int size = outW * outH;
+
+        if (colIndex.length < width) colIndex = new int[width];
+        if (rowIndex.length < height) rowIndex = new int[height];
+        if (sumY.length < size) {
+            sumY = new int[size];
+            sumU = new int[size];
+            sumV = new int[size];
+            count = new int[size];
+            dirtySize = 0;
+        }
+        // Normalisasi mengosongkan akumulator, jadi fill hanya perlu setelah frame yang gagal
+        if (dirtySize > 0) {
+            java.util.Arrays.fill(sumY, 0, dirtySize, 0);
+            java.util.Arrays.fill(sumU, 0, dirtySize, 0);
+            java.util.Arrays.fill(sumV, 0, dirtySize, 0);
+            java.util.Arrays.fill(count, 0, dirtySize, 0);
+        }
+        dirtySize = size;
+
+        // Koordinat hasil rotasi searah jarum jam (seperti Matrix.postRotate):
+        //   90: rx = H-1-sy, ry = sx    180: rx = W-1-sx, ry = H-1-sy    270: rx = sy, ry = W-1-sx
+        switch (quarterTurns) {
+            case 1:
+                fillAxis(colIndex, width, outH, false, outW);
+                fillAxis(rowIndex, height, outW, true, 1);
+                break;
+            case 2:
+                fillAxis(colIndex, width, outW, true, 1);
+                fillAxis(rowIndex, height, outH, true, outW);
+                break;
+            case 3:
+                fillAxis(colIndex, width, outH, true, outW);
+                fillAxis(rowIndex, height, outW, false, 1);
+                break;
+            default:
+                fillAxis(colIndex, width, outW, false, 1);
+                fillAxis(rowIndex, height, outH, false, outW);
+                break;
+        }
+
+        long pixels = (long) width * height;
+        int bands = bandExecutor != null ? bandExecutor.bandsFor(pixels) : 1;
+        if (bands <= 1) {
+            accumulateRows(0, height);
+            normalizeRows(0, outH);
+        } else {
+            bandExecutor.forEachBand(areaBandStarts(height, bands), bands, accumulateTask);
+            bandExecutor.forEachBand(outH, 1, pixels, normalizeTask);
+        }
+        dirtySize = 0;
+    }
+
+    /**
+     * Batas pita untuk akumulasi AREA. Baris sumber yang jatuh ke sel output yang sama harus
+     * berada di pita yang sama (kalau tidak, dua pita menjumlah ke sel yang sama), jadi batas
+     * dibulatkan ke baris genap (awal pasangan baris chroma) lalu digeser ke awal sel berikutnya.
+     */
+    private int[] areaBandStarts(int height, int bands) {
+        if (bandStarts.length < bands + 1) bandStarts = new int[bands + 1];
+        int[] starts = bandStarts;
+        BandExecutor.splitRows(height, 2, bands, starts);
+        for (int b = 1; b < bands; b++) {
+            int start = Math.max(starts[b], starts[b - 1]);
+            if (start > 0) {
+                while (start < height && rowIndex[start] == rowIndex[start - 1]) start++;
+            }
+            starts[b] = start;
+        }
+        return starts;
+    }
+
+    private void accumulateRows(int rowStart, int rowEnd) {
+        final YuvFrame frame = current;
+        final int width = frame.width;
+        final byte[] yData = frame.y;
+        final byte[] uData = frame.u;
+        final byte[] vData = frame.v;
+        final int uvPixelStride = frame.uvPixelStride;
+        final int[] cols = colIndex;
+        final int[] rows = rowIndex;
+        final int[] sY = sumY;
+        final int[] sU = sumU;
+        final int[] sV = sumV;
+        final int[] cnt = count;
+
+        for (int sy = rowStart; sy < rowEnd; sy++) {
+            int rowBase = rows[sy];
+            int yIndex = sy * frame.yRowStride;
+            int uvRow = (sy >> 1) * frame.uvRowStride;
+            int uBase = frame.uOffset + uvRow;
+            int vBase = frame.vOffset + uvRow;
+            for (int sx = 0; sx < width; sx++) {
+                int o = rowBase + cols[sx];
+                int c = (sx >> 1) * uvPixelStride;
+                sY[o] += yData[yIndex + sx] & 0xFF;
+                sU[o] += uData[uBase + c] & 0xFF;
+                sV[o] += vData[vBase + c] & 0xFF;
+                cnt[o]++;
+            }
+        }
+    }
+
+    // Rata-rata per sel ke argb untuk baris output [rowStart, rowEnd), sekaligus mengosongkan akumulator
+    private void normalizeRows(int rowStart, int rowEnd) {
+        final int[] out = argb;
+        final int[] sY = sumY;
+        final int[] sU = sumU;
+        final int[] sV = sumV;
+        final int[] cnt = count;
+        int end = rowEnd * outputWidth;
+        for (int i = rowStart * outputWidth; i < end; i++) {
+            int n = cnt[i];
+            int half = n >> 1;
+            out[i] = toArgb((sY[i] + half) / n, (sU[i] + half) / n, (sV[i] + half) / n);
+            sY[i] = 0;
+            sU[i] = 0;
+            sV[i] = 0;
+            cnt[i] = 0;
+        }
+    }
+
+    // Memetakan setiap koordinat sumber ke sel output (partisi rata) lalu dikali multiplier
+    private static void fillAxis(int[] table, int srcLength, int dstLength, boolean flip, int multiplier) {
+        for (int s = 0; s < srcLength; s++) {
+            int r = flip ? srcLength - 1 - s : s;
+            int o = (int) ((long) r * dstLength / srcLength);
+            table[s] = o * multiplier;
+        }
+    }
+
+    private void processBilinear(YuvFrame frame, int quarterTurns, int rotatedWidth, int rotatedHeight) {
+        final int outW = outputWidth;
+        final int outH = outputHeight;
+        if (xPos.length < outW) xPos = new int[outW];
+        if (yPos.length < outH) yPos = new int[outH];
+
+        // Posisi pada gambar hasil rotasi (pusat piksel), lalu dibalik sesuai rotasi
+        boolean flipX = quarterTurns == 1 || quarterTurns == 2;
+        boolean flipY = quarterTurns == 2 || quarterTurns == 3;
+        fillPositions(xPos, outW, rotatedWidth, flipX);
+        fillPositions(yPos, outH, rotatedHeight, flipY);
+        currentSwap = (quarterTurns & 1) == 1;
+
+        // Setiap baris output berdiri sendiri, jadi pita cukup dibagi per baris output
+        if (bandExecutor != null) {
+            bandExecutor.forEachBand(outH, 1, (long) frame.width * frame.height, bilinearTask);
+        } else {
+            bilinearRows(0, outH);
+        }
+    }
+
+    private void bilinearRows(int rowStart, int rowEnd) {
+        final YuvFrame frame = current;
+        final boolean swap = currentSwap;
+        final int outW = outputWidth;
+        final int width = frame.width;
+        final int height = frame.height;
+        final byte[] yData = frame.y;
+        final byte[] uData = frame.u;
+        final byte[] vData = frame.v;
+        final int yRowStride = frame.yRowStride;
+        final int uvRowStride = frame.uvRowStride;
+        final int uvPixelStride = frame.uvPixelStride;
+        final int[] out = argb;
+
+        for (int oy = rowStart; oy < rowEnd; oy++) {
+            int py = yPos[oy];
+            int outIndex = oy * outW;
+            for (int ox = 0; ox < outW; ox++) {
+                int px = xPos[ox];
+                // rx/ry -> sx/sy: untuk 90/270 sumbu tertukar
+                int sxFixed = swap ? py : px;
+                int syFixed = swap ? px : py;
+
+                int x0 = sxFixed >> FRAC_BITS;
+                int y0 = syFixed >> FRAC_BITS;
+                int fx = sxFixed & (FRAC_ONE - 1);
+                int fy = syFixed & (FRAC_ONE - 1);
+                int x1 = x0 + 1 < width ? x0 + 1 : x0;
+                int y1 = y0 + 1 < height ? y0 + 1 : y0;
+
+                int r0 = y0 * yRowStride;
+                int r1 = y1 * yRowStride;
+                int top = (yData[r0 + x0] & 0xFF) * (FRAC_ONE - fx) + (yData[r0 + x1] & 0xFF) * fx;
+                int bottom = (yData[r1 + x0] & 0xFF) * (FRAC_ONE - fx) + (yData[r1 + x1] & 0xFF) * fx;
+                int luma = (top * (FRAC_ONE - fy) + bottom * fy + (1 << (2 * FRAC_BITS - 1))) >> (2 * FRAC_BITS);
+
+                int c = (y0 >> 1) * uvRowStride + (x0 >> 1) * uvPixelStride;
+                out[outIndex + ox] = toArgb(luma, uData[frame.uOffset + c] & 0xFF, vData[frame.vOffset + c] & 0xFF);
+            }
+        }
+    }
+
+    private static void fillPositions(int[] table, int dstLength, int srcLength, boolean flip) {
+        int maxFixed = (srcLength - 1) << FRAC_BITS;
+        for (int d = 0; d < dstLength; d++) {
+            // (d + 0.5) * src / dst - 0.5 dalam fixed-point
+            long p = ((long) (2 * d + 1) * srcLength * FRAC_ONE) / (2L * dstLength) - FRAC_ONE / 2;
+            int pos = (int) Math.max(0, Math.min(maxFixed, p));
+            table[d] = flip ? maxFixed - pos : pos;
+        }
+    }
+
+    private static int toArgb(int luma, int u, int v) {
+        int cb = u - 128;
+        int cr = v - 128;
+        int dr = (91881 * cr + 32768) >> 16;
+        int dg = (22554 * cb + 46802 * cr + 32768) >> 16;
+        int db = (116130 * cb + 32768) >> 16;
+        return YuvToRgbConverter.pack(luma, dr, dg, db);
+    }
+}
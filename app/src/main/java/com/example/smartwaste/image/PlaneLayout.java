@@ -0,0 +1,107 @@
+package com.example.smartwaste.image;
+
+import java.nio.ByteBuffer;
+import java.util.Locale;
+
+/**
+ * Tata letak plane YUV_420_888 dari kamera, diklasifikasikan sekali dari frame pertama setelah
+ * ImageAnalysis terpasang. Stride tidak berubah selama resolusi sama, jadi hasil probe dipakai
+ * untuk memilih cara salin termurah di YuvFrame.copyFrom(PlaneLayout, ...): satu get() bulk per
+ * plane, dan untuk chroma semi-planar seluruh buffer VU/UV disalin apa adanya tanpa dipisah.
+ */
+public final class PlaneLayout {
+
+    public enum Chroma {
+        // pixelStride 1: plane U dan V terpisah, disalin utuh termasuk padding baris
+        PLANAR,
+        // pixelStride 2, isi U = isi V bergeser satu byte: satu buffer VU (NV21)
+        VU_SHARED,
+        // pixelStride 2, isi V = isi U bergeser satu byte: satu buffer UV (NV12)
+        UV_SHARED,
+        // Lainnya: disalin per sampel lewat copyFrom biasa
+        GENERIC
+    }
+
+    public final int width;
+    public final int height;
+    public final int yRowStride;
+    public final int yPixelStride;
+    public final int uvRowStride;
+    public final int uvPixelStride;
+    public final Chroma chroma;
+    // false jika frame probe tidak cukup untuk memastikan (mis. chroma seragam); probe lagi di frame berikutnya
+    public final boolean definitive;
+
+    private PlaneLayout(int width, int height, int yRowStride, int yPixelStride, int uvRowStride, int uvPixelStride,
+                        Chroma chroma, boolean definitive) {
+        this.width = width;
+        this.height = height;
+        this.yRowStride = yRowStride;
+        this.yPixelStride = yPixelStride;
+        this.uvRowStride = uvRowStride;
+        this.uvPixelStride = uvPixelStride;
+        this.chroma = chroma;
+        this.definitive = definitive;
+    }
+
+    /**
+     * Mengklasifikasikan layout dari satu frame. Untuk pixelStride 2, seluruh isi plane U dan V
+     * dibandingkan satu kali: layout bersama hanya dipilih jika satu plane persis plane lain yang
+     * bergeser satu byte, sehingga menyalin satu buffer utuh menghasilkan data yang sama.
+     */
+    public static PlaneLayout probe(ByteBuffer y, int yRowStride, int yPixelStride,
+                                    ByteBuffer u, ByteBuffer v, int uvRowStride, int uvPixelStride,
+                                    int width, int height) {
+        Chroma chroma = Chroma.GENERIC;
+        boolean definitive = true;
+        if (yPixelStride == 1 && uvPixelStride == 1) {
+            chroma = Chroma.PLANAR;
+        } else if (yPixelStride == 1 && uvPixelStride == 2) {
+            int vu = compareShifted(v, u);
+            int uv = vu > 0 ? -1 : compareShifted(u, v);
+            if (vu > 0) {
+                chroma = Chroma.VU_SHARED;
+            } else if (uv > 0) {
+                chroma = Chroma.UV_SHARED;
+            } else {
+                definitive = vu < 0 && uv < 0;
+            }
+        }
+        return new PlaneLayout(width, height, yRowStride, yPixelStride, uvRowStride, uvPixelStride, chroma, definitive);
+    }
+
+    /**
+     * @return 1 jika second[i] == first[i + 1] untuk seluruh buffer dan isinya bervariasi,
+     * 0 jika cocok tetapi seragam (belum bisa dipastikan), -1 jika tidak cocok
+     */
+    private static int compareShifted(ByteBuffer first, ByteBuffer second) {
+        int length = Math.min(second.limit(), first.limit() - 1);
+        if (length <= 0 || second.limit() + 1 < first.limit()) return -1;
+        boolean varied = false;
+        byte previous = first.get(0);
+        for (int i = 0; i < length; i++) {
+            byte next = first.get(i + 1);
+            if (second.get(i) != next) return -1;
+            if (next != previous) varied = true;
+            previous = next;
+        }
+        return varied ? 1 : 0;
+    }
+
+    /** Dicek per frame (hanya perbandingan int) supaya perubahan resolusi memicu probe ulang. */
+    public boolean matches(int width, int height, int yRowStride, int yPixelStride, int uvRowStride, int uvPixelStride) {
+        return this.width == width && this.height == height
+                && this.yRowStride == yRowStride && this.yPixelStride == yPixelStride
+                && this.uvRowStride == uvRowStride && this.uvPixelStride == uvPixelStride;
+    }
+
+    /** Layout yang sama dengan salinan per sampel, mis. setelah jalur cepat gagal di perangkat ini. */
+    public PlaneLayout asGeneric() {
+        return new PlaneLayout(width, height, yRowStride, yPixelStride, uvRowStride, uvPixelStride, Chroma.GENERIC, true);
+    }
+
+    public String describe() {
+        return String.format(Locale.US, "%dx%d y %d/%d uv %d/%d %s%s", width, height, yRowStride, yPixelStride,
+                uvRowStride, uvPixelStride, chroma.name().toLowerCase(Locale.US), definitive ? "" : " (sementara)");
+    }
+}
@@ -0,0 +1,171 @@
+package com.example.smartwaste.image;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Salinan plane YUV_420_888 dari kamera dalam array yang bisa dipakai ulang antar frame.
+ * Akses chroma selalu lewat offset + row stride + pixel stride sehingga layout planar (I420)
+ * maupun semi-planar (NV21/NV12) bisa diwakili oleh kelas yang sama.
+ */
+public class YuvFrame {
+
+    public int width;
+    public int height;
+
+    public byte[] y = new byte[0];
+    public int yRowStride;
+
+    public byte[] u = new byte[0];
+    public byte[] v = new byte[0];
+    public int uOffset;
+    public int vOffset;
+    public int uvRowStride;
+    public int uvPixelStride;
+
+    // Buffer sementara untuk membaca satu baris chroma yang ter-interleave
+    private byte[] rowScratch = new byte[0];
+    // Salinan utuh buffer VU/UV untuk layout semi-planar; u dan v menunjuk ke array ini
+    private byte[] interleaved = new byte[0];
+
+    public int chromaWidth() {
+        return (width + 1) / 2;
+    }
+
+    public int chromaHeight() {
+        return (height + 1) / 2;
+    }
+
+    /**
+     * Menyalin ketiga plane ke layout I420 yang rapat (tanpa padding) dengan membaca
+     * per baris secara bulk. Row stride dan pixel stride sumber tetap dihormati.
+     */
+    public void copyFrom(ByteBuffer yBuffer, int srcYRowStride, int srcYPixelStride,
+                         ByteBuffer uBuffer, ByteBuffer vBuffer, int srcUvRowStride, int srcUvPixelStride,
+                         int width, int height) {
+        this.width = width;
+        this.height = height;
+        int cw = chromaWidth();
+        int ch = chromaHeight();
+
+        // u dan v tidak boleh tetap berbagi array dari jalur semi-planar
+        if (u == interleaved) u = new byte[0];
+        if (v == interleaved) v = new byte[0];
+        if (y.length < width * height) y = new byte[width * height];
+        if (u.length < cw * ch) u = new byte[cw * ch];
+        if (v.length < cw * ch) v = new byte[cw * ch];
+        yRowStride = width;
+        uvRowStride = cw;
+        uvPixelStride = 1;
+        uOffset = 0;
+        vOffset = 0;
+
+        copyPlane(yBuffer, srcYRowStride, srcYPixelStride, width, height, y);
+        copyPlane(uBuffer, srcUvRowStride, srcUvPixelStride, cw, ch, u);
+        copyPlane(vBuffer, srcUvRowStride, srcUvPixelStride, cw, ch, v);
+    }
+
+    /**
+     * Jalur cepat sesuai layout hasil PlaneLayout.probe: setiap plane disalin utuh dengan satu
+     * get() bulk dan stride sumber dipertahankan, jadi tidak ada baca per sampel. Untuk VU/UV
+     * bersama, satu buffer disalin lalu u dan v menjadi offset 0/1 di array yang sama.
+     * Layout GENERIC memakai copyFrom biasa.
+     */
+    public void copyFrom(PlaneLayout layout, ByteBuffer yBuffer, ByteBuffer uBuffer, ByteBuffer vBuffer) {
+        if (layout.chroma == PlaneLayout.Chroma.GENERIC) {
+            copyFrom(yBuffer, layout.yRowStride, layout.yPixelStride, uBuffer, vBuffer,
+                    layout.uvRowStride, layout.uvPixelStride, layout.width, layout.height);
+            return;
+        }
+        width = layout.width;
+        height = layout.height;
+
+        int yLength = yBuffer.limit();
+        if (y.length < yLength) y = new byte[yLength];
+        copyWhole(yBuffer, y, 0, yLength);
+        yRowStride = layout.yRowStride;
+        uvRowStride = layout.uvRowStride;
+
+        switch (layout.chroma) {
+            case VU_SHARED:
+                copyShared(vBuffer, uBuffer);
+                vOffset = 0;
+                uOffset = 1;
+                uvPixelStride = 2;
+                break;
+            case UV_SHARED:
+                copyShared(uBuffer, vBuffer);
+                uOffset = 0;
+                vOffset = 1;
+                uvPixelStride = 2;
+                break;
+            default:
+                if (u == interleaved) u = new byte[0];
+                if (v == interleaved) v = new byte[0];
+                if (u.length < uBuffer.limit()) u = new byte[uBuffer.limit()];
+                if (v.length < vBuffer.limit()) v = new byte[vBuffer.limit()];
+                copyWhole(uBuffer, u, 0, uBuffer.limit());
+                copyWhole(vBuffer, v, 0, vBuffer.limit());
+                uOffset = 0;
+                vOffset = 0;
+                uvPixelStride = 1;
+                break;
+        }
+    }
+
+    // first = plane yang mulai di byte 0 buffer bersama, second = plane yang bergeser satu byte
+    private void copyShared(ByteBuffer first, ByteBuffer second) {
+        int firstLength = first.limit();
+        // second[i] ada di byte i + 1; biasanya hanya byte terakhirnya yang belum tercakup first
+        int length = Math.max(firstLength, second.limit() + 1);
+        if (interleaved.length < length) interleaved = new byte[length];
+        copyWhole(first, interleaved, 0, firstLength);
+        if (length > firstLength) {
+            ByteBuffer tail = second.duplicate();
+            tail.position(firstLength - 1);
+            tail.get(interleaved, firstLength, length - firstLength);
+        }
+        u = interleaved;
+        v = interleaved;
+    }
+
+    private static void copyWhole(ByteBuffer buffer, byte[] dst, int offset, int length) {
+        ByteBuffer src = buffer.duplicate();
+        src.position(0);
+        src.get(dst, offset, length);
+    }
+
+    private void copyPlane(ByteBuffer buffer, int rowStride, int pixelStride, int planeWidth, int planeHeight, byte[] dst) {
+        // duplicate() supaya posisi buffer milik ImageProxy tidak berubah
+        ByteBuffer src = buffer.duplicate();
+        int limit = src.limit();
+
+        if (pixelStride == 1) {
+            if (rowStride == planeWidth && limit >= planeWidth * planeHeight) {
+                src.position(0);
+                src.get(dst, 0, planeWidth * planeHeight);
+                return;
+            }
+            for (int row = 0; row < planeHeight; row++) {
+                src.position(row * rowStride);
+                src.get(dst, row * planeWidth, planeWidth);
+            }
+            return;
+        }
+
+        // Baris terakhir sering lebih pendek dari rowStride, jadi cukup baca span yang dipakai
+        int span = (planeWidth - 1) * pixelStride + 1;
+        if (rowScratch.length < span) rowScratch = new byte[span];
+        byte[] scratch = rowScratch;
+        for (int row = 0; row < planeHeight; row++) {
+            int start = row * rowStride;
+            int len = Math.min(span, limit - start);
+            src.position(start);
+            src.get(scratch, 0, len);
+            int out = row * planeWidth;
+            int count = Math.min(planeWidth, (len - 1) / pixelStride + 1);
+            for (int col = 0, i = 0; col < count; col++, i += pixelStride) {
+                dst[out + col] = scratch[i];
+            }
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package com.example.smartwaste.image;
+
+import android.graphics.Bitmap;
+
+/**
+ * Konversi YUV ke ARGB langsung tanpa bolak-balik JPEG.
+ * Koefisien BT.601 full range (sama seperti toBitmapAlternative) dihitung dengan
+ * fixed-point 16 bit, dan buffer int[] serta Bitmap hasil dipakai ulang antar frame.
+ */
+public class YuvToRgbConverter {
+
+    private static final int SHIFT = 16;
+    private static final int ROUND = 1 << (SHIFT - 1);
+    private static final int CR_R = 91881;   // 1.402
+    private static final int CB_G = 22554;   // 0.344136
+    private static final int CR_G = 46802;   // 0.714136
+    private static final int CB_B = 116130;  // 1.772
+
+    private int[] argb = new int[0];
+    private Bitmap bitmap;
+
+    // null = berurutan di thread pemanggil
+    private BandExecutor bandExecutor;
+    // Frame yang sedang dikonversi, dibaca oleh task pita
+    private YuvFrame current;
+    private final BandExecutor.BandTask convertTask = (start, end) -> convertRows(current, argb, start, end);
+
+    /** Mengaktifkan konversi per pita baris paralel; null kembali ke jalur berurutan. */
+    public void setBandExecutor(BandExecutor bandExecutor) {
+        this.bandExecutor = bandExecutor;
+    }
+
+    /**
+     * Mengonversi frame ke buffer ARGB internal. Buffer hanya valid sampai panggilan berikutnya.
+     */
+    public int[] convert(YuvFrame frame) {
+        int size = frame.width * frame.height;
+        if (argb.length < size) argb = new int[size];
+        if (bandExecutor == null) {
+            convert(frame, argb);
+            return argb;
+        }
+        // Pita dimulai di baris genap supaya tiap baris chroma hanya dibaca satu pita
+        current = frame;
+        try {
+            bandExecutor.forEachBand(frame.height, 2, size, convertTask);
+        } finally {
+            current = null;
+        }
+        return argb;
+    }
+
+    /**
+     * Mengonversi frame ke Bitmap ARGB_8888 mutable yang dipakai ulang antar frame.
+     */
+    public Bitmap toBitmap(YuvFrame frame) {
+        int[] pixels = convert(frame);
+        if (bitmap == null || bitmap.getWidth() != frame.width || bitmap.getHeight() != frame.height) {
+            bitmap = Bitmap.createBitmap(frame.width, frame.height, Bitmap.Config.ARGB_8888);
+        }
+        bitmap.setPixels(pixels, 0, frame.width, 0, 0, frame.width, frame.height);
+        return bitmap;
+    }
+
+    public static void convert(YuvFrame frame, int[] out) {
+        convertRows(frame, out, 0, frame.height);
+    }
+
+    static void convertRows(YuvFrame frame, int[] out, int rowStart, int rowEnd) {
+        final int width = frame.width;
+        final byte[] yData = frame.y;
+        final byte[] uData = frame.u;
+        final byte[] vData = frame.v;
+        final int yRowStride = frame.yRowStride;
+        final int uvRowStride = frame.uvRowStride;
+        final int uvPixelStride = frame.uvPixelStride;
+
+        for (int row = rowStart; row < rowEnd; row++) {
+            int yIndex = row * yRowStride;
+            int uvRow = (row >> 1) * uvRowStride;
+            int uIndex = frame.uOffset + uvRow;
+            int vIndex = frame.vOffset + uvRow;
+            int outIndex = row * width;
+
+            // Dua piksel horizontal berbagi satu sampel chroma
+            for (int col = 0; col < width; col += 2) {
+                int cb = (uData[uIndex] & 0xFF) - 128;
+                int cr = (vData[vIndex] & 0xFF) - 128;
+                uIndex += uvPixelStride;
+                vIndex += uvPixelStride;
+
+                int dr = (CR_R * cr + ROUND) >> SHIFT;
+                int dg = (CB_G * cb + CR_G * cr + ROUND) >> SHIFT;
+                int db = (CB_B * cb + ROUND) >> SHIFT;
+
+                out[outIndex++] = pack(yData[yIndex++] & 0xFF, dr, dg, db);
+                if (col + 1 < width) {
+                    out[outIndex++] = pack(yData[yIndex++] & 0xFF, dr, dg, db);
+                }
+            }
+        }
+    }
+
+    static int pack(int luma, int dr, int dg, int db) {
+        int r = luma + dr;
+        int g = luma - dg;
+        int b = luma + db;
+        if (r < 0) r = 0; else if (r > 255) r = 255;
+        if (g < 0) g = 0; else if (g > 255) g = 255;
+        if (b < 0) b = 0; else if (b > 255) b = 255;
+        return 0xFF000000 | (r << 16) | (g << 8) | b;
+    }
+}
@@ -0,0 +1,77 @@
+package com.example.smartwaste.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Histogram latensi dengan bucket tetap yang aman dipanggil dari banyak thread tanpa lock.
+ * Batas atas bucket ke-i adalah 250 µs * 2^i (bucket 0: di bawah 250 µs); bucket terakhir
+ * menampung semua yang lebih lambat. record() tidak mengalokasi objek.
+ */
+public class LatencyHistogram {
+
+    static final int BUCKET_COUNT = 17;
+    private static final long FIRST_BUCKET_MICROS = 250;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKET_COUNT);
+    private final AtomicLong sumNanos = new AtomicLong();
+    private final AtomicLong maxNanos = new AtomicLong();
+
+    public void record(long durationNanos) {
+        if (durationNanos < 0) durationNanos = 0;
+        buckets.incrementAndGet(bucketIndex(durationNanos));
+        sumNanos.addAndGet(durationNanos);
+        long max = maxNanos.get();
+        while (durationNanos > max && !maxNanos.compareAndSet(max, durationNanos)) {
+            max = maxNanos.get();
+        }
+    }
+
+    static int bucketIndex(long durationNanos) {
+        long quarterMillis = durationNanos / 1000 / FIRST_BUCKET_MICROS;
+        if (quarterMillis == 0) return 0;
+        return Math.min(64 - Long.numberOfLeadingZeros(quarterMillis), BUCKET_COUNT - 1);
+    }
+
+    // Batas atas bucket dalam milidetik
+    static double bucketUpperBoundMs(int index) {
+        return FIRST_BUCKET_MICROS * (1L << index) / 1000.0;
+    }
+
+    public long getCount() {
+        long count = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            count += buckets.get(i);
+        }
+        return count;
+    }
+
+    public double getMeanMs() {
+        long count = getCount();
+        return count == 0 ? 0 : sumNanos.get() / 1e6 / count;
+    }
+
+    public double getMaxMs() {
+        return maxNanos.get() / 1e6;
+    }
+
+    /**
+     * Perkiraan persentil (0..1) dari batas atas bucket, tidak pernah melebihi nilai maksimum.
+     * Dibaca tanpa snapshot atomik, jadi bisa sedikit meleset saat record() berjalan bersamaan.
+     */
+    public double getPercentileMs(double quantile) {
+        long count = getCount();
+        if (count == 0) return 0;
+        long target = Math.max(1, (long) Math.ceil(quantile * count));
+        long seen = 0;
+        for (int i = 0; i < BUCKET_COUNT - 1; i++) {
+            seen += buckets.get(i);
+            if (seen >= target) return Math.min(bucketUpperBoundMs(i), getMaxMs());
+        }
+        return getMaxMs();
+    }
+
+    public long getBucketCount(int index) {
+        return buckets.get(index);
+    }
+}
@@ -0,0 +1,205 @@
+package com.example.smartwaste.metrics;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Histogram latensi per tahap dan counter frame untuk pipeline deteksi.
+ * Pencatatan (record/increment) lock-free dan tanpa alokasi sehingga bisa tetap aktif di build
+ * rilis; pembacaan (HUD, laporan) boleh mengalokasi karena jarang dipanggil.
+ */
+public class PipelineMetrics {
+
+    public enum Stage {
+        // ImageProxy → YuvFrame (atau Bitmap di jalur fallback)
+        CONVERT,
+        // Rotasi + resize + hash
+        PREPROCESS,
+        // Kompres JPEG sebelum upload
+        ENCODE,
+        // Request dikirim sampai header respons diterima
+        NETWORK,
+        // Membaca body respons + parsing JSON
+        PARSE,
+        // Inferensi model lokal
+        INFERENCE,
+        // Batas confidence + NMS + top-K (PostProcessor)
+        FILTER,
+        // Hasil siap sampai dijalankan di thread UI
+        DISPATCH,
+        // Capture frame sampai hasil digambar
+        END_TO_END
+    }
+
+    public enum Counter {
+        FRAMES_SEEN,
+        // Dilewati karena interval atau semua slot deteksi penuh
+        FRAMES_THROTTLED,
+        // Dilewati SceneChangeGate
+        FRAMES_UNCHANGED,
+        CACHE_HITS,
+        FRAMES_SENT,
+        FRAMES_FAILED,
+        FRAMES_RENDERED,
+        // Attempt tambahan RoboflowAPI: retry, hedge, dan panggilan yang habis deadline
+        REMOTE_RETRIES,
+        REMOTE_HEDGES,
+        REMOTE_DEADLINE_EXCEEDED,
+        // Frame remote yang dikirim sebagai crop ROI, dan jumlah crop-nya
+        ROI_FRAMES,
+        ROI_CROPS,
+        // Prediksi yang dibuang PostProcessor
+        PREDICTIONS_FILTERED,
+        // Dilewati saat startup karena exposure/gambar kamera belum stabil
+        FRAMES_UNSETTLED
+    }
+
+    /** Titik startup yang dicatat sekali, diukur dari markStartup(). */
+    public enum Milestone {
+        // bindToLifecycle selesai
+        CAMERA_BOUND,
+        // Koneksi ke backend remote terbuka (DNS + TCP + TLS) sebelum upload pertama
+        CONNECTION_WARM,
+        // Frame kamera pertama sampai di analyzer
+        FIRST_FRAME,
+        // Frame stabil pertama masuk pipeline
+        FIRST_FRAME_SENT,
+        // Hasil deteksi pertama digambar (time-to-first-detection)
+        FIRST_DETECTION
+    }
+
+    private static final Stage[] STAGES = Stage.values();
+    private static final Counter[] COUNTERS = Counter.values();
+    private static final Milestone[] MILESTONES = Milestone.values();
+    private static final long NOT_STARTED = Long.MIN_VALUE;
+
+    private final LatencyHistogram[] histograms = new LatencyHistogram[STAGES.length];
+    private final AtomicLongArray counters = new AtomicLongArray(COUNTERS.length);
+    // Nanodetik sejak startupNanos; 0 = belum tercapai
+    private final AtomicLongArray milestones = new AtomicLongArray(MILESTONES.length);
+    private volatile long startupNanos = NOT_STARTED;
+
+    public PipelineMetrics() {
+        for (int i = 0; i < histograms.length; i++) {
+            histograms[i] = new LatencyHistogram();
+        }
+    }
+
+    /** Titik awal untuk record(stage, startNanos). */
+    public static long now() {
+        return System.nanoTime();
+    }
+
+    public void record(Stage stage, long startNanos) {
+        histograms[stage.ordinal()].record(System.nanoTime() - startNanos);
+    }
+
+    public void recordDuration(Stage stage, long durationNanos) {
+        histograms[stage.ordinal()].record(durationNanos);
+    }
+
+    public void increment(Counter counter) {
+        counters.incrementAndGet(counter.ordinal());
+    }
+
+    public void add(Counter counter, long delta) {
+        counters.addAndGet(counter.ordinal(), delta);
+    }
+
+    public long getCount(Counter counter) {
+        return counters.get(counter.ordinal());
+    }
+
+    public LatencyHistogram getHistogram(Stage stage) {
+        return histograms[stage.ordinal()];
+    }
+
+    /**
+     * Titik nol milestone startup dalam skala now(), mis. waktu proses dimulai untuk cold start.
+     * Milestone yang sudah tercatat dihapus.
+     */
+    public void markStartup(long startNanos) {
+        for (int i = 0; i < MILESTONES.length; i++) milestones.set(i, 0);
+        startupNanos = startNanos;
+    }
+
+    /** Mencatat milestone sekali; pemanggilan berikutnya dan pemanggilan sebelum markStartup diabaikan. */
+    public void markMilestone(Milestone milestone) {
+        long start = startupNanos;
+        if (start == NOT_STARTED) return;
+        milestones.compareAndSet(milestone.ordinal(), 0, Math.max(1, System.nanoTime() - start));
+    }
+
+    /** Titik nol yang diberikan ke markStartup, atau Long.MIN_VALUE jika belum ada. */
+    public long getStartupNanos() {
+        return startupNanos;
+    }
+
+    /** @return nanodetik sejak markStartup, atau -1 jika belum tercapai */
+    public long getMilestoneNanos(Milestone milestone) {
+        long value = milestones.get(milestone.ordinal());
+        return value > 0 ? value : -1;
+    }
+
+    private String describeMilestones() {
+        StringBuilder line = new StringBuilder("startup");
+        for (Milestone milestone : MILESTONES) {
+            long nanos = getMilestoneNanos(milestone);
+            line.append(' ').append(milestone.name().toLowerCase(Locale.US)).append(' ')
+                    .append(nanos < 0 ? "-" : String.format(Locale.US, "%.0f", nanos / 1e6));
+        }
+        return line.append(" ms").toString();
+    }
+
+    /** Baris ringkas untuk HUD overlay: satu baris counter lalu satu baris per tahap yang pernah tercatat. */
+    public List<String> buildHudLines() {
+        List<String> lines = new ArrayList<>();
+        lines.add(String.format(Locale.US, "frame %d  skip %d/%d  cache %d",
+                getCount(Counter.FRAMES_SEEN), getCount(Counter.FRAMES_THROTTLED),
+                getCount(Counter.FRAMES_UNCHANGED), getCount(Counter.CACHE_HITS)));
+        lines.add(String.format(Locale.US, "sent %d  fail %d  render %d",
+                getCount(Counter.FRAMES_SENT), getCount(Counter.FRAMES_FAILED), getCount(Counter.FRAMES_RENDERED)));
+        lines.add(String.format(Locale.US, "retry %d  hedge %d  deadline %d",
+                getCount(Counter.REMOTE_RETRIES), getCount(Counter.REMOTE_HEDGES), getCount(Counter.REMOTE_DEADLINE_EXCEEDED)));
+        lines.add(String.format(Locale.US, "roi %d  crops %d  filtered %d",
+                getCount(Counter.ROI_FRAMES), getCount(Counter.ROI_CROPS), getCount(Counter.PREDICTIONS_FILTERED)));
+        if (startupNanos != NOT_STARTED) {
+            long ttfd = getMilestoneNanos(Milestone.FIRST_DETECTION);
+            lines.add(String.format(Locale.US, "ttfd %s ms  unsettled %d",
+                    ttfd < 0 ? "-" : String.format(Locale.US, "%.0f", ttfd / 1e6), getCount(Counter.FRAMES_UNSETTLED)));
+        }
+        for (Stage stage : STAGES) {
+            LatencyHistogram histogram = histograms[stage.ordinal()];
+            if (histogram.getCount() == 0) continue;
+            lines.add(String.format(Locale.US, "%-10s p50 %6.1f  p95 %6.1f ms",
+                    stage.name().toLowerCase(Locale.US), histogram.getPercentileMs(0.5), histogram.getPercentileMs(0.95)));
+        }
+        return lines;
+    }
+
+    /** Laporan teks lengkap (counter, statistik dan isi bucket per tahap). */
+    public void writeReport(Writer out) throws IOException {
+        for (Counter counter : COUNTERS) {
+            out.write(String.format(Locale.US, "%s=%d\n", counter.name().toLowerCase(Locale.US), getCount(counter)));
+        }
+        if (startupNanos != NOT_STARTED) out.write(describeMilestones() + "\n");
+        for (Stage stage : STAGES) {
+            LatencyHistogram histogram = histograms[stage.ordinal()];
+            out.write(String.format(Locale.US, "%s count=%d mean=%.2f p50=%.2f p95=%.2f p99=%.2f max=%.2f ms\n",
+                    stage.name().toLowerCase(Locale.US), histogram.getCount(), histogram.getMeanMs(),
+                    histogram.getPercentileMs(0.5), histogram.getPercentileMs(0.95),
+                    histogram.getPercentileMs(0.99), histogram.getMaxMs()));
+            out.write("  buckets");
+            for (int i = 0; i < LatencyHistogram.BUCKET_COUNT; i++) {
+                String bound = i == LatencyHistogram.BUCKET_COUNT - 1
+                        ? "inf" : String.format(Locale.US, "%.2f", LatencyHistogram.bucketUpperBoundMs(i));
+                out.write(" <" + bound + ":" + histogram.getBucketCount(i));
+            }
+            out.write("\n");
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package com.example.smartwaste.pipeline;
+
+import com.example.smartwaste.api.PredictionBatch;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+
+/**
+ * Cache hasil deteksi di memori dengan kunci perceptual hash (dHash 64 bit) dari frame
+ * input inferensi. Frame dianggap sama jika jarak Hamming hash-nya paling banyak
+ * maxHammingDistance dan dimensi inferensinya sama. Entri dibuang berdasarkan LRU dan TTL.
+ *
+ * Jika selama maxStalenessMs tidak ada hasil detector baru yang masuk (put), lookup selalu
+ * miss: refresh berkala dari SceneChangeGate harus sampai ke detector, bukan dijawab cache.
+ */
+public class DetectionCache {
+
+    public static class Entry {
+        public final long hash;
+        public final PredictionBatch predictions;
+        public final int inferenceWidth;
+        public final int inferenceHeight;
+        final long createdAt;
+
+        Entry(long hash, PredictionBatch predictions, int inferenceWidth, int inferenceHeight, long createdAt) {
+            this.hash = hash;
+            this.predictions = predictions;
+            this.inferenceWidth = inferenceWidth;
+            this.inferenceHeight = inferenceHeight;
+            this.createdAt = createdAt;
+        }
+    }
+
+    private static final int HASH_COLUMNS = 9;
+    private static final int HASH_ROWS = 8;
+
+    private final int maxEntries;
+    private final long ttlMs;
+    private final long maxStalenessMs;
+    private final int maxHammingDistance;
+
+    // accessOrder = true: iterasi dimulai dari entri yang paling lama tidak dipakai
+    private final LinkedHashMap<Long, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long lastPutAt = 0;
+    private long hits = 0;
+    private long misses = 0;
+    private long staleBypasses = 0;
+
+    public DetectionCache(int maxEntries, long ttlMs, long maxStalenessMs, int maxHammingDistance) {
+        this.maxEntries = maxEntries;
+        this.ttlMs = ttlMs;
+        this.maxStalenessMs = maxStalenessMs;
+        this.maxHammingDistance = maxHammingDistance;
+    }
+
+    /**
+     * dHash: luma rata-rata 9x8 sel, setiap bit = apakah sel lebih terang dari tetangga kanannya.
+     * Sel dihitung kiri ke kanan, jadi cukup sel sebelumnya yang disimpan; tidak ada alokasi per frame.
+     */
+    public static long computeHash(int[] argb, int width, int height) {
+        long hash = 0;
+        for (int row = 0; row < HASH_ROWS; row++) {
+            int previous = 0;
+            int y0 = row * height / HASH_ROWS;
+            int y1 = Math.max(y0 + 1, (row + 1) * height / HASH_ROWS);
+            for (int col = 0; col < HASH_COLUMNS; col++) {
+                int x0 = col * width / HASH_COLUMNS;
+                int x1 = Math.max(x0 + 1, (col + 1) * width / HASH_COLUMNS);
+                int sum = 0;
+                int count = 0;
+                // Sampling setiap 2 piksel sudah cukup untuk rata-rata sel
+                for (int y = y0; y < y1; y += 2) {
+                    int base = y * width;
+                    for (int x = x0; x < x1; x += 2) {
+                        int c = argb[base + x];
+                        sum += (((c >> 16) & 0xFF) * 77 + ((c >> 8) & 0xFF) * 150 + (c & 0xFF) * 29) >> 8;
+                        count++;
+                    }
+                }
+                int cell = sum / count;
+                if (col > 0) hash = (hash << 1) | (previous > cell ? 1 : 0);
+                previous = cell;
+            }
+        }
+        return hash;
+    }
+
+    public synchronized Entry lookup(long hash, int inferenceWidth, int inferenceHeight, long nowMs) {
+        if (!entries.isEmpty() && nowMs - lastPutAt >= maxStalenessMs) {
+            staleBypasses++;
+            misses++;
+            return null;
+        }
+        Entry best = null;
+        int bestDistance = Integer.MAX_VALUE;
+        Iterator<Entry> it = entries.values().iterator();
+        while (it.hasNext()) {
+            Entry entry = it.next();
+            if (nowMs - entry.createdAt > ttlMs) {
+                it.remove();
+                continue;
+            }
+            if (entry.inferenceWidth != inferenceWidth || entry.inferenceHeight != inferenceHeight) continue;
+            int distance = Long.bitCount(entry.hash ^ hash);
+            if (distance <= maxHammingDistance && distance < bestDistance) {
+                best = entry;
+                bestDistance = distance;
+            }
+        }
+
+        if (best == null) {
+            misses++;
+            return null;
+        }
+        hits++;
+        entries.get(best.hash); // perbarui urutan LRU
+        return best;
+    }
+
+    public synchronized void put(long hash, PredictionBatch predictions, int inferenceWidth, int inferenceHeight, long nowMs) {
+        entries.put(hash, new Entry(hash, predictions, inferenceWidth, inferenceHeight, nowMs));
+        lastPutAt = nowMs;
+        Iterator<Entry> it = entries.values().iterator();
+        while (entries.size() > maxEntries && it.hasNext()) {
+            it.next();
+            it.remove();
+        }
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+    }
+
+    public synchronized long getHitCount() {
+        return hits;
+    }
+
+    public synchronized long getMissCount() {
+        return misses;
+    }
+
+    // Bagian dari miss yang terjadi karena hasil terakhir sudah lebih tua dari maxStalenessMs
+    public synchronized long getStaleBypassCount() {
+        return staleBypasses;
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+}
@@ -0,0 +1,198 @@
+package com.example.smartwaste.pipeline;
+
+import android.graphics.Bitmap;
+
+import com.example.smartwaste.api.PredictionBatch;
+import com.example.smartwaste.api.RoboflowAPI;
+import com.example.smartwaste.detector.Detector;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Menjaga beberapa deteksi tetap berjalan bersamaan (maksimal maxInFlight).
+ * Setiap frame diberi nomor urut yang terus naik; hasil yang lebih tua dari hasil (atau error)
+ * terakhir yang sudah diteruskan dibuang, dan request yang lebih tua dari itu dibatalkan.
+ *
+ * Handle dikeluarkan dari inFlight di dalam lock, tetapi cancel() selalu dipanggil di luar lock:
+ * detector boleh menyelesaikan pembatalan (onError) dari thread pemanggil.
+ */
+public class DetectionScheduler {
+
+    private final Detector detector;
+    private final int maxInFlight;
+
+    private final Object lock = new Object();
+    // Urutan insertion = urutan nomor frame
+    private final LinkedHashMap<Long, Detector.Cancellable> inFlight = new LinkedHashMap<>();
+    private long nextSequence = 1;
+    private long lastDeliveredSequence = 0;
+    private long staleDropped = 0;
+    private long cancelled = 0;
+
+    public DetectionScheduler(Detector detector, int maxInFlight) {
+        this.detector = detector;
+        this.maxInFlight = Math.max(1, maxInFlight);
+    }
+
+    public boolean hasCapacity() {
+        synchronized (lock) {
+            return inFlight.size() < maxInFlight;
+        }
+    }
+
+    public int getInFlightCount() {
+        synchronized (lock) {
+            return inFlight.size();
+        }
+    }
+
+    public long getStaleDroppedCount() {
+        synchronized (lock) {
+            return staleDropped;
+        }
+    }
+
+    public long getCancelledCount() {
+        synchronized (lock) {
+            return cancelled;
+        }
+    }
+
+    /**
+     * Mengirim frame ke detector. Callback hanya menerima hasil yang lebih baru dari hasil
+     * yang terakhir diteruskan, dan dipanggil di dalam lock supaya urutan post ke UI terjaga.
+     *
+     * @param capturedAtMs waktu capture (SystemClock.elapsedRealtime), diteruskan ke detector
+     * @return nomor urut frame, atau -1 jika slot in-flight sedang penuh
+     */
+    public long submit(Bitmap bitmap, long capturedAtMs, RoboflowAPI.ApiCallback callback) {
+        return submit(bitmap, capturedAtMs, callback, null);
+    }
+
+    /**
+     * Seperti submit(bitmap, capturedAtMs, callback); onDetectorDone dijalankan setelah detector
+     * selesai dengan bitmap, termasuk untuk hasil usang atau dibatalkan yang tidak diteruskan.
+     * Tidak dijalankan jika submit mengembalikan -1.
+     */
+    public long submit(Bitmap bitmap, long capturedAtMs, RoboflowAPI.ApiCallback callback, Runnable onDetectorDone) {
+        final long sequence;
+        synchronized (lock) {
+            if (inFlight.size() >= maxInFlight) return -1;
+            sequence = nextSequence++;
+            inFlight.put(sequence, Detector.Cancellable.NONE);
+        }
+
+        Detector.Cancellable handle = detector.detect(bitmap, capturedAtMs, new RoboflowAPI.ApiCallback() {
+            @Override
+            public void onSuccess(List<RoboflowAPI.Prediction> predictions) {
+                onSuccess(PredictionBatch.fromPredictions(predictions));
+            }
+
+            @Override
+            public void onSuccess(PredictionBatch predictions) {
+                List<Detector.Cancellable> stale = Collections.emptyList();
+                try {
+                    synchronized (lock) {
+                        inFlight.remove(sequence);
+                        if (sequence <= lastDeliveredSequence) {
+                            staleDropped++;
+                            return;
+                        }
+                        lastDeliveredSequence = sequence;
+                        stale = removeOlderThan(sequence);
+                        callback.onSuccess(predictions);
+                    }
+                } finally {
+                    cancel(stale);
+                    if (onDetectorDone != null) onDetectorDone.run();
+                }
+            }
+
+            @Override
+            public void onError(String error) {
+                List<Detector.Cancellable> stale = Collections.emptyList();
+                try {
+                    synchronized (lock) {
+                        inFlight.remove(sequence);
+                        // Termasuk request yang sengaja dibatalkan karena sudah usang
+                        if (sequence <= lastDeliveredSequence) return;
+                        // Error ini mengosongkan overlay; hasil frame yang lebih tua tidak boleh muncul lagi sesudahnya
+                        lastDeliveredSequence = sequence;
+                        stale = removeOlderThan(sequence);
+                        callback.onError(error);
+                    }
+                } finally {
+                    cancel(stale);
+                    if (onDetectorDone != null) onDetectorDone.run();
+                }
+            }
+        });
+
+        boolean stale = false;
+        synchronized (lock) {
+            if (inFlight.containsKey(sequence)) {
+                inFlight.put(sequence, handle);
+            } else if (sequence < lastDeliveredSequence) {
+                // Sudah dianggap usang sebelum handle-nya sempat dicatat
+                stale = true;
+            }
+        }
+        if (stale) handle.cancel();
+        return sequence;
+    }
+
+    /**
+     * Meneruskan hasil yang sudah tersedia tanpa detector (mis. dari cache) sebagai frame
+     * terbaru, sehingga hasil jaringan yang lebih tua tidak lagi menimpanya.
+     */
+    public long deliver(PredictionBatch predictions, RoboflowAPI.ApiCallback callback) {
+        long sequence;
+        List<Detector.Cancellable> stale;
+        synchronized (lock) {
+            sequence = nextSequence++;
+            lastDeliveredSequence = sequence;
+            stale = removeOlderThan(sequence);
+            callback.onSuccess(predictions);
+        }
+        cancel(stale);
+        return sequence;
+    }
+
+    // Dipanggil di dalam lock; handle yang dikembalikan dibatalkan pemanggil setelah lock dilepas
+    private List<Detector.Cancellable> removeOlderThan(long sequence) {
+        List<Detector.Cancellable> removed = null;
+        Iterator<Map.Entry<Long, Detector.Cancellable>> it = inFlight.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<Long, Detector.Cancellable> entry = it.next();
+            if (entry.getKey() >= sequence) break;
+            if (removed == null) removed = new ArrayList<>();
+            removed.add(entry.getValue());
+            it.remove();
+            cancelled++;
+        }
+        return removed != null ? removed : Collections.emptyList();
+    }
+
+    private static void cancel(List<Detector.Cancellable> handles) {
+        for (Detector.Cancellable handle : handles) {
+            handle.cancel();
+        }
+    }
+
+    public void cancelAll() {
+        List<Detector.Cancellable> handles;
+        synchronized (lock) {
+            handles = new ArrayList<>(inFlight.values());
+            cancelled += inFlight.size();
+            inFlight.clear();
+            // Hasil apa pun yang masih datang setelah ini dianggap usang
+            lastDeliveredSequence = nextSequence - 1;
+        }
+        cancel(handles);
+    }
+}
@@ -0,0 +1,191 @@
+package com.example.smartwaste.pipeline;
+
+import com.example.smartwaste.api.PredictionBatch;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Tracker ringan di antara dua hasil deteksi: asosiasi greedy berdasarkan IoU (kelas sama)
+ * dan prediksi posisi dengan kecepatan konstan. Dengan begitu overlay bisa diperbarui setiap
+ * frame kamera sementara detector berjalan jauh lebih jarang.
+ * Waktu yang dipakai adalah waktu capture frame (SystemClock.elapsedRealtime), sehingga latensi
+ * jaringan ikut terkompensasi saat kotak diekstrapolasi.
+ */
+public class ObjectTracker {
+
+    private static class Track {
+        final int id;
+        short classId;
+        float confidence;
+        float cx, cy, width, height;
+        // Kecepatan pusat kotak dalam piksel per milidetik
+        float vx, vy;
+        long timestamp;
+        int misses;
+
+        Track(int id) {
+            this.id = id;
+        }
+    }
+
+    private final float iouThreshold;
+    private final int maxMisses;
+    private final long maxExtrapolationMs;
+    private final float velocitySmoothing;
+
+    private final List<Track> tracks = new ArrayList<>();
+    private int nextId = 1;
+
+    // Buffer kerja untuk asosiasi
+    private boolean[] trackMatched = new boolean[0];
+    private boolean[] detectionMatched = new boolean[0];
+
+    /**
+     * @param iouThreshold       IoU minimum agar deteksi dianggap objek yang sama
+     * @param maxMisses          berapa hasil deteksi berturut-turut sebuah track boleh hilang sebelum dihapus
+     * @param maxExtrapolationMs batas ekstrapolasi supaya kotak tidak "terbang" jika detector macet
+     * @param velocitySmoothing  bobot kecepatan terukur terbaru (0..1)
+     */
+    public ObjectTracker(float iouThreshold, int maxMisses, long maxExtrapolationMs, float velocitySmoothing) {
+        this.iouThreshold = iouThreshold;
+        this.maxMisses = maxMisses;
+        this.maxExtrapolationMs = maxExtrapolationMs;
+        this.velocitySmoothing = velocitySmoothing;
+    }
+
+    /**
+     * Merekonsiliasi track dengan hasil deteksi dari frame yang di-capture pada captureTimeMs.
+     *
+     * @return prediksi dengan trackId untuk track yang terlihat pada deteksi ini
+     */
+    public synchronized PredictionBatch update(PredictionBatch detections, long captureTimeMs) {
+        int trackCount = tracks.size();
+        int detectionCount = detections != null ? detections.size() : 0;
+        if (trackMatched.length < trackCount) trackMatched = new boolean[trackCount * 2];
+        if (detectionMatched.length < detectionCount) detectionMatched = new boolean[detectionCount * 2];
+        java.util.Arrays.fill(trackMatched, 0, trackCount, false);
+        java.util.Arrays.fill(detectionMatched, 0, detectionCount, false);
+
+        PredictionBatch result = new PredictionBatch(detectionCount);
+
+        // Greedy: pasangkan IoU tertinggi lebih dulu sampai tidak ada pasangan di atas threshold
+        while (true) {
+            int bestTrack = -1;
+            int bestDetection = -1;
+            float bestIou = iouThreshold;
+            for (int t = 0; t < trackCount; t++) {
+                if (trackMatched[t]) continue;
+                Track track = tracks.get(t);
+                long dt = clampDt(captureTimeMs - track.timestamp);
+                float pcx = track.cx + track.vx * dt;
+                float pcy = track.cy + track.vy * dt;
+                for (int d = 0; d < detectionCount; d++) {
+                    if (detectionMatched[d]) continue;
+                    if (detections.classId(d) != track.classId) continue;
+                    float iou = iou(pcx, pcy, track.width, track.height, detections, d);
+                    if (iou > bestIou) {
+                        bestIou = iou;
+                        bestTrack = t;
+                        bestDetection = d;
+                    }
+                }
+            }
+            if (bestTrack < 0) break;
+
+            trackMatched[bestTrack] = true;
+            detectionMatched[bestDetection] = true;
+            Track track = tracks.get(bestTrack);
+            long dt = captureTimeMs - track.timestamp;
+            float cx = detections.centerX(bestDetection);
+            float cy = detections.centerY(bestDetection);
+            if (dt > 0) {
+                track.vx = velocitySmoothing * ((cx - track.cx) / dt) + (1 - velocitySmoothing) * track.vx;
+                track.vy = velocitySmoothing * ((cy - track.cy) / dt) + (1 - velocitySmoothing) * track.vy;
+            }
+            assign(track, detections, bestDetection, captureTimeMs);
+            addTo(result, track, 0);
+        }
+
+        // Track yang tidak terlihat: dipertahankan sebentar agar ID tetap sama jika muncul lagi
+        for (int t = trackCount - 1; t >= 0; t--) {
+            if (trackMatched[t]) continue;
+            Track track = tracks.get(t);
+            track.misses++;
+            if (track.misses > maxMisses) tracks.remove(t);
+        }
+
+        for (int d = 0; d < detectionCount; d++) {
+            if (detectionMatched[d]) continue;
+            Track track = new Track(nextId++);
+            assign(track, detections, d, captureTimeMs);
+            tracks.add(track);
+            addTo(result, track, 0);
+        }
+        return result;
+    }
+
+    /**
+     * Posisi semua track yang terlihat pada deteksi terakhir, diekstrapolasi ke waktu nowMs.
+     */
+    public PredictionBatch predict(long nowMs) {
+        return predict(nowMs, new PredictionBatch());
+    }
+
+    /**
+     * Seperti predict(nowMs), tetapi mengisi ulang result supaya pemanggil per frame tidak
+     * mengalokasikan batch baru.
+     *
+     * @return result
+     */
+    public synchronized PredictionBatch predict(long nowMs, PredictionBatch result) {
+        result.clear();
+        for (int i = 0, count = tracks.size(); i < count; i++) {
+            Track track = tracks.get(i);
+            if (track.misses > 0) continue;
+            addTo(result, track, clampDt(nowMs - track.timestamp));
+        }
+        return result;
+    }
+
+    public synchronized boolean hasTracks() {
+        return !tracks.isEmpty();
+    }
+
+    public synchronized void clear() {
+        tracks.clear();
+    }
+
+    private long clampDt(long dt) {
+        return Math.max(0, Math.min(maxExtrapolationMs, dt));
+    }
+
+    private static void assign(Track track, PredictionBatch detections, int index, long timestamp) {
+        track.classId = detections.classId(index);
+        track.confidence = detections.confidence(index);
+        track.cx = detections.centerX(index);
+        track.cy = detections.centerY(index);
+        track.width = detections.width(index);
+        track.height = detections.height(index);
+        track.timestamp = timestamp;
+        track.misses = 0;
+    }
+
+    private static void addTo(PredictionBatch result, Track track, long dt) {
+        float cx = track.cx + track.vx * dt;
+        float cy = track.cy + track.vy * dt;
+        float halfW = track.width / 2;
+        float halfH = track.height / 2;
+        result.add(track.classId, track.confidence, cx - halfW, cy - halfH, cx + halfW, cy + halfH, track.id);
+    }
+
+    private static float iou(float cx, float cy, float width, float height, PredictionBatch boxes, int index) {
+        float left = Math.max(cx - width / 2, boxes.left(index));
+        float top = Math.max(cy - height / 2, boxes.top(index));
+        float right = Math.min(cx + width / 2, boxes.right(index));
+        float bottom = Math.min(cy + height / 2, boxes.bottom(index));
+        float intersection = Math.max(0f, right - left) * Math.max(0f, bottom - top);
+        float union = width * height + boxes.width(index) * boxes.height(index) - intersection;
+        return union > 0f ? intersection / union : 0f;
+    }
+}
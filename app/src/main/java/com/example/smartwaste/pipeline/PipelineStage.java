@@ -0,0 +1,147 @@
+package com.example.smartwaste.pipeline;
+
+import java.util.Locale;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Satu tahap pipeline frame: StageQueue berbatas di depan, lalu handler yang dijalankan di
+ * executor milik tahap ini (thread sendiri, atau thread UI lewat Handler::post). Paling banyak
+ * satu drain berjalan pada satu waktu, jadi handler selalu dipanggil berurutan dari satu
+ * konsumen dan state tahap tidak perlu lock. Tahap-tahap berjalan bersamaan: selagi tahap
+ * berikutnya mengerjakan frame N, tahap ini sudah bisa mengerjakan frame N+1.
+ *
+ * Tidak bergantung pada backend deteksi; MainActivity merangkai capture → preprocess →
+ * encode/submit → render di atas Detector apa pun.
+ */
+public class PipelineStage<T> {
+
+    public interface Handler<T> {
+        void handle(T item);
+    }
+
+    private final String name;
+    private final StageQueue<T> queue;
+    private final Executor executor;
+    private final Handler<T> handler;
+    private final StageQueue.DropHandler<T> dropHandler;
+
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+    private final Runnable drainTask = this::drain;
+    private final AtomicLong processed = new AtomicLong();
+    private final AtomicLong busyNanos = new AtomicLong();
+
+    /**
+     * @param dropHandler menerima item yang dibuang antrean (DROP_OLDEST) dan item yang masih
+     *                    tertunda saat close(); boleh null jika item tidak memegang resource
+     */
+    public PipelineStage(String name, int capacity, StageQueue.Policy policy, Executor executor,
+                         Handler<T> handler, StageQueue.DropHandler<T> dropHandler) {
+        this.name = name;
+        this.queue = new StageQueue<>(capacity, policy, dropHandler);
+        this.executor = executor;
+        this.handler = handler;
+        this.dropHandler = dropHandler;
+    }
+
+    /**
+     * Memasukkan item ke antrean tahap ini. Dengan BLOCK, pemanggil menunggu slot; jangan
+     * memanggilnya dari executor tahap ini sendiri.
+     *
+     * @return false jika tahap sudah ditutup; item tetap milik pemanggil
+     */
+    public boolean submit(T item) {
+        if (!queue.offer(item)) return false;
+        schedule();
+        return true;
+    }
+
+    private void schedule() {
+        if (!scheduled.compareAndSet(false, true)) return;
+        try {
+            executor.execute(drainTask);
+        } catch (RejectedExecutionException e) {
+            // Executor sudah dimatikan: sisa item dibuang di thread ini
+            scheduled.set(false);
+            queue.close();
+            discardPending();
+        }
+    }
+
+    private void drain() {
+        try {
+            T item;
+            while ((item = queue.poll()) != null) {
+                if (queue.isClosed()) {
+                    if (dropHandler != null) dropHandler.onDropped(item);
+                    continue;
+                }
+                long start = System.nanoTime();
+                try {
+                    handler.handle(item);
+                } finally {
+                    busyNanos.addAndGet(System.nanoTime() - start);
+                    processed.incrementAndGet();
+                }
+            }
+        } finally {
+            scheduled.set(false);
+            // Item yang masuk setelah poll terakhir tapi sebelum flag dilepas
+            if (!queue.isEmpty()) schedule();
+        }
+    }
+
+    private void discardPending() {
+        T item;
+        while ((item = queue.poll()) != null) {
+            if (dropHandler != null) dropHandler.onDropped(item);
+        }
+    }
+
+    /**
+     * Menolak item baru; item yang masih di antrean diserahkan ke dropHandler di executor
+     * tahap ini. Panggil sebelum executor dimatikan.
+     */
+    public void close() {
+        queue.close();
+        schedule();
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getDepth() {
+        return queue.size();
+    }
+
+    public int getMaxDepth() {
+        return queue.getMaxDepth();
+    }
+
+    public long getDroppedCount() {
+        return queue.getDroppedCount();
+    }
+
+    public long getStallNanos() {
+        return queue.getStallNanos();
+    }
+
+    public long getProcessedCount() {
+        return processed.get();
+    }
+
+    public long getBusyNanos() {
+        return busyNanos.get();
+    }
+
+    /** Satu baris untuk HUD/laporan: kedalaman antrean, buangan, waktu tertahan dan waktu kerja. */
+    public String describe() {
+        long count = getProcessedCount();
+        return String.format(Locale.US, "%-10s q %d/%d max %d  drop %d  stall %.0f ms  busy %.1f ms/item",
+                name, getDepth(), queue.getCapacity(), getMaxDepth(), getDroppedCount(),
+                getStallNanos() / 1e6, count > 0 ? getBusyNanos() / 1e6 / count : 0);
+    }
+}
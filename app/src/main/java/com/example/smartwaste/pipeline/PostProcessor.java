@@ -0,0 +1,146 @@
+package com.example.smartwaste.pipeline;
+
+import com.example.smartwaste.api.LabelTable;
+import com.example.smartwaste.api.PredictionBatch;
+
+import java.util.Arrays;
+
+/**
+ * Tahap pasca-proses antara detector dan UI: buang prediksi di bawah batas confidence (bisa per
+ * kelas), urutkan menurut confidence, lalu NMS greedy (per kelas atau lintas kelas) sampai
+ * maksimal maxDetections kotak. Setiap kandidat hanya dibandingkan dengan kotak yang sudah
+ * dipertahankan, jadi biayanya O(n log n + n * k) dan berhenti begitu top-K terpenuhi.
+ * Semua kerja memakai array primitif yang dipakai ulang; satu-satunya alokasi per frame adalah
+ * PredictionBatch hasil, karena batch tidak boleh diubah setelah diteruskan.
+ */
+public class PostProcessor {
+
+    private final float minConfidence;
+    private final float iouThreshold;
+    private final boolean classAware;
+    private final int maxDetections;
+
+    // Batas per ID LabelTable; NaN = memakai minConfidence
+    private float[] classMinConfidence = new float[0];
+
+    // Buffer kerja, dijaga oleh this
+    private int[] order = new int[0];
+    private float[] scores = new float[0];
+    private int[] kept = new int[0];
+    private float[] keptAreas = new float[0];
+
+    /**
+     * @param minConfidence confidence minimum untuk kelas tanpa batas sendiri
+     * @param iouThreshold  kotak dengan IoU di atas ini terhadap kotak yang lebih yakin dibuang
+     * @param classAware    true: hanya kotak sekelas yang saling menekan; false: lintas kelas
+     * @param maxDetections batas jumlah kotak hasil; <= 0 berarti tanpa batas
+     */
+    public PostProcessor(float minConfidence, float iouThreshold, boolean classAware, int maxDetections) {
+        this.minConfidence = minConfidence;
+        this.iouThreshold = iouThreshold;
+        this.classAware = classAware;
+        this.maxDetections = maxDetections > 0 ? maxDetections : Integer.MAX_VALUE;
+    }
+
+    /** Batas confidence khusus untuk satu kelas (nama mentah atau nama terbaca). */
+    public synchronized void setMinConfidence(String className, float threshold) {
+        short classId = LabelTable.intern(className);
+        if (classMinConfidence.length <= classId) {
+            int previous = classMinConfidence.length;
+            classMinConfidence = Arrays.copyOf(classMinConfidence, classId + 1);
+            Arrays.fill(classMinConfidence, previous, classMinConfidence.length, Float.NaN);
+        }
+        classMinConfidence[classId] = threshold;
+    }
+
+    /**
+     * @return batch baru berisi prediksi yang lolos, urut menurut confidence menurun;
+     * input dikembalikan apa adanya jika kosong atau null
+     */
+    public synchronized PredictionBatch process(PredictionBatch input) {
+        if (input == null || input.isEmpty()) return input;
+        int size = input.size();
+        if (order.length < size) {
+            order = new int[size];
+            scores = new float[size];
+        }
+
+        int candidates = 0;
+        for (int i = 0; i < size; i++) {
+            float confidence = input.confidence(i);
+            if (confidence < threshold(input.classId(i))) continue;
+            order[candidates] = i;
+            scores[candidates] = confidence;
+            candidates++;
+        }
+        sortByScore(candidates);
+
+        int limit = Math.min(candidates, maxDetections);
+        if (kept.length < limit) {
+            kept = new int[limit];
+            keptAreas = new float[limit];
+        }
+        int keptCount = 0;
+        for (int c = 0; c < candidates && keptCount < limit; c++) {
+            int index = order[c];
+            float area = Math.max(0f, input.width(index)) * Math.max(0f, input.height(index));
+            if (!isSuppressed(input, index, area, keptCount)) {
+                kept[keptCount] = index;
+                keptAreas[keptCount] = area;
+                keptCount++;
+            }
+        }
+
+        PredictionBatch result = new PredictionBatch(keptCount);
+        for (int k = 0; k < keptCount; k++) {
+            int i = kept[k];
+            result.add(input.classId(i), input.confidence(i), input.left(i), input.top(i), input.right(i),
+                    input.bottom(i), input.trackId(i));
+        }
+        return result;
+    }
+
+    private float threshold(short classId) {
+        if (classId < classMinConfidence.length) {
+            float threshold = classMinConfidence[classId];
+            if (!Float.isNaN(threshold)) return threshold;
+        }
+        return minConfidence;
+    }
+
+    private boolean isSuppressed(PredictionBatch input, int index, float area, int keptCount) {
+        float left = input.left(index);
+        float top = input.top(index);
+        float right = input.right(index);
+        float bottom = input.bottom(index);
+        short classId = input.classId(index);
+        for (int k = 0; k < keptCount; k++) {
+            int other = kept[k];
+            if (classAware && input.classId(other) != classId) continue;
+            float intersection = Math.max(0f, Math.min(right, input.right(other)) - Math.max(left, input.left(other)))
+                    * Math.max(0f, Math.min(bottom, input.bottom(other)) - Math.max(top, input.top(other)));
+            if (intersection <= 0f) continue;
+            float union = area + keptAreas[k] - intersection;
+            if (union > 0f && intersection / union > iouThreshold) return true;
+        }
+        return false;
+    }
+
+    // Shell sort menurun pada order/scores; stabil tidak diperlukan, tanpa alokasi
+    private void sortByScore(int count) {
+        for (int gap = count / 2; gap > 0; gap /= 2) {
+            for (int i = gap; i < count; i++) {
+                int index = order[i];
+                float score = scores[i];
+                int j = i;
+                while (j >= gap && scores[j - gap] < score) {
+                    order[j] = order[j - gap];
+                    scores[j] = scores[j - gap];
+                    j -= gap;
+                }
+                order[j] = index;
+                scores[j] = score;
+            }
+        }
+    }
+}
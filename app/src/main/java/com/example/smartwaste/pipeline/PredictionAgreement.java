@@ -0,0 +1,60 @@
+package com.example.smartwaste.pipeline;
+
+import android.graphics.RectF;
+
+import com.example.smartwaste.api.RoboflowAPI;
+
+import java.util.List;
+
+/**
+ * Mengukur seberapa sama dua hasil deteksi untuk frame yang sama, misalnya frame asli dan
+ * frame yang sudah di-encode ulang. Prediksi dipasangkan secara greedy per kelas dengan IoU
+ * tertinggi di atas ambang; hasilnya F1 terhadap referensi (1 jika keduanya kosong).
+ */
+public final class PredictionAgreement {
+
+    private PredictionAgreement() {
+    }
+
+    public static float f1(List<RoboflowAPI.Prediction> reference, List<RoboflowAPI.Prediction> candidate,
+                           float iouThreshold) {
+        if (reference.isEmpty() && candidate.isEmpty()) return 1f;
+        int matches = countMatches(reference, candidate, iouThreshold);
+        return 2f * matches / (reference.size() + candidate.size());
+    }
+
+    /** Jumlah pasangan satu-ke-satu dengan kelas sama dan IoU >= iouThreshold. */
+    public static int countMatches(List<RoboflowAPI.Prediction> reference, List<RoboflowAPI.Prediction> candidate,
+                                   float iouThreshold) {
+        boolean[] used = new boolean[candidate.size()];
+        int matches = 0;
+        for (RoboflowAPI.Prediction expected : reference) {
+            int best = -1;
+            float bestIou = iouThreshold;
+            for (int i = 0; i < candidate.size(); i++) {
+                RoboflowAPI.Prediction actual = candidate.get(i);
+                if (used[i] || !expected.className.equals(actual.className)) continue;
+                float iou = iou(expected.boundingBox, actual.boundingBox);
+                if (iou >= bestIou) {
+                    best = i;
+                    bestIou = iou;
+                }
+            }
+            if (best >= 0) {
+                used[best] = true;
+                matches++;
+            }
+        }
+        return matches;
+    }
+
+    public static float iou(RectF a, RectF b) {
+        float left = Math.max(a.left, b.left);
+        float top = Math.max(a.top, b.top);
+        float right = Math.min(a.right, b.right);
+        float bottom = Math.min(a.bottom, b.bottom);
+        float intersection = Math.max(0f, right - left) * Math.max(0f, bottom - top);
+        float union = (a.right - a.left) * (a.bottom - a.top) + (b.right - b.left) * (b.bottom - b.top) - intersection;
+        return union > 0f ? intersection / union : 0f;
+    }
+}
@@ -0,0 +1,213 @@
+package com.example.smartwaste.pipeline;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Merencanakan crop region-of-interest untuk satu frame dari kotak hasil sebelumnya dan sel
+ * grid luma yang berubah. Setiap seed diberi padding, seed yang bertumpuk digabung, lalu crop
+ * terdekat terus digabung sampai jumlahnya paling banyak maxCrops. Jika total area crop
+ * melebihi maxAreaFraction frame, mengirim frame penuh lebih murah dan plan() mengembalikan null.
+ *
+ * Semua koordinat dalam piksel frame inferensi; kotak berupa {left, top, right, bottom}.
+ */
+public final class RoiPlanner {
+
+    private final float padFraction;
+    private final int minPadPx;
+    private final int minCropSize;
+    private final int maxCrops;
+    private final float maxAreaFraction;
+
+    /**
+     * @param padFraction     padding per sisi relatif terhadap ukuran seed
+     * @param minPadPx        padding minimum per sisi, supaya objek kecil tetap punya konteks
+     * @param minCropSize     sisi crop minimum
+     * @param maxCrops        jumlah crop maksimum per frame
+     * @param maxAreaFraction di atas fraksi area ini frame penuh yang dikirim
+     */
+    public RoiPlanner(float padFraction, int minPadPx, int minCropSize, int maxCrops, float maxAreaFraction) {
+        this.padFraction = padFraction;
+        this.minPadPx = minPadPx;
+        this.minCropSize = minCropSize;
+        this.maxCrops = Math.max(1, maxCrops);
+        this.maxAreaFraction = maxAreaFraction;
+    }
+
+    /** @return crop dalam piksel bulat, atau null jika frame penuh sebaiknya dikirim */
+    public List<int[]> plan(List<float[]> seeds, int width, int height) {
+        if (seeds.isEmpty()) return null;
+        List<float[]> regions = new ArrayList<>(seeds.size());
+        for (float[] seed : seeds) {
+            regions.add(pad(seed, width, height));
+        }
+        mergeOverlapping(regions);
+        while (regions.size() > maxCrops) {
+            mergeClosestPair(regions);
+            mergeOverlapping(regions);
+        }
+
+        List<int[]> crops = new ArrayList<>(regions.size());
+        long area = 0;
+        for (float[] region : regions) {
+            int[] crop = {
+                    Math.max(0, (int) Math.floor(region[0])),
+                    Math.max(0, (int) Math.floor(region[1])),
+                    Math.min(width, (int) Math.ceil(region[2])),
+                    Math.min(height, (int) Math.ceil(region[3]))
+            };
+            if (crop[2] <= crop[0] || crop[3] <= crop[1]) continue;
+            area += (long) (crop[2] - crop[0]) * (crop[3] - crop[1]);
+            crops.add(crop);
+        }
+        if (crops.isEmpty() || area > maxAreaFraction * width * height) return null;
+        return crops;
+    }
+
+    private float[] pad(float[] seed, int width, int height) {
+        float padX = Math.max(minPadPx, (seed[2] - seed[0]) * padFraction);
+        float padY = Math.max(minPadPx, (seed[3] - seed[1]) * padFraction);
+        float[] region = {seed[0] - padX, seed[1] - padY, seed[2] + padX, seed[3] + padY};
+        growTo(region, 0, 2, Math.min(minCropSize, width), width);
+        growTo(region, 1, 3, Math.min(minCropSize, height), height);
+        return region;
+    }
+
+    // Melebarkan [lo, hi] secara simetris sampai size, lalu digeser agar tetap di dalam [0, limit]
+    private static void growTo(float[] region, int lo, int hi, float size, float limit) {
+        float extent = region[hi] - region[lo];
+        if (extent < size) {
+            float grow = (size - extent) / 2;
+            region[lo] -= grow;
+            region[hi] += grow;
+        }
+        if (region[lo] < 0) {
+            region[hi] = Math.min(limit, region[hi] - region[lo]);
+            region[lo] = 0;
+        }
+        if (region[hi] > limit) {
+            region[lo] = Math.max(0, region[lo] - (region[hi] - limit));
+            region[hi] = limit;
+        }
+    }
+
+    private static void mergeOverlapping(List<float[]> regions) {
+        boolean merged = true;
+        while (merged) {
+            merged = false;
+            for (int i = 0; i < regions.size() && !merged; i++) {
+                for (int j = i + 1; j < regions.size(); j++) {
+                    if (intersects(regions.get(i), regions.get(j))) {
+                        union(regions.get(i), regions.remove(j));
+                        merged = true;
+                        break;
+                    }
+                }
+            }
+        }
+    }
+
+    // Pasangan yang gabungannya menambah area paling sedikit
+    private static void mergeClosestPair(List<float[]> regions) {
+        int bestI = 0;
+        int bestJ = 1;
+        float bestCost = Float.MAX_VALUE;
+        for (int i = 0; i < regions.size(); i++) {
+            for (int j = i + 1; j < regions.size(); j++) {
+                float[] a = regions.get(i);
+                float[] b = regions.get(j);
+                float cost = (Math.max(a[2], b[2]) - Math.min(a[0], b[0])) * (Math.max(a[3], b[3]) - Math.min(a[1], b[1]))
+                        - area(a) - area(b);
+                if (cost < bestCost) {
+                    bestCost = cost;
+                    bestI = i;
+                    bestJ = j;
+                }
+            }
+        }
+        union(regions.get(bestI), regions.remove(bestJ));
+    }
+
+    private static boolean intersects(float[] a, float[] b) {
+        return a[0] < b[2] && b[0] < a[2] && a[1] < b[3] && b[1] < a[3];
+    }
+
+    private static void union(float[] into, float[] other) {
+        into[0] = Math.min(into[0], other[0]);
+        into[1] = Math.min(into[1], other[1]);
+        into[2] = Math.max(into[2], other[2]);
+        into[3] = Math.max(into[3], other[3]);
+    }
+
+    private static float area(float[] box) {
+        return (box[2] - box[0]) * (box[3] - box[1]);
+    }
+
+    /** Rata-rata luma per sel grid x grid dari piksel ARGB. */
+    public static void computeLumaGrid(int[] argb, int width, int height, int grid, int[] out) {
+        for (int gy = 0; gy < grid; gy++) {
+            int y0 = gy * height / grid;
+            int y1 = (gy + 1) * height / grid;
+            for (int gx = 0; gx < grid; gx++) {
+                int x0 = gx * width / grid;
+                int x1 = (gx + 1) * width / grid;
+                long sum = 0;
+                int count = 0;
+                for (int y = y0; y < y1; y += 2) {
+                    int row = y * width;
+                    for (int x = x0; x < x1; x += 2) {
+                        int pixel = argb[row + x];
+                        // Luma BT.601 integer
+                        sum += (77 * ((pixel >> 16) & 0xFF) + 150 * ((pixel >> 8) & 0xFF) + 29 * (pixel & 0xFF)) >> 8;
+                        count++;
+                    }
+                }
+                out[gy * grid + gx] = count > 0 ? (int) (sum / count) : 0;
+            }
+        }
+    }
+
+    /**
+     * Sel yang selisih luma-nya (setelah rata-rata global dikurangkan, sama seperti
+     * SceneChangeGate) melewati threshold, sebagai kotak dalam piksel frame.
+     */
+    public static List<float[]> changedCells(int[] reference, int[] current, int grid, int width, int height,
+                                             float threshold) {
+        int cells = grid * grid;
+        long referenceSum = 0;
+        long currentSum = 0;
+        for (int i = 0; i < cells; i++) {
+            referenceSum += reference[i];
+            currentSum += current[i];
+        }
+        int referenceMean = (int) (referenceSum / cells);
+        int currentMean = (int) (currentSum / cells);
+
+        List<float[]> changed = new ArrayList<>();
+        for (int gy = 0; gy < grid; gy++) {
+            for (int gx = 0; gx < grid; gx++) {
+                int i = gy * grid + gx;
+                if (Math.abs((current[i] - currentMean) - (reference[i] - referenceMean)) >= threshold) {
+                    changed.add(new float[]{
+                            gx * width / (float) grid, gy * height / (float) grid,
+                            (gx + 1) * width / (float) grid, (gy + 1) * height / (float) grid});
+                }
+            }
+        }
+        return changed;
+    }
+
+    /**
+     * Dua kotak dari crop berbeda dianggap objek yang sama jika IoU >= iouThreshold atau
+     * irisannya menutupi >= containment dari kotak yang lebih kecil (objek terpotong di tepi crop).
+     */
+    public static boolean isDuplicate(float[] a, float[] b, float iouThreshold, float containment) {
+        float intersection = Math.max(0f, Math.min(a[2], b[2]) - Math.max(a[0], b[0]))
+                * Math.max(0f, Math.min(a[3], b[3]) - Math.max(a[1], b[1]));
+        if (intersection <= 0f) return false;
+        float areaA = area(a);
+        float areaB = area(b);
+        float union = areaA + areaB - intersection;
+        return intersection / union >= iouThreshold || intersection / Math.min(areaA, areaB) >= containment;
+    }
+}
@@ -0,0 +1,144 @@
+package com.example.smartwaste.pipeline;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Gerbang murah sebelum konversi frame: membuat signature luma 16x16 langsung dari
+ * ByteBuffer plane Y, lalu hanya meloloskan frame jika adegan berubah melewati threshold
+ * dibanding frame terakhir yang dikirim, atau jika hasil terakhir sudah terlalu lama.
+ * Selisih dihitung setelah rata-rata global dikurangkan supaya perubahan exposure otomatis
+ * tidak dianggap sebagai adegan baru.
+ *
+ * Saat startup, isSettled() memakai selisih terhadap frame sebelumnya (tanpa koreksi rata-rata)
+ * untuk menunggu exposure dan fokus kamera stabil sebelum frame pertama dikirim.
+ */
+public class SceneChangeGate {
+
+    private static final int GRID = 16;
+    private static final int SAMPLE_STEP = 4;
+
+    private final float changeThreshold;
+    private final long maxStalenessMs;
+
+    private final int[] current = new int[GRID * GRID];
+    private final int[] reference = new int[GRID * GRID];
+    private final int[] previous = new int[GRID * GRID];
+    private int currentMean;
+    private int referenceMean;
+    private volatile boolean hasReference = false;
+    private long lastSentTime = 0;
+    private float lastDifference = 0f;
+    private boolean hasPrevious = false;
+    private float lastMotion = Float.MAX_VALUE;
+    private long skippedFrames = 0;
+
+    /**
+     * @param changeThreshold rata-rata selisih luma per sel (0..255) yang dianggap adegan baru
+     * @param maxStalenessMs  frame tetap dikirim jika sudah selama ini tidak ada yang dikirim
+     */
+    public SceneChangeGate(float changeThreshold, long maxStalenessMs) {
+        this.changeThreshold = changeThreshold;
+        this.maxStalenessMs = maxStalenessMs;
+    }
+
+    /**
+     * Menghitung signature frame dan memutuskan apakah frame perlu dideteksi.
+     * Jika frame benar-benar dikirim, panggil markSent() supaya menjadi referensi baru.
+     */
+    public boolean shouldProcess(ByteBuffer yBuffer, int rowStride, int pixelStride, int width, int height, long nowMs) {
+        computeSignature(yBuffer, rowStride, pixelStride, width, height);
+        lastMotion = hasPrevious ? motion() : Float.MAX_VALUE;
+        System.arraycopy(current, 0, previous, 0, current.length);
+        hasPrevious = true;
+
+        if (!hasReference || nowMs - lastSentTime >= maxStalenessMs) {
+            return true;
+        }
+        lastDifference = difference();
+        if (lastDifference >= changeThreshold) {
+            return true;
+        }
+        skippedFrames++;
+        return false;
+    }
+
+    public void markSent(long nowMs) {
+        System.arraycopy(current, 0, reference, 0, current.length);
+        referenceMean = currentMean;
+        hasReference = true;
+        lastSentTime = nowMs;
+    }
+
+    /**
+     * Memaksa frame berikutnya lolos, misalnya setelah deteksi gagal.
+     */
+    public void invalidate() {
+        hasReference = false;
+    }
+
+    /**
+     * true jika frame terakhir hampir sama dengan frame sebelumnya (termasuk kecerahan) dan
+     * tidak terlalu gelap, yaitu exposure otomatis sudah konvergen dan kamera tidak bergerak.
+     */
+    public boolean isSettled(float maxMotion, int minMeanLuma) {
+        return lastMotion <= maxMotion && currentMean >= minMeanLuma;
+    }
+
+    // Rata-rata selisih luma per sel terhadap frame sebelumnya; MAX_VALUE untuk frame pertama
+    public float getLastMotion() {
+        return lastMotion;
+    }
+
+    public float getLastDifference() {
+        return lastDifference;
+    }
+
+    public long getSkippedFrames() {
+        return skippedFrames;
+    }
+
+    private void computeSignature(ByteBuffer yBuffer, int rowStride, int pixelStride, int width, int height) {
+        int limit = yBuffer.limit();
+        long total = 0;
+        for (int gy = 0; gy < GRID; gy++) {
+            int y0 = gy * height / GRID;
+            int y1 = (gy + 1) * height / GRID;
+            for (int gx = 0; gx < GRID; gx++) {
+                int x0 = gx * width / GRID;
+                int x1 = (gx + 1) * width / GRID;
+                int sum = 0;
+                int count = 0;
+                for (int y = y0; y < y1; y += SAMPLE_STEP) {
+                    int rowBase = y * rowStride;
+                    for (int x = x0; x < x1; x += SAMPLE_STEP) {
+                        int index = rowBase + x * pixelStride;
+                        if (index < limit) {
+                            sum += yBuffer.get(index) & 0xFF;
+                            count++;
+                        }
+                    }
+                }
+                int mean = count > 0 ? sum / count : 0;
+                current[gy * GRID + gx] = mean;
+                total += mean;
+            }
+        }
+        currentMean = (int) (total / (GRID * GRID));
+    }
+
+    private float motion() {
+        long sum = 0;
+        for (int i = 0; i < current.length; i++) {
+            sum += Math.abs(current[i] - previous[i]);
+        }
+        return (float) sum / current.length;
+    }
+
+    private float difference() {
+        long sum = 0;
+        for (int i = 0; i < current.length; i++) {
+            sum += Math.abs((current[i] - currentMean) - (reference[i] - referenceMean));
+        }
+        return (float) sum / current.length;
+    }
+}
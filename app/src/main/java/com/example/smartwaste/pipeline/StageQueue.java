@@ -0,0 +1,158 @@
+package com.example.smartwaste.pipeline;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Ring buffer berukuran tetap antara dua tahap pipeline. Konsumen tunggal mengambil item
+ * tanpa lock; produsen memakai lock sendiri yang tidak pernah diperebutkan jika hanya ada satu
+ * produsen, jadi kasus single-producer/single-consumer tetap tanpa blocking. Beberapa
+ * produsen (mis. callback detector dari thread berbeda) juga aman, hanya diserialisasi.
+ *
+ * Saat penuh, DROP_OLDEST membuang item tertua (diserahkan ke DropHandler di thread
+ * produsen) dan BLOCK menahan produsen sampai konsumen mengambil item atau antrean ditutup.
+ */
+public class StageQueue<T> {
+
+    public enum Policy {
+        // Frame baru lebih berharga dari frame lama (kamera, UI)
+        DROP_OLDEST,
+        // Tekanan balik ke tahap sebelumnya; produsen menunggu
+        BLOCK
+    }
+
+    /** Menerima item yang dibuang agar resource-nya (lease pool, frame) bisa dikembalikan. */
+    public interface DropHandler<T> {
+        void onDropped(T item);
+    }
+
+    // Produsen yang menunggu tetap bangun berkala, untuk berjaga-jaga jika unpark terlewat
+    private static final long MAX_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+
+    private final Object[] slots;
+    private final int capacity;
+    private final Policy policy;
+    private final DropHandler<T> dropHandler;
+
+    // Nomor item berikutnya yang diambil; dimajukan konsumen, atau produsen saat membuang item tertua
+    private final AtomicLong head = new AtomicLong();
+    // Nomor slot berikutnya yang diisi; hanya ditulis produsen (di bawah producerLock)
+    private volatile long tail;
+    private final Object producerLock = new Object();
+    private volatile Thread blockedProducer;
+    private volatile boolean closed;
+
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong stallNanos = new AtomicLong();
+    private volatile int maxDepth;
+
+    public StageQueue(int capacity, Policy policy, DropHandler<T> dropHandler) {
+        this.capacity = Math.max(1, capacity);
+        this.slots = new Object[this.capacity];
+        this.policy = policy;
+        this.dropHandler = dropHandler;
+    }
+
+    /**
+     * Menambahkan item. Dengan BLOCK, menunggu sampai ada slot.
+     *
+     * @return false jika antrean sudah ditutup; item tidak disimpan dan tetap milik pemanggil
+     */
+    public boolean offer(T item) {
+        synchronized (producerLock) {
+            long t = tail;
+            long stallStart = 0;
+            while (t - head.get() >= capacity) {
+                if (closed) return false;
+                if (policy == Policy.DROP_OLDEST) {
+                    dropOldest();
+                    continue;
+                }
+                if (stallStart == 0) stallStart = System.nanoTime();
+                blockedProducer = Thread.currentThread();
+                if (t - head.get() >= capacity && !closed) {
+                    LockSupport.parkNanos(this, MAX_PARK_NANOS);
+                }
+                blockedProducer = null;
+            }
+            if (stallStart != 0) stallNanos.addAndGet(System.nanoTime() - stallStart);
+            if (closed) return false;
+
+            slots[(int) (t % capacity)] = item;
+            tail = t + 1;
+            int depth = (int) (t + 1 - head.get());
+            if (depth > maxDepth) maxDepth = depth;
+            return true;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void dropOldest() {
+        long h = head.get();
+        T oldest = (T) slots[(int) (h % capacity)];
+        // Gagal jika konsumen baru saja mengambilnya; slot sudah kosong, cek ulang
+        if (head.compareAndSet(h, h + 1)) {
+            dropped.incrementAndGet();
+            if (dropHandler != null) dropHandler.onDropped(oldest);
+        }
+    }
+
+    /** Mengambil item tertua, atau null jika kosong. Hanya dari satu thread konsumen pada satu waktu. */
+    @SuppressWarnings("unchecked")
+    public T poll() {
+        while (true) {
+            long h = head.get();
+            if (h >= tail) return null;
+            T item = (T) slots[(int) (h % capacity)];
+            // Slot tidak dikosongkan: produsen bisa sudah mengisinya ulang setelah CAS berhasil.
+            // Referensi lama tertimpa saat slot dipakai lagi.
+            if (head.compareAndSet(h, h + 1)) {
+                Thread producer = blockedProducer;
+                if (producer != null) LockSupport.unpark(producer);
+                return item;
+            }
+        }
+    }
+
+    public boolean isEmpty() {
+        return head.get() >= tail;
+    }
+
+    /** Menolak item baru dan membangunkan produsen yang menunggu. Item yang tersisa masih bisa di-poll. */
+    public void close() {
+        closed = true;
+        Thread producer = blockedProducer;
+        if (producer != null) LockSupport.unpark(producer);
+    }
+
+    public boolean isClosed() {
+        return closed;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public Policy getPolicy() {
+        return policy;
+    }
+
+    public int size() {
+        return (int) Math.max(0, tail - head.get());
+    }
+
+    // Kedalaman tertinggi sejak antrean dibuat
+    public int getMaxDepth() {
+        return maxDepth;
+    }
+
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    // Total waktu produsen tertahan karena antrean BLOCK penuh
+    public long getStallNanos() {
+        return stallNanos.get();
+    }
+}
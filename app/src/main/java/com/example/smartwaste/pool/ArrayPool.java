@@ -0,0 +1,62 @@
+package com.example.smartwaste.pool;
+
+/**
+ * Pool array primitif dengan kapasitas dibulatkan ke pangkat dua, jadi permintaan dengan ukuran
+ * yang sedikit berbeda antar frame tetap memakai array yang sama. Array yang dipinjam tidak
+ * dibersihkan; isinya sisa pemakai sebelumnya. Kapasitas itu sendiri dipakai sebagai key.
+ */
+public final class ArrayPool<T> extends ResourcePool<T> {
+
+    private static final int MIN_CAPACITY = 1024;
+
+    private ArrayPool(String name, MemoryBudget budget, Allocator<T> allocator) {
+        super(name, budget, allocator);
+    }
+
+    public static ArrayPool<byte[]> ofBytes(String name, MemoryBudget budget) {
+        return new ArrayPool<>(name, budget, new Allocator<byte[]>() {
+            @Override
+            public byte[] allocate(long capacity) {
+                return new byte[(int) capacity];
+            }
+
+            @Override
+            public long sizeOf(byte[] array) {
+                return array.length;
+            }
+
+            @Override
+            public void destroy(byte[] array) {
+            }
+        });
+    }
+
+    public static ArrayPool<int[]> ofInts(String name, MemoryBudget budget) {
+        return new ArrayPool<>(name, budget, new Allocator<int[]>() {
+            @Override
+            public int[] allocate(long capacity) {
+                return new int[(int) capacity];
+            }
+
+            @Override
+            public long sizeOf(int[] array) {
+                return 4L * array.length;
+            }
+
+            @Override
+            public void destroy(int[] array) {
+            }
+        });
+    }
+
+    /** Array dengan panjang minimal minLength (bisa lebih). */
+    public Lease<T> acquireAtLeast(int minLength) {
+        return acquire(capacityFor(minLength));
+    }
+
+    static int capacityFor(int minLength) {
+        if (minLength <= MIN_CAPACITY) return MIN_CAPACITY;
+        int capacity = Integer.highestOneBit(minLength - 1) << 1;
+        return capacity > 0 ? capacity : Integer.MAX_VALUE - 8;
+    }
+}
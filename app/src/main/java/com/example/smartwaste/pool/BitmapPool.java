@@ -0,0 +1,59 @@
+package com.example.smartwaste.pool;
+
+import android.graphics.Bitmap;
+
+/**
+ * Pool Bitmap mutable per ukuran dan config. RGB_565 memakai separuh memori ARGB_8888 dan
+ * cukup untuk frame yang hanya di-encode ke JPEG/WebP; jalur inferensi lokal sebaiknya tetap
+ * ARGB_8888. Isi Bitmap yang dipinjam adalah sisa pemakai sebelumnya.
+ */
+public final class BitmapPool extends ResourcePool<Bitmap> {
+
+    // values() menyalin array setiap dipanggil
+    private static final Bitmap.Config[] CONFIGS = Bitmap.Config.values();
+
+    public BitmapPool(String name, MemoryBudget budget) {
+        super(name, budget, new Allocator<Bitmap>() {
+            @Override
+            public Bitmap allocate(long key) {
+                return Bitmap.createBitmap(width(key), height(key), config(key));
+            }
+
+            @Override
+            public long sizeOf(Bitmap bitmap) {
+                return bitmap.getAllocationByteCount();
+            }
+
+            @Override
+            public void destroy(Bitmap bitmap) {
+                bitmap.recycle();
+            }
+        });
+    }
+
+    public Lease<Bitmap> acquire(int width, int height, Bitmap.Config config) {
+        return acquire(key(width, height, config));
+    }
+
+    // Lebar di 32 bit atas, tinggi di 28 bit berikutnya, ordinal config di 4 bit terbawah
+    static long key(int width, int height, Bitmap.Config config) {
+        return (long) width << 32 | (long) height << 4 | config.ordinal();
+    }
+
+    private static int width(long key) {
+        return (int) (key >>> 32);
+    }
+
+    private static int height(long key) {
+        return (int) (key >>> 4) & 0x0FFFFFFF;
+    }
+
+    private static Bitmap.Config config(long key) {
+        return CONFIGS[(int) (key & 0xF)];
+    }
+
+    @Override
+    protected String describeKey(long key) {
+        return width(key) + "x" + height(key) + " " + config(key);
+    }
+}
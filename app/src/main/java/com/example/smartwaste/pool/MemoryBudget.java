@@ -0,0 +1,196 @@
+package com.example.smartwaste.pool;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Batas memori bersama untuk semua ResourcePool. Byte yang dihitung adalah semua resource milik
+ * pool, baik yang sedang dipinjam maupun yang menganggur. Jika alokasi baru akan melewati batas,
+ * resource menganggur paling lama dibuang dulu; jika tetap tidak muat, resource dialokasikan di
+ * luar pool dan dibuang saat dilepas, jadi memori pool tidak pernah melewati maxBytes.
+ *
+ * Semua pool memakai objek ini sebagai lock. Dengan trackLeaks, setiap Lease mencatat stack
+ * acquire; lease yang di-GC sebelum dilepas dilaporkan ke LeakListener saat acquire berikutnya
+ * atau saat checkLeaks() dipanggil.
+ */
+public final class MemoryBudget {
+
+    public interface LeakListener {
+        void onLeak(String description, Throwable acquiredAt);
+    }
+
+    private final long maxBytes;
+    private final boolean trackLeaks;
+    private final List<ResourcePool<?>> pools = new ArrayList<>();
+    private final ReferenceQueue<Object> leakQueue = new ReferenceQueue<>();
+    private final Set<LeakRef> outstanding = new HashSet<>();
+    private volatile LeakListener leakListener;
+
+    // Dijaga oleh this
+    private long pooledBytes;
+    private long hits;
+    private long misses;
+    private long overflows;
+    private long leaks;
+
+    public MemoryBudget(long maxBytes, boolean trackLeaks) {
+        this.maxBytes = maxBytes;
+        this.trackLeaks = trackLeaks;
+    }
+
+    public void setLeakListener(LeakListener listener) {
+        this.leakListener = listener;
+    }
+
+    synchronized void register(ResourcePool<?> pool) {
+        pools.add(pool);
+    }
+
+    // Dipanggil dengan lock this
+    void recordHit() {
+        hits++;
+    }
+
+    /** Memesan byte untuk resource baru; false jika tidak muat walau semua resource menganggur dibuang. */
+    boolean reserve(long bytes) {
+        misses++;
+        while (pooledBytes + bytes > maxBytes) {
+            if (!evictOldestIdle()) {
+                overflows++;
+                return false;
+            }
+        }
+        pooledBytes += bytes;
+        return true;
+    }
+
+    void free(long bytes) {
+        pooledBytes -= bytes;
+    }
+
+    private boolean evictOldestIdle() {
+        ResourcePool<?> oldest = null;
+        long oldestTime = Long.MAX_VALUE;
+        for (ResourcePool<?> pool : pools) {
+            long time = pool.oldestIdleTime();
+            if (time < oldestTime) {
+                oldestTime = time;
+                oldest = pool;
+            }
+        }
+        return oldest != null && oldest.evictOldestIdle();
+    }
+
+    /** Membuang semua resource menganggur, misalnya saat onTrimMemory. */
+    public synchronized void trimIdle() {
+        for (ResourcePool<?> pool : pools) {
+            while (pool.evictOldestIdle()) {
+                // lanjut sampai kosong
+            }
+        }
+    }
+
+    // Dipanggil dengan lock this
+    Object track(Object lease, long bytes, ResourcePool<?> pool, long key) {
+        if (!trackLeaks) return null;
+        drainLeaks();
+        LeakRef ref = new LeakRef(lease, leakQueue, bytes, pool.describe(key), new Throwable("Lease di-acquire di sini"));
+        outstanding.add(ref);
+        return ref;
+    }
+
+    // Dipanggil dengan lock this
+    void untrack(Object token) {
+        if (token == null) return;
+        LeakRef ref = (LeakRef) token;
+        ref.clear();
+        outstanding.remove(ref);
+    }
+
+    /** Memproses lease yang sudah di-GC tanpa dilepas; mengembalikan jumlah bocor yang ditemukan. */
+    public int checkLeaks() {
+        List<LeakRef> leaked;
+        synchronized (this) {
+            leaked = drainLeaks();
+        }
+        return leaked.size();
+    }
+
+    // Dipanggil dengan lock this. Resource yang bocor tidak kembali ke pool; byte-nya dilepas dari hitungan
+    private List<LeakRef> drainLeaks() {
+        List<LeakRef> leaked = new ArrayList<>();
+        Reference<?> polled;
+        while ((polled = leakQueue.poll()) != null) {
+            LeakRef ref = (LeakRef) polled;
+            if (outstanding.remove(ref)) {
+                pooledBytes -= ref.bytes;
+                leaks++;
+                leaked.add(ref);
+            }
+        }
+        LeakListener listener = leakListener;
+        if (listener != null) {
+            for (LeakRef ref : leaked) {
+                listener.onLeak(ref.description, ref.acquiredAt);
+            }
+        }
+        return leaked;
+    }
+
+    public synchronized long getPooledBytes() {
+        return pooledBytes;
+    }
+
+    public long getMaxBytes() {
+        return maxBytes;
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    public synchronized long getOverflows() {
+        return overflows;
+    }
+
+    public synchronized long getLeaks() {
+        return leaks;
+    }
+
+    public synchronized int getOutstandingCount() {
+        int count = 0;
+        for (ResourcePool<?> pool : pools) {
+            count += pool.getLeasedCount();
+        }
+        return count;
+    }
+
+    /** Ringkasan untuk HUD dan laporan metrik. */
+    public synchronized String describe() {
+        return String.format(Locale.US, "pool %.1f/%.1f MB  hit %d  miss %d  over %d  leak %d",
+                pooledBytes / (1024.0 * 1024.0), maxBytes / (1024.0 * 1024.0), hits, misses, overflows, leaks);
+    }
+
+    private static final class LeakRef extends WeakReference<Object> {
+        final long bytes;
+        final String description;
+        final Throwable acquiredAt;
+
+        LeakRef(Object lease, ReferenceQueue<Object> queue, long bytes, String description, Throwable acquiredAt) {
+            super(lease, queue);
+            this.bytes = bytes;
+            this.description = description;
+            this.acquiredAt = acquiredAt;
+        }
+    }
+}
@@ -0,0 +1,175 @@
+package com.example.smartwaste.pool;
+
+import java.util.ArrayList;
+
+/**
+ * Pool resource (buffer, Bitmap) per key dengan kepemilikan eksplisit: acquire() memberi Lease
+ * dengan satu referensi, setiap pemilik tambahan (callback async, view debug) memanggil retain(),
+ * dan resource kembali ke pool saat release() terakhir. Resource yang sedang dipinjam tidak
+ * pernah diberikan ke pemilik lain.
+ *
+ * Key adalah long primitif (kelas ukuran) dan objek Lease ikut kembali ke pool bersama
+ * resource-nya, jadi acquire dan release yang kena pool tidak mengalokasikan apa pun. Akibatnya
+ * Lease yang sudah dilepas bisa dipakai ulang oleh pemilik lain; release() berlebih pada Lease
+ * yang sedang menganggur tetap ditolak, tetapi setelah dipinjam ulang tidak bisa lagi dideteksi.
+ *
+ * Memori dibatasi oleh MemoryBudget bersama; lihat di sana untuk perilaku saat batas tercapai.
+ */
+public class ResourcePool<T> {
+
+    public interface Allocator<T> {
+        T allocate(long key);
+
+        long sizeOf(T resource);
+
+        // Dipanggil saat resource dibuang dari pool (mis. Bitmap.recycle)
+        void destroy(T resource);
+    }
+
+    private final String name;
+    private final MemoryBudget budget;
+    private final Allocator<T> allocator;
+
+    // Dijaga oleh budget; urutan = urutan dilepas, paling lama di depan
+    private final ArrayList<Lease<T>> idle = new ArrayList<>();
+    private int leased;
+
+    public ResourcePool(String name, MemoryBudget budget, Allocator<T> allocator) {
+        this.name = name;
+        this.budget = budget;
+        this.allocator = allocator;
+        budget.register(this);
+    }
+
+    public Lease<T> acquire(long key) {
+        synchronized (budget) {
+            for (int i = idle.size() - 1; i >= 0; i--) {
+                Lease<T> candidate = idle.get(i);
+                if (candidate.key == key) {
+                    idle.remove(i);
+                    budget.recordHit();
+                    candidate.reset();
+                    return track(candidate);
+                }
+            }
+        }
+        // Alokasi di luar lock; byte dipesan dulu supaya batas tetap terjaga
+        T resource = allocator.allocate(key);
+        long size = allocator.sizeOf(resource);
+        synchronized (budget) {
+            boolean pooled = budget.reserve(size);
+            return track(new Lease<>(this, key, resource, size, pooled));
+        }
+    }
+
+    // Dipanggil dengan lock budget
+    private Lease<T> track(Lease<T> lease) {
+        leased++;
+        lease.leakToken = budget.track(lease, lease.pooled ? lease.size : 0, this, lease.key);
+        return lease;
+    }
+
+    /** Deskripsi key untuk laporan kebocoran; hanya dipanggil jika pelacakan aktif. */
+    protected String describeKey(long key) {
+        return Long.toString(key);
+    }
+
+    String describe(long key) {
+        return name + " " + describeKey(key);
+    }
+
+    void recycle(Lease<T> lease) {
+        boolean destroy;
+        synchronized (budget) {
+            leased--;
+            budget.untrack(lease.leakToken);
+            lease.leakToken = null;
+            destroy = !lease.pooled;
+            if (!destroy) {
+                lease.releasedAt = System.nanoTime();
+                idle.add(lease);
+            }
+        }
+        if (destroy) allocator.destroy(lease.resource);
+    }
+
+    // Dipanggil dengan lock budget
+    long oldestIdleTime() {
+        return idle.isEmpty() ? Long.MAX_VALUE : idle.get(0).releasedAt;
+    }
+
+    // Dipanggil dengan lock budget
+    boolean evictOldestIdle() {
+        if (idle.isEmpty()) return false;
+        Lease<T> oldest = idle.remove(0);
+        budget.free(oldest.size);
+        allocator.destroy(oldest.resource);
+        return true;
+    }
+
+    // Dipanggil dengan lock budget
+    int getLeasedCount() {
+        return leased;
+    }
+
+    public int getIdleCount() {
+        synchronized (budget) {
+            return idle.size();
+        }
+    }
+
+    /** Pinjaman resource dengan hitungan referensi. Resource tidak boleh dipakai setelah release terakhir. */
+    public static final class Lease<T> {
+        private final ResourcePool<T> pool;
+        final long key;
+        final T resource;
+        final long size;
+        final boolean pooled;
+        // Dijaga oleh lock budget
+        Object leakToken;
+        long releasedAt;
+        // Dijaga oleh this
+        private int refCount = 1;
+
+        Lease(ResourcePool<T> pool, long key, T resource, long size, boolean pooled) {
+            this.pool = pool;
+            this.key = key;
+            this.resource = resource;
+            this.size = size;
+            this.pooled = pooled;
+        }
+
+        // Dipinjam ulang dari idle
+        synchronized void reset() {
+            refCount = 1;
+        }
+
+        public T get() {
+            synchronized (this) {
+                if (refCount <= 0) throw new IllegalStateException("Lease sudah dilepas: " + pool.describe(key));
+            }
+            return resource;
+        }
+
+        /** Menambah pemilik; setiap retain() harus diimbangi satu release(). */
+        public Lease<T> retain() {
+            synchronized (this) {
+                if (refCount <= 0) throw new IllegalStateException("retain() setelah dilepas: " + pool.describe(key));
+                refCount++;
+            }
+            return this;
+        }
+
+        public void release() {
+            synchronized (this) {
+                if (refCount <= 0) throw new IllegalStateException("release() berlebih: " + pool.describe(key));
+                if (--refCount > 0) return;
+            }
+            pool.recycle(this);
+        }
+
+        public synchronized int getRefCount() {
+            return refCount;
+        }
+    }
+}
@@ -0,0 +1,339 @@
+package com.example.smartwaste.queue;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.zip.CRC32;
+
+/**
+ * Antrean frame persisten di atas file memory-mapped berukuran tetap (ring log append-only).
+ * Setiap record berisi JPEG 416px beserta rotasi dan dimensi inferensi. Jika penuh, record
+ * tertua digusur. Record yang sudah di-ack di luar urutan baru dibuang saat semua record
+ * sebelumnya juga selesai, sehingga isi file selalu berupa rentang kontigu.
+ *
+ * Header ditulis setelah record, jadi crash di tengah append hanya kehilangan record itu.
+ * Saat dibuka ulang, record divalidasi (magic, nomor urut, CRC) dan ekor yang rusak dipotong.
+ */
+public class FrameQueue implements Closeable {
+
+    public static final class Record {
+        public final long sequence;
+        public final long capturedAtMs;
+        public final int rotationDegrees;
+        public final int inferenceWidth;
+        public final int inferenceHeight;
+        public final byte[] jpeg;
+
+        Record(long sequence, long capturedAtMs, int rotationDegrees, int inferenceWidth, int inferenceHeight, byte[] jpeg) {
+            this.sequence = sequence;
+            this.capturedAtMs = capturedAtMs;
+            this.rotationDegrees = rotationDegrees;
+            this.inferenceWidth = inferenceWidth;
+            this.inferenceHeight = inferenceHeight;
+            this.jpeg = jpeg;
+        }
+    }
+
+    private static final int FILE_MAGIC = 0x53574651; // "SWFQ"
+    private static final int FILE_VERSION = 1;
+    private static final int RECORD_MAGIC = 0x52454331; // "REC1"
+    // Sisa ruang di ujung buffer dilewati; record berikutnya mulai lagi dari awal
+    private static final int WRAP_MAGIC = 0x57524150; // "WRAP"
+
+    // magic, version, dataSize, headPos, tailPos, headSeq, nextSeq
+    static final int FILE_HEADER_SIZE = 4 + 4 + 4 + 8 + 8 + 8 + 8;
+    private static final int OFFSET_HEAD_POS = 12;
+    private static final int OFFSET_TAIL_POS = 20;
+    private static final int OFFSET_HEAD_SEQ = 28;
+    private static final int OFFSET_NEXT_SEQ = 36;
+
+    // magic, totalLength, sequence, capturedAt, rotation, width, height, crc, jpegLength
+    static final int RECORD_HEADER_SIZE = 4 + 4 + 8 + 8 + 4 + 4 + 4 + 4 + 4;
+
+    private final RandomAccessFile file;
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private final int dataSize;
+
+    // Posisi logis yang terus naik; posisi fisik = FILE_HEADER_SIZE + pos % dataSize
+    private long headPos;
+    private long tailPos;
+    private long headSeq;
+    private long nextSeq;
+    private final Set<Long> acknowledged = new HashSet<>();
+    private long evictedCount;
+    private final CRC32 crc = new CRC32();
+    private final byte[] crcChunk = new byte[8192];
+
+    private FrameQueue(RandomAccessFile file, int dataSize) throws IOException {
+        this.file = file;
+        this.channel = file.getChannel();
+        this.dataSize = dataSize;
+        this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, FILE_HEADER_SIZE + (long) dataSize);
+    }
+
+    /**
+     * Membuka (atau membuat) antrean. Jika file lama berukuran lain atau header-nya rusak,
+     * isinya dibuang dan antrean dimulai kosong.
+     */
+    public static FrameQueue open(File path, int dataSize) throws IOException {
+        if (dataSize < RECORD_HEADER_SIZE * 2) {
+            throw new IllegalArgumentException("dataSize terlalu kecil: " + dataSize);
+        }
+        RandomAccessFile file = new RandomAccessFile(path, "rw");
+        try {
+            FrameQueue queue = new FrameQueue(file, dataSize);
+            queue.load();
+            return queue;
+        } catch (IOException | RuntimeException e) {
+            file.close();
+            throw e;
+        }
+    }
+
+    private void load() {
+        if (buffer.getInt(0) != FILE_MAGIC || buffer.getInt(4) != FILE_VERSION || buffer.getInt(8) != dataSize) {
+            reset();
+            return;
+        }
+        headPos = buffer.getLong(OFFSET_HEAD_POS);
+        tailPos = buffer.getLong(OFFSET_TAIL_POS);
+        headSeq = buffer.getLong(OFFSET_HEAD_SEQ);
+        nextSeq = buffer.getLong(OFFSET_NEXT_SEQ);
+        if (headPos < 0 || tailPos < headPos || tailPos - headPos > dataSize || nextSeq < headSeq) {
+            reset();
+            return;
+        }
+
+        // Validasi dari kepala; record pertama yang tidak valid menjadi ekor baru
+        long pos = headPos;
+        long seq = headSeq;
+        while (pos < tailPos) {
+            long next = skipWrap(pos);
+            if (next != pos) {
+                pos = next;
+                continue;
+            }
+            int length = validRecordLength(pos, seq);
+            if (length < 0 || pos + length > tailPos) break;
+            pos += length;
+            seq++;
+        }
+        if (pos != tailPos || seq != nextSeq) {
+            tailPos = Math.min(pos, tailPos);
+            nextSeq = seq;
+            writeHeader();
+        }
+    }
+
+    private void reset() {
+        headPos = 0;
+        tailPos = 0;
+        headSeq = 1;
+        nextSeq = 1;
+        buffer.putInt(0, FILE_MAGIC);
+        buffer.putInt(4, FILE_VERSION);
+        buffer.putInt(8, dataSize);
+        writeHeader();
+    }
+
+    private void writeHeader() {
+        buffer.putLong(OFFSET_HEAD_POS, headPos);
+        buffer.putLong(OFFSET_TAIL_POS, tailPos);
+        buffer.putLong(OFFSET_HEAD_SEQ, headSeq);
+        buffer.putLong(OFFSET_NEXT_SEQ, nextSeq);
+    }
+
+    private int physical(long pos) {
+        return FILE_HEADER_SIZE + (int) (pos % dataSize);
+    }
+
+    // Jika di pos ada penanda wrap (atau sisa ruang terlalu kecil untuk header), lompat ke awal putaran berikutnya
+    private long skipWrap(long pos) {
+        int remaining = dataSize - (int) (pos % dataSize);
+        if (remaining < RECORD_HEADER_SIZE || buffer.getInt(physical(pos)) == WRAP_MAGIC) {
+            return pos + remaining;
+        }
+        return pos;
+    }
+
+    // Panjang record di pos, atau -1 jika rusak
+    private int validRecordLength(long pos, long expectedSeq) {
+        int at = physical(pos);
+        int remaining = dataSize - (int) (pos % dataSize);
+        if (buffer.getInt(at) != RECORD_MAGIC) return -1;
+        int length = buffer.getInt(at + 4);
+        int jpegLength = buffer.getInt(at + 40);
+        if (length != RECORD_HEADER_SIZE + jpegLength || jpegLength < 0 || length > remaining) return -1;
+        if (buffer.getLong(at + 8) != expectedSeq) return -1;
+
+        crc.reset();
+        int offset = at + RECORD_HEADER_SIZE;
+        int left = jpegLength;
+        while (left > 0) {
+            int n = Math.min(left, crcChunk.length);
+            readBytes(offset, crcChunk, 0, n);
+            crc.update(crcChunk, 0, n);
+            offset += n;
+            left -= n;
+        }
+        return (int) crc.getValue() == buffer.getInt(at + 36) ? length : -1;
+    }
+
+    /**
+     * Menambahkan frame ke ekor antrean; record tertua digusur jika ruang tidak cukup.
+     *
+     * @return nomor urut record
+     */
+    public synchronized long append(byte[] jpeg, int offset, int length, int rotationDegrees,
+                                    int inferenceWidth, int inferenceHeight, long capturedAtMs) {
+        int recordLength = RECORD_HEADER_SIZE + length;
+        if (recordLength > dataSize) {
+            throw new IllegalArgumentException("Frame " + length + " byte lebih besar dari antrean");
+        }
+
+        long start = tailPos;
+        int remaining = dataSize - (int) (start % dataSize);
+        if (recordLength > remaining) {
+            start += remaining;
+        }
+        while (start + recordLength - headPos > dataSize) {
+            if (headPos >= tailPos) {
+                // Antrean sudah kosong; sisa ruang sebelum titik wrap tidak perlu dipertahankan
+                headPos = start;
+                break;
+            }
+            evictHead();
+        }
+        if (start != tailPos && dataSize - (int) (tailPos % dataSize) >= 4) {
+            buffer.putInt(physical(tailPos), WRAP_MAGIC);
+        }
+
+        crc.reset();
+        crc.update(jpeg, offset, length);
+        long sequence = nextSeq;
+        int at = physical(start);
+        buffer.putInt(at, RECORD_MAGIC);
+        buffer.putInt(at + 4, recordLength);
+        buffer.putLong(at + 8, sequence);
+        buffer.putLong(at + 16, capturedAtMs);
+        buffer.putInt(at + 24, rotationDegrees);
+        buffer.putInt(at + 28, inferenceWidth);
+        buffer.putInt(at + 32, inferenceHeight);
+        buffer.putInt(at + 36, (int) crc.getValue());
+        buffer.putInt(at + 40, length);
+        writeBytes(at + RECORD_HEADER_SIZE, jpeg, offset, length);
+
+        // Record sudah lengkap sebelum header menunjuk ke sana
+        tailPos = start + recordLength;
+        nextSeq = sequence + 1;
+        writeHeader();
+        buffer.force();
+        return sequence;
+    }
+
+    /**
+     * Mengambil sampai max record tertua yang belum di-ack, berurutan. Data disalin, jadi
+     * aman dipakai walaupun record itu kemudian digusur.
+     */
+    public synchronized List<Record> peek(int max) {
+        List<Record> records = new ArrayList<>();
+        long pos = headPos;
+        long seq = headSeq;
+        while (pos < tailPos && records.size() < max) {
+            long next = skipWrap(pos);
+            if (next != pos) {
+                pos = next;
+                continue;
+            }
+            int at = physical(pos);
+            int length = buffer.getInt(at + 4);
+            if (!acknowledged.contains(seq)) {
+                byte[] jpeg = new byte[buffer.getInt(at + 40)];
+                readBytes(at + RECORD_HEADER_SIZE, jpeg, 0, jpeg.length);
+                records.add(new Record(seq, buffer.getLong(at + 16), buffer.getInt(at + 24),
+                        buffer.getInt(at + 28), buffer.getInt(at + 32), jpeg));
+            }
+            pos += length;
+            seq++;
+        }
+        return records;
+    }
+
+    /**
+     * Menandai record selesai. Record yang sudah digusur atau di-ack sebelumnya diabaikan.
+     */
+    public synchronized void remove(long sequence) {
+        if (sequence < headSeq || sequence >= nextSeq) return;
+        acknowledged.add(sequence);
+        boolean changed = false;
+        while (headPos < tailPos && acknowledged.remove(headSeq)) {
+            popHead();
+            changed = true;
+        }
+        if (changed) {
+            writeHeader();
+            buffer.force();
+        }
+    }
+
+    private void evictHead() {
+        if (!acknowledged.remove(headSeq)) {
+            evictedCount++;
+        }
+        popHead();
+    }
+
+    private void popHead() {
+        long next = skipWrap(headPos);
+        if (next != headPos) {
+            headPos = next;
+        }
+        headPos += buffer.getInt(physical(headPos) + 4);
+        headSeq++;
+        if (headPos < tailPos) {
+            headPos = skipWrap(headPos);
+        }
+    }
+
+    /** Jumlah record yang belum di-ack. */
+    public synchronized int size() {
+        return (int) (nextSeq - headSeq) - acknowledged.size();
+    }
+
+    public synchronized long getEvictedCount() {
+        return evictedCount;
+    }
+
+    /** Nomor urut record tertua yang tersisa; record di bawahnya sudah di-ack atau digusur. */
+    public synchronized long getHeadSequence() {
+        return headSeq;
+    }
+
+    private void readBytes(int at, byte[] dst, int offset, int length) {
+        ByteBuffer view = buffer.duplicate();
+        view.position(at);
+        view.get(dst, offset, length);
+    }
+
+    private void writeBytes(int at, byte[] src, int offset, int length) {
+        ByteBuffer view = buffer.duplicate();
+        view.position(at);
+        view.put(src, offset, length);
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        buffer.force();
+        channel.close();
+        file.close();
+    }
+}
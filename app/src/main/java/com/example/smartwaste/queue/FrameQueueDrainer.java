@@ -0,0 +1,192 @@
+package com.example.smartwaste.queue;
+
+import com.example.smartwaste.api.RoboflowAPI;
+import com.example.smartwaste.detector.Detector;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mengunggah isi FrameQueue secara berurutan (urutan mulai upload) saat koneksi tersedia,
+ * dengan maksimal maxConcurrent upload bersamaan. Semua state hanya diubah di executor serial,
+ * jadi sinyal koneksi yang berulang atau append beruntun tidak pernah mengirim record yang
+ * sama dua kali. Record yang gagal dicoba lagi dengan backoff dan dibuang setelah maxAttempts.
+ */
+public class FrameQueueDrainer {
+
+    public interface Uploader {
+        Detector.Cancellable upload(FrameQueue.Record record, RoboflowAPI.ApiCallback callback);
+    }
+
+    public interface Listener {
+        void onUploaded(FrameQueue.Record record, List<RoboflowAPI.Prediction> predictions);
+
+        void onDropped(FrameQueue.Record record, String error);
+    }
+
+    private final FrameQueue queue;
+    private final Uploader uploader;
+    private final Listener listener;
+    private final ScheduledExecutorService executor;
+    private final int maxConcurrent;
+    private final int maxAttempts;
+    private final long initialBackoffMs;
+    private final long maxBackoffMs;
+
+    // Hanya diakses dari executor
+    private final LinkedHashMap<Long, Detector.Cancellable> inFlight = new LinkedHashMap<>();
+    private final Map<Long, Integer> attempts = new HashMap<>();
+    private boolean online;
+    private boolean closed;
+    private long backoffMs;
+    private long retryAtMs;
+    private ScheduledFuture<?> retryFuture;
+
+    /**
+     * @param executor executor serial (satu thread) milik antrean; juga dipakai untuk append
+     */
+    public FrameQueueDrainer(FrameQueue queue, Uploader uploader, Listener listener, ScheduledExecutorService executor,
+                             int maxConcurrent, int maxAttempts, long initialBackoffMs, long maxBackoffMs) {
+        this.queue = queue;
+        this.uploader = uploader;
+        this.listener = listener;
+        this.executor = executor;
+        this.maxConcurrent = Math.max(1, maxConcurrent);
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.initialBackoffMs = initialBackoffMs;
+        this.maxBackoffMs = maxBackoffMs;
+        this.backoffMs = initialBackoffMs;
+    }
+
+    /** Dipanggil dari callback konektivitas; hanya transisi ke online yang memicu drain. */
+    public void setOnline(boolean available) {
+        post(() -> {
+            if (available == online) return;
+            online = available;
+            if (available) {
+                // Jaringan baru: tidak perlu menunggu sisa backoff dari jaringan sebelumnya
+                backoffMs = initialBackoffMs;
+                retryAtMs = 0;
+                drain();
+            }
+        });
+    }
+
+    /** Dipanggil setelah record baru di-append. */
+    public void notifyAppended() {
+        post(this::drain);
+    }
+
+    /**
+     * Membatalkan upload yang sedang berjalan. Dipanggil dari executor, sebelum FrameQueue
+     * ditutup dan executor di-shutdown; callback yang datang sesudahnya diabaikan.
+     */
+    public void close() {
+        closed = true;
+        if (retryFuture != null) {
+            retryFuture.cancel(false);
+            retryFuture = null;
+        }
+        for (Detector.Cancellable handle : inFlight.values()) {
+            handle.cancel();
+        }
+        inFlight.clear();
+    }
+
+    private void post(Runnable task) {
+        try {
+            executor.execute(task);
+        } catch (RejectedExecutionException e) {
+            // Executor sudah di-shutdown setelah close()
+        }
+    }
+
+    private void drain() {
+        pruneEvicted();
+        if (closed || !online) return;
+        long now = System.currentTimeMillis();
+        if (now < retryAtMs) {
+            scheduleRetry(retryAtMs - now);
+            return;
+        }
+        int free = maxConcurrent - inFlight.size();
+        if (free <= 0) return;
+
+        // Record yang sedang diunggah ada di depan antrean, jadi ikut terbaca lalu dilewati
+        for (FrameQueue.Record record : queue.peek(inFlight.size() + free)) {
+            if (inFlight.containsKey(record.sequence)) continue;
+            start(record);
+        }
+    }
+
+    private void start(FrameQueue.Record record) {
+        // Callback selalu dilanjutkan di executor, jadi tidak bisa mendahului put() di bawah
+        Detector.Cancellable handle = uploader.upload(record, new RoboflowAPI.ApiCallback() {
+            @Override
+            public void onSuccess(List<RoboflowAPI.Prediction> predictions) {
+                post(() -> onUploadSucceeded(record, predictions));
+            }
+
+            @Override
+            public void onError(String error) {
+                post(() -> onUploadFailed(record, error));
+            }
+        });
+        inFlight.put(record.sequence, handle);
+    }
+
+    private void onUploadSucceeded(FrameQueue.Record record, List<RoboflowAPI.Prediction> predictions) {
+        if (inFlight.remove(record.sequence) == null) return;
+        attempts.remove(record.sequence);
+        queue.remove(record.sequence);
+        backoffMs = initialBackoffMs;
+        listener.onUploaded(record, predictions);
+        drain();
+    }
+
+    private void onUploadFailed(FrameQueue.Record record, String error) {
+        if (inFlight.remove(record.sequence) == null) return;
+        Integer previous = attempts.get(record.sequence);
+        int count = (previous != null ? previous : 0) + 1;
+        if (count >= maxAttempts) {
+            attempts.remove(record.sequence);
+            queue.remove(record.sequence);
+            listener.onDropped(record, error);
+            drain();
+            return;
+        }
+        // Record yang digusur selama diunggah tidak akan dicoba lagi
+        if (record.sequence >= queue.getHeadSequence()) attempts.put(record.sequence, count);
+
+        // Semua upload berikutnya kemungkinan gagal juga; tunggu sebelum mencoba lagi
+        retryAtMs = System.currentTimeMillis() + backoffMs;
+        scheduleRetry(backoffMs);
+        backoffMs = Math.min(backoffMs * 2, maxBackoffMs);
+    }
+
+    // Append ke antrean penuh menggusur record tertua tanpa lewat drainer
+    private void pruneEvicted() {
+        if (attempts.isEmpty()) return;
+        long head = queue.getHeadSequence();
+        attempts.keySet().removeIf(sequence -> sequence < head);
+    }
+
+    // Untuk test
+    int getTrackedAttemptCount() {
+        return attempts.size();
+    }
+
+    private void scheduleRetry(long delayMs) {
+        if (retryFuture != null || closed) return;
+        retryFuture = executor.schedule(() -> {
+            retryFuture = null;
+            drain();
+        }, delayMs, TimeUnit.MILLISECONDS);
+    }
+}
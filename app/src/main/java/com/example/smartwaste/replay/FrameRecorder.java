@@ -0,0 +1,121 @@
+package com.example.smartwaste.replay;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Menulis frame kamera mentah ke file rekaman (format lihat FrameRecording) lewat memory map
+ * berukuran tetap: plane disalin langsung dari ByteBuffer kamera ke map tanpa array perantara.
+ * Setelah kapasitas habis, frame berikutnya ditolak. Header diperbarui setelah setiap record,
+ * jadi rekaman tetap bisa dibaca walaupun aplikasi mati sebelum close().
+ *
+ * Tidak thread-safe; panggil dari thread analyzer kamera.
+ */
+public class FrameRecorder implements Closeable {
+
+    private final RandomAccessFile file;
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private int frameCount;
+    private int position = FrameRecording.FILE_HEADER_SIZE;
+
+    private FrameRecorder(RandomAccessFile file, int capacity) throws IOException {
+        this.file = file;
+        this.channel = file.getChannel();
+        this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, FrameRecording.FILE_HEADER_SIZE + (long) capacity);
+        buffer.putInt(0, FrameRecording.FILE_MAGIC);
+        buffer.putInt(4, FrameRecording.FILE_VERSION);
+        writeHeader();
+    }
+
+    /** Membuat rekaman baru (file lama ditimpa) dengan ruang data capacityBytes. */
+    public static FrameRecorder create(File path, int capacityBytes) throws IOException {
+        if (capacityBytes < FrameRecording.RECORD_HEADER_SIZE) {
+            throw new IllegalArgumentException("capacityBytes terlalu kecil: " + capacityBytes);
+        }
+        RandomAccessFile file = new RandomAccessFile(path, "rw");
+        try {
+            file.setLength(0);
+            return new FrameRecorder(file, capacityBytes);
+        } catch (IOException | RuntimeException e) {
+            file.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Menyimpan satu frame YUV_420_888. Seluruh isi buffer plane (posisi 0 sampai limit)
+     * disimpan apa adanya; posisi buffer milik pemanggil tidak berubah.
+     *
+     * @return false jika ruang rekaman tidak cukup (frame tidak disimpan)
+     */
+    public boolean record(ByteBuffer y, int yRowStride, int yPixelStride,
+                          ByteBuffer u, ByteBuffer v, int uvRowStride, int uvPixelStride,
+                          int width, int height, int rotationDegrees, long timestampNanos) {
+        int yLength = y.limit();
+        int uLength = u.limit();
+        int vLength = v.limit();
+        long length = (long) FrameRecording.RECORD_HEADER_SIZE + yLength + uLength + vLength;
+        if (position + length > buffer.capacity()) return false;
+
+        int at = position;
+        buffer.putInt(at, (int) length);
+        buffer.putLong(at + 4, timestampNanos);
+        buffer.putInt(at + 12, rotationDegrees);
+        buffer.putInt(at + 16, width);
+        buffer.putInt(at + 20, height);
+        buffer.putInt(at + 24, yRowStride);
+        buffer.putInt(at + 28, yPixelStride);
+        buffer.putInt(at + 32, uvRowStride);
+        buffer.putInt(at + 36, uvPixelStride);
+        buffer.putInt(at + 40, yLength);
+        buffer.putInt(at + 44, uLength);
+        buffer.putInt(at + 48, vLength);
+        int planeStart = at + FrameRecording.RECORD_HEADER_SIZE;
+        copy(y, planeStart);
+        copy(u, planeStart + yLength);
+        copy(v, planeStart + yLength + uLength);
+
+        // Record sudah lengkap sebelum header menghitungnya
+        position = (int) (at + length);
+        frameCount++;
+        writeHeader();
+        return true;
+    }
+
+    public int getFrameCount() {
+        return frameCount;
+    }
+
+    // Byte data yang sudah terpakai (tanpa header file)
+    public long getBytesWritten() {
+        return position - FrameRecording.FILE_HEADER_SIZE;
+    }
+
+    private void copy(ByteBuffer plane, int at) {
+        ByteBuffer src = plane.duplicate();
+        src.position(0);
+        ByteBuffer dst = buffer.duplicate();
+        dst.position(at);
+        dst.put(src);
+    }
+
+    private void writeHeader() {
+        buffer.putInt(FrameRecording.OFFSET_FRAME_COUNT, frameCount);
+        buffer.putLong(FrameRecording.OFFSET_DATA_END, position);
+    }
+
+    // Sisa kapasitas yang tidak terpakai dipotong dari file
+    @Override
+    public void close() throws IOException {
+        buffer.force();
+        channel.truncate(position);
+        channel.close();
+        file.close();
+    }
+}
@@ -0,0 +1,148 @@
+package com.example.smartwaste.replay;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+
+/**
+ * File rekaman frame kamera mentah untuk diputar ulang tanpa kamera. Setiap record menyimpan
+ * plane Y/U/V YUV_420_888 persis seperti dari ImageProxy (termasuk padding baris), beserta
+ * row/pixel stride, rotasi dan timestamp capture, sehingga replay melewati jalur konversi yang
+ * sama dengan frame asli.
+ *
+ * File ditulis lewat FrameRecorder dan dibaca di sini dengan memory map read-only; plane yang
+ * dikembalikan adalah view ke map, bukan salinan.
+ */
+public class FrameRecording implements Closeable {
+
+    static final int FILE_MAGIC = 0x53574352; // "SWCR"
+    static final int FILE_VERSION = 1;
+    // magic, version, frameCount, dataEnd
+    static final int FILE_HEADER_SIZE = 4 + 4 + 4 + 8;
+    static final int OFFSET_FRAME_COUNT = 8;
+    static final int OFFSET_DATA_END = 12;
+
+    // totalLength, timestampNanos, rotation, width, height, yRowStride, yPixelStride,
+    // uvRowStride, uvPixelStride, yLength, uLength, vLength
+    static final int RECORD_HEADER_SIZE = 4 + 8 + 4 * 10;
+
+    public static final class Frame {
+        public final int index;
+        // Waktu capture kamera (ImageInfo.getTimestamp, nanodetik)
+        public final long timestampNanos;
+        public final int rotationDegrees;
+        public final int width;
+        public final int height;
+        public final ByteBuffer y;
+        public final int yRowStride;
+        public final int yPixelStride;
+        public final ByteBuffer u;
+        public final ByteBuffer v;
+        public final int uvRowStride;
+        public final int uvPixelStride;
+
+        Frame(int index, long timestampNanos, int rotationDegrees, int width, int height,
+              ByteBuffer y, int yRowStride, int yPixelStride,
+              ByteBuffer u, ByteBuffer v, int uvRowStride, int uvPixelStride) {
+            this.index = index;
+            this.timestampNanos = timestampNanos;
+            this.rotationDegrees = rotationDegrees;
+            this.width = width;
+            this.height = height;
+            this.y = y;
+            this.yRowStride = yRowStride;
+            this.yPixelStride = yPixelStride;
+            this.u = u;
+            this.v = v;
+            this.uvRowStride = uvRowStride;
+            this.uvPixelStride = uvPixelStride;
+        }
+    }
+
+    private final RandomAccessFile file;
+    private final MappedByteBuffer buffer;
+    private final int[] offsets;
+
+    private FrameRecording(RandomAccessFile file, MappedByteBuffer buffer, int[] offsets) {
+        this.file = file;
+        this.buffer = buffer;
+        this.offsets = offsets;
+    }
+
+    /**
+     * Membuka rekaman. Record terakhir yang terpotong (mis. aplikasi mati saat merekam)
+     * diabaikan; header yang tidak dikenal menghasilkan IOException.
+     */
+    public static FrameRecording open(File path) throws IOException {
+        RandomAccessFile file = new RandomAccessFile(path, "r");
+        try {
+            FileChannel channel = file.getChannel();
+            if (channel.size() < FILE_HEADER_SIZE || channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Ukuran rekaman tidak valid: " + channel.size());
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.getInt(0) != FILE_MAGIC || buffer.getInt(4) != FILE_VERSION) {
+                throw new IOException("Bukan file rekaman frame: " + path);
+            }
+            int frameCount = buffer.getInt(OFFSET_FRAME_COUNT);
+            long dataEnd = Math.min(buffer.getLong(OFFSET_DATA_END), channel.size());
+
+            int[] offsets = new int[Math.max(0, frameCount)];
+            int count = 0;
+            int at = FILE_HEADER_SIZE;
+            while (count < offsets.length && at + RECORD_HEADER_SIZE <= dataEnd) {
+                int length = buffer.getInt(at);
+                if (length < RECORD_HEADER_SIZE || at + (long) length > dataEnd) break;
+                offsets[count++] = at;
+                at += length;
+            }
+            return new FrameRecording(file, buffer, Arrays.copyOf(offsets, count));
+        } catch (IOException | RuntimeException e) {
+            file.close();
+            throw e;
+        }
+    }
+
+    public int size() {
+        return offsets.length;
+    }
+
+    public Frame frame(int index) {
+        int at = offsets[index];
+        long timestamp = buffer.getLong(at + 4);
+        int rotation = buffer.getInt(at + 12);
+        int width = buffer.getInt(at + 16);
+        int height = buffer.getInt(at + 20);
+        int yRowStride = buffer.getInt(at + 24);
+        int yPixelStride = buffer.getInt(at + 28);
+        int uvRowStride = buffer.getInt(at + 32);
+        int uvPixelStride = buffer.getInt(at + 36);
+        int yLength = buffer.getInt(at + 40);
+        int uLength = buffer.getInt(at + 44);
+        int vLength = buffer.getInt(at + 48);
+
+        int planeStart = at + RECORD_HEADER_SIZE;
+        ByteBuffer y = slice(planeStart, yLength);
+        ByteBuffer u = slice(planeStart + yLength, uLength);
+        ByteBuffer v = slice(planeStart + yLength + uLength, vLength);
+        return new Frame(index, timestamp, rotation, width, height, y, yRowStride, yPixelStride,
+                u, v, uvRowStride, uvPixelStride);
+    }
+
+    private ByteBuffer slice(int start, int length) {
+        ByteBuffer view = buffer.duplicate();
+        view.position(start);
+        view.limit(start + length);
+        return view.slice();
+    }
+
+    @Override
+    public void close() throws IOException {
+        file.close();
+    }
+}
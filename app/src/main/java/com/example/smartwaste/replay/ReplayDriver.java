@@ -0,0 +1,116 @@
+package com.example.smartwaste.replay;
+
+import com.example.smartwaste.metrics.PipelineMetrics;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Memutar ulang FrameRecording ke pipeline tanpa kamera, dengan jeda antar frame sesuai
+ * rekaman atau secepat mungkin, lalu melaporkan frame/detik, histogram per tahap (dari
+ * PipelineMetrics yang sama dengan yang diisi pipeline) dan total byte yang dialokasikan.
+ */
+public class ReplayDriver {
+
+    /** Menerima frame replay; dipanggil berurutan dari thread yang menjalankan run(). */
+    public interface FrameSink {
+        void onFrame(FrameRecording.Frame frame) throws InterruptedException;
+
+        // Menunggu pekerjaan yang masih berjalan (mis. deteksi async) sebelum waktu dihentikan
+        default void awaitIdle() throws InterruptedException {
+        }
+    }
+
+    /** Total byte yang pernah dialokasikan proses/thread; -1 jika tidak tersedia. */
+    public interface AllocationCounter {
+        long allocatedBytes();
+
+        AllocationCounter NONE = () -> -1;
+    }
+
+    public static final class Report {
+        public final int frames;
+        public final long elapsedNanos;
+        // -1 jika AllocationCounter tidak tersedia
+        public final long allocatedBytes;
+        public final PipelineMetrics metrics;
+
+        Report(int frames, long elapsedNanos, long allocatedBytes, PipelineMetrics metrics) {
+            this.frames = frames;
+            this.elapsedNanos = elapsedNanos;
+            this.allocatedBytes = allocatedBytes;
+            this.metrics = metrics;
+        }
+
+        public double framesPerSecond() {
+            return elapsedNanos > 0 ? frames * 1e9 / elapsedNanos : 0;
+        }
+
+        public String summary() {
+            return String.format(Locale.US, "%d frame dalam %.2f s (%.1f frame/s), alokasi %s",
+                    frames, elapsedNanos / 1e9, framesPerSecond(),
+                    allocatedBytes < 0 ? "n/a" : String.format(Locale.US, "%.1f KB/frame",
+                            frames > 0 ? allocatedBytes / 1024.0 / frames : 0));
+        }
+
+        /** Ringkasan lalu laporan lengkap PipelineMetrics. */
+        public void writeTo(Writer out) throws IOException {
+            out.write(summary() + "\n");
+            out.write(String.format(Locale.US, "frames=%d elapsed_ms=%.1f fps=%.2f allocated_bytes=%d\n",
+                    frames, elapsedNanos / 1e6, framesPerSecond(), allocatedBytes));
+            metrics.writeReport(out);
+        }
+    }
+
+    private final PipelineMetrics metrics;
+    private final AllocationCounter allocations;
+
+    public ReplayDriver(PipelineMetrics metrics, AllocationCounter allocations) {
+        this.metrics = metrics;
+        this.allocations = allocations;
+    }
+
+    /**
+     * @param realtime true: frame diberikan pada jarak timestamp rekaman; false: secepat sink menerima
+     * @param loops    berapa kali rekaman diputar (>= 1); timestamp dilanjutkan antar putaran
+     */
+    public Report run(FrameRecording recording, FrameSink sink, boolean realtime, int loops) throws InterruptedException {
+        int count = recording.size();
+        long firstTimestamp = count > 0 ? recording.frame(0).timestampNanos : 0;
+        // Putaran berikutnya mulai satu jarak frame rata-rata setelah frame terakhir
+        long span = count > 1 ? recording.frame(count - 1).timestampNanos - firstTimestamp : 0;
+        long loopDuration = count > 1 ? span + span / (count - 1) : 0;
+
+        long allocatedBefore = allocations.allocatedBytes();
+        long start = System.nanoTime();
+        int delivered = 0;
+        for (int loop = 0; loop < Math.max(1, loops); loop++) {
+            for (int i = 0; i < count; i++) {
+                FrameRecording.Frame frame = recording.frame(i);
+                if (realtime) {
+                    long due = start + loop * loopDuration + (frame.timestampNanos - firstTimestamp);
+                    sleepUntil(due);
+                }
+                metrics.increment(PipelineMetrics.Counter.FRAMES_SEEN);
+                sink.onFrame(frame);
+                delivered++;
+            }
+        }
+        sink.awaitIdle();
+        long elapsed = System.nanoTime() - start;
+        long allocatedAfter = allocations.allocatedBytes();
+        long allocated = allocatedBefore < 0 || allocatedAfter < 0 ? -1 : allocatedAfter - allocatedBefore;
+        return new Report(delivered, elapsed, allocated, metrics);
+    }
+
+    private static void sleepUntil(long dueNanos) throws InterruptedException {
+        long remaining;
+        while ((remaining = dueNanos - System.nanoTime()) > 0) {
+            LockSupport.parkNanos(Math.min(remaining, TimeUnit.MILLISECONDS.toNanos(50)));
+            if (Thread.interrupted()) throw new InterruptedException();
+        }
+    }
+}
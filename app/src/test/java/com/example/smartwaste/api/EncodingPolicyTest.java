@@ -0,0 +1,123 @@
+package com.example.smartwaste.api;
+
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class EncodingPolicyTest {
+
+    private static final long SECOND_NANOS = 1_000_000_000L;
+
+    @Test
+    public void withoutSamples_choosesHighestQuality() {
+        EncodingPolicy policy = new EncodingPolicy(500, 60, 50, true);
+        EncodingPolicy.Step step = policy.choose();
+        assertEquals(EncodingPolicy.Codec.JPEG, step.codec);
+        assertEquals(95, step.quality);
+    }
+
+    @Test
+    public void fastLink_keepsHighestQuality() {
+        EncodingPolicy policy = new EncodingPolicy(500, 60, 50, true);
+        policy.recordEncoded(policy.choose(), 100_000);
+        // 1 MB/s: 100 KB muat jauh di bawah budget 500 ms
+        policy.recordUpload(1_000_000, SECOND_NANOS);
+        assertEquals(95, policy.choose().quality);
+    }
+
+    @Test
+    public void slowLink_stepsDownButNeverBelowFloor() {
+        EncodingPolicy policy = new EncodingPolicy(500, 75, 70, true);
+        policy.recordEncoded(policy.choose(), 100_000);
+        // 10 KB/s: budget 5 KB, tidak ada langkah yang muat -> langkah terkecil yang diizinkan
+        policy.recordUpload(10_000, SECOND_NANOS);
+        EncodingPolicy.Step step = policy.choose();
+        List<EncodingPolicy.Step> steps = policy.getSteps();
+        assertSame(steps.get(steps.size() - 1), step);
+        assertEquals(EncodingPolicy.Codec.WEBP, step.codec);
+        assertEquals(70, step.quality);
+        for (EncodingPolicy.Step allowed : steps) {
+            assertTrue(allowed.toString(), allowed.quality >= (allowed.codec == EncodingPolicy.Codec.JPEG ? 75 : 70));
+        }
+    }
+
+    @Test
+    public void moderateLink_choosesLargestStepThatFits() {
+        EncodingPolicy policy = new EncodingPolicy(500, 50, 50, true);
+        policy.recordEncoded(policy.choose(), 100_000);
+        // 100 KB/s: budget 50 KB -> JPEG 85 (sekitar 50% dari JPEG 95)
+        policy.recordUpload(100_000, SECOND_NANOS);
+        EncodingPolicy.Step step = policy.choose();
+        assertEquals(EncodingPolicy.Codec.JPEG, step.codec);
+        assertEquals(85, step.quality);
+        assertTrue(policy.getPredictedNetworkMs(step) <= 500);
+    }
+
+    @Test
+    public void webpDisabled_usesOnlyJpeg() {
+        EncodingPolicy policy = new EncodingPolicy(500, 50, 50, false);
+        for (EncodingPolicy.Step step : policy.getSteps()) {
+            assertEquals(EncodingPolicy.Codec.JPEG, step.codec);
+        }
+        policy.recordEncoded(policy.choose(), 100_000);
+        policy.recordUpload(1_000, SECOND_NANOS);
+        assertEquals(55, policy.choose().quality);
+    }
+
+    @Test
+    public void recovery_requiresMarginBeforeSteppingUp() {
+        EncodingPolicy policy = new EncodingPolicy(1_000, 50, 50, true);
+        policy.recordEncoded(policy.choose(), 100_000);
+        policy.recordUpload(10_000, SECOND_NANOS);
+        EncodingPolicy.Step low = policy.choose();
+        assertNotEquals(95, low.quality);
+
+        // Throughput naik tepat ke 100 KB/s: JPEG 95 pas di budget tapi belum melewati margin
+        for (int i = 0; i < 50; i++) {
+            policy.recordUpload(100_000, SECOND_NANOS);
+        }
+        assertNotEquals(95, policy.choose().quality);
+
+        for (int i = 0; i < 50; i++) {
+            policy.recordUpload(200_000, SECOND_NANOS);
+        }
+        assertEquals(95, policy.choose().quality);
+    }
+
+    @Test
+    public void recovery_climbsBackFromFloorWhenBandwidthReturns() {
+        EncodingPolicy policy = new EncodingPolicy(1_000, 50, 50, true);
+        policy.recordEncoded(policy.choose(), 100_000);
+        for (int i = 0; i < 20; i++) {
+            policy.recordUpload(10_000, SECOND_NANOS);
+        }
+        List<EncodingPolicy.Step> steps = policy.getSteps();
+        EncodingPolicy.Step floor = policy.choose();
+        assertSame(steps.get(steps.size() - 1), floor);
+
+        // Sampel berikutnya hanya dari payload kecil di floor, dengan link 500 KB/s
+        EncodingPolicy.Step step = floor;
+        for (int i = 0; i < 20 && step.quality != 95; i++) {
+            long bytes = Math.round(100_000 * step.sizeRatio);
+            policy.recordEncoded(step, (int) bytes);
+            policy.recordUpload(bytes, bytes * SECOND_NANOS / 500_000);
+            step = policy.choose();
+        }
+        assertEquals(EncodingPolicy.Codec.JPEG, step.codec);
+        assertEquals(95, step.quality);
+    }
+
+    @Test
+    public void bufferedWrite_doesNotDominateEstimate() {
+        EncodingPolicy policy = new EncodingPolicy(1_000, 50, 50, true);
+        policy.recordEncoded(policy.choose(), 100_000);
+        policy.recordUpload(10_000, SECOND_NANOS);
+
+        // Body kecil yang langsung masuk buffer socket hampir tidak butuh waktu
+        policy.recordUpload(17_000, 10_000);
+        assertTrue(policy.getThroughputBytesPerSec() < 20_000);
+        assertNotEquals(95, policy.choose().quality);
+    }
+}
@@ -0,0 +1,120 @@
+package com.example.smartwaste.api;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Random;
+
+import okio.Buffer;
+
+import static org.junit.Assert.*;
+
+public class ImageRequestBodyTest {
+
+    private static final String API_KEY = "test/key\"1";
+    // API_KEY setelah di-escape JSONStringer Android: '/' dan '"' diawali backslash
+    private static final String QUOTED_API_KEY = "\"test\\/key\\\"1\"";
+
+    // Sama dengan JSONObject.toString() Android pada jalur lama: urutan insertion, '/' di-escape
+    private static String legacyPayload(byte[] jpeg) {
+        String base64 = Base64.getEncoder().encodeToString(jpeg);
+        return "{\"api_key\":" + QUOTED_API_KEY
+                + ",\"inputs\":{\"image\":{\"type\":\"base64\",\"value\":\""
+                + base64.replace("/", "\\/") + "\"}}}";
+    }
+
+    private static byte[] streamed(ImageRequestBody body) throws Exception {
+        Buffer sink = new Buffer();
+        body.writeTo(sink);
+        return sink.readByteArray();
+    }
+
+    @Test
+    public void streamedBytes_matchLegacyPayload() throws Exception {
+        Random random = new Random(42);
+        // Variasi panjang supaya padding "=" dan "==" ikut teruji, termasuk lintas batas chunk
+        for (int length : new int[]{0, 1, 2, 3, 4, 5, 6143, 6144, 6145, 100_000}) {
+            byte[] jpeg = new byte[length];
+            random.nextBytes(jpeg);
+
+            ImageRequestBody body = new ImageRequestBody(API_KEY, jpeg);
+            byte[] actual = streamed(body);
+            byte[] expected = legacyPayload(jpeg).getBytes(StandardCharsets.UTF_8);
+
+            assertArrayEquals("length " + length, expected, actual);
+            assertEquals("length " + length, expected.length, body.contentLength());
+        }
+    }
+
+    @Test
+    public void streamedBytes_matchHandWrittenPayload() throws Exception {
+        // 0xFB 0xFF = "+/8=" dalam Base64
+        byte[] actual = streamed(new ImageRequestBody(API_KEY, new byte[]{(byte) 0xFB, (byte) 0xFF}));
+        assertEquals("{\"api_key\":\"test\\/key\\\"1\",\"inputs\":{\"image\":{\"type\":\"base64\",\"value\":\"+\\/8=\"}}}",
+                new String(actual, StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void streamedBytes_respectOffsetAndLength() throws Exception {
+        byte[] buffer = new byte[4096];
+        new Random(7).nextBytes(buffer);
+        byte[] slice = new byte[1000];
+        System.arraycopy(buffer, 17, slice, 0, slice.length);
+
+        byte[] actual = streamed(new ImageRequestBody(API_KEY, buffer, 17, 1000));
+        assertArrayEquals(streamed(new ImageRequestBody(API_KEY, slice)), actual);
+    }
+
+    @Test
+    public void streamedBytes_parseBackToOriginalImage() throws Exception {
+        byte[] jpeg = new byte[2048];
+        new Random(3).nextBytes(jpeg);
+
+        JSONObject payload = new JSONObject(new String(streamed(new ImageRequestBody(API_KEY, jpeg)), StandardCharsets.UTF_8));
+        JSONObject image = payload.getJSONObject("inputs").getJSONObject("image");
+
+        assertEquals(API_KEY, payload.getString("api_key"));
+        assertEquals("base64", image.getString("type"));
+        assertArrayEquals(jpeg, Base64.getDecoder().decode(image.getString("value")));
+    }
+
+    @Test
+    public void batchBody_containsImagesInOrder() throws Exception {
+        Random random = new Random(11);
+        byte[][] images = new byte[3][];
+        for (int i = 0; i < images.length; i++) {
+            images[i] = new byte[500 + i * 301];
+            random.nextBytes(images[i]);
+        }
+        byte[] padded = new byte[images[1].length + 9];
+        System.arraycopy(images[1], 0, padded, 9, images[1].length);
+
+        ImageRequestBody body = new ImageRequestBody(API_KEY, new byte[][]{images[0], padded, images[2]},
+                new int[]{0, 9, 0}, new int[]{images[0].length, images[1].length, images[2].length});
+        byte[] bytes = streamed(body);
+        assertEquals(bytes.length, body.contentLength());
+
+        JSONObject payload = new JSONObject(new String(bytes, StandardCharsets.UTF_8));
+        JSONArray inputs = payload.getJSONObject("inputs").getJSONArray("image");
+        assertEquals(3, inputs.length());
+        for (int i = 0; i < images.length; i++) {
+            JSONObject image = inputs.getJSONObject(i);
+            assertEquals("base64", image.getString("type"));
+            assertArrayEquals(images[i], Base64.getDecoder().decode(image.getString("value")));
+        }
+    }
+
+    @Test
+    public void writeDuration_onlyForSingleWrite() throws Exception {
+        ImageRequestBody body = new ImageRequestBody(API_KEY, new byte[10_000]);
+        assertEquals(-1, body.getSingleWriteNanos());
+        streamed(body);
+        assertTrue(body.getSingleWriteNanos() > 0);
+        // Ditulis ulang (retry/hedge): durasinya tidak lagi mewakili satu upload
+        streamed(body);
+        assertEquals(-1, body.getSingleWriteNanos());
+    }
+}
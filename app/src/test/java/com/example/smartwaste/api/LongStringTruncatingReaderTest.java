@@ -0,0 +1,103 @@
+package com.example.smartwaste.api;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+
+import static org.junit.Assert.*;
+
+public class LongStringTruncatingReaderTest {
+
+    // Reader sumber yang hanya memberi beberapa karakter per read(), seperti body respons yang datang bertahap
+    private static final class ChunkedReader extends Reader {
+        private final String text;
+        private final int chunk;
+        private int pos;
+
+        ChunkedReader(String text, int chunk) {
+            this.text = text;
+            this.chunk = chunk;
+        }
+
+        @Override
+        public int read(char[] cbuf, int off, int len) {
+            if (pos == text.length()) return -1;
+            int n = Math.min(Math.min(len, chunk), text.length() - pos);
+            text.getChars(pos, pos + n, cbuf, off);
+            pos += n;
+            return n;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    private static String readAll(Reader in, int bufferSize) throws IOException {
+        StringBuilder sb = new StringBuilder();
+        char[] buffer = new char[bufferSize];
+        int n;
+        while ((n = in.read(buffer, 0, buffer.length)) != -1) {
+            assertTrue("read() tidak boleh mengembalikan 0", n > 0);
+            sb.append(buffer, 0, n);
+        }
+        return sb.toString();
+    }
+
+    private static String truncate(String json, int maxStringLength) throws IOException {
+        return readAll(new LongStringTruncatingReader(new StringReader(json), maxStringLength), 4096);
+    }
+
+    private static String repeat(char c, int count) {
+        StringBuilder sb = new StringBuilder(count);
+        for (int i = 0; i < count; i++) sb.append(c);
+        return sb.toString();
+    }
+
+    @Test
+    public void overLongBase64Value_isCutAndStaysValidJson() throws IOException {
+        String json = "{\"visualization\":{\"type\":\"base64\",\"value\":\"" + repeat('A', 5000)
+                + "\"},\"predictions\":[]}";
+        // Nama field lebih pendek dari batas, jadi hanya nilai Base64 yang terpotong
+        assertEquals("{\"visualization\":{\"type\":\"base64\",\"value\":\"" + repeat('A', 16)
+                + "\"},\"predictions\":[]}", truncate(json, 16));
+    }
+
+    @Test
+    public void shortFieldsAndEscapes_passThroughUnchanged() throws IOException {
+        String json = "{\"class\":\"kaleng \\\"bekas\\\"\",\"path\":\"a\\/b\",\"name\":\"caf\\u00e9\","
+                + "\"confidence\":0.87,\"x\":12.5,\"ok\":true,\"none\":null}";
+        assertEquals(json, truncate(json, 64));
+    }
+
+    @Test
+    public void escapes_countAsOneCharacterAndAreNeverSplit() throws IOException {
+        assertEquals("[\"\\u0041\\n\"]", truncate("[\"\\u0041\\n\\u0042\\t\"]", 2));
+        // Tanda kutip yang di-escape tidak menutup string
+        assertEquals("[\"\\\"a\",1]", truncate("[\"\\\"abc\",1]", 2));
+    }
+
+    @Test
+    public void payloadSplitAcrossReads_givesSameResult() throws IOException {
+        String json = "{\"image\":\"" + repeat('B', 300) + "\",\"class\":\"organik\\u0021\",\"outputs\":[\""
+                + repeat('C', 40) + "\"]}";
+        String expected = truncate(json, 16);
+        for (int chunk = 1; chunk <= 7; chunk++) {
+            for (int bufferSize : new int[]{1, 3, 64}) {
+                Reader reader = new LongStringTruncatingReader(new ChunkedReader(json, chunk), 16);
+                assertEquals("chunk " + chunk + ", buffer " + bufferSize, expected, readAll(reader, bufferSize));
+            }
+        }
+    }
+
+    @Test
+    public void singleCharRead_skipsTheDroppedPart() throws IOException {
+        Reader reader = new LongStringTruncatingReader(new StringReader("[\"" + repeat('D', 100) + "\"]"), 1);
+        StringBuilder sb = new StringBuilder();
+        int c;
+        while ((c = reader.read()) != -1) sb.append((char) c);
+        assertEquals("[\"D\"]", sb.toString());
+    }
+}
@@ -0,0 +1,56 @@
+package com.example.smartwaste.api;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class PredictionBatchTest {
+
+    @Test
+    public void add_growsPastInitialCapacity() {
+        PredictionBatch batch = new PredictionBatch(1);
+        for (int i = 0; i < 20; i++) {
+            batch.add(LabelTable.UNKNOWN, i / 20f, i, i + 1, i + 2, i + 3);
+        }
+        assertEquals(20, batch.size());
+        assertEquals(19f, batch.left(19), 0f);
+        assertEquals(22f, batch.bottom(19), 0f);
+        assertEquals(19 / 20f, batch.confidence(19), 0f);
+        assertEquals(-1, batch.trackId(19));
+    }
+
+    @Test
+    public void copyBoxesTo_writesFourFloatsPerBox() {
+        PredictionBatch batch = new PredictionBatch();
+        batch.add(LabelTable.UNKNOWN, 0.5f, 1f, 2f, 3f, 4f);
+        batch.add(LabelTable.UNKNOWN, 0.5f, 5f, 6f, 7f, 8f);
+        float[] dest = new float[10];
+        batch.copyBoxesTo(dest, 2);
+        assertArrayEquals(new float[]{0f, 0f, 1f, 2f, 3f, 4f, 5f, 6f, 7f, 8f}, dest, 0f);
+        assertEquals(4f, batch.centerX(1) - batch.centerX(0), 0f);
+    }
+
+    @Test
+    public void set_replacesEntryInPlace() {
+        PredictionBatch batch = new PredictionBatch();
+        short classId = LabelTable.intern("organik");
+        batch.add(classId, 0.4f, 0f, 0f, 10f, 10f);
+        batch.set(0, classId, 0.9f, 1f, 1f, 11f, 11f, 7);
+        assertEquals(1, batch.size());
+        assertEquals(0.9f, batch.confidence(0), 0f);
+        assertEquals(7, batch.trackId(0));
+        assertEquals(10f, batch.width(0), 0f);
+    }
+
+    @Test
+    public void labelTable_mapsRawNamesWithSameReadableNameToOneId() {
+        short upper = LabelTable.intern("B3");
+        short lower = LabelTable.intern("b3");
+        short readable = LabelTable.intern("Sampah B3");
+        assertEquals(upper, lower);
+        assertEquals(upper, readable);
+        assertEquals("Sampah B3", LabelTable.name(upper));
+        assertNotEquals(upper, LabelTable.intern("anorganik"));
+        assertEquals("Unknown", LabelTable.name(LabelTable.UNKNOWN));
+    }
+}
@@ -0,0 +1,154 @@
+package com.example.smartwaste.api;
+
+import com.example.smartwaste.detector.Detector;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+
+import static org.junit.Assert.*;
+
+public class RequestBatcherTest {
+
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+    private final List<int[]> sentLengths = new ArrayList<>();
+    private final List<RequestBatcher.BatchCallback> sentCallbacks = new ArrayList<>();
+    private int cancelledBatches;
+
+    private final RequestBatcher.Transport transport = (jpegData, offsets, lengths, callback) -> {
+        sentLengths.add(lengths);
+        sentCallbacks.add(callback);
+        return () -> cancelledBatches++;
+    };
+
+    @After
+    public void tearDown() {
+        scheduler.shutdownNow();
+    }
+
+    private static final class RecordingCallback implements RoboflowAPI.ApiCallback {
+        final List<PredictionBatch> successes = new ArrayList<>();
+        final List<String> errors = new ArrayList<>();
+
+        @Override
+        public void onSuccess(List<RoboflowAPI.Prediction> predictions) {
+            onSuccess(PredictionBatch.fromPredictions(predictions));
+        }
+
+        @Override
+        public void onSuccess(PredictionBatch predictions) {
+            successes.add(predictions);
+        }
+
+        @Override
+        public void onError(String error) {
+            errors.add(error);
+        }
+    }
+
+    private static PredictionBatch predictions(String className) {
+        PredictionBatch batch = new PredictionBatch(1);
+        batch.add(LabelTable.intern(className), 0.9f, 0f, 0f, 1f, 1f);
+        return batch;
+    }
+
+    @Test
+    public void fullBatch_isSentAndResultsSplitPerFrame() {
+        RequestBatcher batcher = new RequestBatcher(transport, scheduler, 3, Integer.MAX_VALUE, 60_000);
+        RecordingCallback[] callbacks = new RecordingCallback[3];
+        for (int i = 0; i < 3; i++) {
+            callbacks[i] = new RecordingCallback();
+            batcher.submit(new byte[10 + i], 0, 10 + i, callbacks[i]);
+            assertEquals(i == 2 ? 1 : 0, sentLengths.size());
+        }
+        assertArrayEquals(new int[]{10, 11, 12}, sentLengths.get(0));
+
+        sentCallbacks.get(0).onSuccess(Arrays.asList(predictions("a"), predictions("b"), predictions("c")));
+        assertEquals("b", callbacks[1].successes.get(0).className(0));
+        assertEquals("c", callbacks[2].successes.get(0).className(0));
+        assertEquals(1, callbacks[0].successes.size());
+    }
+
+    @Test
+    public void byteLimit_flushesPendingBeforeOversizedFrame() {
+        RequestBatcher batcher = new RequestBatcher(transport, scheduler, 10, 100, 60_000);
+        batcher.submit(new byte[60], 0, 60, new RecordingCallback());
+        batcher.submit(new byte[60], 0, 60, new RecordingCallback());
+        assertEquals(1, sentLengths.size());
+        assertArrayEquals(new int[]{60}, sentLengths.get(0));
+
+        batcher.flush();
+        assertEquals(2, sentLengths.size());
+        assertEquals(2, batcher.getBatchCount());
+        assertEquals(2, batcher.getFrameCount());
+    }
+
+    @Test
+    public void delayWindow_flushesPartialBatch() throws Exception {
+        RequestBatcher batcher = new RequestBatcher(transport, scheduler, 10, Integer.MAX_VALUE, 20);
+        batcher.submit(new byte[5], 0, 5, new RecordingCallback());
+        batcher.submit(new byte[5], 0, 5, new RecordingCallback());
+        // Menunggu tugas flush terjadwal selesai di scheduler
+        Thread.sleep(60);
+        scheduler.submit(() -> { }).get();
+        assertEquals(1, sentLengths.size());
+        assertEquals(2, sentLengths.get(0).length);
+    }
+
+    @Test
+    public void cancelBeforeSend_removesFrameAndReportsCancelled() {
+        RequestBatcher batcher = new RequestBatcher(transport, scheduler, 2, Integer.MAX_VALUE, 60_000);
+        RecordingCallback cancelled = new RecordingCallback();
+        Detector.Cancellable handle = batcher.submit(new byte[5], 0, 5, cancelled);
+        handle.cancel();
+        assertEquals(Arrays.asList(RequestBatcher.CANCELLED_ERROR), cancelled.errors);
+
+        batcher.submit(new byte[7], 0, 7, new RecordingCallback());
+        batcher.submit(new byte[8], 0, 8, new RecordingCallback());
+        assertArrayEquals(new int[]{7, 8}, sentLengths.get(0));
+    }
+
+    @Test
+    public void cancelAfterSend_cancelsRequestOnlyWhenAllFramesCancelled() {
+        RequestBatcher batcher = new RequestBatcher(transport, scheduler, 2, Integer.MAX_VALUE, 60_000);
+        RecordingCallback first = new RecordingCallback();
+        RecordingCallback second = new RecordingCallback();
+        Detector.Cancellable firstHandle = batcher.submit(new byte[5], 0, 5, first);
+        Detector.Cancellable secondHandle = batcher.submit(new byte[5], 0, 5, second);
+
+        firstHandle.cancel();
+        assertEquals(0, cancelledBatches);
+        sentCallbacks.get(0).onSuccess(Arrays.asList(predictions("a"), predictions("b")));
+        assertEquals(Arrays.asList(RequestBatcher.CANCELLED_ERROR), first.errors);
+        assertEquals(1, second.successes.size());
+
+        RequestBatcher other = new RequestBatcher(transport, scheduler, 2, Integer.MAX_VALUE, 60_000);
+        Detector.Cancellable a = other.submit(new byte[5], 0, 5, new RecordingCallback());
+        Detector.Cancellable b = other.submit(new byte[5], 0, 5, new RecordingCallback());
+        a.cancel();
+        b.cancel();
+        assertEquals(1, cancelledBatches);
+        secondHandle.cancel();
+        assertEquals(1, cancelledBatches);
+    }
+
+    @Test
+    public void outputCountMismatch_failsEveryFrame() {
+        RequestBatcher batcher = new RequestBatcher(transport, scheduler, 2, Integer.MAX_VALUE, 60_000);
+        RecordingCallback first = new RecordingCallback();
+        RecordingCallback second = new RecordingCallback();
+        batcher.submit(new byte[5], 0, 5, first);
+        batcher.submit(new byte[5], 0, 5, second);
+
+        sentCallbacks.get(0).onSuccess(Collections.singletonList(predictions("a")));
+        assertEquals(1, first.errors.size());
+        assertEquals(1, second.errors.size());
+        assertTrue(first.successes.isEmpty());
+    }
+}
@@ -0,0 +1,284 @@
+package com.example.smartwaste.api;
+
+import androidx.annotation.NonNull;
+
+import com.example.smartwaste.detector.Detector;
+import com.example.smartwaste.pool.ArrayPool;
+import com.example.smartwaste.pool.MemoryBudget;
+import com.example.smartwaste.pool.ResourcePool;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import okhttp3.mockwebserver.SocketPolicy;
+
+import static org.junit.Assert.*;
+
+public class ResilientCallerTest {
+
+    private MockWebServer server;
+    private ScheduledExecutorService scheduler;
+    private ResilientCaller caller;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new MockWebServer();
+        server.start();
+        scheduler = Executors.newSingleThreadScheduledExecutor();
+        caller = new ResilientCaller(new OkHttpClient(), scheduler, new Random(1));
+        caller.setRetryPolicy(3, 10, 50);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        scheduler.shutdownNow();
+        server.shutdown();
+    }
+
+    private static final class Result implements ResilientCaller.Callback {
+        final CountDownLatch done = new CountDownLatch(1);
+        int code;
+        String body;
+        IOException error;
+        boolean canceled;
+        Thread thread;
+
+        @Override
+        public void onResponse(@NonNull Response response) {
+            try (ResponseBody responseBody = response.body()) {
+                code = response.code();
+                body = responseBody != null ? responseBody.string() : null;
+            } catch (IOException e) {
+                error = e;
+            }
+            done.countDown();
+        }
+
+        @Override
+        public void onFailure(@NonNull IOException e, boolean canceled) {
+            this.error = e;
+            this.canceled = canceled;
+            this.thread = Thread.currentThread();
+            done.countDown();
+        }
+
+        void await() throws InterruptedException {
+            assertTrue("callback tidak dipanggil", done.await(5, TimeUnit.SECONDS));
+        }
+    }
+
+    private Request request() {
+        return new Request.Builder().url(server.url("/infer"))
+                .post(RequestBody.create("{}", ImageRequestBody.JSON)).build();
+    }
+
+    private Result execute(long timeoutMs) throws InterruptedException {
+        Result result = new Result();
+        caller.execute(request(), timeoutMs, result);
+        result.await();
+        return result;
+    }
+
+    @Test
+    public void retryableStatus_isRetriedUntilSuccess() throws Exception {
+        server.enqueue(new MockResponse().setResponseCode(503));
+        server.enqueue(new MockResponse().setBody("ok"));
+
+        Result result = execute(0);
+        assertEquals(200, result.code);
+        assertEquals("ok", result.body);
+        assertEquals(2, server.getRequestCount());
+    }
+
+    @Test
+    public void nonRetryableStatus_isReturnedImmediately() throws Exception {
+        server.enqueue(new MockResponse().setResponseCode(400).setBody("bad"));
+
+        Result result = execute(0);
+        assertEquals(400, result.code);
+        assertEquals(1, server.getRequestCount());
+    }
+
+    @Test
+    public void droppedConnection_isRetried() throws Exception {
+        server.enqueue(new MockResponse().setSocketPolicy(SocketPolicy.DISCONNECT_AT_START));
+        server.enqueue(new MockResponse().setBody("ok"));
+
+        Result result = execute(0);
+        assertEquals(200, result.code);
+        assertEquals(2, server.getRequestCount());
+    }
+
+    @Test
+    public void exhaustedAttempts_returnLastResponse() throws Exception {
+        for (int i = 0; i < 3; i++) {
+            server.enqueue(new MockResponse().setResponseCode(502));
+        }
+
+        Result result = execute(0);
+        assertEquals(502, result.code);
+        assertEquals(3, server.getRequestCount());
+    }
+
+    @Test
+    public void deadline_boundsSlowServer() throws Exception {
+        server.enqueue(new MockResponse().setBody("late").setHeadersDelay(3, TimeUnit.SECONDS));
+
+        long start = System.nanoTime();
+        Result result = execute(300);
+        long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+
+        assertNotNull(result.error);
+        assertFalse(result.canceled);
+        assertTrue(result.error.getMessage(), result.error.getMessage().contains("deadline"));
+        assertTrue(result.error instanceof ResilientCaller.DeadlineExceededException);
+        assertTrue("selesai setelah " + elapsedMs + " ms", elapsedMs < 1500);
+    }
+
+    @Test
+    public void hedge_winsOverSlowPrimaryAndLoserIsCancelled() throws Exception {
+        for (int i = 0; i < 20; i++) {
+            caller.getLatency().record(TimeUnit.MILLISECONDS.toNanos(50));
+        }
+        caller.setHedging(true, 100);
+        AtomicInteger requests = new AtomicInteger();
+        server.setDispatcher(new Dispatcher() {
+            @NonNull
+            @Override
+            public MockResponse dispatch(@NonNull RecordedRequest request) {
+                if (requests.getAndIncrement() == 0) {
+                    return new MockResponse().setBody("slow").setHeadersDelay(3, TimeUnit.SECONDS);
+                }
+                return new MockResponse().setBody("hedge");
+            }
+        });
+
+        long start = System.nanoTime();
+        Result result = execute(5_000);
+        long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+
+        assertEquals("hedge", result.body);
+        assertEquals(2, requests.get());
+        assertTrue("selesai setelah " + elapsedMs + " ms", elapsedMs < 2_000);
+    }
+
+    @Test
+    public void bodyLease_isHeldByEveryCallUntilItCompletes() throws Exception {
+        for (int i = 0; i < 20; i++) {
+            caller.getLatency().record(TimeUnit.MILLISECONDS.toNanos(50));
+        }
+        caller.setHedging(true, 100);
+        ArrayPool<byte[]> pool = ArrayPool.ofBytes("body", new MemoryBudget(1 << 20, false));
+        ResourcePool.Lease<byte[]> lease = pool.acquireAtLeast(1024);
+        AtomicInteger requests = new AtomicInteger();
+        AtomicInteger refsDuringHedge = new AtomicInteger();
+        server.setDispatcher(new Dispatcher() {
+            @NonNull
+            @Override
+            public MockResponse dispatch(@NonNull RecordedRequest request) {
+                if (requests.getAndIncrement() == 0) {
+                    return new MockResponse().setBody("slow").setHeadersDelay(3, TimeUnit.SECONDS);
+                }
+                refsDuringHedge.set(lease.getRefCount());
+                return new MockResponse().setBody("hedge");
+            }
+        });
+
+        Result result = new Result();
+        caller.execute(new Request.Builder().url(server.url("/infer"))
+                .post(RequestBody.create("{}", ImageRequestBody.JSON))
+                .tag(ResourcePool.Lease.class, lease).build(), 5_000, result);
+        result.await();
+        assertEquals("hedge", result.body);
+        // Pemilik + attempt utama + hedge
+        assertEquals(3, refsDuringHedge.get());
+
+        // Pemilik melepas saat hasil final; buffer baru kembali ke pool setelah Call yang kalah selesai
+        lease.release();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (pool.getIdleCount() == 0 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(0, lease.getRefCount());
+        assertEquals(1, pool.getIdleCount());
+    }
+
+    @Test
+    public void cancel_reportsCanceledOnce() throws Exception {
+        server.enqueue(new MockResponse().setBody("late").setHeadersDelay(3, TimeUnit.SECONDS));
+
+        Result result = new Result();
+        Detector.Cancellable handle = caller.execute(request(), 0, result);
+        server.takeRequest(2, TimeUnit.SECONDS);
+        handle.cancel();
+        handle.cancel();
+        result.await();
+
+        assertTrue(result.canceled);
+        assertEquals(1, server.getRequestCount());
+    }
+
+    @Test
+    public void cancelDuringBackoff_completesOffCallerThread() throws Exception {
+        server.enqueue(new MockResponse().setResponseCode(503).setHeader("Retry-After", "2"));
+
+        Result result = new Result();
+        Detector.Cancellable handle = caller.execute(request(), 0, result);
+        server.takeRequest(2, TimeUnit.SECONDS);
+        // Beri waktu respons 503 diproses sehingga retry sedang menunggu backoff
+        Thread.sleep(200);
+        handle.cancel();
+        result.await();
+
+        assertTrue(result.canceled);
+        // DetectionScheduler memanggil cancel() sambil memegang lock-nya
+        assertNotSame(Thread.currentThread(), result.thread);
+        assertEquals(1, server.getRequestCount());
+    }
+
+    @Test
+    public void retryAfterSchedulerShutdown_returnsLastResponse() throws Exception {
+        server.enqueue(new MockResponse().setResponseCode(503));
+        server.enqueue(new MockResponse().setBody("ok"));
+        scheduler.shutdown();
+
+        Result result = execute(0);
+        assertEquals(503, result.code);
+        assertEquals(1, server.getRequestCount());
+    }
+
+    @Test
+    public void cancelAfterSchedulerShutdown_stillCompletesOffCallerThread() throws Exception {
+        server.enqueue(new MockResponse().setResponseCode(503).setHeader("Retry-After", "2"));
+
+        Result result = new Result();
+        Detector.Cancellable handle = caller.execute(request(), 0, result);
+        server.takeRequest(2, TimeUnit.SECONDS);
+        Thread.sleep(200);
+        scheduler.shutdown();
+        handle.cancel();
+        result.await();
+
+        assertTrue(result.canceled);
+        assertNotSame(Thread.currentThread(), result.thread);
+        assertEquals(1, server.getRequestCount());
+    }
+}
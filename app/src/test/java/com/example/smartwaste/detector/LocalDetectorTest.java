@@ -0,0 +1,26 @@
+package com.example.smartwaste.detector;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+public class LocalDetectorTest {
+
+    @Test
+    public void sortKey_ordersByScoreDescendingThenIndex() {
+        float[] scores = {0.3f, 0.9f, 0.5f, 0.9f, 0.26f};
+        long[] keys = new long[scores.length];
+        for (int i = 0; i < scores.length; i++) {
+            keys[i] = LocalDetector.sortKey(scores[i], i);
+        }
+        Arrays.sort(keys);
+
+        int[] order = new int[keys.length];
+        for (int i = 0; i < keys.length; i++) {
+            order[i] = LocalDetector.candidateIndex(keys[i]);
+        }
+        assertArrayEquals(new int[] {1, 3, 2, 0, 4}, order);
+    }
+}
@@ -0,0 +1,38 @@
+package com.example.smartwaste.detector;
+
+import com.example.smartwaste.api.PredictionBatch;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class RoiDetectorTest {
+
+    private static final short PLASTIC = 1;
+
+    @Test
+    public void toFrame_undoesCropOffsetAndUpscale() {
+        // Area 100x50 mulai (40, 60) digambar ke bitmap 200x75: skala 2 horizontal, 1.5 vertikal
+        int[] origin = {40, 60, 140, 110};
+        PredictionBatch crop = new PredictionBatch();
+        crop.add(PLASTIC, 0.8f, 0, 0, 200, 75);
+        crop.add(PLASTIC, 0.8f, 20, 30, 60, 45);
+
+        float[] box = new float[4];
+        RoiDetector.toFrame(crop, 0, origin, 2f, 1.5f, box);
+        assertArrayEquals(new float[] {40, 60, 140, 110}, box, 1e-4f);
+
+        RoiDetector.toFrame(crop, 1, origin, 2f, 1.5f, box);
+        assertArrayEquals(new float[] {50, 80, 70, 90}, box, 1e-4f);
+    }
+
+    @Test
+    public void toFrame_withoutScaleOnlyShifts() {
+        PredictionBatch crop = new PredictionBatch();
+        crop.add(PLASTIC, 0.8f, 5, 6, 15, 16);
+
+        float[] box = new float[4];
+        RoiDetector.toFrame(crop, 0, new int[] {100, 200, 196, 296}, 1f, 1f, box);
+        assertArrayEquals(new float[] {105, 206, 115, 216}, box, 0f);
+    }
+}
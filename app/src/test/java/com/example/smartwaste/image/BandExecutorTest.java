@@ -0,0 +1,165 @@
+package com.example.smartwaste.image;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import static org.junit.Assert.*;
+
+public class BandExecutorTest {
+
+    private BandExecutor bands;
+
+    @Before
+    public void setUp() {
+        // Tanpa batas ukuran supaya frame kecil pun dibagi menjadi pita
+        bands = new BandExecutor(4, 0);
+    }
+
+    @After
+    public void tearDown() {
+        bands.close();
+    }
+
+    // Semi-planar (pixel stride 2) dengan row stride ber-padding, seperti buffer CameraX
+    private static YuvFrame frame(int width, int height, long seed) {
+        Random random = new Random(seed);
+        int yRowStride = width + 16;
+        int cw = (width + 1) / 2;
+        int ch = (height + 1) / 2;
+        ByteBuffer y = ByteBuffer.allocate(yRowStride * height);
+        random.nextBytes(y.array());
+        ByteBuffer vu = ByteBuffer.allocate(yRowStride * ch);
+        random.nextBytes(vu.array());
+        ByteBuffer v = vu.duplicate();
+        vu.position(1);
+        ByteBuffer u = vu.slice();
+        YuvFrame frame = new YuvFrame();
+        frame.copyFrom(y, yRowStride, 1, u, v, yRowStride, 2, width, height);
+        assertEquals(cw * ch, frame.u.length);
+        return frame;
+    }
+
+    private void assertSameAsSequential(YuvFrame frame, FramePreprocessor.Mode mode) {
+        FramePreprocessor sequential = new FramePreprocessor(416, mode);
+        FramePreprocessor parallel = new FramePreprocessor(416, mode);
+        parallel.setBandExecutor(bands);
+        for (int rotation = 0; rotation < 360; rotation += 90) {
+            int[] expected = sequential.process(frame, rotation).clone();
+            // Dua kali: frame kedua memakai akumulator yang dikosongkan oleh frame pertama
+            parallel.process(frame, rotation);
+            int[] actual = parallel.process(frame, rotation);
+            int size = sequential.getOutputWidth() * sequential.getOutputHeight();
+            for (int i = 0; i < size; i++) {
+                if (expected[i] != actual[i]) {
+                    fail(mode + " rotasi " + rotation + " berbeda di piksel " + i);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void area_matchesSequentialForEveryRotation() {
+        assertSameAsSequential(frame(640, 480, 1), FramePreprocessor.Mode.AREA);
+        // Ukuran ganjil dan rasio downscale kecil: banyak batas pita harus digeser ke awal sel
+        assertSameAsSequential(frame(437, 419, 2), FramePreprocessor.Mode.AREA);
+    }
+
+    @Test
+    public void bilinear_matchesSequentialForEveryRotation() {
+        assertSameAsSequential(frame(640, 480, 3), FramePreprocessor.Mode.BILINEAR);
+        assertSameAsSequential(frame(201, 99, 4), FramePreprocessor.Mode.BILINEAR);
+    }
+
+    @Test
+    public void converter_matchesSequential() {
+        YuvFrame frame = frame(321, 241, 5);
+        int[] expected = new int[frame.width * frame.height];
+        YuvToRgbConverter.convert(frame, expected);
+        YuvToRgbConverter converter = new YuvToRgbConverter();
+        converter.setBandExecutor(bands);
+        int[] actual = converter.convert(frame);
+        for (int i = 0; i < expected.length; i++) {
+            assertEquals(expected[i], actual[i]);
+        }
+    }
+
+    @Test
+    public void splitRows_alignsBoundariesAndCoversAllRows() {
+        int[] starts = new int[4];
+        BandExecutor.splitRows(101, 2, 3, starts);
+        assertEquals(0, starts[0]);
+        assertEquals(101, starts[3]);
+        for (int b = 1; b < 3; b++) {
+            assertEquals(0, starts[b] % 2);
+            assertTrue(starts[b] >= starts[b - 1]);
+        }
+    }
+
+    @Test
+    public void forEachBand_runsEveryRowOnceAndRethrowsFailures() {
+        AtomicInteger rows = new AtomicInteger();
+        for (int i = 0; i < 100; i++) {
+            bands.forEachBand(1000, 2, 1000, (start, end) -> rows.addAndGet(end - start));
+        }
+        assertEquals(100_000, rows.get());
+
+        try {
+            bands.forEachBand(1000, 2, 1000, (start, end) -> {
+                if (start > 0) throw new IllegalStateException("pita " + start);
+            });
+            fail();
+        } catch (IllegalStateException expected) {
+            assertTrue(expected.getMessage().startsWith("pita"));
+        }
+        // Executor tetap bisa dipakai setelah pita gagal
+        rows.set(0);
+        bands.forEachBand(10, 2, 10, (start, end) -> rows.addAndGet(end - start));
+        assertEquals(10, rows.get());
+    }
+
+    @Test
+    public void changingParallelismBetweenCalls_runsEveryBandOnce() {
+        // Worker dari panggilan sebelumnya bisa masih keluar dari drain saat pekerjaan baru dimulai
+        int rows = 64;
+        for (int i = 0; i < 200_000; i++) {
+            bands.setParallelism(i % 2 == 0 ? 2 : 4);
+            AtomicIntegerArray covered = new AtomicIntegerArray(rows);
+            bands.forEachBand(rows, 2, rows, (start, end) -> {
+                for (int row = start; row < end; row++) covered.incrementAndGet(row);
+            });
+            for (int row = 0; row < rows; row++) {
+                if (covered.get(row) != 1) fail("panggilan " + i + " baris " + row + " dikerjakan " + covered.get(row) + "x");
+            }
+        }
+    }
+
+    @Test
+    public void smallFramesAndParallelismOne_runInline() {
+        BandExecutor thresholded = new BandExecutor(4, 10_000);
+        try {
+            assertEquals(1, thresholded.bandsFor(9_999));
+            assertEquals(4, thresholded.bandsFor(10_000));
+            thresholded.setParallelism(1);
+            assertEquals(1, thresholded.bandsFor(1_000_000));
+            Thread caller = Thread.currentThread();
+            thresholded.forEachBand(100, 2, 1_000_000, (start, end) -> assertSame(caller, Thread.currentThread()));
+        } finally {
+            thresholded.close();
+        }
+    }
+
+    @Test
+    public void chooseParallelism_usesHalfTheCoresAndBacksOffWhenHot() {
+        assertEquals(4, BandExecutor.chooseParallelism(8, Float.NaN));
+        assertEquals(1, BandExecutor.chooseParallelism(1, Float.NaN));
+        assertEquals(2, BandExecutor.chooseParallelism(4, 0.3f));
+        assertEquals(2, BandExecutor.chooseParallelism(8, 0.8f));
+        assertEquals(1, BandExecutor.chooseParallelism(8, 1.0f));
+    }
+}
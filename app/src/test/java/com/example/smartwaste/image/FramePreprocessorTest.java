@@ -0,0 +1,139 @@
+package com.example.smartwaste.image;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+public class FramePreprocessorTest {
+
+    // Frame 4x2: blok 2x2 kiri rata-rata luma 25 dengan chroma (U 128, V 200),
+    // blok kanan rata-rata luma 115 dengan chroma (U 60, V 128)
+    private static final int[] LUMA = {
+            10, 20, 100, 110,
+            30, 40, 120, 130,
+    };
+    // toArgb(25, 128, 200) dan toArgb(115, 60, 128), dihitung manual dengan BT.601 full range
+    private static final int LEFT_BLOCK = 0xFF7E0019;
+    private static final int RIGHT_BLOCK = 0xFF738A00;
+    // Setiap piksel sumber dengan chroma kolomnya, untuk kasus tanpa resize
+    private static final int[] PIXELS = {
+            0xFF6F000A, 0xFF790014, 0xFF647B00, 0xFF6E8500,
+            0xFF83001E, 0xFF8D0028, 0xFF788F00, 0xFF82990A,
+    };
+
+    private static byte[] bytes(int... values) {
+        byte[] data = new byte[values.length];
+        for (int i = 0; i < values.length; i++) data[i] = (byte) values[i];
+        return data;
+    }
+
+    private static YuvFrame planarFrame() {
+        YuvFrame frame = new YuvFrame();
+        frame.width = 4;
+        frame.height = 2;
+        frame.y = bytes(LUMA);
+        frame.yRowStride = 4;
+        frame.u = bytes(128, 60);
+        frame.v = bytes(200, 128);
+        frame.uvRowStride = 2;
+        frame.uvPixelStride = 1;
+        return frame;
+    }
+
+    // Piksel yang sama dalam layout NV12 (U di byte 0) dengan padding baris
+    private static YuvFrame interleavedFrame() {
+        YuvFrame frame = new YuvFrame();
+        frame.width = 4;
+        frame.height = 2;
+        frame.y = bytes(10, 20, 100, 110, 0, 0, 30, 40, 120, 130, 0, 0);
+        frame.yRowStride = 6;
+        byte[] uv = bytes(128, 200, 60, 128, 0, 0);
+        frame.u = uv;
+        frame.v = uv;
+        frame.uOffset = 0;
+        frame.vOffset = 1;
+        frame.uvRowStride = 6;
+        frame.uvPixelStride = 2;
+        return frame;
+    }
+
+    private static int[] process(FramePreprocessor preprocessor, YuvFrame frame, int rotationDegrees) {
+        int[] out = preprocessor.process(frame, rotationDegrees);
+        return Arrays.copyOf(out, preprocessor.getOutputWidth() * preprocessor.getOutputHeight());
+    }
+
+    @Test
+    public void outputSize_keepsAspectRatioOfRotatedFrame() {
+        FramePreprocessor preprocessor = new FramePreprocessor(2, FramePreprocessor.Mode.AREA);
+        preprocessor.process(planarFrame(), 0);
+        assertEquals(2, preprocessor.getOutputWidth());
+        assertEquals(1, preprocessor.getOutputHeight());
+
+        preprocessor.process(planarFrame(), 90);
+        assertEquals(1, preprocessor.getOutputWidth());
+        assertEquals(2, preprocessor.getOutputHeight());
+    }
+
+    @Test
+    public void area_averagesEachBlockWithItsChroma() {
+        FramePreprocessor preprocessor = new FramePreprocessor(2, FramePreprocessor.Mode.AREA);
+        assertArrayEquals(new int[]{LEFT_BLOCK, RIGHT_BLOCK}, process(preprocessor, planarFrame(), 0));
+        assertArrayEquals(new int[]{LEFT_BLOCK, RIGHT_BLOCK}, process(preprocessor, interleavedFrame(), 0));
+    }
+
+    @Test
+    public void area_rotatesClockwise() {
+        FramePreprocessor preprocessor = new FramePreprocessor(2, FramePreprocessor.Mode.AREA);
+        // 90: kolom kiri sumber menjadi baris atas; 270: kolom kanan sumber menjadi baris atas
+        assertArrayEquals(new int[]{LEFT_BLOCK, RIGHT_BLOCK}, process(preprocessor, planarFrame(), 90));
+        assertArrayEquals(new int[]{RIGHT_BLOCK, LEFT_BLOCK}, process(preprocessor, planarFrame(), 180));
+        assertArrayEquals(new int[]{RIGHT_BLOCK, LEFT_BLOCK}, process(preprocessor, planarFrame(), 270));
+    }
+
+    @Test
+    public void bilinear_atSourceSizeReproducesEveryPixel() {
+        FramePreprocessor preprocessor = new FramePreprocessor(4, FramePreprocessor.Mode.BILINEAR);
+        assertArrayEquals(PIXELS, process(preprocessor, planarFrame(), 0));
+        assertArrayEquals(PIXELS, process(preprocessor, interleavedFrame(), 0));
+
+        int[] reversed = new int[PIXELS.length];
+        for (int i = 0; i < PIXELS.length; i++) reversed[i] = PIXELS[PIXELS.length - 1 - i];
+        assertArrayEquals(reversed, process(preprocessor, planarFrame(), 180));
+    }
+
+    @Test
+    public void bilinear_rotates90Clockwise() {
+        FramePreprocessor preprocessor = new FramePreprocessor(4, FramePreprocessor.Mode.BILINEAR);
+        int[] out = process(preprocessor, planarFrame(), 90);
+        assertEquals(2, preprocessor.getOutputWidth());
+        assertEquals(4, preprocessor.getOutputHeight());
+        // Baris atas hasil = kolom kiri sumber dari bawah ke atas
+        assertArrayEquals(new int[]{
+                PIXELS[4], PIXELS[0],
+                PIXELS[5], PIXELS[1],
+                PIXELS[6], PIXELS[2],
+                PIXELS[7], PIXELS[3],
+        }, out);
+    }
+
+    @Test
+    public void areaAtSourceSize_reproducesEveryPixel() {
+        FramePreprocessor preprocessor = new FramePreprocessor(4, FramePreprocessor.Mode.AREA);
+        assertArrayEquals(PIXELS, process(preprocessor, planarFrame(), 0));
+    }
+
+    @Test
+    public void areaWithUpscale_fallsBackToBilinear() {
+        FramePreprocessor preprocessor = new FramePreprocessor(8, FramePreprocessor.Mode.AREA);
+        int[] out = process(preprocessor, planarFrame(), 0);
+        assertEquals(8, preprocessor.getOutputWidth());
+        assertEquals(4, preprocessor.getOutputHeight());
+        // Posisi sumber dijepit ke tepi, jadi sudut hasil sama persis dengan sudut sumber
+        assertEquals(PIXELS[0], out[0]);
+        assertEquals(PIXELS[3], out[7]);
+        assertEquals(PIXELS[4], out[24]);
+        assertEquals(PIXELS[7], out[31]);
+    }
+}
@@ -0,0 +1,174 @@
+package com.example.smartwaste.image;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class PlaneLayoutTest {
+
+    private static final int WIDTH = 101;
+    private static final int HEIGHT = 77;
+    private static final int Y_ROW_STRIDE = 128;
+
+    private static final class Planes {
+        ByteBuffer y, u, v;
+        int uvRowStride, uvPixelStride;
+
+        PlaneLayout probe() {
+            return PlaneLayout.probe(y, Y_ROW_STRIDE, 1, u, v, uvRowStride, uvPixelStride, WIDTH, HEIGHT);
+        }
+    }
+
+    private static ByteBuffer luma(Random random) {
+        // Baris terakhir tanpa padding, seperti buffer kamera
+        ByteBuffer y = ByteBuffer.allocateDirect(Y_ROW_STRIDE * (HEIGHT - 1) + WIDTH);
+        for (int i = 0; i < y.capacity(); i++) y.put(i, (byte) random.nextInt(256));
+        return y;
+    }
+
+    private static ByteBuffer slice(ByteBuffer buffer, int offset, int length) {
+        ByteBuffer duplicate = buffer.duplicate();
+        duplicate.position(offset);
+        duplicate.limit(offset + length);
+        return duplicate.slice();
+    }
+
+    // Satu buffer interleaved; vFirst = NV21 (V di byte 0), selain itu NV12
+    private static Planes semiPlanar(boolean vFirst, long seed) {
+        Random random = new Random(seed);
+        Planes planes = new Planes();
+        planes.y = luma(random);
+        planes.uvRowStride = Y_ROW_STRIDE;
+        planes.uvPixelStride = 2;
+        int ch = (HEIGHT + 1) / 2;
+        ByteBuffer shared = ByteBuffer.allocateDirect(Y_ROW_STRIDE * (ch - 1) + (WIDTH + 1) / 2 * 2);
+        for (int i = 0; i < shared.capacity(); i++) shared.put(i, (byte) random.nextInt(256));
+        ByteBuffer first = slice(shared, 0, shared.capacity() - 1);
+        ByteBuffer second = slice(shared, 1, shared.capacity() - 1);
+        planes.v = vFirst ? first : second;
+        planes.u = vFirst ? second : first;
+        return planes;
+    }
+
+    private static Planes planar(long seed) {
+        Random random = new Random(seed);
+        Planes planes = new Planes();
+        planes.y = luma(random);
+        planes.uvRowStride = 64;
+        planes.uvPixelStride = 1;
+        int size = planes.uvRowStride * ((HEIGHT + 1) / 2 - 1) + (WIDTH + 1) / 2;
+        planes.u = ByteBuffer.allocateDirect(size);
+        planes.v = ByteBuffer.allocateDirect(size);
+        for (int i = 0; i < size; i++) {
+            planes.u.put(i, (byte) random.nextInt(256));
+            planes.v.put(i, (byte) random.nextInt(256));
+        }
+        return planes;
+    }
+
+    private static YuvFrame genericCopy(Planes planes) {
+        YuvFrame frame = new YuvFrame();
+        frame.copyFrom(planes.y, Y_ROW_STRIDE, 1, planes.u, planes.v, planes.uvRowStride, planes.uvPixelStride,
+                WIDTH, HEIGHT);
+        return frame;
+    }
+
+    private static void assertSameImage(YuvFrame expected, YuvFrame actual) {
+        assertArrayEquals(new YuvToRgbConverter().convert(expected), new YuvToRgbConverter().convert(actual));
+        FramePreprocessor reference = new FramePreprocessor(64, FramePreprocessor.Mode.AREA);
+        FramePreprocessor probed = new FramePreprocessor(64, FramePreprocessor.Mode.AREA);
+        for (int rotation = 0; rotation < 360; rotation += 90) {
+            int[] want = reference.process(expected, rotation);
+            int[] got = probed.process(actual, rotation);
+            int size = reference.getOutputWidth() * reference.getOutputHeight();
+            for (int i = 0; i < size; i++) {
+                if (want[i] != got[i]) fail("rotasi " + rotation + " berbeda di piksel " + i);
+            }
+        }
+    }
+
+    @Test
+    public void interleavedVuIsCopiedAsOneBuffer() {
+        Planes planes = semiPlanar(true, 1);
+        PlaneLayout layout = planes.probe();
+        assertEquals(PlaneLayout.Chroma.VU_SHARED, layout.chroma);
+        assertTrue(layout.definitive);
+
+        YuvFrame frame = new YuvFrame();
+        frame.copyFrom(layout, planes.y, planes.u, planes.v);
+        assertSame(frame.u, frame.v);
+        assertEquals(1, frame.uOffset);
+        assertEquals(0, frame.vOffset);
+        assertSameImage(genericCopy(planes), frame);
+    }
+
+    @Test
+    public void interleavedUvIsCopiedAsOneBuffer() {
+        Planes planes = semiPlanar(false, 2);
+        PlaneLayout layout = planes.probe();
+        assertEquals(PlaneLayout.Chroma.UV_SHARED, layout.chroma);
+
+        YuvFrame frame = new YuvFrame();
+        frame.copyFrom(layout, planes.y, planes.u, planes.v);
+        assertEquals(0, frame.uOffset);
+        assertEquals(1, frame.vOffset);
+        assertSameImage(genericCopy(planes), frame);
+    }
+
+    @Test
+    public void paddedPlanarKeepsSourceStrides() {
+        Planes planes = planar(3);
+        PlaneLayout layout = planes.probe();
+        assertEquals(PlaneLayout.Chroma.PLANAR, layout.chroma);
+
+        YuvFrame frame = new YuvFrame();
+        frame.copyFrom(layout, planes.y, planes.u, planes.v);
+        assertEquals(Y_ROW_STRIDE, frame.yRowStride);
+        assertEquals(64, frame.uvRowStride);
+        assertSameImage(genericCopy(planes), frame);
+    }
+
+    @Test
+    public void separateInterleavedPlanesUseGenericCopy() {
+        // pixelStride 2 tetapi U dan V bukan buffer yang sama
+        Planes planes = semiPlanar(true, 4);
+        Planes other = semiPlanar(true, 5);
+        planes.u = other.u;
+        PlaneLayout layout = planes.probe();
+        assertEquals(PlaneLayout.Chroma.GENERIC, layout.chroma);
+        assertTrue(layout.definitive);
+
+        YuvFrame frame = new YuvFrame();
+        frame.copyFrom(layout, planes.y, planes.u, planes.v);
+        assertSameImage(genericCopy(planes), frame);
+    }
+
+    @Test
+    public void uniformChromaIsNotDefinitive() {
+        Planes planes = semiPlanar(true, 6);
+        ByteBuffer shared = ByteBuffer.allocateDirect(planes.v.limit() + 1);
+        for (int i = 0; i < shared.capacity(); i++) shared.put(i, (byte) 128);
+        planes.v = slice(shared, 0, shared.capacity() - 1);
+        planes.u = slice(shared, 1, shared.capacity() - 1);
+        PlaneLayout layout = planes.probe();
+        assertEquals(PlaneLayout.Chroma.GENERIC, layout.chroma);
+        assertFalse(layout.definitive);
+        assertTrue(layout.matches(WIDTH, HEIGHT, Y_ROW_STRIDE, 1, Y_ROW_STRIDE, 2));
+        assertFalse(layout.matches(WIDTH, HEIGHT, Y_ROW_STRIDE, 1, Y_ROW_STRIDE, 1));
+    }
+
+    @Test
+    public void genericCopyAfterSharedLayoutSeparatesPlanes() {
+        Planes shared = semiPlanar(true, 7);
+        YuvFrame frame = new YuvFrame();
+        frame.copyFrom(shared.probe(), shared.y, shared.u, shared.v);
+
+        Planes planes = planar(8);
+        frame.copyFrom(planes.y, Y_ROW_STRIDE, 1, planes.u, planes.v, planes.uvRowStride, 1, WIDTH, HEIGHT);
+        assertNotSame(frame.u, frame.v);
+        assertSameImage(genericCopy(planes), frame);
+    }
+}
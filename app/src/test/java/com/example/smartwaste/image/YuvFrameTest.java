@@ -0,0 +1,91 @@
+package com.example.smartwaste.image;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+public class YuvFrameTest {
+
+    private static final byte PAD = (byte) 0xEE;
+
+    private static ByteBuffer buffer(int... values) {
+        ByteBuffer buffer = ByteBuffer.allocateDirect(values.length);
+        for (int value : values) buffer.put((byte) value);
+        buffer.rewind();
+        return buffer;
+    }
+
+    private static ByteBuffer slice(ByteBuffer buffer, int offset, int length) {
+        ByteBuffer duplicate = buffer.duplicate();
+        duplicate.position(offset);
+        duplicate.limit(offset + length);
+        return duplicate.slice();
+    }
+
+    private static int[] unsigned(byte[] data, int length) {
+        int[] values = new int[length];
+        for (int i = 0; i < length; i++) values[i] = data[i] & 0xFF;
+        return values;
+    }
+
+    // 3x4: chroma 2x2
+    private static ByteBuffer paddedLuma() {
+        // Row stride 4, baris terakhir tanpa padding seperti buffer kamera
+        return buffer(1, 2, 3, PAD, 4, 5, 6, PAD, 7, 8, 9, PAD, 10, 11, 12);
+    }
+
+    @Test
+    public void planarCopy_dropsRowPadding() {
+        YuvFrame frame = new YuvFrame();
+        frame.copyFrom(paddedLuma(), 4, 1,
+                buffer(10, 11, PAD, 12, 13), buffer(20, 21, PAD, 22, 23), 3, 1, 3, 4);
+
+        assertEquals(2, frame.chromaWidth());
+        assertEquals(2, frame.chromaHeight());
+        assertEquals(3, frame.yRowStride);
+        assertEquals(2, frame.uvRowStride);
+        assertEquals(1, frame.uvPixelStride);
+        assertArrayEquals(new int[]{1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12}, unsigned(frame.y, 12));
+        assertArrayEquals(new int[]{10, 11, 12, 13}, unsigned(frame.u, 4));
+        assertArrayEquals(new int[]{20, 21, 22, 23}, unsigned(frame.v, 4));
+    }
+
+    @Test
+    public void interleavedCopy_deinterleavesWithPixelStrideTwo() {
+        // NV21: V di byte 0, U di byte 1; baris chroma 4 byte, baris terakhir tanpa byte U terakhir di plane V
+        ByteBuffer shared = buffer(20, 10, 21, 11, 22, 12, 23, 13);
+        YuvFrame frame = new YuvFrame();
+        frame.copyFrom(paddedLuma(), 4, 1, slice(shared, 1, 7), slice(shared, 0, 7), 4, 2, 3, 4);
+
+        assertEquals(1, frame.uvPixelStride);
+        assertArrayEquals(new int[]{10, 11, 12, 13}, unsigned(frame.u, 4));
+        assertArrayEquals(new int[]{20, 21, 22, 23}, unsigned(frame.v, 4));
+    }
+
+    @Test
+    public void sharedLayout_pointsUAndVIntoOneArray() {
+        ByteBuffer shared = buffer(20, 10, 21, 11, 22, 12, 23, 13);
+        ByteBuffer u = slice(shared, 1, 7);
+        ByteBuffer v = slice(shared, 0, 7);
+        PlaneLayout layout = PlaneLayout.probe(paddedLuma(), 4, 1, u, v, 4, 2, 3, 4);
+        assertEquals(PlaneLayout.Chroma.VU_SHARED, layout.chroma);
+
+        YuvFrame frame = new YuvFrame();
+        frame.copyFrom(layout, paddedLuma(), u, v);
+
+        assertSame(frame.u, frame.v);
+        assertEquals(4, frame.yRowStride);
+        assertEquals(2, frame.uvPixelStride);
+        for (int row = 0; row < 2; row++) {
+            for (int col = 0; col < 2; col++) {
+                int index = row * frame.uvRowStride + col * frame.uvPixelStride;
+                assertEquals(10 + row * 2 + col, frame.u[frame.uOffset + index] & 0xFF);
+                assertEquals(20 + row * 2 + col, frame.v[frame.vOffset + index] & 0xFF);
+            }
+        }
+        assertArrayEquals(new int[]{7, 8, 9}, Arrays.copyOfRange(unsigned(frame.y, 15), 8, 11));
+    }
+}
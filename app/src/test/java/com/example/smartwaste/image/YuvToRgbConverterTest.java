@@ -0,0 +1,82 @@
+package com.example.smartwaste.image;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class YuvToRgbConverterTest {
+
+    // 3x2 (lebar ganjil): kolom 0-1 memakai chroma (U 128, V 200), kolom 2 memakai chroma (U 60, V 128)
+    private static final int[] LUMA = {100, 50, 128, 0, 255, 200};
+    // Dihitung manual dengan BT.601 full range: R = Y + 1.402 Cr, G = Y - 0.344 Cb - 0.714 Cr, B = Y + 1.772 Cb
+    private static final int[] EXPECTED = {
+            0xFFC93164, 0xFF970032, 0xFF809708,
+            0xFF650000, 0xFFFFCCFF, 0xFFC8DF50,
+    };
+
+    private static YuvFrame planarFrame() {
+        YuvFrame frame = new YuvFrame();
+        frame.width = 3;
+        frame.height = 2;
+        frame.y = bytes(LUMA);
+        frame.yRowStride = 3;
+        frame.u = bytes(128, 60);
+        frame.v = bytes(200, 128);
+        frame.uvRowStride = 2;
+        frame.uvPixelStride = 1;
+        return frame;
+    }
+
+    // Piksel yang sama dalam layout NV21 dengan padding baris pada Y dan chroma
+    private static YuvFrame interleavedFrame() {
+        YuvFrame frame = new YuvFrame();
+        frame.width = 3;
+        frame.height = 2;
+        frame.y = bytes(100, 50, 128, 9, 0, 255, 200, 9);
+        frame.yRowStride = 4;
+        byte[] vu = bytes(200, 128, 128, 60, 9, 9);
+        frame.u = vu;
+        frame.v = vu;
+        frame.vOffset = 0;
+        frame.uOffset = 1;
+        frame.uvRowStride = 6;
+        frame.uvPixelStride = 2;
+        return frame;
+    }
+
+    private static byte[] bytes(int... values) {
+        byte[] data = new byte[values.length];
+        for (int i = 0; i < values.length; i++) data[i] = (byte) values[i];
+        return data;
+    }
+
+    @Test
+    public void neutralChroma_givesGray() {
+        assertEquals(0xFF808080, YuvToRgbConverter.pack(128, 0, 0, 0));
+    }
+
+    @Test
+    public void planarFrame_matchesHandComputedPixels() {
+        int[] out = new int[6];
+        YuvToRgbConverter.convert(planarFrame(), out);
+        assertArrayEquals(EXPECTED, out);
+    }
+
+    @Test
+    public void interleavedFrame_matchesPlanarResult() {
+        int[] out = new int[6];
+        YuvToRgbConverter.convert(interleavedFrame(), out);
+        assertArrayEquals(EXPECTED, out);
+    }
+
+    @Test
+    public void convert_reusesItsBuffer() {
+        YuvToRgbConverter converter = new YuvToRgbConverter();
+        int[] first = converter.convert(planarFrame());
+        int[] second = converter.convert(interleavedFrame());
+        assertSame(first, second);
+        for (int i = 0; i < EXPECTED.length; i++) {
+            assertEquals(EXPECTED[i], second[i]);
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.example.smartwaste.metrics;
+
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.Assert.*;
+
+public class LatencyHistogramTest {
+
+    private static long micros(long value) {
+        return value * 1000;
+    }
+
+    @Test
+    public void bucketIndex_followsPowerOfTwoBounds() {
+        assertEquals(0, LatencyHistogram.bucketIndex(0));
+        assertEquals(0, LatencyHistogram.bucketIndex(micros(249)));
+        assertEquals(1, LatencyHistogram.bucketIndex(micros(250)));
+        assertEquals(1, LatencyHistogram.bucketIndex(micros(499)));
+        assertEquals(2, LatencyHistogram.bucketIndex(micros(500)));
+        assertEquals(3, LatencyHistogram.bucketIndex(micros(1000)));
+        // Durasi sangat lama masuk bucket terakhir
+        assertEquals(LatencyHistogram.BUCKET_COUNT - 1, LatencyHistogram.bucketIndex(Long.MAX_VALUE));
+    }
+
+    @Test
+    public void percentiles_useBucketUpperBoundCappedAtMax() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 0; i < 90; i++) histogram.record(micros(300));   // bucket < 0.5 ms
+        for (int i = 0; i < 10; i++) histogram.record(micros(5000));  // bucket < 8 ms
+
+        assertEquals(100, histogram.getCount());
+        assertEquals(0.5, histogram.getPercentileMs(0.5), 1e-9);
+        assertEquals(5.0, histogram.getPercentileMs(0.95), 1e-9);
+        assertEquals(5.0, histogram.getMaxMs(), 1e-9);
+        assertEquals(0.77, histogram.getMeanMs(), 1e-9);
+    }
+
+    @Test
+    public void concurrentRecords_areAllCounted() throws Exception {
+        LatencyHistogram histogram = new LatencyHistogram();
+        int threads = 4;
+        int perThread = 50_000;
+        CountDownLatch start = new CountDownLatch(1);
+        Thread[] workers = new Thread[threads];
+        for (int t = 0; t < threads; t++) {
+            final long duration = micros(100L << t);
+            workers[t] = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int i = 0; i < perThread; i++) histogram.record(duration);
+            });
+            workers[t].start();
+        }
+        start.countDown();
+        for (Thread worker : workers) worker.join();
+
+        assertEquals((long) threads * perThread, histogram.getCount());
+        assertEquals(0.8, histogram.getMaxMs(), 1e-9);
+    }
+}
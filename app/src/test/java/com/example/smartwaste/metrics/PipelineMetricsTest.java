@@ -0,0 +1,37 @@
+package com.example.smartwaste.metrics;
+
+import org.junit.Test;
+
+import java.io.StringWriter;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class PipelineMetricsTest {
+
+    @Test
+    public void milestones_areRecordedOnceRelativeToStartup() throws Exception {
+        PipelineMetrics metrics = new PipelineMetrics();
+        // Sebelum markStartup tidak ada titik nol
+        metrics.markMilestone(PipelineMetrics.Milestone.FIRST_FRAME);
+        assertEquals(-1, metrics.getMilestoneNanos(PipelineMetrics.Milestone.FIRST_FRAME));
+
+        metrics.markStartup(PipelineMetrics.now() - TimeUnit.MILLISECONDS.toNanos(500));
+        metrics.markMilestone(PipelineMetrics.Milestone.FIRST_FRAME);
+        long first = metrics.getMilestoneNanos(PipelineMetrics.Milestone.FIRST_FRAME);
+        assertTrue(first >= TimeUnit.MILLISECONDS.toNanos(500));
+
+        Thread.sleep(5);
+        metrics.markMilestone(PipelineMetrics.Milestone.FIRST_FRAME);
+        assertEquals(first, metrics.getMilestoneNanos(PipelineMetrics.Milestone.FIRST_FRAME));
+        assertEquals(-1, metrics.getMilestoneNanos(PipelineMetrics.Milestone.FIRST_DETECTION));
+
+        StringWriter report = new StringWriter();
+        metrics.writeReport(report);
+        assertTrue(report.toString().contains("first_detection -"));
+
+        // Startup baru (mis. activity dibuat ulang) menghapus milestone lama
+        metrics.markStartup(PipelineMetrics.now());
+        assertEquals(-1, metrics.getMilestoneNanos(PipelineMetrics.Milestone.FIRST_FRAME));
+    }
+}
@@ -0,0 +1,75 @@
+package com.example.smartwaste.pipeline;
+
+import com.example.smartwaste.api.PredictionBatch;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class DetectionCacheTest {
+
+    private static final long TTL_MS = 60_000;
+    private static final long MAX_STALENESS_MS = 10_000;
+
+    private static DetectionCache cache() {
+        return new DetectionCache(4, TTL_MS, MAX_STALENESS_MS, 5);
+    }
+
+    @Test
+    public void computeHash_setsBitWhereCellIsBrighterThanItsRightNeighbour() {
+        // 9 kolom sel selebar 2 piksel; sel 0..4 putih (sampel x = 0, 2, ..., 8), sel 5..8 hitam
+        int width = 18;
+        int height = 8;
+        int[] argb = new int[width * height];
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                argb[y * width + x] = x < 9 ? 0xFFFFFFFF : 0xFF000000;
+            }
+        }
+        assertEquals(0x0808080808080808L, DetectionCache.computeHash(argb, width, height));
+    }
+
+    @Test
+    public void similarHash_hitsAndDifferentFrameMisses() {
+        DetectionCache cache = cache();
+        PredictionBatch predictions = new PredictionBatch();
+        cache.put(0xF0F0L, predictions, 320, 240, 1_000);
+
+        // Jarak Hamming 2
+        DetectionCache.Entry hit = cache.lookup(0xF0F3L, 320, 240, 2_000);
+        assertNotNull(hit);
+        assertSame(predictions, hit.predictions);
+
+        assertNull(cache.lookup(0xFFFF_FFFFL, 320, 240, 2_000));
+        // Hash sama tetapi dimensi inferensi berbeda
+        assertNull(cache.lookup(0xF0F0L, 240, 320, 2_000));
+        assertEquals(1, cache.getHitCount());
+        assertEquals(2, cache.getMissCount());
+    }
+
+    @Test
+    public void expiredEntry_isRemovedOnLookup() {
+        DetectionCache cache = cache();
+        cache.put(1L, new PredictionBatch(), 320, 240, 0);
+        // Hasil baru lain supaya lookup tidak dilewati karena staleness
+        cache.put(0xFFFF_0000_0000L, new PredictionBatch(), 320, 240, TTL_MS);
+
+        assertNull(cache.lookup(1L, 320, 240, TTL_MS + 1));
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    public void staleCache_isBypassedUntilTheNextDetectorResult() {
+        DetectionCache cache = cache();
+        cache.put(1L, new PredictionBatch(), 320, 240, 0);
+        assertNotNull(cache.lookup(1L, 320, 240, MAX_STALENESS_MS - 1));
+
+        // Entri masih dalam TTL, tetapi refresh berkala harus sampai ke detector
+        assertNull(cache.lookup(1L, 320, 240, MAX_STALENESS_MS));
+        assertEquals(1, cache.getStaleBypassCount());
+        assertEquals(1, cache.size());
+
+        cache.put(2L, new PredictionBatch(), 320, 240, MAX_STALENESS_MS + 100);
+        assertNotNull(cache.lookup(1L, 320, 240, MAX_STALENESS_MS + 200));
+    }
+}
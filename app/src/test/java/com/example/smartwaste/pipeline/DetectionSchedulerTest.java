@@ -0,0 +1,204 @@
+package com.example.smartwaste.pipeline;
+
+import android.graphics.Bitmap;
+
+import com.example.smartwaste.api.PredictionBatch;
+import com.example.smartwaste.api.RoboflowAPI;
+import com.example.smartwaste.detector.Detector;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class DetectionSchedulerTest {
+
+    // Detector yang hasilnya diselesaikan manual oleh test; cancel() hanya dicatat
+    private static final class ManualDetector implements Detector {
+        final List<RoboflowAPI.ApiCallback> callbacks = new ArrayList<>();
+        final List<Integer> cancelled = new ArrayList<>();
+
+        @Override
+        public Cancellable detect(Bitmap bitmap, RoboflowAPI.ApiCallback callback) {
+            int index = callbacks.size();
+            callbacks.add(callback);
+            return () -> cancelled.add(index);
+        }
+    }
+
+    // Detector yang menyelesaikan pembatalan langsung di thread pemanggil cancel()
+    private static final class SyncCancelDetector implements Detector {
+        final List<RoboflowAPI.ApiCallback> callbacks = new ArrayList<>();
+        int cancelled;
+
+        @Override
+        public Cancellable detect(Bitmap bitmap, RoboflowAPI.ApiCallback callback) {
+            callbacks.add(callback);
+            boolean[] done = new boolean[1];
+            return () -> {
+                if (done[0]) return;
+                done[0] = true;
+                cancelled++;
+                callback.onError(CANCELLED_ERROR);
+            };
+        }
+    }
+
+    private static final class Recorder implements RoboflowAPI.ApiCallback {
+        final List<Integer> results = new ArrayList<>();
+        final List<String> errors = new ArrayList<>();
+
+        @Override
+        public void onSuccess(List<RoboflowAPI.Prediction> predictions) {
+            results.add(predictions.size());
+        }
+
+        @Override
+        public void onError(String error) {
+            errors.add(error);
+        }
+    }
+
+    private static List<RoboflowAPI.Prediction> predictions(int count) {
+        List<RoboflowAPI.Prediction> list = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            list.add(new RoboflowAPI.Prediction("plastic", 0.9f, null));
+        }
+        return list;
+    }
+
+    @Test
+    public void submit_isLimitedToMaxInFlight() {
+        ManualDetector detector = new ManualDetector();
+        DetectionScheduler scheduler = new DetectionScheduler(detector, 2);
+        Recorder recorder = new Recorder();
+        assertEquals(1, scheduler.submit(null, 0, recorder));
+        assertEquals(2, scheduler.submit(null, 0, recorder));
+        assertFalse(scheduler.hasCapacity());
+        assertEquals(-1, scheduler.submit(null, 0, recorder));
+
+        detector.callbacks.get(0).onSuccess(predictions(1));
+        assertTrue(scheduler.hasCapacity());
+        assertEquals(1, scheduler.getInFlightCount());
+    }
+
+    @Test
+    public void newerResult_cancelsOlderRequestsAndDropsTheirLateResults() {
+        ManualDetector detector = new ManualDetector();
+        DetectionScheduler scheduler = new DetectionScheduler(detector, 3);
+        Recorder recorder = new Recorder();
+        for (int i = 0; i < 3; i++) {
+            scheduler.submit(null, 0, recorder);
+        }
+
+        detector.callbacks.get(1).onSuccess(predictions(2));
+        assertEquals(1, recorder.results.size());
+        assertEquals(1, detector.cancelled.size());
+        assertEquals(0, (int) detector.cancelled.get(0));
+        assertEquals(1, scheduler.getCancelledCount());
+
+        // Hasil frame 1 yang tetap datang sesudahnya tidak boleh menimpa frame 2
+        detector.callbacks.get(0).onSuccess(predictions(5));
+        assertEquals(1, recorder.results.size());
+        assertEquals(1, scheduler.getStaleDroppedCount());
+
+        detector.callbacks.get(2).onSuccess(predictions(3));
+        assertEquals(2, recorder.results.size());
+        assertEquals(3, (int) recorder.results.get(1));
+        assertEquals(0, scheduler.getInFlightCount());
+    }
+
+    @Test
+    public void errorOfOlderFrame_isSuppressedAfterNewerResult() {
+        ManualDetector detector = new ManualDetector();
+        DetectionScheduler scheduler = new DetectionScheduler(detector, 2);
+        Recorder recorder = new Recorder();
+        scheduler.submit(null, 0, recorder);
+        scheduler.submit(null, 0, recorder);
+
+        detector.callbacks.get(1).onSuccess(predictions(1));
+        detector.callbacks.get(0).onError("Koneksi gagal: timeout");
+        assertTrue(recorder.errors.isEmpty());
+    }
+
+    @Test
+    public void errorOfNewerFrame_cancelsOlderRequestsAndDropsTheirLateResults() {
+        ManualDetector detector = new ManualDetector();
+        DetectionScheduler scheduler = new DetectionScheduler(detector, 3);
+        Recorder recorder = new Recorder();
+        for (int i = 0; i < 3; i++) {
+            scheduler.submit(null, 0, recorder);
+        }
+
+        detector.callbacks.get(1).onError("Koneksi gagal: timeout");
+        assertEquals(1, recorder.errors.size());
+        assertEquals(1, detector.cancelled.size());
+        assertEquals(0, (int) detector.cancelled.get(0));
+
+        // Overlay sudah dikosongkan oleh error frame 2; hasil frame 1 tidak boleh muncul lagi
+        detector.callbacks.get(0).onSuccess(predictions(4));
+        assertTrue(recorder.results.isEmpty());
+        assertEquals(1, scheduler.getStaleDroppedCount());
+
+        detector.callbacks.get(2).onSuccess(predictions(2));
+        assertEquals(1, recorder.results.size());
+        assertEquals(0, scheduler.getInFlightCount());
+    }
+
+    @Test
+    public void cancelAll_cancelsEverythingAndMakesLateResultsStale() {
+        ManualDetector detector = new ManualDetector();
+        DetectionScheduler scheduler = new DetectionScheduler(detector, 3);
+        Recorder recorder = new Recorder();
+        scheduler.submit(null, 0, recorder);
+        scheduler.submit(null, 0, recorder);
+
+        scheduler.cancelAll();
+        assertEquals(2, detector.cancelled.size());
+        assertEquals(0, scheduler.getInFlightCount());
+
+        detector.callbacks.get(1).onSuccess(predictions(1));
+        assertTrue(recorder.results.isEmpty());
+    }
+
+    @Test
+    public void newerResult_cancelsOlderRequestsThatCompleteSynchronously() {
+        SyncCancelDetector detector = new SyncCancelDetector();
+        DetectionScheduler scheduler = new DetectionScheduler(detector, 3);
+        Recorder recorder = new Recorder();
+        for (int i = 0; i < 3; i++) {
+            assertTrue(scheduler.submit(null, 0, recorder) > 0);
+        }
+
+        detector.callbacks.get(2).onSuccess(new ArrayList<>());
+
+        assertEquals(2, detector.cancelled);
+        assertEquals(1, recorder.results.size());
+        // Pembatalan usang tidak diteruskan sebagai error
+        assertEquals(0, recorder.errors.size());
+        assertEquals(0, scheduler.getInFlightCount());
+        assertEquals(2, scheduler.getCancelledCount());
+    }
+
+    @Test
+    public void cachedDeliveryAndCancelAll_cancelOutsideIteration() {
+        SyncCancelDetector detector = new SyncCancelDetector();
+        DetectionScheduler scheduler = new DetectionScheduler(detector, 3);
+        Recorder recorder = new Recorder();
+        scheduler.submit(null, 0, recorder);
+        scheduler.submit(null, 0, recorder);
+
+        scheduler.deliver(PredictionBatch.fromPredictions(new ArrayList<>()), recorder);
+        assertEquals(2, detector.cancelled);
+
+        scheduler.submit(null, 0, recorder);
+        scheduler.submit(null, 0, recorder);
+        scheduler.cancelAll();
+        assertEquals(4, detector.cancelled);
+        assertEquals(1, recorder.results.size());
+        assertEquals(0, recorder.errors.size());
+        assertEquals(0, scheduler.getInFlightCount());
+    }
+}
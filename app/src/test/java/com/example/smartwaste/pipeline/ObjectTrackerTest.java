@@ -0,0 +1,93 @@
+package com.example.smartwaste.pipeline;
+
+import com.example.smartwaste.api.PredictionBatch;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class ObjectTrackerTest {
+
+    private static final short PLASTIC = 1;
+    private static final short PAPER = 2;
+
+    private static ObjectTracker tracker() {
+        // IoU 0.3, dua hasil boleh hilang, ekstrapolasi paling jauh 500 ms, kecepatan terukur dipakai penuh
+        return new ObjectTracker(0.3f, 2, 500, 1f);
+    }
+
+    private static PredictionBatch box(short classId, float left, float top) {
+        PredictionBatch batch = new PredictionBatch();
+        batch.add(classId, 0.9f, left, top, left + 100, top + 100);
+        return batch;
+    }
+
+    @Test
+    public void overlappingDetection_keepsTrackId() {
+        ObjectTracker tracker = tracker();
+        int id = tracker.update(box(PLASTIC, 0, 0), 0).trackId(0);
+
+        PredictionBatch moved = tracker.update(box(PLASTIC, 10, 0), 100);
+        assertEquals(1, moved.size());
+        assertEquals(id, moved.trackId(0));
+        assertEquals(10f, moved.left(0), 0f);
+    }
+
+    @Test
+    public void otherClassOrDistantBox_startsNewTrack() {
+        ObjectTracker tracker = tracker();
+        int id = tracker.update(box(PLASTIC, 0, 0), 0).trackId(0);
+
+        assertNotEquals(id, tracker.update(box(PAPER, 0, 0), 100).trackId(0));
+        assertNotEquals(id, tracker.update(box(PLASTIC, 500, 500), 200).trackId(0));
+    }
+
+    @Test
+    public void missedTrack_isKeptForMaxMissesThenDropped() {
+        ObjectTracker tracker = tracker();
+        int id = tracker.update(box(PLASTIC, 0, 0), 0).trackId(0);
+
+        PredictionBatch empty = new PredictionBatch();
+        tracker.update(empty, 100);
+        tracker.update(empty, 200);
+        // Track yang hilang tidak ikut digambar, tetapi ID-nya kembali jika objek muncul lagi
+        assertTrue(tracker.predict(250).isEmpty());
+        assertEquals(id, tracker.update(box(PLASTIC, 0, 0), 300).trackId(0));
+
+        tracker.update(empty, 400);
+        tracker.update(empty, 500);
+        tracker.update(empty, 600);
+        assertFalse(tracker.hasTracks());
+    }
+
+    @Test
+    public void predict_extrapolatesWithVelocityUpToTheLimit() {
+        ObjectTracker tracker = tracker();
+        tracker.update(box(PLASTIC, 0, 0), 0);
+        // 20 px dalam 100 ms = 0.2 px/ms ke kanan
+        tracker.update(box(PLASTIC, 20, 0), 100);
+
+        PredictionBatch predicted = tracker.predict(200);
+        assertEquals(1, predicted.size());
+        assertEquals(40f, predicted.left(0), 1e-3f);
+        assertEquals(0f, predicted.top(0), 1e-3f);
+
+        // Dibatasi 500 ms setelah deteksi terakhir
+        assertEquals(120f, tracker.predict(5_000).left(0), 1e-3f);
+    }
+
+    @Test
+    public void predictInto_reusesAndClearsTheBatch() {
+        ObjectTracker tracker = tracker();
+        tracker.update(box(PLASTIC, 0, 0), 0);
+        PredictionBatch reused = new PredictionBatch();
+        reused.add(PAPER, 0.5f, 1, 1, 2, 2);
+
+        assertSame(reused, tracker.predict(0, reused));
+        assertEquals(1, reused.size());
+        assertEquals(PLASTIC, reused.classId(0));
+
+        tracker.clear();
+        assertTrue(tracker.predict(0, reused).isEmpty());
+    }
+}
@@ -0,0 +1,72 @@
+package com.example.smartwaste.pipeline;
+
+import com.example.smartwaste.api.LabelTable;
+import com.example.smartwaste.api.PredictionBatch;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class PostProcessorTest {
+
+    private static final short ORGANIK = LabelTable.intern("organik");
+    private static final short B3 = LabelTable.intern("B3");
+
+    @Test
+    public void overlappingSameClass_keepsMostConfident() {
+        PredictionBatch batch = new PredictionBatch();
+        batch.add(ORGANIK, 0.6f, 0, 0, 100, 100);
+        batch.add(ORGANIK, 0.9f, 5, 5, 105, 105);
+        batch.add(ORGANIK, 0.8f, 200, 200, 300, 300);
+        PredictionBatch result = new PostProcessor(0f, 0.5f, true, 0).process(batch);
+        assertEquals(2, result.size());
+        assertEquals(0.9f, result.confidence(0), 0f);
+        assertEquals(0.8f, result.confidence(1), 0f);
+    }
+
+    @Test
+    public void classAware_keepsOverlapOfDifferentClasses() {
+        PredictionBatch batch = new PredictionBatch();
+        batch.add(ORGANIK, 0.9f, 0, 0, 100, 100);
+        batch.add(B3, 0.7f, 0, 0, 100, 100);
+        assertEquals(2, new PostProcessor(0f, 0.5f, true, 0).process(batch).size());
+        PredictionBatch agnostic = new PostProcessor(0f, 0.5f, false, 0).process(batch);
+        assertEquals(1, agnostic.size());
+        assertEquals(ORGANIK, agnostic.classId(0));
+    }
+
+    @Test
+    public void perClassThreshold_overridesDefault() {
+        PredictionBatch batch = new PredictionBatch();
+        batch.add(ORGANIK, 0.4f, 0, 0, 10, 10);
+        batch.add(B3, 0.4f, 50, 50, 60, 60);
+        batch.add(B3, 0.2f, 100, 100, 110, 110);
+        PostProcessor processor = new PostProcessor(0.3f, 0.5f, true, 0);
+        processor.setMinConfidence("Sampah B3", 0.5f);
+        PredictionBatch result = processor.process(batch);
+        assertEquals(1, result.size());
+        assertEquals(ORGANIK, result.classId(0));
+    }
+
+    @Test
+    public void topK_capsResultToMostConfident() {
+        PredictionBatch batch = new PredictionBatch();
+        for (int i = 0; i < 300; i++) {
+            batch.add(ORGANIK, (i % 100) / 100f, i * 20, 0, i * 20 + 10, 10, i);
+        }
+        PredictionBatch result = new PostProcessor(0f, 0.5f, true, 5).process(batch);
+        assertEquals(5, result.size());
+        // Tiga kotak dengan 0.99, lalu dua dari tiga kotak dengan 0.98
+        for (int i = 0; i < 5; i++) {
+            assertEquals(i < 3 ? 0.99f : 0.98f, result.confidence(i), 0f);
+        }
+        // ID track ikut dipertahankan
+        assertEquals(99, result.trackId(0) % 100);
+    }
+
+    @Test
+    public void emptyInput_isReturnedAsIs() {
+        PredictionBatch empty = new PredictionBatch();
+        assertSame(empty, new PostProcessor(0.3f, 0.5f, true, 10).process(empty));
+    }
+}
@@ -0,0 +1,103 @@
+package com.example.smartwaste.pipeline;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class RoiPlannerTest {
+
+    private final RoiPlanner planner = new RoiPlanner(0.2f, 16, 96, 3, 0.5f);
+
+    @Test
+    public void noSeeds_requestsFullFrame() {
+        assertNull(planner.plan(Collections.emptyList(), 416, 416));
+    }
+
+    @Test
+    public void smallBox_isPaddedToMinimumCropInsideFrame() {
+        List<int[]> crops = planner.plan(Collections.singletonList(new float[]{0, 10, 20, 30}), 416, 416);
+        assertNotNull(crops);
+        assertEquals(1, crops.size());
+        int[] crop = crops.get(0);
+        assertEquals(0, crop[0]);
+        assertEquals(96, crop[2] - crop[0]);
+        assertEquals(96, crop[3] - crop[1]);
+        assertTrue(crop[1] >= 0);
+        // Kotak asli tetap berada di dalam crop
+        assertTrue(crop[1] <= 10 && crop[3] >= 30);
+    }
+
+    @Test
+    public void overlappingSeeds_areMerged() {
+        List<int[]> crops = planner.plan(Arrays.asList(
+                new float[]{100, 100, 150, 150},
+                new float[]{140, 140, 190, 190}), 416, 416);
+        assertNotNull(crops);
+        assertEquals(1, crops.size());
+        int[] crop = crops.get(0);
+        assertTrue(crop[0] <= 100 && crop[1] <= 100 && crop[2] >= 190 && crop[3] >= 190);
+    }
+
+    @Test
+    public void tooManySeeds_areMergedDownToMaxCrops() {
+        List<int[]> crops = new RoiPlanner(0f, 0, 10, 2, 1f).plan(Arrays.asList(
+                new float[]{0, 0, 10, 10},
+                new float[]{20, 0, 30, 10},
+                new float[]{300, 300, 310, 310}), 416, 416);
+        assertNotNull(crops);
+        assertEquals(2, crops.size());
+        // Dua kotak yang berdekatan digabung, kotak jauh tetap terpisah
+        assertArrayEquals(new int[]{0, 0, 30, 10}, crops.get(0));
+        assertArrayEquals(new int[]{300, 300, 310, 310}, crops.get(1));
+    }
+
+    @Test
+    public void largeRegion_fallsBackToFullFrame() {
+        assertNull(planner.plan(Collections.singletonList(new float[]{20, 20, 380, 380}), 416, 416));
+    }
+
+    @Test
+    public void changedCells_ignoreGlobalExposureShift() {
+        int[] reference = new int[16];
+        int[] current = new int[16];
+        Arrays.fill(reference, 100);
+        Arrays.fill(current, 130);
+        assertTrue(RoiPlanner.changedCells(reference, current, 4, 400, 400, 12f).isEmpty());
+
+        current[5] = 200;
+        List<float[]> changed = RoiPlanner.changedCells(reference, current, 4, 400, 400, 12f);
+        assertEquals(1, changed.size());
+        assertArrayEquals(new float[]{100, 100, 200, 200}, changed.get(0), 0f);
+    }
+
+    @Test
+    public void lumaGrid_averagesCells() {
+        int[] argb = new int[4 * 4];
+        // Setengah kiri putih, kanan hitam
+        for (int y = 0; y < 4; y++) {
+            for (int x = 0; x < 2; x++) {
+                argb[y * 4 + x] = 0xFFFFFFFF;
+            }
+        }
+        int[] grid = new int[4];
+        RoiPlanner.computeLumaGrid(argb, 4, 4, 2, grid);
+        assertEquals(255, grid[0]);
+        assertEquals(0, grid[1]);
+        assertEquals(255, grid[2]);
+        assertEquals(0, grid[3]);
+    }
+
+    @Test
+    public void duplicate_detectsOverlapAndTruncatedBoxes() {
+        float[] full = {100, 100, 200, 200};
+        assertTrue(RoiPlanner.isDuplicate(full, new float[]{105, 105, 205, 205}, 0.5f, 0.8f));
+        // Objek terpotong tepi crop: IoU rendah tetapi hampir seluruhnya di dalam kotak lain
+        assertTrue(RoiPlanner.isDuplicate(full, new float[]{100, 100, 140, 200}, 0.5f, 0.8f));
+        assertFalse(RoiPlanner.isDuplicate(full, new float[]{190, 190, 290, 290}, 0.5f, 0.8f));
+        assertFalse(RoiPlanner.isDuplicate(full, new float[]{300, 300, 400, 400}, 0.5f, 0.8f));
+    }
+}
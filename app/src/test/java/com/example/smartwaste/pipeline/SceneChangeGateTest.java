@@ -0,0 +1,116 @@
+package com.example.smartwaste.pipeline;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+
+import static org.junit.Assert.*;
+
+public class SceneChangeGateTest {
+
+    private static final int WIDTH = 64;
+    private static final int HEIGHT = 48;
+
+    // Gradasi horizontal dengan kecerahan dasar tertentu
+    private static ByteBuffer frame(int base) {
+        ByteBuffer y = ByteBuffer.allocate(WIDTH * HEIGHT);
+        for (int row = 0; row < HEIGHT; row++) {
+            for (int col = 0; col < WIDTH; col++) {
+                y.put(row * WIDTH + col, (byte) Math.min(255, base + col));
+            }
+        }
+        return y;
+    }
+
+    // Gradasi yang sama tetapi terbalik: struktur adegan berubah
+    private static ByteBuffer mirrored(int base) {
+        ByteBuffer y = ByteBuffer.allocate(WIDTH * HEIGHT);
+        for (int row = 0; row < HEIGHT; row++) {
+            for (int col = 0; col < WIDTH; col++) {
+                y.put(row * WIDTH + col, (byte) Math.min(255, base + (WIDTH - 1 - col)));
+            }
+        }
+        return y;
+    }
+
+    private static boolean offer(SceneChangeGate gate, ByteBuffer y, long nowMs) {
+        return gate.shouldProcess(y, WIDTH, 1, WIDTH, HEIGHT, nowMs);
+    }
+
+    private static void feed(SceneChangeGate gate, ByteBuffer y) {
+        gate.shouldProcess(y, WIDTH, 1, WIDTH, HEIGHT, 0);
+    }
+
+    @Test
+    public void firstFrame_passesAndSameSceneIsSkipped() {
+        SceneChangeGate gate = new SceneChangeGate(10f, 10_000);
+        assertTrue(offer(gate, frame(100), 0));
+        gate.markSent(0);
+
+        assertFalse(offer(gate, frame(100), 100));
+        assertEquals(1, gate.getSkippedFrames());
+        assertEquals(0f, gate.getLastDifference(), 1e-6);
+    }
+
+    @Test
+    public void exposureShift_isNotASceneChange() {
+        SceneChangeGate gate = new SceneChangeGate(10f, 10_000);
+        offer(gate, frame(100), 0);
+        gate.markSent(0);
+
+        // Seluruh frame lebih terang 30 level: rata-rata global dikurangkan lebih dulu
+        assertFalse(offer(gate, frame(130), 100));
+    }
+
+    @Test
+    public void structuralChange_passes() {
+        SceneChangeGate gate = new SceneChangeGate(10f, 10_000);
+        offer(gate, frame(100), 0);
+        gate.markSent(0);
+
+        assertTrue(offer(gate, mirrored(100), 100));
+        assertTrue(gate.getLastDifference() >= 10f);
+    }
+
+    @Test
+    public void staleReferenceAndInvalidate_forceTheNextFrame() {
+        SceneChangeGate gate = new SceneChangeGate(10f, 1_000);
+        offer(gate, frame(100), 0);
+        gate.markSent(0);
+
+        assertFalse(offer(gate, frame(100), 999));
+        assertTrue(offer(gate, frame(100), 1_000));
+
+        gate.markSent(1_000);
+        assertFalse(offer(gate, frame(100), 1_100));
+        // Mis. deteksi sebelumnya gagal
+        gate.invalidate();
+        assertTrue(offer(gate, frame(100), 1_200));
+    }
+
+    @Test
+    public void settled_onlyAfterTwoSimilarBrightFrames() {
+        SceneChangeGate gate = new SceneChangeGate(10f, 1000);
+        feed(gate, frame(100));
+        // Frame pertama belum punya pembanding
+        assertFalse(gate.isSettled(4f, 16));
+
+        // Exposure masih naik: struktur sama tetapi kecerahan berubah
+        feed(gate, frame(140));
+        assertFalse(gate.isSettled(4f, 16));
+
+        feed(gate, frame(141));
+        assertTrue(gate.isSettled(4f, 16));
+        assertEquals(1f, gate.getLastMotion(), 1e-6);
+    }
+
+    @Test
+    public void settled_rejectsDarkFrames() {
+        SceneChangeGate gate = new SceneChangeGate(10f, 1000);
+        ByteBuffer black = ByteBuffer.allocate(WIDTH * HEIGHT);
+        feed(gate, black);
+        feed(gate, black);
+        assertEquals(0f, gate.getLastMotion(), 1e-6);
+        assertFalse(gate.isSettled(4f, 16));
+    }
+}
@@ -0,0 +1,123 @@
+package com.example.smartwaste.pipeline;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.Assert.*;
+
+public class StageQueueTest {
+
+    @Test
+    public void dropOldest_keepsNewestAndHandsDroppedItemsBack() {
+        List<Integer> dropped = new ArrayList<>();
+        StageQueue<Integer> queue = new StageQueue<>(2, StageQueue.Policy.DROP_OLDEST, dropped::add);
+        for (int i = 1; i <= 5; i++) assertTrue(queue.offer(i));
+
+        assertEquals(Arrays.asList(1, 2, 3), dropped);
+        assertEquals(3, queue.getDroppedCount());
+        assertEquals(2, queue.getMaxDepth());
+        assertEquals(Integer.valueOf(4), queue.poll());
+        assertEquals(Integer.valueOf(5), queue.poll());
+        assertNull(queue.poll());
+    }
+
+    @Test
+    public void block_waitsForConsumerAndRecordsStall() throws Exception {
+        StageQueue<Integer> queue = new StageQueue<>(1, StageQueue.Policy.BLOCK, null);
+        assertTrue(queue.offer(1));
+        AtomicBoolean offered = new AtomicBoolean();
+        Thread producer = new Thread(() -> offered.set(queue.offer(2)));
+        producer.start();
+
+        Thread.sleep(50);
+        assertFalse(offered.get());
+        assertEquals(Integer.valueOf(1), queue.poll());
+        producer.join(1000);
+        assertTrue(offered.get());
+        assertEquals(Integer.valueOf(2), queue.poll());
+        assertTrue(queue.getStallNanos() >= TimeUnit.MILLISECONDS.toNanos(40));
+        assertEquals(0, queue.getDroppedCount());
+    }
+
+    @Test
+    public void close_releasesBlockedProducerAndRejectsNewItems() throws Exception {
+        StageQueue<Integer> queue = new StageQueue<>(1, StageQueue.Policy.BLOCK, null);
+        queue.offer(1);
+        AtomicBoolean result = new AtomicBoolean(true);
+        Thread producer = new Thread(() -> result.set(queue.offer(2)));
+        producer.start();
+        Thread.sleep(20);
+        queue.close();
+        producer.join(1000);
+
+        assertFalse(producer.isAlive());
+        assertFalse(result.get());
+        assertFalse(queue.offer(3));
+        // Item yang sudah masuk tetap bisa diambil
+        assertEquals(Integer.valueOf(1), queue.poll());
+    }
+
+    @Test
+    public void concurrentDropOldest_neverDuplicatesOrReordersItems() throws Exception {
+        List<Integer> dropped = Collections.synchronizedList(new ArrayList<>());
+        StageQueue<Integer> queue = new StageQueue<>(4, StageQueue.Policy.DROP_OLDEST, dropped::add);
+        int total = 200_000;
+        Thread producer = new Thread(() -> {
+            for (int i = 0; i < total; i++) queue.offer(i);
+        });
+        producer.start();
+
+        List<Integer> received = new ArrayList<>();
+        while (producer.isAlive() || !queue.isEmpty()) {
+            Integer item = queue.poll();
+            if (item != null) received.add(item);
+        }
+        for (int i = 1; i < received.size(); i++) {
+            assertTrue(received.get(i) > received.get(i - 1));
+        }
+        // Setiap item diterima atau dibuang tepat sekali
+        assertEquals(total, received.size() + dropped.size());
+        assertEquals(dropped.size(), queue.getDroppedCount());
+    }
+
+    @Test
+    public void stage_handlesItemsInOrderAndDropsPendingOnClose() throws Exception {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        List<Integer> handled = Collections.synchronizedList(new ArrayList<>());
+        List<Integer> dropped = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch release = new CountDownLatch(1);
+        PipelineStage<Integer> stage = new PipelineStage<>("test", 8, StageQueue.Policy.BLOCK, executor, item -> {
+            if (item == 0) {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            handled.add(item);
+        }, dropped::add);
+
+        for (int i = 0; i < 4; i++) assertTrue(stage.submit(i));
+        // Item 0 sedang diproses, 1..3 masih antre saat tahap ditutup
+        Thread.sleep(20);
+        assertEquals(3, stage.getDepth());
+        stage.close();
+        release.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(1, TimeUnit.SECONDS));
+
+        assertEquals(Collections.singletonList(0), handled);
+        assertEquals(Arrays.asList(1, 2, 3), dropped);
+        assertFalse(stage.submit(4));
+        assertEquals(1, stage.getProcessedCount());
+    }
+}
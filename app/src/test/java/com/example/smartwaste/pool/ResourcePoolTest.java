@@ -0,0 +1,138 @@
+package com.example.smartwaste.pool;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class ResourcePoolTest {
+
+    @Test
+    public void releasedArray_isReusedForSameCapacityBucket() {
+        MemoryBudget budget = new MemoryBudget(1 << 20, false);
+        ArrayPool<byte[]> pool = ArrayPool.ofBytes("bytes", budget);
+
+        ResourcePool.Lease<byte[]> first = pool.acquireAtLeast(3000);
+        byte[] array = first.get();
+        assertEquals(4096, array.length);
+        first.release();
+
+        ResourcePool.Lease<byte[]> second = pool.acquireAtLeast(4000);
+        assertSame(array, second.get());
+        assertEquals(1, budget.getHits());
+        assertEquals(1, budget.getMisses());
+        second.release();
+    }
+
+    @Test
+    public void poolHit_reusesTheLeaseObject() {
+        ArrayPool<byte[]> pool = ArrayPool.ofBytes("bytes", new MemoryBudget(1 << 20, false));
+        ResourcePool.Lease<byte[]> first = pool.acquireAtLeast(2000);
+        first.release();
+
+        ResourcePool.Lease<byte[]> second = pool.acquireAtLeast(2048);
+        assertSame(first, second);
+        assertEquals(1, second.getRefCount());
+
+        // Kelas ukuran lain tidak mendapat Lease milik kelas ini
+        ResourcePool.Lease<byte[]> other = pool.acquireAtLeast(4096);
+        assertNotSame(second, other);
+        second.release();
+        other.release();
+        assertEquals(2, pool.getIdleCount());
+    }
+
+    @Test
+    public void leasedArray_isNeverHandedOutTwice() {
+        ArrayPool<int[]> pool = ArrayPool.ofInts("ints", new MemoryBudget(1 << 20, false));
+        ResourcePool.Lease<int[]> first = pool.acquireAtLeast(100);
+        ResourcePool.Lease<int[]> second = pool.acquireAtLeast(100);
+        assertNotSame(first.get(), second.get());
+        first.release();
+        second.release();
+        assertEquals(2, pool.getIdleCount());
+    }
+
+    @Test
+    public void retainedLease_returnsToPoolOnlyAfterLastRelease() {
+        ArrayPool<byte[]> pool = ArrayPool.ofBytes("bytes", new MemoryBudget(1 << 20, false));
+        ResourcePool.Lease<byte[]> lease = pool.acquireAtLeast(10);
+        lease.retain();
+        lease.release();
+        assertEquals(0, pool.getIdleCount());
+        lease.release();
+        assertEquals(1, pool.getIdleCount());
+
+        try {
+            lease.release();
+            fail("release berlebih harus ditolak");
+        } catch (IllegalStateException expected) {
+            // ok
+        }
+        try {
+            lease.get();
+            fail("get setelah dilepas harus ditolak");
+        } catch (IllegalStateException expected) {
+            // ok
+        }
+    }
+
+    @Test
+    public void cap_evictsOldestIdleAcrossPools() {
+        MemoryBudget budget = new MemoryBudget(8192, false);
+        ArrayPool<byte[]> bytes = ArrayPool.ofBytes("bytes", budget);
+        ArrayPool<int[]> ints = ArrayPool.ofInts("ints", budget);
+
+        bytes.acquireAtLeast(4096).release();
+        ints.acquireAtLeast(1024).release();
+        assertEquals(8192, budget.getPooledBytes());
+
+        // 4 KB baru: byte[] menganggur yang paling lama dibuang
+        ResourcePool.Lease<byte[]> lease = bytes.acquireAtLeast(2048);
+        assertEquals(2048, lease.get().length);
+        assertEquals(1, ints.getIdleCount());
+        assertTrue(budget.getPooledBytes() <= budget.getMaxBytes());
+        lease.release();
+    }
+
+    @Test
+    public void overCap_allocatesOutsidePoolAndDiscardsOnRelease() {
+        MemoryBudget budget = new MemoryBudget(4096, false);
+        ArrayPool<byte[]> pool = ArrayPool.ofBytes("bytes", budget);
+        ResourcePool.Lease<byte[]> inPool = pool.acquireAtLeast(4096);
+        ResourcePool.Lease<byte[]> outside = pool.acquireAtLeast(4096);
+
+        assertEquals(1, budget.getOverflows());
+        assertEquals(4096, budget.getPooledBytes());
+        outside.release();
+        inPool.release();
+        assertEquals(1, pool.getIdleCount());
+        assertEquals(4096, budget.getPooledBytes());
+    }
+
+    @Test
+    public void unreleasedLease_isReportedAsLeakAfterGc() throws Exception {
+        MemoryBudget budget = new MemoryBudget(1 << 20, true);
+        List<String> leaked = new ArrayList<>();
+        budget.setLeakListener((description, acquiredAt) -> leaked.add(description));
+        ArrayPool<byte[]> pool = ArrayPool.ofBytes("bytes", budget);
+
+        pool.acquireAtLeast(10).release();
+        acquireAndDrop(pool);
+        for (int i = 0; i < 50 && leaked.isEmpty(); i++) {
+            System.gc();
+            Thread.sleep(20);
+            budget.checkLeaks();
+        }
+
+        assertEquals(1, leaked.size());
+        assertTrue(leaked.get(0), leaked.get(0).startsWith("bytes"));
+        assertEquals(1, budget.getLeaks());
+    }
+
+    private static void acquireAndDrop(ArrayPool<byte[]> pool) {
+        pool.acquireAtLeast(10);
+    }
+}
@@ -0,0 +1,153 @@
+package com.example.smartwaste.queue;
+
+import com.example.smartwaste.api.RoboflowAPI;
+import com.example.smartwaste.detector.Detector;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class FrameQueueDrainerTest {
+
+    private File file;
+    private FrameQueue queue;
+    private ScheduledExecutorService executor;
+    private final List<Long> started = Collections.synchronizedList(new ArrayList<>());
+    private final List<RoboflowAPI.ApiCallback> callbacks = Collections.synchronizedList(new ArrayList<>());
+    private final List<Long> uploaded = Collections.synchronizedList(new ArrayList<>());
+    private final List<Long> dropped = Collections.synchronizedList(new ArrayList<>());
+
+    @Before
+    public void setUp() throws Exception {
+        file = File.createTempFile("frame-queue", ".bin");
+        queue = FrameQueue.open(file, 64 * 1024);
+        executor = Executors.newSingleThreadScheduledExecutor();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        executor.shutdownNow();
+        queue.close();
+        file.delete();
+    }
+
+    private FrameQueueDrainer newDrainer(int maxConcurrent, int maxAttempts) {
+        FrameQueueDrainer.Uploader uploader = (record, callback) -> {
+            started.add(record.sequence);
+            callbacks.add(callback);
+            return Detector.Cancellable.NONE;
+        };
+        FrameQueueDrainer.Listener listener = new FrameQueueDrainer.Listener() {
+            @Override
+            public void onUploaded(FrameQueue.Record record, List<RoboflowAPI.Prediction> predictions) {
+                uploaded.add(record.sequence);
+            }
+
+            @Override
+            public void onDropped(FrameQueue.Record record, String error) {
+                dropped.add(record.sequence);
+            }
+        };
+        return new FrameQueueDrainer(queue, uploader, listener, executor, maxConcurrent, maxAttempts, 1, 1);
+    }
+
+    private void appendFrames(int count) {
+        byte[] jpeg = new byte[100];
+        for (int i = 0; i < count; i++) {
+            queue.append(jpeg, 0, jpeg.length, 0, 416, 416, i);
+        }
+    }
+
+    // Menunggu semua tugas yang sudah diantrekan di executor selesai
+    private void settle() throws Exception {
+        for (int i = 0; i < 3; i++) {
+            executor.submit(() -> { }).get(1, TimeUnit.SECONDS);
+        }
+    }
+
+    @Test
+    public void drain_respectsConcurrencyAndNeverDuplicates() throws Exception {
+        appendFrames(5);
+        FrameQueueDrainer drainer = newDrainer(2, 3);
+
+        drainer.setOnline(true);
+        drainer.setOnline(false);
+        drainer.setOnline(true);
+        drainer.notifyAppended();
+        drainer.notifyAppended();
+        settle();
+        assertEquals(Arrays.asList(1L, 2L), new ArrayList<>(started));
+
+        callbacks.get(1).onSuccess(Collections.emptyList());
+        settle();
+        assertEquals(Arrays.asList(1L, 2L, 3L), new ArrayList<>(started));
+        assertEquals(Arrays.asList(2L), new ArrayList<>(uploaded));
+        assertEquals(4, queue.size());
+    }
+
+    @Test
+    public void failedUpload_isRetriedThenDropped() throws Exception {
+        appendFrames(1);
+        FrameQueueDrainer drainer = newDrainer(1, 2);
+        drainer.setOnline(true);
+        settle();
+
+        callbacks.get(0).onError("Koneksi gagal: timeout");
+        Thread.sleep(20);
+        settle();
+        assertEquals(Arrays.asList(1L, 1L), new ArrayList<>(started));
+
+        callbacks.get(1).onError("Koneksi gagal: timeout");
+        settle();
+        assertEquals(Arrays.asList(1L), new ArrayList<>(dropped));
+        assertEquals(0, queue.size());
+    }
+
+    @Test
+    public void evictedRecords_doNotKeepRetryState() throws Exception {
+        appendFrames(2);
+        FrameQueueDrainer drainer = newDrainer(1, 3);
+        drainer.setOnline(true);
+        settle();
+
+        // Record 1 gagal sekali lalu diunggah ulang
+        callbacks.get(0).onError("Koneksi gagal: timeout");
+        Thread.sleep(20);
+        settle();
+        assertEquals(Arrays.asList(1L, 1L), new ArrayList<>(started));
+        assertEquals(1, drainer.getTrackedAttemptCount());
+
+        // Antrean penuh: frame besar menggusur record 1 dan 2 saat upload ulang masih berjalan
+        byte[] large = new byte[20 * 1024];
+        executor.submit(() -> {
+            for (int i = 0; i < 4; i++) queue.append(large, 0, large.length, 0, 416, 416, i);
+        }).get(1, TimeUnit.SECONDS);
+        assertTrue(queue.getHeadSequence() > 2);
+        callbacks.get(1).onError("Koneksi gagal: timeout");
+        Thread.sleep(20);
+        drainer.notifyAppended();
+        settle();
+        assertEquals(0, drainer.getTrackedAttemptCount());
+        assertTrue(dropped.isEmpty());
+    }
+
+    @Test
+    public void offline_doesNotUpload() throws Exception {
+        appendFrames(2);
+        FrameQueueDrainer drainer = newDrainer(2, 3);
+        drainer.notifyAppended();
+        settle();
+        assertTrue(started.isEmpty());
+    }
+}
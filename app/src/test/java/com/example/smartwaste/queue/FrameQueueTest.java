@@ -0,0 +1,136 @@
+package com.example.smartwaste.queue;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class FrameQueueTest {
+
+    private File file;
+
+    @Before
+    public void setUp() throws Exception {
+        file = File.createTempFile("frame-queue", ".bin");
+    }
+
+    @After
+    public void tearDown() {
+        file.delete();
+    }
+
+    private static byte[] frame(int seed, int length) {
+        byte[] data = new byte[length];
+        for (int i = 0; i < length; i++) data[i] = (byte) (seed * 31 + i);
+        return data;
+    }
+
+    private static long append(FrameQueue queue, int seed, int length) {
+        byte[] jpeg = frame(seed, length);
+        return queue.append(jpeg, 0, jpeg.length, 90, 416, 312, 1000L + seed);
+    }
+
+    private static List<Long> sequences(List<FrameQueue.Record> records) {
+        List<Long> result = new ArrayList<>();
+        for (FrameQueue.Record record : records) result.add(record.sequence);
+        return result;
+    }
+
+    @Test
+    public void peek_returnsRecordsInOrderWithMetadata() throws Exception {
+        try (FrameQueue queue = FrameQueue.open(file, 64 * 1024)) {
+            append(queue, 1, 1000);
+            append(queue, 2, 2000);
+
+            List<FrameQueue.Record> records = queue.peek(10);
+            assertEquals(Arrays.asList(1L, 2L), sequences(records));
+            FrameQueue.Record first = records.get(0);
+            assertArrayEquals(frame(1, 1000), first.jpeg);
+            assertEquals(90, first.rotationDegrees);
+            assertEquals(416, first.inferenceWidth);
+            assertEquals(312, first.inferenceHeight);
+            assertEquals(1001L, first.capturedAtMs);
+        }
+    }
+
+    @Test
+    public void remove_outOfOrderKeepsRemainingRecords() throws Exception {
+        try (FrameQueue queue = FrameQueue.open(file, 64 * 1024)) {
+            for (int i = 1; i <= 3; i++) append(queue, i, 500);
+
+            queue.remove(2);
+            assertEquals(Arrays.asList(1L, 3L), sequences(queue.peek(10)));
+            queue.remove(1);
+            assertEquals(Arrays.asList(3L), sequences(queue.peek(10)));
+            assertEquals(1, queue.size());
+        }
+    }
+
+    @Test
+    public void append_evictsOldestWhenFullAndWrapsAround() throws Exception {
+        int recordLength = FrameQueue.RECORD_HEADER_SIZE + 1000;
+        try (FrameQueue queue = FrameQueue.open(file, recordLength * 3 + 100)) {
+            for (int i = 1; i <= 10; i++) append(queue, i, 1000);
+
+            List<FrameQueue.Record> records = queue.peek(10);
+            assertEquals(Arrays.asList(8L, 9L, 10L), sequences(records));
+            assertArrayEquals(frame(10, 1000), records.get(2).jpeg);
+            assertEquals(7, queue.getEvictedCount());
+        }
+    }
+
+    @Test
+    public void reopen_restoresRecordsAfterWrap() throws Exception {
+        int recordLength = FrameQueue.RECORD_HEADER_SIZE + 700;
+        try (FrameQueue queue = FrameQueue.open(file, recordLength * 4 + 50)) {
+            for (int i = 1; i <= 7; i++) append(queue, i, 700);
+            queue.remove(4);
+        }
+        try (FrameQueue queue = FrameQueue.open(file, recordLength * 4 + 50)) {
+            List<FrameQueue.Record> records = queue.peek(10);
+            assertEquals(Arrays.asList(5L, 6L, 7L), sequences(records));
+            assertArrayEquals(frame(7, 700), records.get(2).jpeg);
+            assertEquals(8L, append(queue, 8, 700));
+        }
+    }
+
+    @Test
+    public void reopen_truncatesCorruptedTail() throws Exception {
+        try (FrameQueue queue = FrameQueue.open(file, 64 * 1024)) {
+            append(queue, 1, 1000);
+            append(queue, 2, 1000);
+        }
+        // Rusak satu byte data JPEG di record kedua
+        int secondRecordData = FrameQueue.FILE_HEADER_SIZE + (FrameQueue.RECORD_HEADER_SIZE + 1000)
+                + FrameQueue.RECORD_HEADER_SIZE + 10;
+        try (RandomAccessFile raw = new RandomAccessFile(file, "rw")) {
+            raw.seek(secondRecordData);
+            int value = raw.read();
+            raw.seek(secondRecordData);
+            raw.write(value ^ 0xFF);
+        }
+
+        try (FrameQueue queue = FrameQueue.open(file, 64 * 1024)) {
+            assertEquals(Arrays.asList(1L), sequences(queue.peek(10)));
+            assertEquals(2L, append(queue, 3, 1000));
+        }
+    }
+
+    @Test
+    public void open_withDifferentSizeStartsEmpty() throws Exception {
+        try (FrameQueue queue = FrameQueue.open(file, 64 * 1024)) {
+            append(queue, 1, 1000);
+        }
+        try (FrameQueue queue = FrameQueue.open(file, 32 * 1024)) {
+            assertEquals(0, queue.size());
+            assertTrue(queue.peek(10).isEmpty());
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package com.example.smartwaste.replay;
+
+import com.example.smartwaste.metrics.PipelineMetrics;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class FrameRecordingTest {
+
+    private File file;
+
+    @Before
+    public void setUp() throws Exception {
+        file = File.createTempFile("frames", ".swcr");
+    }
+
+    @After
+    public void tearDown() {
+        file.delete();
+    }
+
+    private static ByteBuffer plane(int seed, int length) {
+        ByteBuffer buffer = ByteBuffer.allocateDirect(length);
+        for (int i = 0; i < length; i++) buffer.put((byte) (seed * 31 + i));
+        // Posisi sengaja tidak di 0, seperti buffer yang sudah dibaca sebagian
+        buffer.position(length / 2);
+        return buffer;
+    }
+
+    private static byte[] bytes(ByteBuffer buffer) {
+        ByteBuffer view = buffer.duplicate();
+        view.position(0);
+        byte[] out = new byte[view.remaining()];
+        view.get(out);
+        return out;
+    }
+
+    private static boolean record(FrameRecorder recorder, int seed, long timestampNanos) {
+        // 8x4 dengan padding baris Y (stride 10) dan chroma semi-planar (pixel stride 2)
+        return recorder.record(plane(seed, 40), 10, 1, plane(seed + 1, 15), plane(seed + 2, 15), 8, 2,
+                8, 4, 90, timestampNanos);
+    }
+
+    @Test
+    public void recordedFrames_roundTripWithStridesAndPlanes() throws Exception {
+        try (FrameRecorder recorder = FrameRecorder.create(file, 4096)) {
+            assertTrue(record(recorder, 1, 1_000));
+            assertTrue(record(recorder, 5, 34_000_000));
+            assertEquals(2, recorder.getFrameCount());
+        }
+
+        try (FrameRecording recording = FrameRecording.open(file)) {
+            assertEquals(2, recording.size());
+            FrameRecording.Frame frame = recording.frame(1);
+            assertEquals(1, frame.index);
+            assertEquals(34_000_000L, frame.timestampNanos);
+            assertEquals(90, frame.rotationDegrees);
+            assertEquals(8, frame.width);
+            assertEquals(4, frame.height);
+            assertEquals(10, frame.yRowStride);
+            assertEquals(1, frame.yPixelStride);
+            assertEquals(8, frame.uvRowStride);
+            assertEquals(2, frame.uvPixelStride);
+            assertArrayEquals(bytes(plane(5, 40)), bytes(frame.y));
+            assertArrayEquals(bytes(plane(6, 15)), bytes(frame.u));
+            assertArrayEquals(bytes(plane(7, 15)), bytes(frame.v));
+        }
+        // Kapasitas yang tidak terpakai dipotong saat close
+        assertEquals(FrameRecording.FILE_HEADER_SIZE + 2 * (FrameRecording.RECORD_HEADER_SIZE + 70), file.length());
+    }
+
+    @Test
+    public void fullRecorder_rejectsFrameWithoutCorruptingEarlierOnes() throws Exception {
+        int oneFrame = FrameRecording.RECORD_HEADER_SIZE + 70;
+        try (FrameRecorder recorder = FrameRecorder.create(file, oneFrame + oneFrame / 2)) {
+            assertTrue(record(recorder, 1, 0));
+            assertFalse(record(recorder, 2, 1));
+        }
+        try (FrameRecording recording = FrameRecording.open(file)) {
+            assertEquals(1, recording.size());
+            assertArrayEquals(bytes(plane(1, 40)), bytes(recording.frame(0).y));
+        }
+    }
+
+    @Test
+    public void truncatedLastRecord_isIgnored() throws Exception {
+        try (FrameRecorder recorder = FrameRecorder.create(file, 4096)) {
+            record(recorder, 1, 0);
+            record(recorder, 2, 1);
+        }
+        try (RandomAccessFile raw = new RandomAccessFile(file, "rw")) {
+            raw.setLength(raw.length() - 10);
+        }
+        try (FrameRecording recording = FrameRecording.open(file)) {
+            assertEquals(1, recording.size());
+        }
+    }
+
+    @Test
+    public void driver_deliversEveryFrameInOrderForEachLoop() throws Exception {
+        try (FrameRecorder recorder = FrameRecorder.create(file, 4096)) {
+            for (int i = 0; i < 3; i++) record(recorder, i, i * 1_000_000L);
+        }
+        List<Integer> delivered = new ArrayList<>();
+        boolean[] idle = new boolean[1];
+        long[] allocated = {100};
+        PipelineMetrics metrics = new PipelineMetrics();
+        ReplayDriver driver = new ReplayDriver(metrics, () -> allocated[0] += 50);
+        ReplayDriver.Report report;
+        try (FrameRecording recording = FrameRecording.open(file)) {
+            report = driver.run(recording, new ReplayDriver.FrameSink() {
+                @Override
+                public void onFrame(FrameRecording.Frame frame) {
+                    delivered.add(frame.index);
+                }
+
+                @Override
+                public void awaitIdle() {
+                    idle[0] = true;
+                }
+            }, true, 2);
+        }
+        assertEquals(Arrays.asList(0, 1, 2, 0, 1, 2), delivered);
+        assertTrue(idle[0]);
+        assertEquals(6, report.frames);
+        assertEquals(6, metrics.getCount(PipelineMetrics.Counter.FRAMES_SEEN));
+        assertEquals(50, report.allocatedBytes);
+        // Dua putaran 3 frame dengan jarak 1 ms: frame terakhir tidak lebih awal dari 5 ms
+        assertTrue(report.elapsedNanos >= 5_000_000L);
+    }
+}
@@ -0,0 +1,47 @@
+plugins {
+    id("java")
+    alias(libs.plugins.jmh)
+}
+
+// android-all dikompilasi untuk Java 17
+java {
+    sourceCompatibility = JavaVersion.VERSION_17
+    targetCompatibility = JavaVersion.VERSION_17
+}
+
+// Kernel CPU dari app dikompilasi ulang di sini, hanya paket yang tidak butuh kamera/UI
+sourceSets {
+    named("jmh") {
+        java {
+            srcDir("../app/src/main/java")
+            include("com/example/smartwaste/benchmark/**")
+            include("com/example/smartwaste/api/**")
+            include("com/example/smartwaste/image/**")
+            include("com/example/smartwaste/metrics/**")
+            include("com/example/smartwaste/pipeline/**")
+            include("com/example/smartwaste/pool/**")
+            include("com/example/smartwaste/detector/Detector.java")
+        }
+    }
+}
+
+dependencies {
+    // Implementasi asli org.json, JsonReader, Base64 dan RectF yang berjalan di JVM biasa
+    jmhImplementation("org.robolectric:android-all:14-robolectric-10818077")
+    jmhImplementation("com.squareup.okhttp3:okhttp:4.12.0")
+    jmhCompileOnly("androidx.annotation:annotation:1.7.1")
+}
+
+// ./gradlew :benchmark:jmh → ops/s dan gc.alloc.rate.norm (byte per op) di build/results/jmh
+jmh {
+    jmhVersion.set("1.37")
+    benchmarkMode.set(listOf("thrpt"))
+    timeUnit.set("s")
+    fork.set(1)
+    warmupIterations.set(3)
+    warmup.set("2s")
+    iterations.set(5)
+    timeOnIteration.set("2s")
+    profilers.add("gc")
+    resultFormat.set("JSON")
+}
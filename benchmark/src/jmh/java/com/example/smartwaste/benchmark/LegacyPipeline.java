@@ -0,0 +1,296 @@
+package com.example.smartwaste.benchmark;
+
+import android.graphics.RectF;
+import android.util.Base64;
+
+import com.example.smartwaste.api.RoboflowAPI;
+import com.example.smartwaste.api.WorkflowResponseParser;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import okhttp3.MediaType;
+import okhttp3.RequestBody;
+
+/**
+ * Salinan jalur lama (sebelum optimasi) dari MainActivity, RoboflowAPI dan BoundingBoxOverlay,
+ * supaya versi baru selalu bisa dibandingkan dengan titik awalnya.
+ * Bagian yang native di Android (kompres JPEG, Bitmap.createBitmap, Canvas) tidak ikut diukur.
+ */
+final class LegacyPipeline {
+
+    private LegacyPipeline() {
+    }
+
+    // MainActivity.toBitmap: salin plane ke NV21 per piksel (sebelum YuvImage.compressToJpeg)
+    static byte[] toNv21(SyntheticFrame frame) {
+        int width = frame.width;
+        int height = frame.height;
+        int yRowStride = frame.yRowStride;
+        int yPixelStride = frame.yPixelStride;
+        int uvRowStride = frame.uvRowStride;
+        int uvPixelStride = frame.uvPixelStride;
+        ByteBuffer yBuffer = frame.y;
+        ByteBuffer uBuffer = frame.u;
+        ByteBuffer vBuffer = frame.v;
+
+        byte[] nv21 = new byte[width * height + 2 * ((width + 1) / 2) * ((height + 1) / 2)];
+
+        int yIndex = 0;
+        for (int row = 0; row < height; row++) {
+            for (int col = 0; col < width; col++) {
+                int bufferIndex = row * yRowStride + col * yPixelStride;
+                if (bufferIndex < yBuffer.remaining()) {
+                    nv21[yIndex++] = yBuffer.get(bufferIndex);
+                }
+            }
+        }
+
+        int uvIndex = width * height;
+        for (int row = 0; row < height / 2; row++) {
+            for (int col = 0; col < width / 2; col++) {
+                int bufferIndex = row * uvRowStride + col * uvPixelStride;
+                if (bufferIndex < vBuffer.remaining()) {
+                    nv21[uvIndex++] = vBuffer.get(bufferIndex);
+                }
+                if (bufferIndex < uBuffer.remaining()) {
+                    nv21[uvIndex++] = uBuffer.get(bufferIndex);
+                }
+            }
+        }
+        return nv21;
+    }
+
+    // MainActivity.toBitmapAlternative: konversi RGB per piksel dengan double (sebelum createBitmap)
+    static int[] toArgbAlternative(SyntheticFrame frame) {
+        int width = frame.width;
+        int height = frame.height;
+        ByteBuffer yBuffer = frame.y;
+        ByteBuffer uBuffer = frame.u;
+        ByteBuffer vBuffer = frame.v;
+        int yRowStride = frame.yRowStride;
+        int yPixelStride = frame.yPixelStride;
+        int uvRowStride = frame.uvRowStride;
+        int uvPixelStride = frame.uvPixelStride;
+
+        int[] pixels = new int[width * height];
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                int yIndex = y * yRowStride + x * yPixelStride;
+                int Y = yBuffer.get(yIndex) & 0xFF;
+
+                int uvx = x / 2;
+                int uvy = y / 2;
+                int uvIndex = uvy * uvRowStride + uvx * uvPixelStride;
+
+                int U = 128, V = 128;
+                if (uvIndex < uBuffer.remaining() && uvIndex < vBuffer.remaining()) {
+                    U = uBuffer.get(uvIndex) & 0xFF;
+                    V = vBuffer.get(uvIndex) & 0xFF;
+                }
+
+                U -= 128;
+                V -= 128;
+
+                int R = Math.max(0, Math.min(255, (int) (Y + 1.402 * V)));
+                int G = Math.max(0, Math.min(255, (int) (Y - 0.344 * U - 0.714 * V)));
+                int B = Math.max(0, Math.min(255, (int) (Y + 1.772 * U)));
+
+                pixels[y * width + x] = (0xFF << 24) | (R << 16) | (G << 8) | B;
+            }
+        }
+        return pixels;
+    }
+
+    /**
+     * MainActivity.processImage: Bitmap.createBitmap(..., matrix, true) lalu createScaledBitmap(..., true).
+     * Keduanya native di Android; di sini ditiru dengan pola alokasi yang sama (satu buffer
+     * penuh hasil rotasi, satu buffer hasil resize) dan sampling bilinear float.
+     * Ukuran keluaran ditulis ke outSize[0..1].
+     */
+    static int[] rotateAndScale(int[] argb, int width, int height, int rotationDegrees, int inputSize, int[] outSize) {
+        boolean swap = rotationDegrees == 90 || rotationDegrees == 270;
+        int rotatedWidth = swap ? height : width;
+        int rotatedHeight = swap ? width : height;
+        int[] rotated = new int[rotatedWidth * rotatedHeight];
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                int dx, dy;
+                switch (rotationDegrees) {
+                    case 90: dx = height - 1 - y; dy = x; break;
+                    case 180: dx = width - 1 - x; dy = height - 1 - y; break;
+                    case 270: dx = y; dy = width - 1 - x; break;
+                    default: dx = x; dy = y; break;
+                }
+                rotated[dy * rotatedWidth + dx] = argb[y * width + x];
+            }
+        }
+
+        float aspectRatio = (float) rotatedWidth / (float) rotatedHeight;
+        int finalWidth = inputSize;
+        int finalHeight = inputSize;
+        if (rotatedWidth > rotatedHeight) {
+            finalHeight = (int) (inputSize / aspectRatio);
+        } else {
+            finalWidth = (int) (inputSize * aspectRatio);
+        }
+
+        int[] scaled = new int[finalWidth * finalHeight];
+        float scaleX = (float) rotatedWidth / finalWidth;
+        float scaleY = (float) rotatedHeight / finalHeight;
+        for (int y = 0; y < finalHeight; y++) {
+            float sy = Math.max(0f, (y + 0.5f) * scaleY - 0.5f);
+            int y0 = Math.min((int) sy, rotatedHeight - 1);
+            int y1 = Math.min(y0 + 1, rotatedHeight - 1);
+            float fy = sy - y0;
+            for (int x = 0; x < finalWidth; x++) {
+                float sx = Math.max(0f, (x + 0.5f) * scaleX - 0.5f);
+                int x0 = Math.min((int) sx, rotatedWidth - 1);
+                int x1 = Math.min(x0 + 1, rotatedWidth - 1);
+                float fx = sx - x0;
+                int p00 = rotated[y0 * rotatedWidth + x0];
+                int p01 = rotated[y0 * rotatedWidth + x1];
+                int p10 = rotated[y1 * rotatedWidth + x0];
+                int p11 = rotated[y1 * rotatedWidth + x1];
+                int pixel = 0xFF000000;
+                for (int shift = 0; shift <= 16; shift += 8) {
+                    float top = ((p00 >> shift) & 0xFF) * (1 - fx) + ((p01 >> shift) & 0xFF) * fx;
+                    float bottom = ((p10 >> shift) & 0xFF) * (1 - fx) + ((p11 >> shift) & 0xFF) * fx;
+                    pixel |= ((int) (top * (1 - fy) + bottom * fy + 0.5f)) << shift;
+                }
+                scaled[y * finalWidth + x] = pixel;
+            }
+        }
+        outSize[0] = finalWidth;
+        outSize[1] = finalHeight;
+        return scaled;
+    }
+
+    // MainActivity.bitmapToBase64 + RoboflowAPI.detectGarbage(String): payload sebagai satu String
+    static RequestBody buildPayload(String apiKey, byte[] jpeg) throws JSONException {
+        String base64ImageData = Base64.encodeToString(jpeg, Base64.NO_WRAP);
+        JSONObject payload = new JSONObject();
+        payload.put("api_key", apiKey);
+        JSONObject imageObject = new JSONObject();
+        imageObject.put("type", "base64");
+        imageObject.put("value", base64ImageData);
+        JSONObject inputs = new JSONObject();
+        inputs.put("image", imageObject);
+        payload.put("inputs", inputs);
+
+        MediaType JSON = MediaType.get("application/json; charset=utf-8");
+        return RequestBody.create(payload.toString(), JSON);
+    }
+
+    // RoboflowAPI.parseResponse: seluruh respons dibangun jadi pohon JSONObject
+    static List<RoboflowAPI.Prediction> parseResponse(String responseBody) throws JSONException {
+        List<RoboflowAPI.Prediction> predictionList = new ArrayList<>();
+        JSONObject jsonResponse = new JSONObject(responseBody);
+
+        JSONArray outputs = jsonResponse.optJSONArray("outputs");
+        if (outputs == null) return predictionList;
+
+        for (int i = 0; i < outputs.length(); i++) {
+            JSONObject output = outputs.getJSONObject(i);
+            Object predictionsObj = output.opt("predictions");
+
+            JSONArray predictions = null;
+            if (predictionsObj instanceof JSONObject && ((JSONObject) predictionsObj).has("predictions")) {
+                predictions = ((JSONObject) predictionsObj).getJSONArray("predictions");
+            } else if (predictionsObj instanceof JSONArray) {
+                predictions = (JSONArray) predictionsObj;
+            }
+
+            if (predictions == null) continue;
+
+            for (int j = 0; j < predictions.length(); j++) {
+                JSONObject p = predictions.getJSONObject(j);
+
+                String className = WorkflowResponseParser.getReadableClassName(p.optString("class", "Unknown"));
+                float confidence = (float) p.optDouble("confidence", 0.0);
+
+                float x = (float) p.optDouble("x", 0.0);
+                float y = (float) p.optDouble("y", 0.0);
+                float width = (float) p.optDouble("width", 0.0);
+                float height = (float) p.optDouble("height", 0.0);
+
+                if (width > 0 && height > 0) {
+                    float left = x - (width / 2);
+                    float top = y - (height / 2);
+                    float right = x + (width / 2);
+                    float bottom = y + (height / 2);
+
+                    RectF box = new RectF(left, top, right, bottom);
+                    predictionList.add(new RoboflowAPI.Prediction(className, confidence, box));
+                }
+            }
+        }
+        return predictionList;
+    }
+
+    // BoundingBoxOverlay.onDraw: RectF baru per kotak dan String.format untuk label
+    static void drawBoxes(List<RoboflowAPI.Prediction> predictions, int sourceImageWidth, int sourceImageHeight,
+                          int rotationDegrees, float viewWidth, float viewHeight, Blackhole canvas) {
+        float originalImageWidth = sourceImageWidth;
+        float originalImageHeight = sourceImageHeight;
+
+        float imageWidth, imageHeight;
+        if (rotationDegrees == 90 || rotationDegrees == 270) {
+            imageWidth = originalImageHeight;
+            imageHeight = originalImageWidth;
+        } else {
+            imageWidth = originalImageWidth;
+            imageHeight = originalImageHeight;
+        }
+
+        float scale = Math.min(viewWidth / imageWidth, viewHeight / imageHeight);
+        float offsetX = (viewWidth - (imageWidth * scale)) / 2f;
+        float offsetY = (viewHeight - (imageHeight * scale)) / 2f;
+
+        for (RoboflowAPI.Prediction prediction : predictions) {
+            RectF originalBox = new RectF(prediction.boundingBox);
+            RectF transformedBox = new RectF();
+
+            switch (rotationDegrees) {
+                case 90:
+                    transformedBox.left = originalImageHeight - originalBox.bottom;
+                    transformedBox.top = originalBox.left;
+                    transformedBox.right = originalImageHeight - originalBox.top;
+                    transformedBox.bottom = originalBox.right;
+                    break;
+                case 180:
+                    transformedBox.left = originalImageWidth - originalBox.right;
+                    transformedBox.top = originalImageHeight - originalBox.bottom;
+                    transformedBox.right = originalImageWidth - originalBox.left;
+                    transformedBox.bottom = originalImageHeight - originalBox.top;
+                    break;
+                case 270:
+                    transformedBox.left = originalBox.top;
+                    transformedBox.top = originalImageWidth - originalBox.right;
+                    transformedBox.right = originalBox.bottom;
+                    transformedBox.bottom = originalImageWidth - originalBox.left;
+                    break;
+                default:
+                    transformedBox.set(originalBox);
+                    break;
+            }
+
+            RectF finalBox = new RectF();
+            finalBox.left = transformedBox.left * scale + offsetX;
+            finalBox.top = transformedBox.top * scale + offsetY;
+            finalBox.right = transformedBox.right * scale + offsetX;
+            finalBox.bottom = transformedBox.bottom * scale + offsetY;
+
+            // Pengganti canvas.drawRect / canvas.drawText
+            canvas.consume(finalBox);
+            String label = prediction.className + ": " + String.format("%.1f", prediction.confidence * 100) + "%";
+            canvas.consume(label);
+        }
+    }
+}
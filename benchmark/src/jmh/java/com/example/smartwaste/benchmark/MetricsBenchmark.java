@@ -0,0 +1,34 @@
+package com.example.smartwaste.benchmark;
+
+import com.example.smartwaste.metrics.PipelineMetrics;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+
+/**
+ * Biaya pencatatan metrik di hot path; gc.alloc.rate.norm harus tetap 0 B/op.
+ */
+@State(Scope.Benchmark)
+public class MetricsBenchmark {
+
+    private final PipelineMetrics metrics = new PipelineMetrics();
+
+    @Benchmark
+    public void recordStage() {
+        metrics.record(PipelineMetrics.Stage.PREPROCESS, PipelineMetrics.now());
+    }
+
+    @Benchmark
+    public void incrementCounter() {
+        metrics.increment(PipelineMetrics.Counter.FRAMES_SEEN);
+    }
+
+    // Thread kamera, OkHttp dan UI mencatat ke histogram yang sama
+    @Benchmark
+    @Threads(4)
+    public void recordStageContended() {
+        metrics.record(PipelineMetrics.Stage.NETWORK, PipelineMetrics.now());
+    }
+}
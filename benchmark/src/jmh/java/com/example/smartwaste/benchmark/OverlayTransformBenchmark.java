@@ -0,0 +1,54 @@
+package com.example.smartwaste.benchmark;
+
+import android.graphics.RectF;
+
+import com.example.smartwaste.api.RoboflowAPI;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Transformasi koordinat + label per frame di BoundingBoxOverlay.onDraw, tanpa Canvas.
+ */
+@State(Scope.Thread)
+public class OverlayTransformBenchmark {
+
+    private static final int IMAGE_WIDTH = 416;
+    private static final int IMAGE_HEIGHT = 312;
+    private static final float VIEW_WIDTH = 1080f;
+    private static final float VIEW_HEIGHT = 1920f;
+
+    @Param({"0", "90"})
+    public int rotationDegrees;
+
+    @Param({"5", "25"})
+    public int boxCount;
+
+    private final List<RoboflowAPI.Prediction> predictions = new ArrayList<>();
+
+    @Setup
+    public void setUp() {
+        String[] classes = {"Sampah B3", "Sampah Anorganik", "Sampah Organik"};
+        Random random = new Random(5);
+        predictions.clear();
+        for (int i = 0; i < boxCount; i++) {
+            float left = random.nextFloat() * (IMAGE_WIDTH - 60);
+            float top = random.nextFloat() * (IMAGE_HEIGHT - 60);
+            RectF box = new RectF(left, top, left + 20 + random.nextFloat() * 40, top + 20 + random.nextFloat() * 40);
+            predictions.add(new RoboflowAPI.Prediction(classes[i % classes.length], 0.3f + random.nextFloat() * 0.7f, box));
+        }
+    }
+
+    @Benchmark
+    public void legacyOnDraw(Blackhole canvas) {
+        LegacyPipeline.drawBoxes(predictions, IMAGE_WIDTH, IMAGE_HEIGHT, rotationDegrees, VIEW_WIDTH, VIEW_HEIGHT, canvas);
+    }
+}
@@ -0,0 +1,74 @@
+package com.example.smartwaste.benchmark;
+
+import com.example.smartwaste.image.BandExecutor;
+import com.example.smartwaste.image.FramePreprocessor;
+import com.example.smartwaste.image.YuvFrame;
+import com.example.smartwaste.image.YuvToRgbConverter;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Kernel preprocessing berurutan (threads = 1) vs dibagi per pita baris pada BandExecutor.
+ * Titik silang (ukuran frame di mana paralel mulai lebih cepat) menentukan
+ * PARALLEL_MIN_PIXELS di MainActivity; di bawahnya biaya membangunkan worker lebih besar
+ * dari kerja per pita.
+ */
+@State(Scope.Thread)
+public class ParallelPreprocessBenchmark {
+
+    private static final int INPUT_SIZE = 416;
+
+    @Param({"160x120", "320x240", "640x480", "1280x720", "1920x1080"})
+    public String resolution;
+
+    @Param({"1", "2", "4"})
+    public int threads;
+
+    private final YuvFrame yuvFrame = new YuvFrame();
+    private final FramePreprocessor area = new FramePreprocessor(INPUT_SIZE, FramePreprocessor.Mode.AREA);
+    private final FramePreprocessor bilinear = new FramePreprocessor(INPUT_SIZE, FramePreprocessor.Mode.BILINEAR);
+    private final YuvToRgbConverter converter = new YuvToRgbConverter();
+    private BandExecutor bands;
+
+    @Setup
+    public void setUp() {
+        String[] size = resolution.split("x");
+        SyntheticFrame frame = SyntheticFrame.create(Integer.parseInt(size[0]), Integer.parseInt(size[1]),
+                SyntheticFrame.Layout.SEMI_PLANAR);
+        yuvFrame.copyFrom(frame.y, frame.yRowStride, frame.yPixelStride,
+                frame.u, frame.v, frame.uvRowStride, frame.uvPixelStride,
+                frame.width, frame.height);
+        if (threads > 1) {
+            // Tanpa batas ukuran supaya setiap resolusi benar-benar dibagi
+            bands = new BandExecutor(threads, 0);
+            area.setBandExecutor(bands);
+            bilinear.setBandExecutor(bands);
+            converter.setBandExecutor(bands);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        if (bands != null) bands.close();
+    }
+
+    @Benchmark
+    public int[] areaRotate90() {
+        return area.process(yuvFrame, 90);
+    }
+
+    @Benchmark
+    public int[] bilinearRotate90() {
+        return bilinear.process(yuvFrame, 90);
+    }
+
+    @Benchmark
+    public int[] convertFullFrame() {
+        return converter.convert(yuvFrame);
+    }
+}
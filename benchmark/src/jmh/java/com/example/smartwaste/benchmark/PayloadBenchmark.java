@@ -0,0 +1,70 @@
+package com.example.smartwaste.benchmark;
+
+import com.example.smartwaste.api.ImageRequestBody;
+
+import org.json.JSONException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.IOException;
+import java.util.Random;
+
+import okhttp3.RequestBody;
+import okio.BufferedSink;
+import okio.Okio;
+
+/**
+ * Membuat dan menulis body request workflow untuk satu JPEG, seperti yang dilakukan OkHttp
+ * (contentLength lalu writeTo). Byte JPEG diganti data acak dengan entropi serupa.
+ */
+@State(Scope.Thread)
+public class PayloadBenchmark {
+
+    private static final String API_KEY = "benchmark-api-key";
+
+    // Kira-kira JPEG 416x312 kualitas 95 untuk adegan sederhana, sedang dan ramai
+    @Param({"30000", "60000", "120000"})
+    public int jpegSize;
+
+    private byte[] jpeg;
+    private BufferedSink sink;
+    private byte[][] batchData;
+    private int[] batchOffsets;
+    private int[] batchLengths;
+
+    @Setup
+    public void setUp() {
+        jpeg = new byte[jpegSize];
+        new Random(7).nextBytes(jpeg);
+        sink = Okio.buffer(Okio.blackhole());
+        batchData = new byte[][]{jpeg, jpeg, jpeg, jpeg};
+        batchOffsets = new int[4];
+        batchLengths = new int[]{jpegSize, jpegSize, jpegSize, jpegSize};
+    }
+
+    @Benchmark
+    public long legacyBase64AndJsonObject() throws JSONException, IOException {
+        return write(LegacyPipeline.buildPayload(API_KEY, jpeg));
+    }
+
+    @Benchmark
+    public long streamingRequestBody() throws IOException {
+        return write(new ImageRequestBody(API_KEY, jpeg));
+    }
+
+    // Empat frame dalam satu request batch, dibandingkan dengan empat kali streamingRequestBody
+    @Benchmark
+    public long streamingBatchOfFour() throws IOException {
+        return write(new ImageRequestBody(API_KEY, batchData, batchOffsets, batchLengths));
+    }
+
+    private long write(RequestBody body) throws IOException {
+        long length = body.contentLength();
+        body.writeTo(sink);
+        sink.flush();
+        return length;
+    }
+}
@@ -0,0 +1,64 @@
+package com.example.smartwaste.benchmark;
+
+import com.example.smartwaste.api.LabelTable;
+import com.example.smartwaste.api.PredictionBatch;
+import com.example.smartwaste.pipeline.PostProcessor;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Random;
+
+/**
+ * PostProcessor pada adegan padat (mis. tumpukan botol): banyak kotak kecil yang saling tumpang
+ * tindih. gc.alloc.rate.norm seharusnya hanya sebesar PredictionBatch hasil.
+ */
+@State(Scope.Thread)
+public class PostProcessBenchmark {
+
+    private static final int IMAGE_SIZE = 416;
+
+    @Param({"100", "300", "1000"})
+    public int boxCount;
+
+    @Param({"true", "false"})
+    public boolean classAware;
+
+    // 0 = tanpa batas top-K
+    @Param({"0", "50"})
+    public int maxDetections;
+
+    private PredictionBatch batch;
+    private PostProcessor processor;
+
+    @Setup
+    public void setUp() {
+        short[] classes = {LabelTable.intern("B3"), LabelTable.intern("anorganik"), LabelTable.intern("organik")};
+        Random random = new Random(13);
+        batch = new PredictionBatch(boxCount);
+        // Sekitar sepertiga kotak adalah duplikat bergeser dari kotak sebelumnya
+        for (int i = 0; i < boxCount; i++) {
+            float left, top, size;
+            if (i > 0 && random.nextInt(3) == 0) {
+                left = batch.left(i - 1) + random.nextFloat() * 6 - 3;
+                top = batch.top(i - 1) + random.nextFloat() * 6 - 3;
+                size = batch.width(i - 1);
+            } else {
+                size = 15 + random.nextFloat() * 40;
+                left = random.nextFloat() * (IMAGE_SIZE - size);
+                top = random.nextFloat() * (IMAGE_SIZE - size);
+            }
+            batch.add(classes[random.nextInt(classes.length)], 0.05f + random.nextFloat() * 0.95f,
+                    left, top, left + size, top + size);
+        }
+        processor = new PostProcessor(0.3f, 0.5f, classAware, maxDetections);
+    }
+
+    @Benchmark
+    public PredictionBatch process() {
+        return processor.process(batch);
+    }
+}
@@ -0,0 +1,59 @@
+package com.example.smartwaste.benchmark;
+
+import com.example.smartwaste.image.FramePreprocessor;
+import com.example.smartwaste.image.YuvFrame;
+import com.example.smartwaste.image.YuvToRgbConverter;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Rotasi + resize ke INPUT_SIZE. Jalur lama mulai dari ARGB ukuran penuh; FramePreprocessor
+ * mulai dari YuvFrame, jadi angkanya sudah termasuk konversi warna.
+ */
+@State(Scope.Thread)
+public class PreprocessBenchmark {
+
+    private static final int INPUT_SIZE = 416;
+
+    @Param({"640x480", "1280x720"})
+    public String resolution;
+
+    @Param({"0", "90"})
+    public int rotationDegrees;
+
+    private final YuvFrame yuvFrame = new YuvFrame();
+    private int[] argb;
+    private final int[] outSize = new int[2];
+    private final FramePreprocessor area = new FramePreprocessor(INPUT_SIZE, FramePreprocessor.Mode.AREA);
+    private final FramePreprocessor bilinear = new FramePreprocessor(INPUT_SIZE, FramePreprocessor.Mode.BILINEAR);
+
+    @Setup
+    public void setUp() {
+        String[] size = resolution.split("x");
+        SyntheticFrame frame = SyntheticFrame.create(Integer.parseInt(size[0]), Integer.parseInt(size[1]),
+                SyntheticFrame.Layout.SEMI_PLANAR);
+        yuvFrame.copyFrom(frame.y, frame.yRowStride, frame.yPixelStride,
+                frame.u, frame.v, frame.uvRowStride, frame.uvPixelStride,
+                frame.width, frame.height);
+        argb = new YuvToRgbConverter().convert(yuvFrame).clone();
+    }
+
+    @Benchmark
+    public int[] legacyRotateAndScale() {
+        return LegacyPipeline.rotateAndScale(argb, yuvFrame.width, yuvFrame.height, rotationDegrees, INPUT_SIZE, outSize);
+    }
+
+    @Benchmark
+    public int[] fusedArea() {
+        return area.process(yuvFrame, rotationDegrees);
+    }
+
+    @Benchmark
+    public int[] fusedBilinear() {
+        return bilinear.process(yuvFrame, rotationDegrees);
+    }
+}
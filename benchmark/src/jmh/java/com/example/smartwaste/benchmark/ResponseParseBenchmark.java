@@ -0,0 +1,75 @@
+package com.example.smartwaste.benchmark;
+
+import com.example.smartwaste.api.PredictionBatch;
+import com.example.smartwaste.api.RoboflowAPI;
+import com.example.smartwaste.api.WorkflowResponseParser;
+
+import org.json.JSONException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Parsing respons workflow dari byte body HTTP. Gambar visualisasi (output_image) di respons
+ * rekaman diganti placeholder; ukurannya diatur lewat outputImageKb.
+ */
+@State(Scope.Thread)
+public class ResponseParseBenchmark {
+
+    private static final String OUTPUT_IMAGE_PLACEHOLDER = "@OUTPUT_IMAGE@";
+
+    @Param({"workflow_few", "workflow_many"})
+    public String response;
+
+    @Param({"0", "300"})
+    public int outputImageKb;
+
+    private byte[] body;
+
+    @Setup
+    public void setUp() throws IOException {
+        byte[] image = new byte[outputImageKb * 1024];
+        new Random(11).nextBytes(image);
+        String json = readResource("/responses/" + response + ".json")
+                .replace(OUTPUT_IMAGE_PLACEHOLDER, Base64.getEncoder().encodeToString(image));
+        body = json.getBytes(StandardCharsets.UTF_8);
+    }
+
+    // responseBody.string() lalu JSONObject
+    @Benchmark
+    public List<RoboflowAPI.Prediction> legacyJsonObject() throws JSONException {
+        return LegacyPipeline.parseResponse(new String(body, StandardCharsets.UTF_8));
+    }
+
+    // responseBody.charStream() lalu parser streaming
+    @Benchmark
+    public PredictionBatch streamingParser() throws IOException {
+        return WorkflowResponseParser.parse(
+                new InputStreamReader(new ByteArrayInputStream(body), StandardCharsets.UTF_8));
+    }
+
+    private static String readResource(String name) throws IOException {
+        try (InputStream in = ResponseParseBenchmark.class.getResourceAsStream(name)) {
+            if (in == null) throw new IOException("Resource tidak ditemukan: " + name);
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[8192];
+            int n;
+            while ((n = in.read(buffer)) != -1) {
+                out.write(buffer, 0, n);
+            }
+            return new String(out.toByteArray(), StandardCharsets.UTF_8);
+        }
+    }
+}
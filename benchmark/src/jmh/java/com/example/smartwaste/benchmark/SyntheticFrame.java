@@ -0,0 +1,97 @@
+package com.example.smartwaste.benchmark;
+
+import java.nio.ByteBuffer;
+import java.util.Random;
+
+/**
+ * Frame YUV_420_888 buatan dengan tata letak plane seperti ImageProxy dari CameraX:
+ * row stride ber-padding dan plane U/V yang saling menumpuk (semi-planar, pixel stride 2)
+ * atau planar (pixel stride 1). Isinya gradien + noise deterministik agar hasil tiap run sama.
+ */
+public final class SyntheticFrame {
+
+    public enum Layout {
+        // Kebanyakan perangkat: buffer VU berselang-seling, U dan V view yang bergeser satu byte
+        SEMI_PLANAR,
+        // Beberapa perangkat/emulator: tiga plane terpisah
+        PLANAR
+    }
+
+    public final int width;
+    public final int height;
+    public final ByteBuffer y;
+    public final int yRowStride;
+    public final int yPixelStride = 1;
+    public final ByteBuffer u;
+    public final ByteBuffer v;
+    public final int uvRowStride;
+    public final int uvPixelStride;
+
+    private SyntheticFrame(int width, int height, ByteBuffer y, int yRowStride,
+                           ByteBuffer u, ByteBuffer v, int uvRowStride, int uvPixelStride) {
+        this.width = width;
+        this.height = height;
+        this.y = y;
+        this.yRowStride = yRowStride;
+        this.u = u;
+        this.v = v;
+        this.uvRowStride = uvRowStride;
+        this.uvPixelStride = uvPixelStride;
+    }
+
+    /** Membuat frame dengan row stride dibulatkan ke kelipatan 64 byte seperti HAL kamera. */
+    public static SyntheticFrame create(int width, int height, Layout layout) {
+        Random random = new Random(42);
+        int yRowStride = align(width, 64);
+        int chromaWidth = (width + 1) / 2;
+        int chromaHeight = (height + 1) / 2;
+
+        // Baris terakhir tidak ber-padding, sama seperti buffer kamera sungguhan
+        ByteBuffer y = ByteBuffer.allocateDirect(yRowStride * (height - 1) + width);
+        for (int row = 0; row < height; row++) {
+            for (int col = 0; col < width; col++) {
+                int value = ((col * 255) / width + (row * 128) / height + random.nextInt(24)) & 0xFF;
+                y.put(row * yRowStride + col, (byte) value);
+            }
+        }
+
+        if (layout == Layout.SEMI_PLANAR) {
+            int uvRowStride = yRowStride;
+            ByteBuffer vu = ByteBuffer.allocateDirect(uvRowStride * (chromaHeight - 1) + chromaWidth * 2);
+            for (int row = 0; row < chromaHeight; row++) {
+                for (int col = 0; col < chromaWidth; col++) {
+                    int index = row * uvRowStride + col * 2;
+                    vu.put(index, (byte) (96 + (row * 64) / chromaHeight + random.nextInt(8)));
+                    vu.put(index + 1, (byte) (160 - (col * 64) / chromaWidth + random.nextInt(8)));
+                }
+            }
+            ByteBuffer v = slice(vu, 0, vu.capacity() - 1);
+            ByteBuffer u = slice(vu, 1, vu.capacity() - 1);
+            return new SyntheticFrame(width, height, y, yRowStride, u, v, uvRowStride, 2);
+        }
+
+        int uvRowStride = align(chromaWidth, 32);
+        int planeSize = uvRowStride * (chromaHeight - 1) + chromaWidth;
+        ByteBuffer u = ByteBuffer.allocateDirect(planeSize);
+        ByteBuffer v = ByteBuffer.allocateDirect(planeSize);
+        for (int row = 0; row < chromaHeight; row++) {
+            for (int col = 0; col < chromaWidth; col++) {
+                int index = row * uvRowStride + col;
+                u.put(index, (byte) (160 - (col * 64) / chromaWidth + random.nextInt(8)));
+                v.put(index, (byte) (96 + (row * 64) / chromaHeight + random.nextInt(8)));
+            }
+        }
+        return new SyntheticFrame(width, height, y, yRowStride, u, v, uvRowStride, 1);
+    }
+
+    private static int align(int value, int alignment) {
+        return (value + alignment - 1) / alignment * alignment;
+    }
+
+    private static ByteBuffer slice(ByteBuffer buffer, int offset, int length) {
+        ByteBuffer duplicate = buffer.duplicate();
+        duplicate.position(offset);
+        duplicate.limit(offset + length);
+        return duplicate.slice();
+    }
+}
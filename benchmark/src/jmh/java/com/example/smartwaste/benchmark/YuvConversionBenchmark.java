@@ -0,0 +1,79 @@
+package com.example.smartwaste.benchmark;
+
+import com.example.smartwaste.image.PlaneLayout;
+import com.example.smartwaste.image.YuvFrame;
+import com.example.smartwaste.image.YuvToRgbConverter;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * ImageProxy (YUV_420_888) → NV21/ARGB: jalur lama MainActivity.toBitmap/toBitmapAlternative
+ * dibandingkan dengan YuvFrame + YuvToRgbConverter. probedPlaneCopy memakai layout hasil
+ * PlaneLayout.probe seperti analyzer: satu get() bulk per plane, tanpa memisah chroma VU.
+ */
+@State(Scope.Thread)
+public class YuvConversionBenchmark {
+
+    @Param({"640x480", "1280x720"})
+    public String resolution;
+
+    @Param({"SEMI_PLANAR", "PLANAR"})
+    public SyntheticFrame.Layout layout;
+
+    private SyntheticFrame frame;
+    private PlaneLayout planeLayout;
+    private final YuvFrame yuvFrame = new YuvFrame();
+    private final YuvToRgbConverter converter = new YuvToRgbConverter();
+
+    @Setup
+    public void setUp() {
+        String[] size = resolution.split("x");
+        frame = SyntheticFrame.create(Integer.parseInt(size[0]), Integer.parseInt(size[1]), layout);
+        planeLayout = PlaneLayout.probe(frame.y, frame.yRowStride, frame.yPixelStride,
+                frame.u, frame.v, frame.uvRowStride, frame.uvPixelStride, frame.width, frame.height);
+    }
+
+    @Benchmark
+    public byte[] legacyNv21Copy() {
+        return LegacyPipeline.toNv21(frame);
+    }
+
+    @Benchmark
+    public int[] legacyRgbConversion() {
+        return LegacyPipeline.toArgbAlternative(frame);
+    }
+
+    @Benchmark
+    public YuvFrame planeCopy() {
+        copy();
+        return yuvFrame;
+    }
+
+    @Benchmark
+    public int[] planeCopyAndRgbConversion() {
+        copy();
+        return converter.convert(yuvFrame);
+    }
+
+    @Benchmark
+    public YuvFrame probedPlaneCopy() {
+        yuvFrame.copyFrom(planeLayout, frame.y, frame.u, frame.v);
+        return yuvFrame;
+    }
+
+    @Benchmark
+    public int[] probedPlaneCopyAndRgbConversion() {
+        yuvFrame.copyFrom(planeLayout, frame.y, frame.u, frame.v);
+        return converter.convert(yuvFrame);
+    }
+
+    private void copy() {
+        yuvFrame.copyFrom(frame.y, frame.yRowStride, frame.yPixelStride,
+                frame.u, frame.v, frame.uvRowStride, frame.uvPixelStride,
+                frame.width, frame.height);
+    }
+}
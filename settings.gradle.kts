@@ -21,3 +21,4 @@ dependencyResolutionManagement {
 
 rootProject.name = "SmartWaste"
 include(":app")
+include(":benchmark")